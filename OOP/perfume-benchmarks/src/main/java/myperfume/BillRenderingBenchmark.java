@@ -0,0 +1,58 @@
+package myperfume;
+
+// Import required packages
+import java.nio.ByteBuffer;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+// BillRenderingBenchmark class measuring bill rendering in every format and Order.calculateTotal for different order sizes
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BillRenderingBenchmark {
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    public int lines;
+
+    @Param({"TEXT", "CSV", "JSON"})
+    public String formatName; // a String, the generated JMH code lives in another package and BillFormat is package-private
+
+    BillFormat format;
+    Order order;
+
+    // Method to build an order with the given number of distinct lines
+    @Setup(Level.Trial)
+    public void setUp() {
+        format = BillFormat.valueOf(formatName);
+        Inventory inventory = new Inventory();
+        order = new InStoreOrder(new Customer("Benchmark", "000"), NewMyPerfumeSystem.stores.main());
+        for (int i = 0; i < lines; i++) {
+            Perfume p = new Perfume("Perfume " + i, Money.ofRinggit(10 + i % 90), 100);
+            inventory.add(p);
+            order.addPerfume(p, 1 + i % 3);
+        }
+    }
+
+    // Rendering into a pooled buffer the way generateBill does, -prof gc should show no allocation that grows with the line count
+    @Benchmark
+    public int renderIntoPooledBuffer() {
+        ByteBuffer bill = format.renderer().render(order);
+        int size = bill.remaining();
+        BillOutput.release(bill);
+        return size;
+    }
+
+    // Rendering to a String, as renderBill does for callers that want text
+    @Benchmark
+    public String renderToString() {
+        return order.renderBill(format);
+    }
+
+    @Benchmark
+    public long calculateTotal() {
+        return order.calculateTotal();
+    }
+}
@@ -0,0 +1,72 @@
+package myperfume;
+
+// Import required packages
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+// InventoryLookupBenchmark class measuring SKU lookups, stock updates and name searches on a large inventory,
+// with perfumes kept as objects or as columns (see PerfumeColumns)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InventoryLookupBenchmark {
+
+    @Param({"100000"})
+    public int perfumes;
+
+    @Param({"objects", "columnar"})
+    public String backend;
+
+    Inventory inventory;
+    PerfumeIndex index;
+    String[] names;
+
+    // Method to fill the inventory and build the name index
+    @Setup(Level.Trial)
+    public void setUp() {
+        inventory = new Inventory(null, backend.equals("columnar"));
+        index = new PerfumeIndex(inventory);
+        names = new String[perfumes];
+        for (int i = 0; i < perfumes; i++) {
+            names[i] = "Scent " + i + " Eau de Parfum";
+            inventory.add(new Perfume(names[i], Money.ofRinggit(10 + i % 90), 100));
+        }
+    }
+
+    // ThreadState class giving each thread its own random SKUs
+    @State(Scope.Thread)
+    public static class ThreadState {
+        SplittableRandom random = new SplittableRandom(7);
+    }
+
+    @Benchmark
+    public Object getBySku(ThreadState state) {
+        return inventory.get(state.random.nextInt(perfumes));
+    }
+
+    @Benchmark
+    public long reserveAndRelease(ThreadState state) {
+        Perfume p = inventory.get(state.random.nextInt(perfumes));
+        if (p.tryReserve(1)) p.releaseStock(1);
+        return p.getStockQuantity();
+    }
+
+    @Benchmark
+    public Object findExact(ThreadState state) {
+        return index.findExact(names[state.random.nextInt(perfumes)]);
+    }
+
+    @Benchmark
+    public Object findByPrefix(ThreadState state) {
+        return index.findByPrefix("scent " + state.random.nextInt(1000), 20);
+    }
+
+    @Benchmark
+    public Object findFuzzy(ThreadState state) {
+        return index.findFuzzy("scnet " + state.random.nextInt(perfumes), 2, 20);
+    }
+}
@@ -0,0 +1,120 @@
+package myperfume;
+
+// Import required packages
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+// OrderAggregationBenchmark class comparing the old nested-loop bill aggregation with the SKU-keyed order lines
+// The same random order is built both ways: the old parallel lists of perfumes and quantities, and an Order
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderAggregationBenchmark {
+
+    @Param({"10000"})
+    public int lines;
+
+    @Param({"2000"})
+    public int perfumes;
+
+    Inventory inventory;
+    int[] skus;
+    int[] quantities;
+    ArrayList<Perfume> legacyPerfumes;
+    ArrayList<Integer> legacyQuantities;
+    Order order;
+
+    // Method to build the order both ways and check that both bills list the same lines
+    @Setup(Level.Trial)
+    public void setUp() {
+        inventory = new Inventory();
+        for (int i = 0; i < perfumes; i++) {
+            inventory.add(new Perfume("Perfume " + i, Money.ofRinggit(10 + i % 90), Integer.MAX_VALUE));
+        }
+        Random random = new Random(42);
+        skus = new int[lines];
+        quantities = new int[lines];
+        legacyPerfumes = new ArrayList<>(lines);
+        legacyQuantities = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            skus[i] = random.nextInt(perfumes);
+            quantities[i] = 1 + random.nextInt(3);
+            legacyPerfumes.add(inventory.get(skus[i]));
+            legacyQuantities.add(quantities[i]);
+        }
+        order = addLines();
+
+        String legacy = legacyRender(legacyPerfumes, legacyQuantities);
+        String current = order.renderBill();
+        if (!legacy.substring(legacy.indexOf("\n\n")).equals(current.substring(current.indexOf("\n\n")))) {
+            throw new IllegalStateException("Bills differ between the nested loop and the order lines.");
+        }
+    }
+
+    // Method to give back the stock held by the measured order
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        order.cancel();
+    }
+
+    // The original generateBill: a nested loop over every line plus ArrayList.contains, O(lines^2)
+    @Benchmark
+    public String nestedLoopRender() {
+        return legacyRender(legacyPerfumes, legacyQuantities);
+    }
+
+    // The order lines are merged as they are added, so the bill is one pass over the distinct perfumes
+    @Benchmark
+    public String orderLinesRender() {
+        return order.renderBill();
+    }
+
+    // Adding every line to a new order, merging repeated perfumes through the SKU index; the stock goes back after
+    @Benchmark
+    public int addLinesAndCancel() {
+        Order added = addLines();
+        int distinct = added.getLines().size();
+        added.cancel();
+        return distinct;
+    }
+
+    // Method to add the benchmark lines to a new order
+    private Order addLines() {
+        Order added = new InStoreOrder(new Customer("Benchmark", "000"), NewMyPerfumeSystem.stores.main());
+        for (int i = 0; i < lines; i++) {
+            added.addPerfume(inventory.get(skus[i]), quantities[i]);
+        }
+        return added;
+    }
+
+    // Method reproducing the original generateBill aggregation (nested loop plus ArrayList.contains)
+    private static String legacyRender(ArrayList<Perfume> perfumes, ArrayList<Integer> quantities) {
+        StringBuilder billContent = new StringBuilder();
+        billContent.append("=== Bill ===\n\n");
+        ArrayList<String> printed = new ArrayList<>();
+        double grandTotal = 0;
+        for (int i = 0; i < perfumes.size(); i++) {
+            Perfume p = perfumes.get(i);
+            int qty = 0;
+            for (int j = 0; j < perfumes.size(); j++) {
+                if (perfumes.get(j).getName().equals(p.getName()) && !printed.contains(p.getName())) {
+                    qty += quantities.get(j);
+                }
+            }
+            if (!printed.contains(p.getName())) {
+                double price = p.getPriceSen() / 100.0;
+                double subtotal = price * qty;
+                billContent.append(String.format("%-20s x%-3d @ RM%.2f = RM%.2f\n",
+                        p.getName(), qty, price, subtotal));
+                printed.add(p.getName());
+                grandTotal += subtotal;
+            }
+        }
+        billContent.append(String.format("\nTotal: RM%.2f\n", grandTotal));
+        return billContent.toString();
+    }
+}
@@ -0,0 +1,81 @@
+package myperfume;
+
+// Import required packages
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+// OrderPlacementBenchmark class measuring Perfume.addSales and Order.addPerfume from one and many threads
+// Contended runs share one inventory, so they show how stock reservation and the sales totals scale
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderPlacementBenchmark {
+    private static final int STOCK = 1_000_000_000;
+
+    @Param({"16", "10000"})
+    public int perfumes; // few perfumes means more threads hitting the same SKU
+
+    Inventory inventory;
+
+    // Method to create the shared inventory
+    @Setup(Level.Trial)
+    public void setUp() {
+        inventory = new Inventory();
+        for (int i = 0; i < perfumes; i++) {
+            inventory.add(new Perfume("Perfume " + i, Money.ofRinggit(10 + i % 90), STOCK));
+        }
+    }
+
+    // Method to top the stock back up so long runs never hit "Not enough stock"
+    @Setup(Level.Iteration)
+    public void restock() {
+        for (Perfume p : inventory) {
+            p.setNewStockQuantity(STOCK);
+        }
+    }
+
+    // ThreadState class giving each thread its own random SKUs and customer
+    @State(Scope.Thread)
+    public static class ThreadState {
+        SplittableRandom random = new SplittableRandom(42);
+        Customer customer = new Customer("Benchmark", "000");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long addSalesSingleThread(ThreadState state) {
+        return inventory.get(state.random.nextInt(perfumes)).addSales(1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long addSalesFourThreads(ThreadState state) {
+        return inventory.get(state.random.nextInt(perfumes)).addSales(1);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object placeOrderSingleThread(ThreadState state) {
+        return placeOrder(state);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object placeOrderFourThreads(ThreadState state) {
+        return placeOrder(state);
+    }
+
+    // Method to place a five line order the way makeOrder does: reserve each line, then commit them together
+    private Object placeOrder(ThreadState state) {
+        Order order = new OnlineOrder(state.customer, "1, Jalan Benchmark");
+        for (int i = 0; i < 5; i++) {
+            order.addPerfume(inventory.get(state.random.nextInt(perfumes)), 1 + state.random.nextInt(3));
+        }
+        order.commit();
+        return order;
+    }
+}
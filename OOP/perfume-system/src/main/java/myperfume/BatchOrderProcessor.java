@@ -0,0 +1,230 @@
+package myperfume;
+
+// Import required packages
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// BatchOrderProcessor class replaying an order file without the interactive menus
+// One order per line: type,customer name,contact,address,items
+//   type    O (Online) or I (InStore)
+//   address delivery address for Online orders, store number or name for InStore orders (empty for the main store)
+//   items   SKU:quantity pairs separated by ';', e.g. 0:2;5:1
+// Lines are read on one thread and parsed, checked and placed in chunks on a pool sized to the cores
+// Each order is placed whole or not at all: if any item is out of stock the whole order is rejected
+class BatchOrderProcessor {
+    private static final int CHUNK_SIZE = 2048;
+    private static final int MAX_ERRORS_SHOWN = 20;
+
+    private final Inventory inventory;
+    private final Path billDir; // null when no bill files are wanted
+    private final int threads;
+
+    // Totals shared by the workers
+    private final LongAdder orders = new LongAdder();
+    private final LongAdder onlineOrders = new LongAdder();
+    private final LongAdder inStoreOrders = new LongAdder();
+    private final LongAdder rejectedOrders = new LongAdder();
+    private final LongAdder items = new LongAdder();
+    private final LongAdder rejectedItems = new LongAdder();
+    private final LongAdder units = new LongAdder();
+    private final LongAdder revenueSen = new LongAdder();
+    private final AtomicInteger errorsShown = new AtomicInteger();
+
+    // Constructor to create a batch processor
+    public BatchOrderProcessor(Inventory inventory, Path billDir, int threads) {
+        this.inventory = inventory;
+        this.billDir = billDir;
+        this.threads = Math.max(1, threads);
+    }
+
+    // Method to process an order file and write a summary report next to it
+    public void process(Path orderFile) throws IOException, InterruptedException {
+        if (billDir != null) Files.createDirectories(billDir);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "batch-order");
+            t.setDaemon(true);
+            return t;
+        });
+        Semaphore inFlight = new Semaphore(threads * 2); // keeps the reader from loading the whole file
+        long start = System.nanoTime();
+        long lineNumber = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(orderFile, StandardCharsets.UTF_8)) {
+            ArrayList<String> chunk = new ArrayList<>(CHUNK_SIZE);
+            long chunkStart = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                chunk.add(line);
+                if (chunk.size() == CHUNK_SIZE) {
+                    submit(pool, inFlight, chunk, chunkStart);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                    chunkStart = lineNumber + 1;
+                }
+            }
+            if (!chunk.isEmpty()) submit(pool, inFlight, chunk, chunkStart);
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        String report = report(orderFile, lineNumber, seconds);
+        System.out.print(report);
+        Path reportFile = orderFile.resolveSibling(orderFile.getFileName() + ".summary.txt");
+        Files.write(reportFile, report.getBytes(StandardCharsets.UTF_8));
+        System.out.println("Summary written to " + reportFile);
+    }
+
+    // Method to hand one chunk to the pool, waiting while too many chunks are queued
+    private void submit(ExecutorService pool, Semaphore inFlight, List<String> chunk, long firstLine) throws InterruptedException {
+        inFlight.acquire();
+        pool.execute(() -> {
+            try {
+                for (int i = 0; i < chunk.size(); i++) {
+                    try {
+                        processLine(chunk.get(i), firstLine + i);
+                    } catch (RuntimeException e) {
+                        reject(firstLine + i, "Failed to place order: " + e); // count it and go on with the chunk
+                    }
+                }
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    // Method to parse, check and place one order
+    private void processLine(String line, long lineNumber) {
+        if (line.isBlank() || line.startsWith("#")) return;
+        String[] fields = line.split(",", -1);
+        if (fields.length != 5) {
+            reject(lineNumber, "Expected type,name,contact,address,items.");
+            return;
+        }
+        String type = fields[0].trim().toUpperCase();
+        String name = fields[1].trim();
+        String contact = fields[2].trim();
+        String address = fields[3].trim();
+        if (!type.equals("O") && !type.equals("I")) {
+            reject(lineNumber, "Order type must be O or I.");
+            return;
+        }
+        if (name.isEmpty()) {
+            reject(lineNumber, "Customer name cannot be empty.");
+            return;
+        }
+        if (type.equals("O") && address.isEmpty()) {
+            reject(lineNumber, "Online orders need a delivery address.");
+            return;
+        }
+
+        // Check every item before placing any of them
+        String[] pairs = fields[4].split(";");
+        int[] skus = new int[pairs.length];
+        int[] quantities = new int[pairs.length];
+        for (int i = 0; i < pairs.length; i++) {
+            int colon = pairs[i].indexOf(':');
+            try {
+                if (colon < 0) throw new NumberFormatException();
+                skus[i] = Integer.parseInt(pairs[i].substring(0, colon).trim());
+                quantities[i] = Integer.parseInt(pairs[i].substring(colon + 1).trim());
+            } catch (NumberFormatException e) {
+                reject(lineNumber, "Invalid item \"" + pairs[i] + "\", expected SKU:quantity.");
+                return;
+            }
+            if (skus[i] < 0 || skus[i] >= inventory.size()) {
+                reject(lineNumber, "Unknown SKU " + skus[i] + ".");
+                return;
+            }
+            if (quantities[i] <= 0) {
+                reject(lineNumber, "Quantity must more than 0.");
+                return;
+            }
+        }
+
+        Store store = null;
+        if (type.equals("I")) {
+            store = address.isEmpty() ? NewMyPerfumeSystem.stores.main() : NewMyPerfumeSystem.stores.find(address);
+            if (store == null) {
+                reject(lineNumber, "Unknown store \"" + address + "\".");
+                return;
+            }
+        }
+        long start = System.nanoTime();
+        Customer customer = NewMyPerfumeSystem.customers.register(name, contact);
+        Order order = type.equals("O")
+                ? new OnlineOrder(customer, address)
+                : new InStoreOrder(customer, store);
+        int orderUnits = 0;
+        for (int i = 0; i < skus.length; i++) {
+            try {
+                order.addPerfume(inventory.get(skus[i]), quantities[i]);
+                orderUnits += quantities[i];
+            } catch (IllegalArgumentException e) {
+                order.cancel(); // all or nothing, the items already reserved go back
+                rejectedItems.add(skus.length);
+                reject(lineNumber, e.getMessage() + ", order rejected.");
+                return;
+            }
+        }
+
+        String billId;
+        try {
+            billId = order.complete();
+        } catch (IllegalStateException e) {
+            rejectedItems.add(skus.length);
+            reject(lineNumber, e.getMessage() + ", order rejected."); // expired while placing, or the history is full
+            return;
+        }
+        items.add(skus.length);
+        units.add(orderUnits);
+        orders.increment();
+        (type.equals("O") ? onlineOrders : inStoreOrders).increment();
+        revenueSen.add(order.calculateTotal());
+        if (billDir != null) {
+            try {
+                order.generateBill(billDir.resolve(NewMyPerfumeSystem.billFormat.fileName(billId)).toString());
+            } catch (IllegalStateException e) {
+                showError(lineNumber, "Order placed but its bill was not written: " + e.getMessage()); // bill writer closing
+            }
+        }
+        NewMyPerfumeSystem.hotPathMetrics.orderPlaced(System.nanoTime() - start);
+    }
+
+    // Method to count an order that could not be placed at all
+    private void reject(long lineNumber, String reason) {
+        rejectedOrders.increment();
+        showError(lineNumber, reason);
+    }
+
+    // Method to print the first few problems so a bad file does not flood the console
+    private void showError(long lineNumber, String reason) {
+        int shown = errorsShown.incrementAndGet();
+        if (shown <= MAX_ERRORS_SHOWN) {
+            System.out.println("Line " + lineNumber + ": " + reason);
+        } else if (shown == MAX_ERRORS_SHOWN + 1) {
+            System.out.println("More problems found, see the summary for totals.");
+        }
+    }
+
+    // Method to build the summary report
+    private String report(Path orderFile, long lines, double seconds) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== Batch Summary for ").append(orderFile.getFileName()).append(" ===\n");
+        sb.append(String.format("Lines read:        %d\n", lines));
+        sb.append(String.format("Orders placed:     %d (Online %d, InStore %d)\n", orders.sum(), onlineOrders.sum(), inStoreOrders.sum()));
+        sb.append(String.format("Orders rejected:   %d\n", rejectedOrders.sum()));
+        sb.append(String.format("Items placed:      %d (%d units)\n", items.sum(), units.sum()));
+        sb.append(String.format("Items rejected:    %d\n", rejectedItems.sum()));
+        sb.append(String.format("Revenue:           RM%s\n", Money.format(revenueSen.sum())));
+        sb.append(String.format("Threads:           %d\n", threads));
+        sb.append(String.format("Elapsed:           %.3f s\n", seconds));
+        sb.append(String.format("Throughput:        %.0f lines/s, %.0f orders/s\n", lines / seconds, orders.sum() / seconds));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,564 @@
+package myperfume;
+
+// Import required packages
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.regex.*;
+import java.util.zip.*;
+
+// BillArchive class appending bills to a few large segment files instead of writing one small file per bill
+// Files in the archive directory, for segment number n:
+//   bills-n.seg    records appended one after another: int length, int CRC-32 of the rest, short name length,
+//                  the bill name (UTF-8) and the bill bytes
+//   bills-n.idx    sidecar index, one entry per record: long name hash, long position in the segment, int length
+//   bills-n.segz   the segment once compacted: 64 KB blocks compressed one by one, then a table of where each
+//                  block starts, so positions in the index stay valid and any bill is one read and an inflate away
+// Bills are only appended by one thread (the bill writer) and the segment rotates at segmentBytes; sealed segments
+// are compressed on a background thread. All index entries are loaded at startup into a table of hashes, 20 bytes
+// a slot and at most half full, so 40 to 80 bytes a bill, and records the index lost in a crash are found again by
+// scanning the end of the segment
+// Reads never touch the channel bills are appended through: a thread interrupted during a read closes the channel it
+// was reading, and that must not stop the bill writer
+class BillArchive implements Closeable {
+    private static final int RECORD_HEADER = 10;
+    private static final int INDEX_ENTRY = 20;
+    private static final int BLOCK_SIZE = 64 * 1024;
+    private static final int MAX_NAME = 1024; // bytes
+    private static final int SEGZ_MAGIC = 0x42534547; // "BSEG"
+    private static final int POSITION_BITS = 40; // a location is the segment number and the position in it
+    private static final Pattern FILE = Pattern.compile("bills-(\\d+)\\.(seg|segz|idx|segz\\.tmp)");
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final ConcurrentHashMap<Integer, Segment> segments = new ConcurrentHashMap<>();
+    private final Locations locations = new Locations();
+    private final ExecutorService compactor;
+    private final AtomicLong compactedSegments = new AtomicLong();
+    private final AtomicLong rawBytesCompacted = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+
+    // The segment being appended to, only touched by the appending thread
+    private int activeSeq;
+    private FileChannel active;
+    private FileChannel activeIndex;
+    private long activeSize;
+    private final ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER + MAX_NAME);
+    private final ByteBuffer pendingIndex = ByteBuffer.allocate(INDEX_ENTRY * 512);
+    private final CRC32 crc = new CRC32();
+    private volatile boolean closed = false;
+
+    // Constructor to open an archive directory, recovering what the last run left
+    private BillArchive(Path dir, long segmentBytes) throws IOException {
+        if (segmentBytes < BLOCK_SIZE) throw new IllegalArgumentException("Bill segments must be at least 64 KB.");
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "bill-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        Files.createDirectories(dir);
+        recover();
+    }
+
+    // Method to open an archive, segments rotate once they reach segmentBytes
+    public static BillArchive open(Path dir, long segmentBytes) throws IOException {
+        return new BillArchive(dir, segmentBytes);
+    }
+
+    // Getters for archive attributes
+    public Path getDirectory() { return dir; }
+    public int size() { return locations.size(); }
+    public int getSegmentCount() { return segments.size(); }
+    public long getCompactedSegments() { return compactedSegments.get(); }
+    public long getRawBytesCompacted() { return rawBytesCompacted.get(); }
+    public long getCompressedBytes() { return compressedBytes.get(); }
+
+    // Method to append a bill under a name; a name written again points to the newest bill
+    // Only one thread may append, reads can run at the same time
+    public void append(String name, ByteBuffer content) throws IOException {
+        if (closed) throw new IllegalStateException("Bill archive is closed.");
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        if (nameBytes.length > MAX_NAME) throw new IllegalArgumentException("Bill name is too long: " + name);
+        int length = RECORD_HEADER + nameBytes.length + content.remaining();
+        if (activeSize > 0 && activeSize + length > segmentBytes) rotate();
+
+        header.clear();
+        header.putInt(length).putInt(0).putShort((short) nameBytes.length).put(nameBytes);
+        crc.reset();
+        crc.update(header.array(), 8, 2 + nameBytes.length);
+        crc.update(content.duplicate());
+        header.putInt(4, (int) crc.getValue());
+        header.flip();
+
+        long position = activeSize;
+        ByteBuffer[] parts = {header, content};
+        try {
+            while (content.hasRemaining() || header.hasRemaining()) active.write(parts);
+        } catch (IOException e) {
+            active.truncate(position); // leave no half record for the next bill to follow
+            active.position(position);
+            throw e;
+        }
+        activeSize += length;
+        long hash = hash(name);
+        if (!pendingIndex.hasRemaining()) flush();
+        pendingIndex.putLong(hash).putLong(position).putInt(length);
+        locations.put(hash, location(activeSeq, position), length);
+    }
+
+    // Method to write the index entries of the bills appended so far
+    public void flush() throws IOException {
+        pendingIndex.flip();
+        while (pendingIndex.hasRemaining()) activeIndex.write(pendingIndex);
+        pendingIndex.clear();
+    }
+
+    // Method to push the appended bills and their index entries to the disk
+    public void force() throws IOException {
+        flush();
+        active.force(false);
+        activeIndex.force(false);
+    }
+
+    // Method to read a bill back by name, null if the archive has no such bill
+    public byte[] read(String name) throws IOException {
+        long hash = hash(name);
+        long[] found = locations.get(hash);
+        if (found == null) return null;
+        int seq = (int) (found[0] >>> POSITION_BITS);
+        long position = found[0] & ((1L << POSITION_BITS) - 1);
+        int length = (int) found[1];
+        byte[] record = null;
+        for (int attempt = 0; record == null; attempt++) {
+            Segment segment = segments.get(seq);
+            if (segment == null) return null;
+            try {
+                record = segment.read(position, length);
+            } catch (ClosedByInterruptException e) {
+                throw e; // this reader was interrupted
+            } catch (ClosedChannelException e) {
+                // compacted while we read, the new segment is in the map now, or another reader was interrupted
+                if (attempt > 0 || closed) throw e;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        int nameLength = buffer.getShort(8);
+        CRC32 check = new CRC32(); // the shared one belongs to the appending thread
+        check.update(record, 8, record.length - 8);
+        if (buffer.getInt(0) != length || buffer.getInt(4) != (int) check.getValue()) {
+            throw new IOException("Bill " + name + " is damaged in segment " + seq + ".");
+        }
+        if (!new String(record, RECORD_HEADER, nameLength, StandardCharsets.UTF_8).equals(name)) return null; // hash clash
+        return Arrays.copyOfRange(record, RECORD_HEADER + nameLength, record.length);
+    }
+
+    // Method to seal the active segment, queue it for compaction and start the next one
+    private void rotate() throws IOException {
+        force();
+        active.close();
+        activeIndex.close();
+        int sealed = activeSeq;
+        compactor.execute(() -> compact(sealed));
+        startSegment(activeSeq + 1, 0);
+    }
+
+    // Method to open segment seq for appending, its first size bytes are already in use
+    private void startSegment(int seq, long size) throws IOException {
+        activeSeq = seq;
+        active = FileChannel.open(path(seq, "seg"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        active.position(size);
+        activeSize = size;
+        activeIndex = FileChannel.open(path(seq, "idx"), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segments.put(seq, new RawSegment(path(seq, "seg"))); // its own read-only channel, see the class comment
+    }
+
+    // Method to load every segment and index left by earlier runs
+    private void recover() throws IOException {
+        TreeSet<Integer> seqs = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "bills-*")) {
+            for (Path file : files) {
+                Matcher m = FILE.matcher(file.getFileName().toString());
+                if (!m.matches()) continue;
+                if (m.group(2).equals("segz.tmp")) Files.delete(file); // a compaction that did not finish
+                else seqs.add(Integer.parseInt(m.group(1)));
+            }
+        }
+        int last = seqs.isEmpty() ? 0 : seqs.last();
+        for (int seq : seqs) {
+            if (Files.exists(path(seq, "segz"))) {
+                Files.deleteIfExists(path(seq, "seg")); // compacted, the run stopped before deleting the original
+                CompressedSegment segment = CompressedSegment.open(path(seq, "segz"));
+                segments.put(seq, segment);
+                loadIndex(seq, segment.rawLength);
+            } else if (Files.exists(path(seq, "seg"))) {
+                long end = recoverRaw(seq);
+                if (seq == last && end < segmentBytes) {
+                    startSegment(seq, end); // keep filling the last segment
+                    return;
+                }
+                segments.put(seq, new RawSegment(path(seq, "seg")));
+                compactor.execute(() -> compact(seq));
+            } else {
+                Files.delete(path(seq, "idx"));
+            }
+        }
+        startSegment(last + 1, 0);
+    }
+
+    // Method to load an uncompacted segment's index and find the records appended after its last entry,
+    // returns where the good records end; a half written record at the end is cut off
+    private long recoverRaw(int seq) throws IOException {
+        try (FileChannel channel = FileChannel.open(path(seq, "seg"), StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileChannel index = FileChannel.open(path(seq, "idx"), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long size = channel.size();
+            long position = loadIndex(seq, size);
+            ByteBuffer head = ByteBuffer.allocate(RECORD_HEADER);
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY);
+            while (position + RECORD_HEADER <= size) {
+                head.clear();
+                readFully(channel, head, position);
+                int length = head.getInt(0);
+                if (length < RECORD_HEADER || position + length > size) break;
+                byte[] record = new byte[length];
+                readFully(channel, ByteBuffer.wrap(record), position);
+                CRC32 check = new CRC32();
+                check.update(record, 8, length - 8);
+                int nameLength = head.getShort(8);
+                if (head.getInt(4) != (int) check.getValue() || nameLength < 0 || RECORD_HEADER + nameLength > length) break;
+                long hash = hash(new String(record, RECORD_HEADER, nameLength, StandardCharsets.UTF_8));
+                locations.put(hash, location(seq, position), length);
+                entry.clear();
+                entry.putLong(hash).putLong(position).putInt(length).flip();
+                while (entry.hasRemaining()) index.write(entry);
+                position += length;
+            }
+            if (position < size) {
+                System.out.println("Bill archive segment " + seq + ": dropped " + (size - position) + " bytes of a bill that was not fully written.");
+                channel.truncate(position);
+            }
+            return position;
+        }
+    }
+
+    // Method to load a segment's index entries that fit in its first limit bytes, returns where the last one ends
+    private long loadIndex(int seq, long limit) throws IOException {
+        Path file = path(seq, "idx");
+        if (!Files.exists(file)) return 0;
+        long end = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long entries = channel.size() / INDEX_ENTRY;
+            ByteBuffer buffer = ByteBuffer.allocate(INDEX_ENTRY * 4096);
+            long read = 0;
+            long kept = 0;
+            boolean valid = true;
+            while (read < entries && valid) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), (entries - read) * INDEX_ENTRY));
+                readFully(channel, buffer, read * INDEX_ENTRY);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    long hash = buffer.getLong();
+                    long position = buffer.getLong();
+                    int length = buffer.getInt();
+                    read++;
+                    if (position != end || length < RECORD_HEADER || position + length > limit) {
+                        valid = false; // entries run ahead of the records that reached the disk
+                        break;
+                    }
+                    locations.put(hash, location(seq, position), length);
+                    end = position + length;
+                    kept++;
+                }
+            }
+            if (channel.size() != kept * INDEX_ENTRY) channel.truncate(kept * INDEX_ENTRY);
+        }
+        return end;
+    }
+
+    // Method run on the compactor thread to compress a sealed segment
+    private void compact(int seq) {
+        Segment original = segments.get(seq);
+        if (!(original instanceof RawSegment) || closed) return;
+        Path raw = path(seq, "seg");
+        Path temp = path(seq, "segz.tmp");
+        try {
+            long compressed;
+            long rawLength;
+            try (FileChannel in = FileChannel.open(raw, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                rawLength = in.size();
+                int blocks = (int) ((rawLength + BLOCK_SIZE - 1) / BLOCK_SIZE);
+                long[] offsets = new long[blocks + 1];
+                ByteBuffer head = ByteBuffer.allocate(8).putInt(SEGZ_MAGIC).putInt(BLOCK_SIZE);
+                head.flip();
+                while (head.hasRemaining()) out.write(head);
+                long position = 8;
+                ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+                byte[] packed = new byte[BLOCK_SIZE + BLOCK_SIZE / 8 + 64];
+                Deflater deflater = new Deflater();
+                try {
+                    for (int b = 0; b < blocks; b++) {
+                        if (closed) throw new InterruptedIOException("Bill archive closed during compaction.");
+                        block.clear();
+                        block.limit((int) Math.min(BLOCK_SIZE, rawLength - (long) b * BLOCK_SIZE));
+                        readFully(in, block, (long) b * BLOCK_SIZE);
+                        deflater.reset();
+                        deflater.setInput(block.array(), 0, block.limit());
+                        deflater.finish();
+                        int filled = 0;
+                        while (!deflater.finished()) {
+                            if (filled == packed.length) packed = Arrays.copyOf(packed, packed.length * 2);
+                            filled += deflater.deflate(packed, filled, packed.length - filled);
+                        }
+                        offsets[b] = position;
+                        ByteBuffer out1 = ByteBuffer.wrap(packed, 0, filled);
+                        while (out1.hasRemaining()) out.write(out1);
+                        position += filled;
+                    }
+                } finally {
+                    deflater.end();
+                }
+                offsets[blocks] = position;
+                ByteBuffer footer = ByteBuffer.allocate(12 + offsets.length * 8 + 8);
+                footer.putLong(rawLength).putInt(blocks);
+                for (long offset : offsets) footer.putLong(offset);
+                footer.putLong(position).flip();
+                while (footer.hasRemaining()) out.write(footer);
+                out.force(true);
+                compressed = position + footer.capacity();
+            }
+            Files.move(temp, path(seq, "segz"), StandardCopyOption.ATOMIC_MOVE);
+            segments.put(seq, CompressedSegment.open(path(seq, "segz")));
+            original.close();
+            Files.delete(raw);
+            compactedSegments.incrementAndGet();
+            rawBytesCompacted.addAndGet(rawLength);
+            compressedBytes.addAndGet(compressed);
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // removed on the next start
+            }
+            if (!closed) System.out.println("Failed to compact bill segment " + seq + ": " + e.getMessage());
+        }
+    }
+
+    // Method to finish writing and close every segment, a compaction in progress is left for the next run
+    public void close() {
+        if (closed) return;
+        closed = true;
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            force();
+            active.close();
+            activeIndex.close();
+        } catch (IOException e) {
+            System.out.println("Failed to close bill archive: " + e.getMessage());
+        }
+        for (Segment segment : segments.values()) segment.close();
+    }
+
+    private Path path(int seq, String extension) {
+        return dir.resolve(String.format("bills-%06d.%s", seq, extension));
+    }
+
+    private static long location(int seq, long position) {
+        if (position >= 1L << POSITION_BITS) throw new IllegalStateException("Bill segment is too large.");
+        return (long) seq << POSITION_BITS | position;
+    }
+
+    // Method to hash a bill name to 64 bits (FNV-1a), a clash is caught by comparing the name in the record
+    static long hash(String name) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            h ^= name.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h == 0 ? 1 : h; // 0 marks a free slot
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) throw new EOFException("Bill archive file ends early.");
+            position += n;
+        }
+    }
+
+    // Segment class reading records back from one segment file
+    private abstract static class Segment {
+        abstract byte[] read(long position, int length) throws IOException;
+
+        abstract void close();
+    }
+
+    // RawSegment class for a segment that is still being appended to or waits for compaction
+    // It reads through its own read-only channel, opened again if an interrupted reader closed it
+    private static class RawSegment extends Segment {
+        private final Path file;
+        private FileChannel channel; // guarded by this
+        private boolean closed = false;
+
+        RawSegment(Path file) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        }
+
+        byte[] read(long position, int length) throws IOException {
+            byte[] record = new byte[length];
+            readFully(channel(), ByteBuffer.wrap(record), position);
+            return record;
+        }
+
+        private synchronized FileChannel channel() throws IOException {
+            if (!channel.isOpen() && !closed) channel = FileChannel.open(file, StandardOpenOption.READ);
+            return channel;
+        }
+
+        synchronized void close() {
+            closed = true;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.out.println("Failed to close bill segment: " + e.getMessage());
+            }
+        }
+    }
+
+    // CompressedSegment class for a compacted segment, a record is read with the blocks it spans in one read
+    private static class CompressedSegment extends Segment {
+        private final FileChannel channel;
+        private final long rawLength;
+        private final long[] offsets; // where each block starts in the file, then where the last one ends
+
+        private CompressedSegment(FileChannel channel, long rawLength, long[] offsets) {
+            this.channel = channel;
+            this.rawLength = rawLength;
+            this.offsets = offsets;
+        }
+
+        static CompressedSegment open(Path file) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                ByteBuffer head = ByteBuffer.allocate(8);
+                readFully(channel, head, 0);
+                ByteBuffer tail = ByteBuffer.allocate(8);
+                readFully(channel, tail, channel.size() - 8);
+                long footerStart = tail.getLong(0);
+                if (head.getInt(0) != SEGZ_MAGIC || head.getInt(4) != BLOCK_SIZE || footerStart < 8 || footerStart > channel.size() - 20) {
+                    throw new IOException(file + " is not a compacted bill segment.");
+                }
+                ByteBuffer footer = ByteBuffer.allocate((int) (channel.size() - 8 - footerStart));
+                readFully(channel, footer, footerStart);
+                footer.flip();
+                long rawLength = footer.getLong();
+                int blocks = footer.getInt();
+                if (blocks < 0 || footer.remaining() != (blocks + 1) * 8) throw new IOException(file + " has a damaged block table.");
+                long[] offsets = new long[blocks + 1];
+                for (int i = 0; i <= blocks; i++) offsets[i] = footer.getLong();
+                return new CompressedSegment(channel, rawLength, offsets);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        byte[] read(long position, int length) throws IOException {
+            int first = (int) (position / BLOCK_SIZE);
+            int last = (int) ((position + length - 1) / BLOCK_SIZE);
+            if (last + 1 >= offsets.length) throw new IOException("Bill is past the end of its segment.");
+            long start = offsets[first];
+            byte[] packed = new byte[(int) (offsets[last + 1] - start)];
+            readFully(channel, ByteBuffer.wrap(packed), start); // the one read
+            byte[] raw = new byte[(last - first + 1) * BLOCK_SIZE];
+            int filled = 0;
+            Inflater inflater = new Inflater();
+            try {
+                for (int b = first; b <= last; b++) {
+                    inflater.reset();
+                    inflater.setInput(packed, (int) (offsets[b] - start), (int) (offsets[b + 1] - offsets[b]));
+                    while (!inflater.finished()) {
+                        int n = inflater.inflate(raw, filled, raw.length - filled);
+                        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) throw new IOException("Bill segment block " + b + " is damaged.");
+                        filled += n;
+                    }
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Bill segment block is damaged: " + e.getMessage());
+            } finally {
+                inflater.end();
+            }
+            int from = (int) (position - (long) first * BLOCK_SIZE);
+            return Arrays.copyOfRange(raw, from, from + length);
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.out.println("Failed to close bill segment: " + e.getMessage());
+            }
+        }
+    }
+
+    // Locations class mapping name hashes to locations and lengths, open addressing over primitive arrays
+    private static class Locations {
+        private long[] keys = new long[1024];
+        private long[] locations = new long[1024];
+        private int[] lengths = new int[1024];
+        private int count;
+
+        synchronized void put(long hash, long location, int length) {
+            if ((count + 1) * 2 > keys.length) grow();
+            int slot = slot(keys, hash);
+            if (keys[slot] == 0) count++;
+            keys[slot] = hash;
+            locations[slot] = location;
+            lengths[slot] = length;
+        }
+
+        // Method to get {location, length} for a hash, null if there is none
+        synchronized long[] get(long hash) {
+            int slot = slot(keys, hash);
+            return keys[slot] == 0 ? null : new long[] {locations[slot], lengths[slot]};
+        }
+
+        synchronized int size() { return count; }
+
+        private static int slot(long[] keys, long hash) {
+            int mask = keys.length - 1;
+            int slot = (int) (hash ^ (hash >>> 32)) & mask;
+            while (keys[slot] != 0 && keys[slot] != hash) slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldLocations = locations;
+            int[] oldLengths = lengths;
+            keys = new long[oldKeys.length * 2];
+            locations = new long[keys.length];
+            lengths = new int[keys.length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == 0) continue;
+                int slot = slot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                locations[slot] = oldLocations[i];
+                lengths[slot] = oldLengths[i];
+            }
+        }
+    }
+}
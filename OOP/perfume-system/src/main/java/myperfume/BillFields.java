@@ -0,0 +1,8 @@
+package myperfume;
+
+// BillFields interface receiving the fields printed under a bill's title
+// Each order type adds its own (see Order.headerFields), so the renderer never needs to know which type it has
+interface BillFields {
+    // key names the field in JSON bills, label is what text and CSV bills print
+    void add(String key, String label, String value);
+}
@@ -0,0 +1,55 @@
+package myperfume;
+
+// BillFormat enum listing the bill layouts, each compiled once into a BillRenderer
+//   TEXT  the printed bill customers get
+//   CSV   header fields as label,value rows, then one row per perfume, for spreadsheets
+//   JSON  one object per bill with the header fields, lines and total, for accounting ingest
+enum BillFormat {
+    TEXT("txt", new BillRenderer(BillRenderer.Escape.NONE,
+            "=== Bill for ${customer} (${type} Order) ===\n",
+            "${label}: ${value}\n",
+            "\n",
+            "${perfume:-20} x${quantity:-3} @ RM${price} = RM${subtotal}\n", "",
+            "\nTotal: RM${total}\n")),
+    CSV("csv", new BillRenderer(BillRenderer.Escape.CSV,
+            "Customer,${customer}\nOrder Type,${type}\n",
+            "${label},${value}\n",
+            "\nSKU,Perfume,Quantity,Price,Subtotal\n",
+            "${sku},${perfume},${quantity},${price},${subtotal}\n", "",
+            ",,,Total,${total}\n")),
+    JSON("json", new BillRenderer(BillRenderer.Escape.JSON,
+            "{\"customer\":${customer},\"type\":${type}",
+            ",${key}:${value}",
+            ",\"lines\":[",
+            "{\"sku\":${sku},\"perfume\":${perfume},\"quantity\":${quantity},\"price\":\"${price}\",\"subtotal\":\"${subtotal}\"}", ",",
+            "],\"total\":\"${total}\"}\n"));
+
+    private final String extension;
+    private final BillRenderer renderer;
+
+    BillFormat(String extension, BillRenderer renderer) {
+        this.extension = extension;
+        this.renderer = renderer;
+    }
+
+    // Getters for format attributes
+    public String getExtension() { return extension; }
+    public BillRenderer renderer() { return renderer; }
+
+    // Method to get the bill file name for a bill ID
+    public String fileName(String billId) {
+        return billId + "_bill." + extension;
+    }
+
+    // Method to read the format from system properties
+    // -Dbill.format=text|csv|json
+    public static BillFormat fromSystemProperties() {
+        String name = System.getProperty("bill.format", "text");
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Unknown bill format " + name + ", using text.");
+            return TEXT;
+        }
+    }
+}
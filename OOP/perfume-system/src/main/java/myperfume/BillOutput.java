@@ -0,0 +1,324 @@
+package myperfume;
+
+// Import required packages
+import java.nio.ByteBuffer;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// BillOutput class writing a bill as UTF-8 bytes straight into a pooled byte buffer
+// Bills are rendered on order threads and written on the bill writer thread, which hands the buffer back with
+// release, so steady-state billing allocates no buffers and never builds the bill as a String
+class BillOutput {
+    static final int BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_POOLED = 256;
+    private static final ConcurrentLinkedQueue<ByteBuffer> POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pooled = new AtomicInteger();
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private ByteBuffer buffer;
+    private byte[] bytes; // the buffer's backing array, written by index
+    private int position;
+
+    // Constructor to start a bill in a buffer from the pool
+    BillOutput() {
+        use(acquire(BUFFER_SIZE));
+    }
+
+    // Method to take a buffer of at least size bytes from the pool, or allocate one
+    static ByteBuffer acquire(int size) {
+        if (size <= BUFFER_SIZE) {
+            ByteBuffer buffer = POOL.poll();
+            if (buffer != null) {
+                pooled.decrementAndGet();
+                return buffer.clear();
+            }
+            return ByteBuffer.allocate(BUFFER_SIZE);
+        }
+        return ByteBuffer.allocate(Integer.highestOneBit(size - 1) << 1);
+    }
+
+    // Method to give a buffer back once its bill is written, only standard size buffers are kept
+    static void release(ByteBuffer buffer) {
+        if (buffer.capacity() != BUFFER_SIZE) return; // a wholesale order's bigger buffer is left to the GC
+        if (pooled.incrementAndGet() <= MAX_POOLED) {
+            POOL.offer(buffer);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+
+    // Method to finish the bill, returns the buffer ready to be read or written to a channel
+    ByteBuffer finish() {
+        buffer.limit(position).position(0);
+        ByteBuffer done = buffer;
+        buffer = null;
+        bytes = null;
+        return done;
+    }
+
+    // Method to get how many bytes are written so far
+    int position() { return position; }
+
+    // Method to write bytes that were encoded when the layout was compiled
+    void bytes(byte[] b) {
+        ensure(b.length);
+        System.arraycopy(b, 0, bytes, position, b.length);
+        position += b.length;
+    }
+
+    // Method to write one ASCII character
+    void ascii(char c) {
+        ensure(1);
+        bytes[position++] = (byte) c;
+    }
+
+    // Methods to copy bytes that are already UTF-8, e.g. a name from the catalog file, without decoding them
+    void raw(byte[] src, int from, int length) {
+        ensure(length);
+        System.arraycopy(src, from, bytes, position, length);
+        position += length;
+    }
+
+    void raw(ByteBuffer src, int index, int length) {
+        ensure(length);
+        src.get(index, bytes, position, length);
+        position += length;
+    }
+
+    // Method to count the characters in the UTF-8 written since start, as String.length would (used for padding)
+    int charsSince(int start) {
+        int chars = 0;
+        for (int i = start; i < position; i++) {
+            int b = bytes[i] & 0xFF;
+            if ((b & 0xC0) != 0x80) chars++; // not a continuation byte
+            if ((b & 0xF8) == 0xF0) chars++; // four bytes are a surrogate pair
+        }
+        return chars;
+    }
+
+    // Method to turn the UTF-8 written since start into a quoted JSON string, escaping in place
+    // Only ASCII bytes are ever escaped, so the bytes of other characters are moved as they are
+    void jsonSince(int start) {
+        int extra = 2;
+        for (int i = start; i < position; i++) {
+            byte b = bytes[i];
+            if (b == '"' || b == '\\' || b == '\n' || b == '\r' || b == '\t') extra += 1;
+            else if (b >= 0 && b < 0x20) extra += 5;
+        }
+        ensure(extra);
+        if (extra == 2) { // nothing to escape, the usual case
+            System.arraycopy(bytes, start, bytes, start + 1, position - start);
+            bytes[start] = '"';
+            bytes[position + 1] = '"';
+            position += 2;
+            return;
+        }
+        int to = position + extra;
+        bytes[--to] = '"';
+        for (int from = position - 1; from >= start; from--) {
+            byte b = bytes[from];
+            if (b == '"' || b == '\\') {
+                bytes[--to] = b;
+                bytes[--to] = '\\';
+            } else if (b == '\n' || b == '\r' || b == '\t') {
+                bytes[--to] = (byte) (b == '\n' ? 'n' : b == '\r' ? 'r' : 't');
+                bytes[--to] = '\\';
+            } else if (b >= 0 && b < 0x20) {
+                bytes[--to] = (byte) HEX[b & 0xF];
+                bytes[--to] = (byte) HEX[b >> 4];
+                bytes[--to] = '0';
+                bytes[--to] = '0';
+                bytes[--to] = 'u';
+                bytes[--to] = '\\';
+            } else {
+                bytes[--to] = b;
+            }
+        }
+        bytes[--to] = '"';
+        position += extra;
+    }
+
+    // Method to turn the UTF-8 written since start into a CSV field, quoting it in place when it needs quotes
+    void csvSince(int start) {
+        boolean quote = false;
+        int quotes = 0;
+        for (int i = start; i < position; i++) {
+            byte b = bytes[i];
+            if (b == '"') quotes++;
+            quote |= b == ',' || b == '"' || b == '\n' || b == '\r';
+        }
+        if (!quote) return;
+        int extra = 2 + quotes;
+        ensure(extra);
+        int to = position + extra;
+        bytes[--to] = '"';
+        for (int from = position - 1; from >= start; from--) {
+            bytes[--to] = bytes[from];
+            if (bytes[from] == '"') bytes[--to] = '"'; // doubled
+        }
+        bytes[--to] = '"';
+        position += extra;
+    }
+
+    // Method to write a string as UTF-8, returns the number of characters written (used for padding)
+    int text(String s) {
+        utf8(s, 0, s.length());
+        return s.length();
+    }
+
+    // Method to write a string as a quoted JSON string, null as null
+    void json(String s) {
+        if (s == null) {
+            bytes(NULL);
+            return;
+        }
+        ascii('"');
+        int run = 0; // start of the characters not written yet
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') continue;
+            utf8(s, run, i);
+            run = i + 1;
+            ascii('\\');
+            if (c == '"' || c == '\\') ascii(c);
+            else if (c == '\n') ascii('n');
+            else if (c == '\r') ascii('r');
+            else if (c == '\t') ascii('t');
+            else {
+                ascii('u');
+                ascii('0');
+                ascii('0');
+                ascii(HEX[c >> 4]);
+                ascii(HEX[c & 0xF]);
+            }
+        }
+        utf8(s, run, s.length());
+        ascii('"');
+    }
+
+    // Method to write a CSV field, quoted only when it holds a comma, quote or line break
+    void csv(String s) {
+        if (s == null) return;
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            utf8(s, 0, s.length());
+            return;
+        }
+        ascii('"');
+        int run = 0;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) != '"') continue;
+            utf8(s, run, i + 1);
+            run = i; // the quote is written again, doubling it
+        }
+        utf8(s, run, s.length());
+        ascii('"');
+    }
+
+    // Method to encode part of a string as UTF-8
+    private void utf8(String s, int from, int to) {
+        ensure((to - from) * 3);
+        byte[] b = bytes;
+        int p = position;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                b[p++] = (byte) c;
+            } else if (c < 0x800) {
+                b[p++] = (byte) (0xC0 | (c >> 6));
+                b[p++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                b[p++] = (byte) (0xF0 | (cp >> 18));
+                b[p++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                b[p++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                b[p++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                b[p++] = '?'; // unpaired surrogate, as the JDK encoder replaces it
+            } else {
+                b[p++] = (byte) (0xE0 | (c >> 12));
+                b[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                b[p++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        position = p;
+    }
+
+    // Method to write a whole number, returns the number of characters written
+    int number(long n) {
+        ensure(20);
+        int start = position;
+        if (n < 0) {
+            if (n == Long.MIN_VALUE) return text("-9223372036854775808");
+            bytes[position++] = '-';
+            n = -n;
+        }
+        int digitsStart = position;
+        do {
+            bytes[position++] = (byte) ('0' + n % 10);
+            n /= 10;
+        } while (n > 0);
+        reverse(digitsStart, position - 1);
+        return position - start;
+    }
+
+    // Method to write sen as "12.50", returns the number of characters written
+    int money(long sen) {
+        if (sen == Long.MIN_VALUE) return text("-92233720368547758.08");
+        int start = position;
+        if (sen < 0) {
+            ascii('-');
+            sen = -sen;
+        }
+        number(sen / 100);
+        long cents = sen % 100;
+        ensure(3);
+        bytes[position++] = '.';
+        bytes[position++] = (byte) ('0' + cents / 10);
+        bytes[position++] = (byte) ('0' + cents % 10);
+        return position - start;
+    }
+
+    // Method to write spaces
+    void spaces(int count) {
+        if (count <= 0) return;
+        ensure(count);
+        for (int i = 0; i < count; i++) bytes[position++] = ' ';
+    }
+
+    // Method to move the bytes written since start to the right by count and fill the gap with spaces
+    void padLeft(int start, int count) {
+        if (count <= 0) return;
+        ensure(count);
+        System.arraycopy(bytes, start, bytes, start + count, position - start);
+        for (int i = 0; i < count; i++) bytes[start + i] = ' ';
+        position += count;
+    }
+
+    // Method to make room for more bytes, moving to a bigger buffer when this one is full
+    private void ensure(int more) {
+        if (position + more <= bytes.length) return;
+        ByteBuffer bigger = acquire(Math.max(bytes.length * 2, position + more));
+        System.arraycopy(bytes, 0, bigger.array(), 0, position);
+        release(buffer);
+        use(bigger);
+    }
+
+    private void use(ByteBuffer b) {
+        buffer = b;
+        bytes = b.array();
+    }
+
+    private void reverse(int from, int to) {
+        while (from < to) {
+            byte t = bytes[from];
+            bytes[from++] = bytes[to];
+            bytes[to--] = t;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package myperfume;
+
+// Import required packages
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// BillRenderer class turning an order into bill bytes from a layout compiled once
+// A layout has five templates: head, one header field, the part between the fields and the lines, one line and
+// the foot. Templates are text with ${name} placeholders, ${name:-20} pads to 20 characters after the value and
+// ${name:8} pads before it. Literal text is encoded to UTF-8 when the layout is compiled, so rendering only copies
+// bytes and writes the values, straight into a pooled buffer (see BillOutput). Lines are read from the order's
+// columns by index and perfume names are copied as UTF-8 from the catalog or name table, so a line allocates nothing
+class BillRenderer {
+    // Escaping applied to text values, numbers and money are never escaped
+    enum Escape { NONE, CSV, JSON }
+
+    // Template sections and the placeholders each one can use
+    private enum Section { HEAD, FIELD, BODY, LINE, FOOT }
+
+    private enum Var {
+        CUSTOMER(Section.HEAD), TYPE(Section.HEAD),
+        KEY(Section.FIELD), LABEL(Section.FIELD), VALUE(Section.FIELD),
+        SKU(Section.LINE), PERFUME(Section.LINE), QUANTITY(Section.LINE), PRICE(Section.LINE), SUBTOTAL(Section.LINE),
+        TOTAL(Section.FOOT);
+
+        final Section section;
+
+        Var(Section section) { this.section = section; }
+    }
+
+    private final Escape escape;
+    private final Segment[] head;
+    private final Segment[] field;
+    private final Segment[] body;
+    private final Segment[] line;
+    private final byte[] lineSeparator;
+    private final Segment[] foot;
+
+    // Constructor to compile a layout, a bad placeholder fails here rather than on the first bill
+    BillRenderer(Escape escape, String head, String field, String body, String line, String lineSeparator, String foot) {
+        this.escape = escape;
+        this.head = compile(head, Section.HEAD);
+        this.field = compile(field, Section.FIELD);
+        this.body = compile(body, Section.BODY);
+        this.line = compile(line, Section.LINE);
+        this.lineSeparator = lineSeparator.getBytes(StandardCharsets.UTF_8);
+        this.foot = compile(foot, Section.FOOT);
+    }
+
+    // Method to render an order into a pooled buffer, ready to read; give it back with BillOutput.release
+    public ByteBuffer render(Order order) {
+        BillOutput out = new BillOutput();
+        Values v = new Values();
+        v.customer = order.customer.getName();
+        v.type = order.getOrderType();
+        write(head, out, v);
+        order.headerFields((key, label, value) -> {
+            v.key = key;
+            v.label = label;
+            v.value = value;
+            write(field, out, v);
+        });
+        write(body, out, v);
+
+        long grandTotal = 0;
+        v.order = order;
+        int lines = order.lineCount();
+        for (int i = 0; i < lines; i++) { // lines are already merged, one pass is enough
+            if (i > 0) out.bytes(lineSeparator);
+            v.line = i;
+            v.sku = order.lineSku(i);
+            int quantity = order.lineQuantity(i);
+            v.quantity = quantity;
+            v.price = order.lineUnitPrice(i);
+            v.subtotal = Money.times(v.price, quantity);
+            write(line, out, v);
+            grandTotal += v.subtotal;
+        }
+        v.total = grandTotal;
+        write(foot, out, v);
+        return out.finish();
+    }
+
+    // Method to write one template with the current values
+    private void write(Segment[] template, BillOutput out, Values v) {
+        for (Segment s : template) {
+            if (s.literal != null) {
+                out.bytes(s.literal);
+                continue;
+            }
+            int start = out.position();
+            int chars;
+            switch (s.var) {
+                case CUSTOMER: chars = text(out, v.customer); break;
+                case TYPE: chars = text(out, v.type); break;
+                case KEY: chars = text(out, v.key); break;
+                case LABEL: chars = text(out, v.label); break;
+                case VALUE: chars = text(out, v.value); break;
+                case PERFUME: chars = name(out, v.order, v.line); break;
+                case SKU: chars = out.number(v.sku); break;
+                case QUANTITY: chars = out.number(v.quantity); break;
+                case PRICE: chars = out.money(v.price); break;
+                case SUBTOTAL: chars = out.money(v.subtotal); break;
+                default: chars = out.money(v.total); break;
+            }
+            if (s.width < 0) {
+                out.spaces(-s.width - chars);
+            } else if (s.width > 0) {
+                out.padLeft(start, s.width - chars);
+            }
+        }
+    }
+
+    // Method to write a text value with this layout's escaping, returns the characters written
+    private int text(BillOutput out, String value) {
+        int start = out.position();
+        switch (escape) {
+            case CSV:
+                out.csv(value);
+                return out.position() - start;
+            case JSON:
+                out.json(value);
+                return out.position() - start;
+            default:
+                return value == null ? 0 : out.text(value);
+        }
+    }
+
+    // Method to write the perfume name of an order line with this layout's escaping, returns the characters written
+    private int name(BillOutput out, Order order, int line) {
+        int start = out.position();
+        order.writeLineName(line, out);
+        switch (escape) {
+            case CSV:
+                out.csvSince(start);
+                return out.position() - start;
+            case JSON:
+                out.jsonSince(start);
+                return out.position() - start;
+            default:
+                return out.charsSince(start);
+        }
+    }
+
+    // Method to compile a template into literal and placeholder segments
+    private static Segment[] compile(String template, Section section) {
+        ArrayList<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < template.length()) {
+            int open = template.indexOf("${", i);
+            if (open < 0) {
+                literal.append(template, i, template.length());
+                break;
+            }
+            literal.append(template, i, open);
+            int close = template.indexOf('}', open);
+            if (close < 0) throw new IllegalArgumentException("Unclosed placeholder in bill layout: " + template);
+            if (literal.length() > 0) {
+                segments.add(new Segment(literal.toString().getBytes(StandardCharsets.UTF_8), null, 0));
+                literal.setLength(0);
+            }
+            String spec = template.substring(open + 2, close);
+            int colon = spec.indexOf(':');
+            String name = colon < 0 ? spec : spec.substring(0, colon);
+            int width;
+            try {
+                width = colon < 0 ? 0 : Integer.parseInt(spec.substring(colon + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad width in bill layout placeholder ${" + spec + "}");
+            }
+            Var var;
+            try {
+                var = Var.valueOf(name.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown bill layout placeholder ${" + name + "}");
+            }
+            if (var.section != section) {
+                throw new IllegalArgumentException("${" + name + "} cannot be used in the bill " + section.name().toLowerCase());
+            }
+            segments.add(new Segment(null, var, width));
+            i = close + 1;
+        }
+        if (literal.length() > 0) segments.add(new Segment(literal.toString().getBytes(StandardCharsets.UTF_8), null, 0));
+        return segments.toArray(new Segment[0]);
+    }
+
+    // Segment class holding either literal bytes or a placeholder with its width
+    private static class Segment {
+        final byte[] literal;
+        final Var var;
+        final int width;
+
+        Segment(byte[] literal, Var var, int width) {
+            this.literal = literal;
+            this.var = var;
+            this.width = width;
+        }
+    }
+
+    // Values class holding what the placeholders print while one bill is rendered
+    private static class Values {
+        String customer, type, key, label, value;
+        Order order;
+        int line;
+        long sku, quantity, price, subtotal, total;
+    }
+}
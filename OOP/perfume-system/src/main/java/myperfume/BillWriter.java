@@ -0,0 +1,251 @@
+package myperfume;
+
+// Import required packages
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// BillWriter class writing bills on a background thread so checkout never waits for the disk
+// Bills arrive already rendered into pooled buffers (see BillOutput), which go back to the pool once written.
+// With an archive directory the bills are appended to a BillArchive there, keyed by file name, instead of each
+// getting its own file; the archive is opened with the first bill, and if it cannot be the bills go to files
+class BillWriter implements Closeable {
+
+    // How hard the writer pushes bills to the disk
+    enum FlushPolicy {
+        NONE,       // leave it to the operating system
+        PER_BATCH,  // fsync every bill of a batch once the batch is written
+        PER_BILL    // fsync each bill before writing the next one
+    }
+
+    private static final BillJob STOP = new BillJob(null, null);
+
+    private final BlockingQueue<BillJob> queue;
+    private final int maxBatch;
+    private final FlushPolicy flushPolicy;
+    private final boolean echo;
+    private final Path archiveDir; // null to write each bill to its own file
+    private final long segmentBytes;
+    private volatile BillArchive archive;
+    private boolean archiveFailed = false; // guarded by this
+    private final Thread worker;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    // CLOSED bit plus the number of submit calls between their closed check and their enqueue, so close can wait
+    // for those to land before queueing STOP and no bill ever ends up behind it
+    private final AtomicLong state = new AtomicLong();
+    private static final long CLOSED = 1L << 62;
+
+    // Lists reused for every batch, only touched by the worker thread
+    private final ArrayList<BillJob> batch = new ArrayList<>();
+    private final ArrayList<FileChannel> pending = new ArrayList<>();
+
+    // Constructor to create a bill writer with default settings
+    public BillWriter() {
+        this(1024, 64, FlushPolicy.NONE, true);
+    }
+
+    // Constructor to create a bill writer
+    public BillWriter(int queueCapacity, int maxBatch, FlushPolicy flushPolicy, boolean echo) {
+        this(queueCapacity, maxBatch, flushPolicy, echo, null, 0);
+    }
+
+    // Constructor to create a bill writer appending bills to an archive, segments rotate at segmentBytes
+    public BillWriter(int queueCapacity, int maxBatch, FlushPolicy flushPolicy, boolean echo, Path archiveDir, long segmentBytes) {
+        if (queueCapacity <= 0 || maxBatch <= 0)
+            throw new IllegalArgumentException("Queue capacity and batch size must be positive.");
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+        this.flushPolicy = flushPolicy;
+        this.echo = echo;
+        this.archiveDir = archiveDir;
+        this.segmentBytes = segmentBytes;
+        this.worker = new Thread(this::run, "bill-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    // Method to create a bill writer configured from system properties
+    // -Dbill.queue=1024 -Dbill.batch=64 -Dbill.flush=NONE|PER_BATCH|PER_BILL -Dbill.echo=true
+    // -Dbill.archive=true (false for one file per bill) -Dbill.archiveDir=bills -Dbill.segmentMB=64
+    public static BillWriter fromSystemProperties() {
+        return fromSystemProperties(true, Paths.get(System.getProperty("bill.archiveDir", "bills")));
+    }
+
+    // Method to create a bill writer from system properties with a different default for echo, archiving in a directory
+    public static BillWriter fromSystemProperties(boolean defaultEcho, Path archiveDir) {
+        boolean archived = Boolean.parseBoolean(System.getProperty("bill.archive", "true"));
+        return new BillWriter(
+                Integer.getInteger("bill.queue", 1024),
+                Integer.getInteger("bill.batch", 64),
+                FlushPolicy.valueOf(System.getProperty("bill.flush", "NONE").toUpperCase()),
+                Boolean.parseBoolean(System.getProperty("bill.echo", String.valueOf(defaultEcho))),
+                archived ? archiveDir : null,
+                Integer.getInteger("bill.segmentMB", 64) * 1024L * 1024L);
+    }
+
+    // Getters for bill writer attributes
+    public boolean isEchoEnabled() { return echo; }
+    public boolean isArchiving() { return archiveDir != null; }
+    public long getWrittenCount() { return written.get(); }
+    public long getFailedCount() { return failed.get(); }
+    public long getRejectedCount() { return rejected.get(); }
+
+    // Method to queue a rendered bill, waits only when the queue is full
+    // The writer owns the buffer from here on and releases it after writing
+    // A bill submitted once close has started is refused (and counted) instead of being queued behind STOP
+    public void submit(String filename, ByteBuffer content) {
+        if ((state.incrementAndGet() & CLOSED) != 0) {
+            state.decrementAndGet();
+            BillOutput.release(content);
+            rejected.incrementAndGet();
+            throw new IllegalStateException("Bill writer is closed, bill " + filename + " was not written.");
+        }
+        try {
+            queue.put(new BillJob(filename, content));
+        } catch (InterruptedException e) {
+            BillOutput.release(content);
+            rejected.incrementAndGet();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing bill " + filename);
+        } finally {
+            state.decrementAndGet();
+        }
+    }
+
+    // Method to get the archive bills are appended to, opening it if no bill has yet
+    // Returns null when bills are written as files, or the archive could not be opened
+    public synchronized BillArchive getArchive() {
+        if (archive != null || archiveDir == null || archiveFailed) return archive;
+        try {
+            archive = BillArchive.open(archiveDir, segmentBytes);
+        } catch (IOException | IllegalArgumentException e) {
+            archiveFailed = true;
+            System.out.println("Failed to open bill archive in " + archiveDir + ", writing bill files instead: " + e.getMessage());
+        }
+        return archive;
+    }
+
+    // Method to write the remaining bills and stop the worker
+    public void close() {
+        long current;
+        do {
+            current = state.get();
+            if ((current & CLOSED) != 0) return;
+        } while (!state.compareAndSet(current, current | CLOSED));
+        while ((state.get() & ~CLOSED) != 0) Thread.yield(); // submits already past the check; the worker keeps draining, so they finish
+        try {
+            queue.put(STOP);
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        BillArchive opened = archive;
+        if (opened != null) opened.close();
+        if (rejected.get() > 0) System.out.println(rejected.get() + " bills were refused because the bill writer was closing.");
+    }
+
+    // Method run by the worker thread, drains the queue in batches
+    private void run() {
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue; // only close() stops the worker
+            }
+            queue.drainTo(batch, maxBatch - 1);
+            boolean stop = writeBatch();
+            batch.clear();
+            if (stop) return;
+        }
+    }
+
+    // Method to write one batch, returns true when the stop marker was reached
+    private boolean writeBatch() {
+        boolean stop = false;
+        BillArchive archive = getArchive();
+        for (BillJob job : batch) {
+            if (job == STOP) {
+                stop = true;
+                continue;
+            }
+            FileChannel channel = null;
+            long start = System.nanoTime();
+            try {
+                if (archive != null) {
+                    archive.append(Paths.get(job.filename).getFileName().toString(), job.content);
+                    if (flushPolicy == FlushPolicy.PER_BILL) archive.force();
+                    written.incrementAndGet();
+                    NewMyPerfumeSystem.hotPathMetrics.billWritten(System.nanoTime() - start);
+                    continue;
+                }
+                channel = FileChannel.open(Paths.get(job.filename),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                while (job.content.hasRemaining()) channel.write(job.content);
+                if (flushPolicy == FlushPolicy.PER_BILL) channel.force(false);
+                if (flushPolicy == FlushPolicy.PER_BATCH) {
+                    pending.add(channel);
+                    channel = null; // closed after the batch is synced
+                }
+                written.incrementAndGet();
+                NewMyPerfumeSystem.hotPathMetrics.billWritten(System.nanoTime() - start);
+            } catch (IOException e) {
+                failed.incrementAndGet();
+                NewMyPerfumeSystem.hotPathMetrics.billWriteFailed();
+                System.out.println("Failed to write bill " + job.filename + ": " + e.getMessage());
+            } finally {
+                BillOutput.release(job.content);
+                closeQuietly(channel);
+            }
+        }
+        for (FileChannel channel : pending) {
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                failed.incrementAndGet();
+                NewMyPerfumeSystem.hotPathMetrics.billWriteFailed();
+                System.out.println("Failed to sync bill: " + e.getMessage());
+            } finally {
+                closeQuietly(channel);
+            }
+        }
+        pending.clear();
+        if (archive != null) {
+            try {
+                if (flushPolicy == FlushPolicy.NONE) archive.flush(); // index entries, so bills are found after a restart
+                else archive.force();
+            } catch (IOException e) {
+                failed.incrementAndGet();
+                NewMyPerfumeSystem.hotPathMetrics.billWriteFailed();
+                System.out.println("Failed to sync bill archive: " + e.getMessage());
+            }
+        }
+        return stop;
+    }
+
+    // Method to close a channel without hiding the original error
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("Failed to close bill file: " + e.getMessage());
+        }
+    }
+
+    // BillJob class holding one queued bill
+    private static class BillJob {
+        final String filename;
+        final ByteBuffer content;
+
+        BillJob(String filename, ByteBuffer content) {
+            this.filename = filename;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package myperfume;
+
+// Import required packages
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+// CatalogFile class reading a compact binary perfume catalog through a memory mapping
+// Layout (big endian), one column per attribute so nothing has to be parsed up front:
+//   int magic, int version, int count, int reserved
+//   long priceSen[count]
+//   int stock[count]
+//   int nameOffset[count + 1]   offsets into the name bytes
+//   byte names[]                UTF-8
+class CatalogFile {
+    private static final int MAGIC = 0x50434154; // "PCAT"
+    private static final int VERSION = 1;
+    private static final int HEADER = 16;
+
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final int stockStart;
+    private final int offsetStart;
+    private final int namesStart;
+
+    // Constructor to map a catalog, only the header is read here
+    private CatalogFile(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a perfume catalog file.");
+        }
+        this.count = buffer.getInt(8);
+        this.stockStart = HEADER + count * 8;
+        this.offsetStart = stockStart + count * 4;
+        this.namesStart = offsetStart + (count + 1) * 4;
+        if (count < 0 || namesStart > buffer.limit() || namesStart + buffer.getInt(offsetStart + count * 4) > buffer.limit()) {
+            throw new IOException("Perfume catalog file is truncated.");
+        }
+    }
+
+    // Method to open a catalog file
+    public static CatalogFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("Perfume catalog file is too large.");
+            return new CatalogFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // Getters for catalog entries, each reads only the bytes it needs
+    public int getCount() { return count; }
+    public long priceSen(int sku) { return buffer.getLong(HEADER + checked(sku) * 8); }
+    public int stock(int sku) { return buffer.getInt(stockStart + checked(sku) * 4); }
+
+    public String name(int sku) {
+        int start = buffer.getInt(offsetStart + checked(sku) * 4);
+        int end = buffer.getInt(offsetStart + (sku + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        buffer.get(namesStart + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Method to copy a name's UTF-8 bytes into a bill
+    void writeName(int sku, BillOutput out) {
+        int start = buffer.getInt(offsetStart + checked(sku) * 4);
+        int end = buffer.getInt(offsetStart + (sku + 1) * 4);
+        out.raw(buffer, namesStart + start, end - start);
+    }
+
+    // Method to create the perfume for a catalog entry
+    public Perfume toPerfume(int sku) {
+        return new Perfume(name(sku), priceSen(sku), stock(sku));
+    }
+
+    // Method to check a SKU is in the catalog
+    private int checked(int sku) {
+        if (sku < 0 || sku >= count) throw new IndexOutOfBoundsException("Unknown SKU: " + sku);
+        return sku;
+    }
+
+    // Method to write the perfumes of an inventory as a catalog file
+    public static int write(Path file, Inventory inventory) throws IOException {
+        Columns columns = new Columns();
+        for (Perfume p : inventory) {
+            columns.add(p.getName(), p.getPriceSen(), p.getStockQuantity());
+        }
+        columns.writeTo(file);
+        return columns.count;
+    }
+
+    // Method to convert a CSV file (name,price,stock) into a catalog file
+    // The CSV is read line by line, rows that fail to parse are reported and skipped
+    public static int importCsv(Path csv, Path file) throws IOException {
+        Columns columns = new Columns();
+        int lineNumber = 0;
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line;
+            ArrayList<String> fields = new ArrayList<>(3);
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+                splitCsv(line, fields);
+                if (lineNumber == 1 && fields.size() == 3 && fields.get(0).trim().equalsIgnoreCase("name")) continue; // header
+                try {
+                    if (fields.size() != 3) throw new IllegalArgumentException("Expected name,price,stock.");
+                    String name = fields.get(0).trim();
+                    long price = Money.parse(fields.get(1));
+                    int stock = Integer.parseInt(fields.get(2).trim());
+                    if (name.isEmpty()) throw new IllegalArgumentException("Name cannot be empty.");
+                    if (price <= 0) throw new IllegalArgumentException("Price must be more than 0.");
+                    if (stock < 0) throw new IllegalArgumentException("Stock cannot be negative.");
+                    columns.add(name, price, stock);
+                } catch (IllegalArgumentException e) {
+                    skipped++;
+                    System.out.println("Skipping line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+        }
+        columns.writeTo(file);
+        if (skipped > 0) System.out.println("Skipped " + skipped + " invalid line(s).");
+        return columns.count;
+    }
+
+    // Method to write the perfumes of an inventory as CSV
+    public static int exportCsv(Path csv, Inventory inventory) throws IOException {
+        int count = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            writer.write("name,price,stock\n");
+            for (Perfume p : inventory) {
+                String name = p.getName();
+                if (name.indexOf(',') >= 0 || name.indexOf('"') >= 0) {
+                    name = '"' + name.replace("\"", "\"\"") + '"';
+                }
+                writer.write(name + "," + Money.format(p.getPriceSen()) + "," + p.getStockQuantity() + "\n");
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Method to split one CSV line, supporting quoted fields with commas and doubled quotes
+    private static void splitCsv(String line, ArrayList<String> fields) {
+        fields.clear();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+    }
+
+    // Columns class collecting catalog columns in primitive arrays before they are written
+    private static class Columns {
+        long[] prices = new long[1024];
+        int[] stocks = new int[1024];
+        int[] nameOffsets = new int[1025];
+        ByteArrayOutputStream names = new ByteArrayOutputStream();
+        int count = 0;
+
+        void add(String name, long priceSen, int stock) {
+            if (count == prices.length) {
+                prices = Arrays.copyOf(prices, count * 2);
+                stocks = Arrays.copyOf(stocks, count * 2);
+                nameOffsets = Arrays.copyOf(nameOffsets, count * 2 + 1);
+            }
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            names.write(bytes, 0, bytes.length);
+            prices[count] = priceSen;
+            stocks[count] = stock;
+            nameOffsets[count + 1] = names.size();
+            count++;
+        }
+
+        void writeTo(Path file) throws IOException {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(count);
+                out.writeInt(0);
+                for (int i = 0; i < count; i++) out.writeLong(prices[i]);
+                for (int i = 0; i < count; i++) out.writeInt(stocks[i]);
+                for (int i = 0; i <= count; i++) out.writeInt(nameOffsets[i]);
+                names.writeTo(out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package myperfume;
+
+// Import required packages
+import java.util.concurrent.*;
+
+// CustomerRegistry class keeping one Customer object per contact, so a returning customer gets back
+// the same object and with it their order history
+// Contacts are compared without spaces, dashes and case, so "012-345 6789" and "0123456789" are the same customer
+// Customers without a contact are walk-ins: they are not registered and get a fresh Customer every time
+class CustomerRegistry {
+    private final ConcurrentHashMap<String, Customer> byContact = new ConcurrentHashMap<>();
+
+    // Method to get the customer for a contact, registering them on their first order
+    // A returning customer keeps their record as it is: anyone can type a contact, so an order giving another
+    // name does not change the name on file
+    public Customer register(String name, String contact) {
+        String key = key(contact);
+        if (key.isEmpty()) return new Customer(name, contact);
+        return byContact.computeIfAbsent(key, k -> new Customer(name, contact.trim()));
+    }
+
+    // Method to find a registered customer by contact, null if they have never ordered
+    public Customer find(String contact) {
+        String key = key(contact);
+        return key.isEmpty() ? null : byContact.get(key);
+    }
+
+    // Method to get how many customers are registered
+    public int size() { return byContact.size(); }
+
+    // Method to normalise a contact into its lookup key
+    static String key(String contact) {
+        StringBuilder sb = new StringBuilder(contact.length());
+        for (int i = 0; i < contact.length(); i++) {
+            char c = contact.charAt(i);
+            if (Character.isWhitespace(c) || c == '-') continue;
+            sb.append(Character.toLowerCase(c));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,161 @@
+package myperfume;
+
+// Import required packages
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import javax.management.*;
+
+// HotPathMetrics class timing checkout, billing and stock changes and counting what happens on the way
+// Every recording is a counter bump or a histogram increment, so it is cheap enough to leave on all the time
+// Read it from the admin menu, GET /metrics on the order service (Prometheus text) or JMX
+class HotPathMetrics implements InventoryListener, HotPathMetricsMBean {
+    private static final int TOP_SKUS = 10;
+    private static final String[] QUANTILES = {"0.5", "0.9", "0.99", "0.999"};
+
+    // Latency histograms, in nanoseconds
+    final LatencyHistogram checkout = new LatencyHistogram("checkout");        // placing all lines of an order and billing it
+    final LatencyHistogram addPerfume = new LatencyHistogram("add_perfume");   // Order.addPerfume
+    final LatencyHistogram billRender = new LatencyHistogram("bill_render");   // Order.generateBill, render and queue
+    final LatencyHistogram billWrite = new LatencyHistogram("bill_write");     // writing one bill file in the bill writer
+    final LatencyHistogram stockUpdate = new LatencyHistogram("stock_update"); // admin stock changes on Perfume
+
+    // Counters
+    private final LongAdder orders = new LongAdder();
+    private final LongAdder lineItems = new LongAdder();
+    private final LongAdder stockOuts = new LongAdder();
+    private final LongAdder billWriteFailures = new LongAdder();
+    private final ConcurrentHashMap<Integer, LongAdder> unitsBySku = new ConcurrentHashMap<>(); // only SKUs that sold
+    private final ConcurrentHashMap<Integer, String> names = new ConcurrentHashMap<>();
+    private final long startNanos = System.nanoTime();
+
+    // Methods to record the hot-path events
+    public void orderPlaced(long nanos) {
+        orders.increment();
+        checkout.record(nanos);
+    }
+
+    public void lineAdded(long nanos) {
+        lineItems.increment();
+        addPerfume.record(nanos);
+    }
+
+    public void billWritten(long nanos) {
+        billWrite.record(nanos);
+    }
+
+    public void billWriteFailed() {
+        billWriteFailures.increment();
+    }
+
+    // Methods called by the inventory
+    @Override
+    public void onSale(Perfume perfume, int quantity, long amountSen) {
+        LongAdder units = unitsBySku.get(perfume.getSku());
+        if (units == null) {
+            units = unitsBySku.computeIfAbsent(perfume.getSku(), sku -> new LongAdder());
+            names.putIfAbsent(perfume.getSku(), perfume.getName());
+        }
+        units.add(quantity);
+    }
+
+    @Override
+    public void onStockOut(Perfume perfume, int requested) {
+        stockOuts.increment();
+    }
+
+    // Method to register with the platform MBean server as myperfume:type=HotPathMetrics
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("myperfume:type=HotPathMetrics");
+            if (!server.isRegistered(objectName)) server.registerMBean(this, objectName);
+        } catch (JMException e) {
+            System.out.println("Failed to register metrics with JMX: " + e.getMessage());
+        }
+    }
+
+    // Getters for the counters, also the JMX attributes
+    public long getOrdersPlaced() { return orders.sum(); }
+    public long getLineItems() { return lineItems.sum(); }
+    public long getStockOuts() { return stockOuts.sum(); }
+    public long getBillWriteFailures() { return billWriteFailures.sum(); }
+    public double getCheckoutP99Micros() { return checkout.snapshot().percentile(99) / 1000.0; }
+    public double getAddPerfumeP99Micros() { return addPerfume.snapshot().percentile(99) / 1000.0; }
+    public double getBillRenderP99Micros() { return billRender.snapshot().percentile(99) / 1000.0; }
+    public double getBillWriteP99Micros() { return billWrite.snapshot().percentile(99) / 1000.0; }
+    public double getStockUpdateP99Micros() { return stockUpdate.snapshot().percentile(99) / 1000.0; }
+
+    private List<LatencyHistogram> histograms() {
+        return Arrays.asList(checkout, addPerfume, billRender, billWrite, stockUpdate);
+    }
+
+    // Method to build the report shown in the admin menu
+    public String report() {
+        double minutes = Math.max((System.nanoTime() - startNanos) / 60e9, 1e-9);
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== Performance Metrics ===\n");
+        sb.append(String.format("Orders placed:      %d\n", orders.sum()));
+        sb.append(String.format("Line items:         %d\n", lineItems.sum()));
+        sb.append(String.format("Stock-outs:         %d\n", stockOuts.sum()));
+        sb.append(String.format("Bill write fails:   %d\n", billWriteFailures.sum()));
+        sb.append(String.format("\n%-14s %9s %10s %10s %10s %10s %10s\n", "Latency (us)", "count", "mean", "p50", "p99", "p99.9", "max"));
+        for (LatencyHistogram histogram : histograms()) {
+            LatencyHistogram.Snapshot s = histogram.snapshot();
+            sb.append(String.format("%-14s %9d %10.1f %10.1f %10.1f %10.1f %10.1f\n", s.getName(), s.getCount(),
+                    s.getMeanNanos() / 1000.0, s.percentile(50) / 1000.0, s.percentile(99) / 1000.0,
+                    s.percentile(99.9) / 1000.0, s.getMaxNanos() / 1000.0));
+        }
+        sb.append(String.format("\nTop selling perfumes (units per minute over %.1f min)\n", minutes));
+        for (Map.Entry<Integer, Long> entry : topSkus(TOP_SKUS)) {
+            sb.append(String.format("%-20s %10d units %10.2f /min\n", names.get(entry.getKey()),
+                    entry.getValue(), entry.getValue() / minutes));
+        }
+        return sb.toString();
+    }
+
+    // Method to find the best selling SKUs, only the SKUs that sold are looked at
+    private List<Map.Entry<Integer, Long>> topSkus(int limit) {
+        PriorityQueue<Map.Entry<Integer, Long>> top = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<Integer, LongAdder> entry : unitsBySku.entrySet()) {
+            top.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue().sum()));
+            if (top.size() > limit) top.poll();
+        }
+        ArrayList<Map.Entry<Integer, Long>> result = new ArrayList<>(top);
+        result.sort(Map.Entry.<Integer, Long>comparingByValue().reversed());
+        return result;
+    }
+
+    // Method to write every metric in the Prometheus text format, per-SKU rates come from the scraper
+    public String prometheusText() {
+        StringBuilder sb = new StringBuilder(4096);
+        counter(sb, "myperfume_orders_total", "Orders placed.", orders.sum());
+        counter(sb, "myperfume_line_items_total", "Order lines added.", lineItems.sum());
+        counter(sb, "myperfume_stock_outs_total", "Lines refused for lack of stock.", stockOuts.sum());
+        counter(sb, "myperfume_bill_write_failures_total", "Bills that could not be written.", billWriteFailures.sum());
+        sb.append("# HELP myperfume_latency_seconds Hot-path latency.\n# TYPE myperfume_latency_seconds summary\n");
+        for (LatencyHistogram histogram : histograms()) {
+            LatencyHistogram.Snapshot s = histogram.snapshot();
+            for (String quantile : QUANTILES) {
+                sb.append("myperfume_latency_seconds{op=\"").append(s.getName()).append("\",quantile=\"")
+                  .append(quantile).append("\"} ").append(s.percentile(Double.parseDouble(quantile) * 100) / 1e9).append('\n');
+            }
+            sb.append("myperfume_latency_seconds_count{op=\"").append(s.getName()).append("\"} ").append(s.getCount()).append('\n');
+            sb.append("myperfume_latency_seconds_sum{op=\"").append(s.getName()).append("\"} ")
+              .append(s.getMeanNanos() * s.getCount() / 1e9).append('\n');
+        }
+        sb.append("# HELP myperfume_units_sold_total Units sold per perfume.\n# TYPE myperfume_units_sold_total counter\n");
+        for (Map.Entry<Integer, LongAdder> entry : unitsBySku.entrySet()) {
+            sb.append("myperfume_units_sold_total{sku=\"").append(entry.getKey()).append("\"} ")
+              .append(entry.getValue().sum()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void counter(StringBuilder sb, String name, String help, long value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" counter\n");
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+}
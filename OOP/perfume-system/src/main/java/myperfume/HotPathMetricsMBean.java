@@ -0,0 +1,16 @@
+package myperfume;
+
+// HotPathMetricsMBean interface exposing the hot-path metrics over JMX (e.g. in JConsole under myperfume)
+// JMX only accepts public MBean interfaces, so unlike the rest of the package this one is public
+public interface HotPathMetricsMBean {
+    long getOrdersPlaced();
+    long getLineItems();
+    long getStockOuts();
+    long getBillWriteFailures();
+    double getCheckoutP99Micros();
+    double getAddPerfumeP99Micros();
+    double getBillRenderP99Micros();
+    double getBillWriteP99Micros();
+    double getStockUpdateP99Micros();
+    String report();
+}
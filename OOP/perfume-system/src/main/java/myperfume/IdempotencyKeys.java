@@ -0,0 +1,153 @@
+package myperfume;
+
+// Import required packages
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.Supplier;
+
+// IdempotencyKeys class remembering the response to each request sent with an Idempotency-Key header,
+// so a client retrying a POST /orders (after a timeout or a dropped connection) gets the first response back
+// instead of placing the order twice
+// The first request with a key runs; a retry arriving while it runs waits for its response. Keys are kept for
+// ttlSeconds and at most maxKeys of them, oldest first out; they live in memory and do not survive a restart
+class IdempotencyKeys {
+    private static final long WAIT_SECONDS = 30;
+
+    private final long ttlMillis;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> byAge = new ConcurrentLinkedQueue<>(); // oldest first, for eviction
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder replayed = new LongAdder();
+
+    // Constructor to create the key store
+    public IdempotencyKeys(long ttlSeconds, int maxKeys) {
+        if (ttlSeconds <= 0 || maxKeys <= 0) throw new IllegalArgumentException("Key lifetime and count must be positive.");
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.maxKeys = maxKeys;
+    }
+
+    // Method to create the key store configured from system properties
+    // -Dorder.idempotencyHours=24 -Dorder.idempotencyKeys=100000
+    public static IdempotencyKeys fromSystemProperties() {
+        return new IdempotencyKeys(TimeUnit.HOURS.toSeconds(Long.getLong("order.idempotencyHours", 24L)),
+                Integer.getInteger("order.idempotencyKeys", 100_000));
+    }
+
+    // Getters for key store counters
+    public int size() { return entries.size(); }
+    public long getReplayedCount() { return replayed.sum(); }
+
+    // Method to run a request once per key, returns its response and whether it is a replay of an earlier one
+    // A key reused with a different request body is refused with 422
+    public Result run(String key, String request, Supplier<Response> action) {
+        while (true) {
+            long now = System.currentTimeMillis();
+            Entry mine = new Entry(key, request, now);
+            Entry existing = entries.putIfAbsent(key, mine);
+            if (existing == null) {
+                byAge.add(mine);
+                queued.incrementAndGet();
+                evict(now);
+                Response response;
+                try {
+                    response = action.get();
+                } catch (RuntimeException | Error e) {
+                    entries.remove(key, mine); // nothing was stored, let a retry run it again
+                    mine.finish(null);
+                    throw e;
+                }
+                mine.finish(response);
+                return new Result(response, false);
+            }
+            if (now - existing.createdMillis > ttlMillis) {
+                entries.remove(key, existing); // stale, treat the key as new
+                continue;
+            }
+            if (existing.requestLength != request.length() || existing.requestHash != request.hashCode()) {
+                return new Result(error(422, "Idempotency key was already used for a different order."), false);
+            }
+            Response response;
+            try {
+                response = existing.await(WAIT_SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new Result(error(503, "Interrupted while waiting for the first request."), false);
+            }
+            if (response == null && existing.isDone()) continue; // the first attempt failed, run this one
+            if (response == null) {
+                return new Result(error(409, "An order with this idempotency key is still being placed."), false);
+            }
+            replayed.increment();
+            return new Result(response, true);
+        }
+    }
+
+    // Method to drop keys past their lifetime, and the oldest keys when there are too many
+    private void evict(long now) {
+        Entry oldest;
+        while ((oldest = byAge.peek()) != null
+                && (queued.get() > maxKeys || now - oldest.createdMillis > ttlMillis)) {
+            if (byAge.remove(oldest)) {
+                queued.decrementAndGet();
+                entries.remove(oldest.key, oldest);
+            }
+        }
+    }
+
+    // Method to build an error response the way the service sends them, {"error": message}
+    private static Response error(int status, String message) {
+        return new Response(status, "{\"error\":" + Json.quote(message) + "}");
+    }
+
+    // Response class holding the status and JSON body sent for a request
+    static class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    // Result class holding a response and whether it was replayed
+    static class Result {
+        final Response response;
+        final boolean replayed;
+
+        Result(Response response, boolean replayed) {
+            this.response = response;
+            this.replayed = replayed;
+        }
+    }
+
+    // Entry class holding one key, its request fingerprint and, once done, its response
+    private static class Entry {
+        final String key;
+        final int requestLength;
+        final int requestHash;
+        final long createdMillis;
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Response response;
+
+        Entry(String key, String request, long createdMillis) {
+            this.key = key;
+            this.requestLength = request.length();
+            this.requestHash = request.hashCode();
+            this.createdMillis = createdMillis;
+        }
+
+        void finish(Response response) {
+            this.response = response;
+            done.countDown();
+        }
+
+        boolean isDone() { return done.getCount() == 0; }
+
+        Response await(long seconds) throws InterruptedException {
+            done.await(seconds, TimeUnit.SECONDS);
+            return response;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package myperfume;
+
+// Import required packages
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// Inventory class holding every perfume keyed by its SKU
+// SKUs are handed out in order, so the SKU is also the position shown in the menus
+// Perfumes seeded from a catalog file are only created the first time they are looked up
+// A columnar inventory keeps no Perfume objects at all: the state is in PerfumeColumns and every lookup returns
+// a PerfumeView, for catalogs of millions of SKUs (-Dinventory.columnar=true)
+class Inventory implements Iterable<Perfume> {
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private final CatalogFile catalog; // may be null
+    private final PerfumeColumns columns; // null unless the inventory is columnar
+    private volatile Page[] pages;
+    private volatile int size;
+    private final CopyOnWriteArrayList<InventoryListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Constructor to create an empty inventory
+    public Inventory() {
+        this(null);
+    }
+
+    // Constructor to create an inventory seeded from a catalog file
+    public Inventory(CatalogFile catalog) {
+        this(catalog, false);
+    }
+
+    // Constructor to create an inventory seeded from a catalog file (or empty), optionally columnar
+    public Inventory(CatalogFile catalog, boolean columnar) {
+        this.catalog = catalog;
+        this.columns = columnar ? new PerfumeColumns(catalog) : null;
+        this.size = catalog == null ? 0 : catalog.getCount();
+        this.pages = new Page[Math.max(1, (size + PAGE_SIZE - 1) >>> PAGE_BITS)];
+    }
+
+    // Method to add a perfume and give it the next SKU
+    // Adding is rare (admin only) so it takes a lock, lookups and stock changes never do
+    // A columnar inventory copies the perfume into its columns; use get with the returned SKU from then on
+    public synchronized int add(Perfume perfume) {
+        int sku = size;
+        if (columns != null) {
+            if (perfume.getOwner() != null) throw new IllegalStateException(perfume.getName() + " already belongs to an inventory.");
+            columns.add(sku, perfume.getName(), perfume.getPriceSen(), perfume.getStockQuantity(),
+                    perfume.getQuantitySold(), perfume.getTotalSalesSen());
+            perfume = new PerfumeView(this, columns, sku);
+        } else {
+            perfume.attach(this, sku);
+            page(sku).slots.set(sku & (PAGE_SIZE - 1), perfume);
+        }
+        size = sku + 1; // publish the new perfume to readers
+        for (InventoryListener listener : listeners) listener.onPerfumeAdded(perfume);
+        return sku;
+    }
+
+    // Method to get a perfume by SKU
+    public Perfume get(int sku) {
+        if (sku < 0 || sku >= size) {
+            throw new IndexOutOfBoundsException("Unknown SKU: " + sku);
+        }
+        if (columns != null) return new PerfumeView(this, columns, sku);
+        AtomicReferenceArray<Perfume> slots = page(sku).slots;
+        int slot = sku & (PAGE_SIZE - 1);
+        Perfume perfume = slots.get(slot);
+        if (perfume != null) return perfume;
+
+        // First lookup of a catalog perfume, racing threads agree on one instance
+        Perfume loaded = catalog.toPerfume(sku);
+        loaded.attach(this, sku);
+        return slots.compareAndSet(slot, null, loaded) ? loaded : slots.get(slot);
+    }
+
+    // Method to get the number of perfumes
+    public int size() { return size; }
+
+    // Method to check whether the inventory keeps its perfumes as columns
+    public boolean isColumnar() { return columns != null; }
+
+    // Method to atomically reserve stock for a SKU, returns false instead of overselling
+    public boolean reserve(int sku, int quantity) {
+        return get(sku).tryReserve(quantity);
+    }
+
+    // Method to get a perfume name without loading a catalog perfume
+    public String nameOf(int sku) {
+        if (columns != null) return get(sku).getName();
+        if (catalog != null && sku >= 0 && sku < catalog.getCount()) {
+            Perfume loaded = page(sku).slots.get(sku & (PAGE_SIZE - 1));
+            return loaded != null ? loaded.getName() : catalog.name(sku);
+        }
+        return get(sku).getName();
+    }
+
+    // Method to write a perfume name into a bill as UTF-8, copying the catalog or column bytes without a String
+    void writeName(int sku, BillOutput out) {
+        if (sku < 0 || sku >= size) {
+            throw new IndexOutOfBoundsException("Unknown SKU: " + sku);
+        }
+        if (columns != null) {
+            columns.writeName(sku, out);
+            return;
+        }
+        if (catalog != null && sku < catalog.getCount()) {
+            Perfume loaded = page(sku).slots.get(sku & (PAGE_SIZE - 1));
+            if (loaded == null) {
+                catalog.writeName(sku, out);
+                return;
+            }
+        }
+        out.text(get(sku).getName());
+    }
+
+    // Method to find the page for a SKU, creating it on first use
+    private Page page(int sku) {
+        int index = sku >>> PAGE_BITS;
+        Page[] current = pages;
+        if (index < current.length && current[index] != null) return current[index];
+        synchronized (this) {
+            current = pages;
+            if (index >= current.length) {
+                current = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+            }
+            if (current[index] == null) current[index] = new Page();
+            pages = current;
+            return current[index];
+        }
+    }
+
+    // Methods to register listeners for perfume changes
+    public void addListener(InventoryListener listener) { listeners.add(listener); }
+    public void removeListener(InventoryListener listener) { listeners.remove(listener); }
+
+    // Methods used by perfumes to report their changes to the listeners
+    void fireSale(Perfume perfume, int quantity, long amountSen) {
+        for (InventoryListener listener : listeners) listener.onSale(perfume, quantity, amountSen);
+    }
+
+    void fireStockOut(Perfume perfume, int requested) {
+        for (InventoryListener listener : listeners) listener.onStockOut(perfume, requested);
+    }
+
+    void fireStockAdded(Perfume perfume, int quantity) {
+        for (InventoryListener listener : listeners) listener.onStockAdded(perfume, quantity);
+    }
+
+    void fireStockRemoved(Perfume perfume, int quantity) {
+        for (InventoryListener listener : listeners) listener.onStockRemoved(perfume, quantity);
+    }
+
+    void fireStockSet(Perfume perfume, int oldQuantity, int newQuantity) {
+        for (InventoryListener listener : listeners) listener.onStockSet(perfume, oldQuantity, newQuantity);
+    }
+
+    void firePriceSet(Perfume perfume, long oldPriceSen, long newPriceSen) {
+        for (InventoryListener listener : listeners) listener.onPriceSet(perfume, oldPriceSen, newPriceSen);
+    }
+
+    void fireStoreSale(Perfume perfume, int store, int quantity, long amountSen) {
+        for (InventoryListener listener : listeners) listener.onStoreSale(perfume, store, quantity, amountSen);
+    }
+
+    void fireStoreStock(Perfume perfume, int store, int delta) {
+        for (InventoryListener listener : listeners) listener.onStoreStock(perfume, store, delta);
+    }
+
+    void fireTransfer(Perfume perfume, int fromStore, int toStore, int quantity) {
+        for (InventoryListener listener : listeners) listener.onTransfer(perfume, fromStore, toStore, quantity);
+    }
+
+    // Method to iterate over the perfumes in SKU order
+    public Iterator<Perfume> iterator() {
+        final int count = size;
+        return new Iterator<Perfume>() {
+            private int next = 0;
+
+            public boolean hasNext() { return next < count; }
+
+            public Perfume next() {
+                if (next >= count) throw new NoSuchElementException();
+                return get(next++);
+            }
+        };
+    }
+
+    // Page class holding a block of SKU slots
+    private static final class Page {
+        final AtomicReferenceArray<Perfume> slots = new AtomicReferenceArray<>(PAGE_SIZE);
+    }
+}
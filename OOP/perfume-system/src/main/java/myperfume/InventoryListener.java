@@ -0,0 +1,18 @@
+package myperfume;
+
+// InventoryListener interface for components that react to perfume changes
+// Listeners run on the thread that made the change, so they must be quick and must not throw
+interface InventoryListener {
+    default void onPerfumeAdded(Perfume perfume) {}
+    default void onSale(Perfume perfume, int quantity, long amountSen) {}
+    default void onStockOut(Perfume perfume, int requested) {}
+    default void onStockAdded(Perfume perfume, int quantity) {}
+    default void onStockRemoved(Perfume perfume, int quantity) {}
+    default void onStockSet(Perfume perfume, int oldQuantity, int newQuantity) {}
+    default void onPriceSet(Perfume perfume, long oldPriceSen, long newPriceSen) {}
+
+    // Branch store events, see StoreNetwork; a listener that doesn't track stores sees branch sales as plain sales
+    default void onStoreSale(Perfume perfume, int store, int quantity, long amountSen) { onSale(perfume, quantity, amountSen); }
+    default void onStoreStock(Perfume perfume, int store, int delta) {}
+    default void onTransfer(Perfume perfume, int fromStore, int toStore, int quantity) {}
+}
@@ -0,0 +1,198 @@
+package myperfume;
+
+// Import required packages
+import java.util.*;
+
+// Json class with a small reader and writer for the order service, so no library is needed
+// Objects become LinkedHashMap, arrays ArrayList, numbers Long or Double
+final class Json {
+    private final String text;
+    private int pos;
+
+    // Constructor to create a reader over a JSON text
+    private Json(String text) {
+        this.text = text;
+    }
+
+    // Method to parse a JSON document
+    public static Object parse(String text) {
+        Json reader = new Json(text);
+        reader.skipSpace();
+        Object value = reader.readValue();
+        reader.skipSpace();
+        if (reader.pos != text.length()) throw reader.error("Unexpected trailing text");
+        return value;
+    }
+
+    // Method to read any value at the current position
+    private Object readValue() {
+        if (pos >= text.length()) throw error("Unexpected end of JSON");
+        char c = text.charAt(pos);
+        switch (c) {
+            case '{': return readObject();
+            case '[': return readArray();
+            case '"': return readString();
+            case 't': return readWord("true", Boolean.TRUE);
+            case 'f': return readWord("false", Boolean.FALSE);
+            case 'n': return readWord("null", null);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) return readNumber();
+                throw error("Unexpected character '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> readObject() {
+        LinkedHashMap<String, Object> map = new LinkedHashMap<>();
+        pos++; // {
+        skipSpace();
+        if (peek() == '}') {
+            pos++;
+            return map;
+        }
+        while (true) {
+            skipSpace();
+            if (peek() != '"') throw error("Expected a field name");
+            String key = readString();
+            skipSpace();
+            expect(':');
+            skipSpace();
+            map.put(key, readValue());
+            skipSpace();
+            if (peek() == ',') {
+                pos++;
+                continue;
+            }
+            expect('}');
+            return map;
+        }
+    }
+
+    private List<Object> readArray() {
+        ArrayList<Object> list = new ArrayList<>();
+        pos++; // [
+        skipSpace();
+        if (peek() == ']') {
+            pos++;
+            return list;
+        }
+        while (true) {
+            skipSpace();
+            list.add(readValue());
+            skipSpace();
+            if (peek() == ',') {
+                pos++;
+                continue;
+            }
+            expect(']');
+            return list;
+        }
+    }
+
+    private String readString() {
+        pos++; // opening quote
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            if (pos >= text.length()) throw error("Unterminated string");
+            char c = text.charAt(pos++);
+            if (c == '"') return sb.toString();
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (pos >= text.length()) throw error("Unterminated string");
+            char e = text.charAt(pos++);
+            switch (e) {
+                case '"': case '\\': case '/': sb.append(e); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'u':
+                    if (pos + 4 > text.length()) throw error("Bad unicode escape");
+                    try {
+                        sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException ex) {
+                        throw error("Bad unicode escape");
+                    }
+                    pos += 4;
+                    break;
+                default: throw error("Bad escape \\" + e);
+            }
+        }
+    }
+
+    private Object readNumber() {
+        int start = pos;
+        if (peek() == '-') pos++;
+        boolean decimal = false;
+        while (pos < text.length()) {
+            char c = text.charAt(pos);
+            if (c >= '0' && c <= '9') {
+                pos++;
+            } else if (c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                decimal = true;
+                pos++;
+            } else {
+                break;
+            }
+        }
+        String number = text.substring(start, pos);
+        try {
+            return decimal ? (Object) Double.parseDouble(number) : (Object) Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            throw error("Bad number " + number);
+        }
+    }
+
+    private Object readWord(String word, Object value) {
+        if (!text.startsWith(word, pos)) throw error("Unexpected value");
+        pos += word.length();
+        return value;
+    }
+
+    private void skipSpace() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+    }
+
+    private char peek() {
+        return pos < text.length() ? text.charAt(pos) : '\0';
+    }
+
+    private void expect(char c) {
+        if (peek() != c) throw error("Expected '" + c + "'");
+        pos++;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + pos + ".");
+    }
+
+    // Method to append a string as a quoted JSON string
+    public static StringBuilder appendString(StringBuilder out, String value) {
+        if (value == null) return out.append("null");
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+
+    // Method to quote a string as JSON
+    public static String quote(String value) {
+        return appendString(new StringBuilder(), value).toString();
+    }
+}
@@ -0,0 +1,105 @@
+package myperfume;
+
+// Import required packages
+import java.util.concurrent.atomic.*;
+
+// LatencyHistogram class counting durations in log-linear buckets, like an HDR histogram
+// Each power of two is split into 64 buckets, so any percentile is within about 1.6% of the real value
+// Recording is one array increment with no lock and no allocation; values above about 18 minutes are capped
+class LatencyHistogram {
+    private static final int SUB_BITS = 7;
+    private static final int HALF = 1 << (SUB_BITS - 1);   // buckets per power of two
+    private static final int MAX_BITS = 40;                 // 2^40 ns is about 18 minutes
+    private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+    private static final int BUCKETS = (MAX_BITS - SUB_BITS + 3) * HALF;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    // Constructor to create an empty histogram
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() { return name; }
+
+    // Method to record one duration in nanoseconds
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        if (nanos > MAX_VALUE) nanos = MAX_VALUE;
+        counts.incrementAndGet(indexOf(nanos));
+        totalNanos.add(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    // Method to record the time since a System.nanoTime() start
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    // Method to find the bucket for a value
+    static int indexOf(long value) {
+        if (value < 2 * HALF) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    // Method to find the highest value that falls in a bucket
+    static long highestValueOf(int index) {
+        if (index < 2 * HALF) return index;
+        int shift = index / HALF - 1;
+        long mantissa = index - (long) shift * HALF;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    // Method to copy the counts so percentiles are read from one consistent view
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(name, copy, count, totalNanos.sum(), maxNanos.get());
+    }
+
+    // Snapshot class holding the counts read at one point
+    static class Snapshot {
+        private final String name;
+        private final long[] counts;
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        Snapshot(String name, long[] counts, long count, long totalNanos, long maxNanos) {
+            this.name = name;
+            this.counts = counts;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        // Getters for snapshot attributes
+        public String getName() { return name; }
+        public long getCount() { return count; }
+        public long getMaxNanos() { return maxNanos; }
+        public double getMeanNanos() { return count == 0 ? 0 : (double) totalNanos / count; }
+
+        // Method to get the value at a percentile between 0 and 100
+        public long percentile(double percent) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(percent / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(highestValueOf(i), maxNanos);
+            }
+            return maxNanos;
+        }
+    }
+}
@@ -0,0 +1,589 @@
+package myperfume;
+
+// Import required packages
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// LoadGenerator class driving the ordering workflow with a synthetic, repeatable workload instead of a person at the menus
+// Each thread gets its own stream of operations from the seed, so the same options always produce the same work:
+//   orders   Online or InStore, from a pool of customers, lines picked by Zipf-skewed popularity; some are abandoned
+//   browse   reading a page of perfumes with their price and stock in every store, like viewInventory
+//   admin    restocking a store, setting the main store's stock or changing a price
+// The operations go straight to the Order, Perfume and StoreNetwork APIs, and afterwards every perfume is checked:
+// no store below zero, stock plus units sold equal to the starting stock plus admin changes, and units and sales
+// equal to what the committed orders add up to. A run can be saved as a trace and replayed later; with one thread
+// the replay must end in exactly the same state, which the trace's fingerprint checks
+// Run with: java LoadGenerator [--seed 42] [--threads 8] [--ops 200000] [--perfumes 2000] [--stock 500]
+//           [--branches 3] [--zipf 1.1] [--online 0.6] [--admin 0.02] [--browse 0.1] [--cancel 0.05]
+//           [--lines 3] [--customers 10000] [--columnar] [--record trace.txt] [--replay trace.txt]
+public class LoadGenerator {
+    private static final String TRACE_HEADER = "# perfume-load 1";
+    private static final int BROWSE_PAGE = 20;
+
+    // Workload settings, saved in a trace so a replay builds the same shop
+    private long seed = 42;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int ops = 200_000;
+    private int perfumes = 2_000;
+    private int stock = 500;
+    private int branches = 3;
+    private double zipf = 1.1;
+    private double online = 0.6;
+    private double admin = 0.02;
+    private double browse = 0.1;
+    private double cancel = 0.05;
+    private int lines = 3;
+    private int customerCount = 10_000;
+    private boolean columnar = false;
+
+    // State of one run
+    private Inventory inventory;
+    private StoreNetwork stores;
+    private Customer[] customers;
+    private long[] expectedStock; // starting stock of every store plus admin changes, per SKU
+    private AtomicLongArray adminDelta;
+    private AtomicLongArray unitsOrdered; // committed by this run, per SKU
+    private final LongAdder salesOrdered = new LongAdder();
+    private final LongAdder ordersCommitted = new LongAdder();
+    private final LongAdder ordersCancelled = new LongAdder();
+    private final LongAdder emptyOrders = new LongAdder();
+    private final LongAdder linesPlaced = new LongAdder();
+    private final LongAdder linesRejected = new LongAdder();
+    private final LongAdder adminRejected = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram orderLatency = new LatencyHistogram("order");
+    private final LatencyHistogram browseLatency = new LatencyHistogram("browse");
+    private final LatencyHistogram adminLatency = new LatencyHistogram("admin");
+
+    public static void main(String[] args) {
+        LoadGenerator generator = new LoadGenerator();
+        String replay = NewMyPerfumeSystem.optionValue(args, "--replay");
+        String record = NewMyPerfumeSystem.optionValue(args, "--record");
+        try {
+            List<List<Op>> work;
+            String recordedFingerprint = null;
+            if (replay != null) {
+                Trace trace = generator.readTrace(Paths.get(replay));
+                String threads = NewMyPerfumeSystem.optionValue(args, "--threads"); // the only option a replay takes
+                try {
+                    work = regroup(trace.work, threads != null ? Math.max(1, Integer.parseInt(threads)) : trace.work.size());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid thread count: " + threads);
+                }
+                recordedFingerprint = trace.threads == work.size() ? trace.fingerprint : null;
+                System.out.printf("Replaying %s: %d operations on %d threads%n", replay, count(work), work.size());
+            } else {
+                generator.applyOptions(args);
+                work = generator.generate();
+                System.out.printf("Generated %d operations on %d threads (seed %d)%n", count(work), work.size(), generator.seed);
+            }
+            generator.setUp();
+            long nanos = generator.run(work);
+            int violations = generator.report(nanos);
+            String fingerprint = generator.fingerprint();
+            System.out.println("State fingerprint: " + fingerprint + (work.size() > 1 ? " (threads interleave, so only single-threaded runs repeat it)" : ""));
+            if (recordedFingerprint != null && work.size() == 1) {
+                boolean same = recordedFingerprint.equals(fingerprint);
+                System.out.println(same ? "Replay matches the recorded run." : "Replay differs from the recorded run!");
+                if (!same) violations++;
+            }
+            if (record != null) {
+                generator.writeTrace(Paths.get(record), work, fingerprint);
+                System.out.println("Trace written to " + record);
+            }
+            if (violations > 0) System.exit(1);
+        } catch (IOException e) {
+            System.out.println("Failed to " + (replay != null ? "read trace " + replay : "write trace " + record) + ": " + e.getMessage());
+            System.exit(2);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(2);
+        } finally {
+            NewMyPerfumeSystem.billWriter.close();
+        }
+    }
+
+    // Method to read the workload settings from the command line
+    private void applyOptions(String[] args) {
+        try {
+            String value;
+            if ((value = NewMyPerfumeSystem.optionValue(args, "--seed")) != null) seed = Long.parseLong(value);
+            if ((value = NewMyPerfumeSystem.optionValue(args, "--threads")) != null) threads = Integer.parseInt(value);
+            if ((value = NewMyPerfumeSystem.optionValue(args, "--ops")) != null) ops = Integer.parseInt(value);
+            if ((value = NewMyPerfumeSystem.optionValue(args, "--perfumes")) != null) perfumes = Integer.parseInt(value);
+            if ((value = NewMyPerfumeSystem.optionValue(args, "--stock")) != null) stock = Integer.parseInt(value);
+            if ((value = NewMyPerfumeSystem.optionValue(args, "--branches")) != null) branches = Integer.parseInt(value);
+            if ((value = NewMyPerfumeSystem.optionValue(args, "--zipf")) != null) zipf = Double.parseDouble(value);
+            if ((value = NewMyPerfumeSystem.optionValue(args, "--online")) != null) online = Double.parseDouble(value);
+            if ((value = NewMyPerfumeSystem.optionValue(args, "--admin")) != null) admin = Double.parseDouble(value);
+            if ((value = NewMyPerfumeSystem.optionValue(args, "--browse")) != null) browse = Double.parseDouble(value);
+            if ((value = NewMyPerfumeSystem.optionValue(args, "--cancel")) != null) cancel = Double.parseDouble(value);
+            if ((value = NewMyPerfumeSystem.optionValue(args, "--lines")) != null) lines = Integer.parseInt(value);
+            if ((value = NewMyPerfumeSystem.optionValue(args, "--customers")) != null) customerCount = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + e.getMessage());
+        }
+        if (Arrays.asList(args).contains("--columnar")) columnar = true;
+        if (threads < 1 || ops < 0 || perfumes < 1 || stock < 0 || branches < 0 || lines < 1 || customerCount < 1 || zipf < 0) {
+            throw new IllegalArgumentException("Threads, perfumes, lines and customers must be at least 1; ops, stock, branches and zipf at least 0.");
+        }
+        if (admin < 0 || browse < 0 || admin + browse > 1 || online < 0 || online > 1 || cancel < 0 || cancel > 1) {
+            throw new IllegalArgumentException("Fractions must be between 0 and 1, and admin plus browse at most 1.");
+        }
+    }
+
+    // Method to generate every thread's operations from the seed
+    private List<List<Op>> generate() {
+        double[] popularity = zipfCdf(perfumes, zipf);
+        int[] skuByRank = shuffledSkus(perfumes, new SplittableRandom(seed));
+        List<List<Op>> work = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = new SplittableRandom(seed * 1_000_003L + t); // one stream per thread
+            int count = ops / threads + (t < ops % threads ? 1 : 0);
+            ArrayList<Op> list = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                double kind = random.nextDouble();
+                if (kind < admin) {
+                    int sku = skuByRank[pick(popularity, random)]; // hot perfumes are the ones that need restocking
+                    double what = random.nextDouble();
+                    if (what < 0.6) {
+                        list.add(Op.admin(Op.RESTOCK, random.nextInt(branches + 1), sku, 10 + random.nextInt(91)));
+                    } else if (what < 0.85) {
+                        list.add(Op.admin(Op.PRICE, 0, sku, Money.ofRinggit(20 + random.nextInt(181))));
+                    } else {
+                        list.add(Op.admin(Op.SET_STOCK, 0, sku, random.nextInt(stock + 1)));
+                    }
+                } else if (kind < admin + browse) {
+                    list.add(Op.browse(random.nextInt(perfumes)));
+                } else {
+                    int lineCount = 1 + random.nextInt(2 * lines - 1); // lines on average
+                    int[] skus = new int[lineCount];
+                    int[] quantities = new int[lineCount];
+                    for (int l = 0; l < lineCount; l++) {
+                        skus[l] = skuByRank[pick(popularity, random)];
+                        quantities[l] = 1 + random.nextInt(3);
+                    }
+                    boolean isOnline = random.nextDouble() < online;
+                    list.add(Op.order(isOnline, random.nextInt(customerCount), isOnline ? 0 : random.nextInt(branches + 1),
+                            random.nextDouble() < cancel, skus, quantities));
+                }
+            }
+            work.add(list);
+        }
+        return work;
+    }
+
+    // Method to build the shop the operations run against, every perfume stocked in every store
+    private void setUp() {
+        SplittableRandom random = new SplittableRandom(seed ^ 0x5DEECE66DL);
+        inventory = columnar ? new Inventory(null, true) : new Inventory();
+        for (int i = 0; i < perfumes; i++) {
+            inventory.add(new Perfume("Perfume " + (i + 1), Money.ofRinggit(20 + random.nextInt(181)), stock));
+        }
+        ArrayList<String[]> branchList = new ArrayList<>();
+        for (int b = 1; b <= branches; b++) branchList.add(new String[] {"Branch " + b, b + ", Jalan Load " + b});
+        stores = new StoreNetwork(inventory, branchList);
+        for (Store store : stores.list()) {
+            if (store.isMain()) continue;
+            for (int sku = 0; sku < perfumes; sku++) stores.addStock(store, inventory.get(sku), stock / 2);
+        }
+        NewMyPerfumeSystem.inventory = inventory; // orders find their stores and prices through the statics
+        NewMyPerfumeSystem.stores = stores;
+        inventory.addListener(NewMyPerfumeSystem.pricing);
+        inventory.addListener(NewMyPerfumeSystem.hotPathMetrics);
+
+        customers = new Customer[customerCount];
+        for (int c = 0; c < customerCount; c++) {
+            customers[c] = NewMyPerfumeSystem.customers.register("Customer " + (c + 1), String.format("01%08d", c));
+        }
+        expectedStock = new long[perfumes];
+        for (int sku = 0; sku < perfumes; sku++) expectedStock[sku] = totalStock(inventory.get(sku));
+        adminDelta = new AtomicLongArray(perfumes);
+        unitsOrdered = new AtomicLongArray(perfumes);
+        inventory.addListener(new InventoryListener() { // admin changes move the stock the checks expect
+            @Override public void onStockAdded(Perfume p, int quantity) { adminDelta.addAndGet(p.getSku(), quantity); }
+            @Override public void onStockRemoved(Perfume p, int quantity) { adminDelta.addAndGet(p.getSku(), -quantity); }
+            @Override public void onStockSet(Perfume p, int oldQuantity, int newQuantity) { adminDelta.addAndGet(p.getSku(), newQuantity - oldQuantity); }
+            @Override public void onStoreStock(Perfume p, int store, int delta) { adminDelta.addAndGet(p.getSku(), delta); }
+        });
+    }
+
+    // Method to run every thread's operations at once, returns the elapsed nanoseconds
+    private long run(List<List<Op>> work) {
+        CountDownLatch ready = new CountDownLatch(work.size());
+        CountDownLatch go = new CountDownLatch(1);
+        ArrayList<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < work.size(); t++) {
+            List<Op> list = work.get(t);
+            Thread worker = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (Op op : list) execute(op);
+            }, "load-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+        try {
+            ready.await();
+            long start = System.nanoTime();
+            go.countDown();
+            for (Thread worker : workers) worker.join();
+            return System.nanoTime() - start;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while the load was running.");
+        }
+    }
+
+    // Method to run one operation and time it
+    private void execute(Op op) {
+        long start = System.nanoTime();
+        try {
+            if (op.kind == Op.ORDER) {
+                placeOrder(op);
+                orderLatency.recordSince(start);
+            } else if (op.kind == Op.BROWSE) {
+                browse(op.sku);
+                browseLatency.recordSince(start);
+            } else {
+                editStock(op);
+                adminLatency.recordSince(start);
+            }
+        } catch (RuntimeException e) {
+            errors.increment(); // not a refused line or edit, those are counted where they happen
+            if (errors.sum() <= 5) System.out.println("Unexpected " + e + " in " + op.toLine(0));
+        }
+    }
+
+    // Method to place one order the way makeOrder does: lines that are out of stock are skipped
+    private void placeOrder(Op op) {
+        Customer customer = customers[op.customer];
+        Order order = op.online
+                ? new OnlineOrder(customer, "Unit " + op.customer + ", Jalan Load")
+                : new InStoreOrder(customer, stores.get(op.store));
+        for (int l = 0; l < op.skus.length; l++) {
+            try {
+                order.addPerfume(inventory.get(op.skus[l]), op.quantities[l]);
+                linesPlaced.increment();
+            } catch (IllegalArgumentException e) {
+                linesRejected.increment();
+            }
+        }
+        if (order.getLines().isEmpty()) {
+            emptyOrders.increment();
+            order.cancel();
+        } else if (op.cancel) {
+            ordersCancelled.increment();
+            order.cancel();
+        } else {
+            order.complete();
+            for (OrderLine line : order.getLines()) unitsOrdered.addAndGet(line.getPerfume().getSku(), line.getQuantity());
+            salesOrdered.add(order.calculateTotal());
+            ordersCommitted.increment();
+        }
+    }
+
+    // Method to read a page of perfumes with their price and stock everywhere
+    private void browse(int first) {
+        long sum = 0;
+        for (int sku = first; sku < Math.min(first + BROWSE_PAGE, perfumes); sku++) {
+            Perfume p = inventory.get(sku);
+            sum += p.getName().length() + NewMyPerfumeSystem.pricing.unitPrice(p, PricingEngine.ONLINE, 1) + totalStock(p);
+        }
+        if (sum == Long.MIN_VALUE) System.out.println(); // keep the reads from being optimised away
+    }
+
+    // Method to make one admin change
+    private void editStock(Op op) {
+        Perfume p = inventory.get(op.sku);
+        try {
+            if (op.kind == Op.RESTOCK) stores.addStock(stores.get(op.store), p, (int) op.value);
+            else if (op.kind == Op.PRICE) p.setNewPrice(op.value);
+            else p.setNewStockQuantity((int) op.value);
+        } catch (IllegalArgumentException e) {
+            adminRejected.increment();
+        }
+    }
+
+    // Method to print throughput and latency and check every perfume, returns the number of violations
+    private int report(long nanos) {
+        double seconds = Math.max(nanos / 1e9, 1e-9);
+        long total = orderLatency.snapshot().getCount() + browseLatency.snapshot().getCount() + adminLatency.snapshot().getCount();
+        System.out.printf("%nRan %d operations in %.2f s: %.0f ops/s, %.0f orders/s%n", total, seconds, total / seconds,
+                ordersCommitted.sum() / seconds);
+        System.out.printf("Orders committed %d, abandoned %d, with nothing in stock %d; lines placed %d, refused for stock %d%n",
+                ordersCommitted.sum(), ordersCancelled.sum(), emptyOrders.sum(), linesPlaced.sum(), linesRejected.sum());
+        System.out.printf("%n%-10s %9s %10s %10s %10s %10s %10s %10s%n", "Latency (us)", "count", "mean", "p50", "p90", "p99", "p99.9", "max");
+        for (LatencyHistogram histogram : List.of(orderLatency, browseLatency, adminLatency)) {
+            LatencyHistogram.Snapshot s = histogram.snapshot();
+            System.out.printf("%-12s %7d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n", s.getName(), s.getCount(), s.getMeanNanos() / 1000.0,
+                    s.percentile(50) / 1000.0, s.percentile(90) / 1000.0, s.percentile(99) / 1000.0,
+                    s.percentile(99.9) / 1000.0, s.getMaxNanos() / 1000.0);
+        }
+
+        int oversold = 0, unbalanced = 0, miscounted = 0;
+        long unitsSold = 0, salesSen = 0;
+        for (int sku = 0; sku < perfumes; sku++) {
+            Perfume p = inventory.get(sku);
+            for (Store store : stores.list()) {
+                if (store.stockOf(p) < 0) {
+                    oversold++;
+                    if (oversold <= 5) System.out.println("Oversold: " + p.getName() + " at " + store.getName() + " has " + store.stockOf(p));
+                }
+            }
+            long expected = expectedStock[sku] + adminDelta.get(sku);
+            long actual = totalStock(p) + p.getQuantitySold();
+            if (actual != expected) {
+                unbalanced++;
+                if (unbalanced <= 5) System.out.println("Stock does not add up: " + p.getName() + " expected " + expected + ", stock plus sold is " + actual);
+            }
+            if (p.getQuantitySold() != unitsOrdered.get(sku)) {
+                miscounted++;
+                if (miscounted <= 5) System.out.println("Units sold differ: " + p.getName() + " recorded " + p.getQuantitySold() + ", ordered " + unitsOrdered.get(sku));
+            }
+            unitsSold += p.getQuantitySold();
+            salesSen += p.getTotalSalesSen();
+        }
+        int salesMismatch = salesSen == salesOrdered.sum() ? 0 : 1;
+        if (salesMismatch > 0) System.out.println("Sales differ: perfumes recorded RM" + Money.format(salesSen) + ", orders total RM" + Money.format(salesOrdered.sum()));
+        int violations = oversold + unbalanced + miscounted + salesMismatch + (int) Math.min(errors.sum(), Integer.MAX_VALUE);
+        System.out.printf("%nConsistency: %d units sold for RM%s; %d oversold, %d unbalanced, %d miscounted, %d sales mismatches, %d errors, %d admin edits refused%n",
+                unitsSold, Money.format(salesSen), oversold, unbalanced, miscounted, salesMismatch, errors.sum(), adminRejected.sum());
+        System.out.println(violations == 0 ? "No violations." : violations + " violations!");
+        return violations;
+    }
+
+    // Method to hash the final stock and sales of every perfume, so two runs can be compared
+    private String fingerprint() {
+        long h = 0xcbf29ce484222325L;
+        for (int sku = 0; sku < perfumes; sku++) {
+            Perfume p = inventory.get(sku);
+            for (Store store : stores.list()) h = (h ^ store.stockOf(p)) * 0x100000001b3L;
+            h = (h ^ p.getQuantitySold()) * 0x100000001b3L;
+            h = (h ^ p.getTotalSalesSen()) * 0x100000001b3L;
+            h = (h ^ p.getPriceSen()) * 0x100000001b3L;
+        }
+        return Long.toHexString(h);
+    }
+
+    // Method to add up a perfume's stock in every store
+    private long totalStock(Perfume p) {
+        long total = 0;
+        for (Store store : stores.list()) total += store.stockOf(p);
+        return total;
+    }
+
+    // Method to write the settings and operations as a trace, one operation per line
+    private void writeTrace(Path file, List<List<Op>> work, String fingerprint) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(TRACE_HEADER + "\n");
+            writer.write(String.format("setup seed=%d perfumes=%d stock=%d branches=%d customers=%d columnar=%b%n",
+                    seed, perfumes, stock, branches, customerCount, columnar));
+            writer.write("fingerprint " + fingerprint + " threads=" + work.size() + "\n");
+            for (int t = 0; t < work.size(); t++) {
+                for (Op op : work.get(t)) {
+                    writer.write(op.toLine(t));
+                    writer.write('\n');
+                }
+            }
+        }
+    }
+
+    // Method to read a trace written by writeTrace, its setup replaces the current settings
+    private Trace readTrace(Path file) throws IOException {
+        Trace trace = new Trace();
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (!TRACE_HEADER.equals(line)) throw new IOException("not a load trace");
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) continue;
+                String[] parts = line.trim().split(" ");
+                try {
+                    if (parts[0].equals("setup")) {
+                        for (int i = 1; i < parts.length; i++) setting(parts[i]);
+                    } else if (parts[0].equals("fingerprint")) {
+                        trace.fingerprint = parts[1];
+                        trace.threads = Integer.parseInt(parts[2].substring("threads=".length()));
+                    } else {
+                        int thread = Integer.parseInt(parts[1]);
+                        while (trace.work.size() <= thread) trace.work.add(new ArrayList<>());
+                        trace.work.get(thread).add(Op.parse(parts));
+                    }
+                } catch (RuntimeException e) {
+                    throw new IOException("line " + (lineNumber + 1) + " is not valid: " + line);
+                }
+            }
+        }
+        if (trace.work.isEmpty()) trace.work.add(new ArrayList<>());
+        for (List<Op> list : trace.work) {
+            for (Op op : list) op.check(perfumes, branches, customerCount);
+        }
+        return trace;
+    }
+
+    // Method to apply one key=value from a trace's setup line
+    private void setting(String pair) {
+        String key = pair.substring(0, pair.indexOf('='));
+        String value = pair.substring(pair.indexOf('=') + 1);
+        switch (key) {
+            case "seed": seed = Long.parseLong(value); break;
+            case "perfumes": perfumes = Integer.parseInt(value); break;
+            case "stock": stock = Integer.parseInt(value); break;
+            case "branches": branches = Integer.parseInt(value); break;
+            case "customers": customerCount = Integer.parseInt(value); break;
+            case "columnar": columnar = Boolean.parseBoolean(value); break;
+            default: throw new IllegalArgumentException("Unknown setting " + key);
+        }
+    }
+
+    // Method to spread recorded streams over a number of threads, keeping each stream's order
+    private static List<List<Op>> regroup(List<List<Op>> work, int threads) {
+        if (threads == work.size()) return work;
+        List<List<Op>> regrouped = new ArrayList<>();
+        for (int t = 0; t < threads; t++) regrouped.add(new ArrayList<>());
+        for (int t = 0; t < work.size(); t++) regrouped.get(t % threads).addAll(work.get(t));
+        return regrouped;
+    }
+
+    private static int count(List<List<Op>> work) {
+        int total = 0;
+        for (List<Op> list : work) total += list.size();
+        return total;
+    }
+
+    // Method to build the cumulative Zipf distribution over n ranks, rank 0 the most popular
+    static double[] zipfCdf(int n, double exponent) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cdf[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) cdf[rank] /= sum;
+        return cdf;
+    }
+
+    // Method to draw a rank from a cumulative distribution
+    static int pick(double[] cdf, SplittableRandom random) {
+        int at = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(at >= 0 ? at : -at - 1, cdf.length - 1);
+    }
+
+    // Method to decide which perfume holds each popularity rank, so the best sellers are spread over the SKUs
+    private static int[] shuffledSkus(int n, SplittableRandom random) {
+        int[] skus = new int[n];
+        for (int i = 0; i < n; i++) skus[i] = i;
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = skus[i];
+            skus[i] = skus[j];
+            skus[j] = swap;
+        }
+        return skus;
+    }
+
+    // Trace class holding the operations read from a trace file
+    private static class Trace {
+        final List<List<Op>> work = new ArrayList<>();
+        String fingerprint;
+        int threads;
+    }
+
+    // Op class holding one generated operation, written to a trace as one line:
+    //   order  <thread> online|instore <customer> <store> commit|cancel <sku>x<quantity> ...
+    //   browse <thread> <first sku>
+    //   restock|price|stock <thread> <store> <sku> <value>
+    private static class Op {
+        static final int ORDER = 0, BROWSE = 1, RESTOCK = 2, PRICE = 3, SET_STOCK = 4;
+        private static final String[] NAMES = {"order", "browse", "restock", "price", "stock"};
+
+        final int kind;
+        boolean online;
+        boolean cancel;
+        int customer;
+        int store;
+        int sku;
+        long value;
+        int[] skus;
+        int[] quantities;
+
+        Op(int kind) { this.kind = kind; }
+
+        static Op order(boolean online, int customer, int store, boolean cancel, int[] skus, int[] quantities) {
+            Op op = new Op(ORDER);
+            op.online = online;
+            op.customer = customer;
+            op.store = store;
+            op.cancel = cancel;
+            op.skus = skus;
+            op.quantities = quantities;
+            return op;
+        }
+
+        static Op browse(int first) {
+            Op op = new Op(BROWSE);
+            op.sku = first;
+            return op;
+        }
+
+        static Op admin(int kind, int store, int sku, long value) {
+            Op op = new Op(kind);
+            op.store = store;
+            op.sku = sku;
+            op.value = value;
+            return op;
+        }
+
+        String toLine(int thread) {
+            StringBuilder line = new StringBuilder(NAMES[kind]).append(' ').append(thread);
+            if (kind == ORDER) {
+                line.append(online ? " online " : " instore ").append(customer).append(' ').append(store).append(cancel ? " cancel" : " commit");
+                for (int l = 0; l < skus.length; l++) line.append(' ').append(skus[l]).append('x').append(quantities[l]);
+            } else if (kind == BROWSE) {
+                line.append(' ').append(sku);
+            } else {
+                line.append(' ').append(store).append(' ').append(sku).append(' ').append(value);
+            }
+            return line.toString();
+        }
+
+        static Op parse(String[] parts) {
+            int kind = Arrays.asList(NAMES).indexOf(parts[0]);
+            if (kind == ORDER) {
+                int lineCount = parts.length - 6;
+                if (lineCount < 1) throw new IllegalArgumentException("order without lines");
+                int[] skus = new int[lineCount];
+                int[] quantities = new int[lineCount];
+                for (int l = 0; l < lineCount; l++) {
+                    String item = parts[6 + l];
+                    skus[l] = Integer.parseInt(item.substring(0, item.indexOf('x')));
+                    quantities[l] = Integer.parseInt(item.substring(item.indexOf('x') + 1));
+                }
+                return order(parts[2].equals("online"), Integer.parseInt(parts[3]), Integer.parseInt(parts[4]),
+                        parts[5].equals("cancel"), skus, quantities);
+            }
+            if (kind == BROWSE) return browse(Integer.parseInt(parts[2]));
+            if (kind < 0 || parts.length != 5) throw new IllegalArgumentException("unknown operation");
+            return admin(kind, Integer.parseInt(parts[2]), Integer.parseInt(parts[3]), Long.parseLong(parts[4]));
+        }
+
+        // Method to refuse an operation that names a perfume, store or customer the setup doesn't have
+        void check(int perfumes, int branches, int customers) throws IOException {
+            boolean valid = store >= 0 && store <= branches && customer >= 0 && customer < customers && sku >= 0 && sku < perfumes;
+            if (skus != null) {
+                for (int l = 0; l < skus.length; l++) valid &= skus[l] >= 0 && skus[l] < perfumes && quantities[l] > 0;
+            }
+            if (!valid) throw new IOException("operation does not fit the trace's setup: " + toLine(0));
+        }
+    }
+}
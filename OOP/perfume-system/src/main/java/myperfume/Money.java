@@ -0,0 +1,63 @@
+package myperfume;
+
+// Money class with helpers for amounts kept as a primitive long number of sen (1 RM = 100 sen)
+// Using whole sen keeps every total exact, and the append methods write digits without allocating
+final class Money {
+    private Money() {}
+
+    // Method to convert whole ringgit to sen
+    public static long ofRinggit(long ringgit) {
+        return Math.multiplyExact(ringgit, 100);
+    }
+
+    // Method to read an amount like "12", "12.5" or "12.50" exactly
+    public static long parse(String text) {
+        String s = text.trim();
+        if (s.startsWith("RM") || s.startsWith("rm")) s = s.substring(2);
+        boolean negative = s.startsWith("-");
+        if (negative) s = s.substring(1);
+        int dot = s.indexOf('.');
+        String whole = dot < 0 ? s : s.substring(0, dot);
+        String fraction = dot < 0 ? "" : s.substring(dot + 1);
+        if (whole.isEmpty() && fraction.isEmpty() || fraction.length() > 2
+                || !isDigits(whole) || !isDigits(fraction)) {
+            throw new NumberFormatException("Invalid amount: " + text);
+        }
+        long sen = Math.multiplyExact(whole.isEmpty() ? 0 : Long.parseLong(whole), 100);
+        if (fraction.length() == 1) sen = Math.addExact(sen, (fraction.charAt(0) - '0') * 10);
+        if (fraction.length() == 2) sen = Math.addExact(sen, Integer.parseInt(fraction));
+        return negative ? -sen : sen;
+    }
+
+    // Method to multiply a unit price by a quantity, failing instead of overflowing
+    public static long times(long sen, int quantity) {
+        return Math.multiplyExact(sen, (long) quantity);
+    }
+
+    // Method to format sen as "12.50"
+    public static String format(long sen) {
+        return appendTo(new StringBuilder(24), sen).toString();
+    }
+
+    // Method to append sen as "12.50" to a buffer
+    public static StringBuilder appendTo(StringBuilder out, long sen) {
+        if (sen < 0) {
+            out.append('-');
+            if (sen == Long.MIN_VALUE) return out.append("92233720368547758.08");
+            sen = -sen;
+        }
+        long cents = sen % 100;
+        out.append(sen / 100).append('.');
+        if (cents < 10) out.append('0');
+        return out.append(cents);
+    }
+
+    // Method to check a string only holds the digits 0-9
+    private static boolean isDigits(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,60 @@
+package myperfume;
+
+// Import required packages
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// NameTable class holding strings as UTF-8 bytes packed into shared 1 MB chunks, numbered from 0
+// Each name costs its bytes plus one long (where it starts and how long it is), instead of a String and its
+// array; names are only turned back into Strings when asked for. Adding takes a lock, reading never does
+class NameTable {
+    private static final int CHUNK_BITS = 20;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int MAX_CHUNKS = 1 << (31 - CHUNK_BITS); // so a start still fits in an int
+
+    private volatile byte[][] chunks = new byte[0][];
+    private volatile long[] refs = new long[64]; // start << 32 | length, start is chunk << CHUNK_BITS | offset
+    private int count; // guarded by this
+    private int fill; // bytes used in the last chunk, guarded by this
+
+    // Method to add a name, returns its number
+    // A reader must learn the number from the thread that added it (e.g. through Inventory.size) to see the bytes
+    public synchronized int add(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[][] current = chunks;
+        if (current.length == 0 || fill + bytes.length > current[current.length - 1].length) {
+            if (current.length == MAX_CHUNKS) throw new IllegalStateException("Name table is full.");
+            current = Arrays.copyOf(current, current.length + 1);
+            current[current.length - 1] = new byte[Math.max(CHUNK_SIZE, bytes.length)]; // a huge name gets its own chunk
+            fill = 0;
+        }
+        int chunk = current.length - 1;
+        System.arraycopy(bytes, 0, current[chunk], fill, bytes.length);
+        long start = ((long) chunk << CHUNK_BITS) + fill;
+        fill += bytes.length;
+        chunks = current;
+
+        long[] r = refs;
+        if (count == r.length) r = Arrays.copyOf(r, count * 2);
+        r[count] = start << 32 | bytes.length;
+        refs = r;
+        return count++;
+    }
+
+    // Method to get a name by number
+    public String get(int index) {
+        long ref = refs[index];
+        int start = (int) (ref >>> 32);
+        return new String(chunks[start >>> CHUNK_BITS], start & (CHUNK_SIZE - 1), (int) ref, StandardCharsets.UTF_8);
+    }
+
+    // Method to copy a name's UTF-8 bytes into a bill
+    void writeTo(int index, BillOutput out) {
+        long ref = refs[index];
+        int start = (int) (ref >>> 32);
+        out.raw(chunks[start >>> CHUNK_BITS], start & (CHUNK_SIZE - 1), (int) ref);
+    }
+
+    // Method to get how many names there are
+    public synchronized int size() { return count; }
+}
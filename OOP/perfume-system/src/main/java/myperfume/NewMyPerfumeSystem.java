@@ -0,0 +1,1597 @@
+package myperfume;
+
+// Import required packages
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+// Perfume class 
+// A perfume keeps its own counters; a PerfumeView keeps the same state in the inventory's columns instead, and
+// overrides the getters and the few package-private methods below that touch the state
+class Perfume {
+    //Encapsulation
+    private int sku = -1; // assigned when the perfume is added to the inventory
+    private Inventory owner; // told about every change so listeners (journal, reports) can follow
+    private final String name;
+    private volatile long priceSen; // money is kept in sen, see Money
+    private final LongAdder quantitySold; // summed per thread, so sales in different stores don't contend
+    private final LongAdder totalSalesSen;
+    private final AtomicInteger stockQuantity; // updated with compare-and-set so concurrent orders never oversell
+
+    // Constructor to create new Perfume object
+    public Perfume(String name, long priceSen,int stockQuantity) {
+        this.name = name;
+        this.priceSen = priceSen;
+        this.quantitySold = new LongAdder();
+        this.totalSalesSen = new LongAdder();
+        this.stockQuantity = new AtomicInteger(stockQuantity);
+    }
+
+    // Constructor used by PerfumeView, which keeps no state of its own
+    Perfume(Inventory owner, int sku) {
+        this.owner = owner;
+        this.sku = sku;
+        this.name = null;
+        this.quantitySold = null;
+        this.totalSalesSen = null;
+        this.stockQuantity = null;
+    }
+
+    // Getters for perfume attributes
+    public int getSku() { return sku; }
+    public String getName() { return name; }
+    public long getPriceSen() { return priceSen; }
+    public int getQuantitySold() { return (int) quantitySold.sum(); }
+    public long getTotalSalesSen() { return totalSalesSen.sum(); }
+    public int getStockQuantity() { return stockQuantity.get(); }
+
+    // Methods changing the state in one atomic step each, overridden by PerfumeView
+    boolean compareAndSetStock(int expected, int stock) { return stockQuantity.compareAndSet(expected, stock); }
+    int addStockQuantity(int quantity) { return stockQuantity.addAndGet(quantity); }
+    int swapStockQuantity(int stock) { return stockQuantity.getAndSet(stock); }
+    void storePrice(long priceSen) { this.priceSen = priceSen; }
+
+    void countSale(long quantity, long amount) {
+        this.quantitySold.add(quantity);
+        this.totalSalesSen.add(amount);
+    }
+
+    // Method used by the inventory to give the perfume its SKU
+    void attach(Inventory owner, int sku) {
+        if (this.owner != null) throw new IllegalStateException(name + " already belongs to an inventory.");
+        this.owner = owner;
+        this.sku = sku;
+    }
+
+    // Method to get the inventory the perfume belongs to, null until it is added
+    Inventory getOwner() { return owner; }
+
+    // Method used by the sales journal to put back recovered changes without reporting them again
+    void restore(long stockDelta, long sold, long salesSen, long priceSen) {
+        swapStockQuantity((int) Math.max(0, Math.min(Integer.MAX_VALUE, getStockQuantity() + stockDelta)));
+        countSale(sold, salesSen);
+        if (priceSen >= 0) storePrice(priceSen);
+    }
+
+    // Method to take stock if enough is left, the check and the decrement happen as one atomic step
+    // A quantity of 0 or less is refused, otherwise it would pass the check and raise the stock
+    public boolean tryReserve(int quantity) {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must more than 0.");
+        while (true) {
+            int current = getStockQuantity();
+            if (quantity > current) return false;
+            if (compareAndSetStock(current, current - quantity)) return true;
+        }
+    }
+
+    // Method to give back stock taken with tryReserve without reporting it, callers report the change themselves
+    void releaseStock(int quantity) {
+        while (true) {
+            int current = getStockQuantity();
+            int next = (int) Math.max(0, Math.min(Integer.MAX_VALUE, (long) current + quantity));
+            if (compareAndSetStock(current, next)) return;
+        }
+    }
+
+    // Methods to manage sales and stock, returns the amount charged for the sale in sen
+    public long addSales(int quantity) {
+        if (!tryReserve(quantity)) {
+            if (owner != null) owner.fireStockOut(this, quantity);
+            throw new IllegalArgumentException("Not enough stock for " + getName());
+        }
+        return recordSale(quantity, Money.times(getPriceSen(), quantity));
+    }
+
+    // Method to count a sale from the main store whose stock is already taken, for amount sen after any discount
+    long recordSale(int quantity, long amount) {
+        countSale(quantity, amount);
+        if (owner != null) owner.fireSale(this, quantity, amount);
+        return amount;
+    }
+
+    // Method to count a sale whose stock was taken from a branch store, see StoreNetwork
+    long recordStoreSale(int store, int quantity, long amount) {
+        countSale(quantity, amount);
+        if (owner != null) owner.fireStoreSale(this, store, quantity, amount);
+        return amount;
+    }
+
+    // Method to add stock to the perfume
+    public void addStock(int quantity) {
+        if (quantity < 0) throw new IllegalArgumentException("Cannot add negative stock.");
+        long start = System.nanoTime();
+        addStockQuantity(quantity);
+        if (owner != null) owner.fireStockAdded(this, quantity);
+        NewMyPerfumeSystem.hotPathMetrics.stockUpdate.recordSince(start);
+    }
+
+    // Method to remove stock from the perfume
+    public void removeStock(int quantity) {
+        long start = System.nanoTime();
+        if (quantity <= 0 || !tryReserve(quantity))
+            throw new IllegalArgumentException("Invalid stock removal.");
+        if (owner != null) owner.fireStockRemoved(this, quantity);
+        NewMyPerfumeSystem.hotPathMetrics.stockUpdate.recordSince(start);
+    }
+
+    // Method to set new stock quantity for the perfume
+    public void setNewStockQuantity(int stockQuantity) {
+        if (stockQuantity < 0)
+            throw new IllegalArgumentException("Stock quantity cannot be negative.");
+        long start = System.nanoTime();
+        int oldQuantity = swapStockQuantity(stockQuantity);
+        if (owner != null) owner.fireStockSet(this, oldQuantity, stockQuantity);
+        NewMyPerfumeSystem.hotPathMetrics.stockUpdate.recordSince(start);
+    }
+
+    // Method to set new price (in sen) for the perfume
+    public void setNewPrice(long newPrice) {
+        if (newPrice < 0)
+            throw new IllegalArgumentException("Price cannot be negative.");
+        long oldPrice = getPriceSen();
+        storePrice(newPrice);
+        if (owner != null) owner.firePriceSet(this, oldPrice, newPrice);
+    }
+}
+
+// Customer class
+class Customer {
+    private String name;
+    private String contact;
+    private int[] orders; // order numbers in the order history, oldest first, guarded by this
+    private int orderCount;
+
+    // Constructor to create new Customer object
+    public Customer(String name, String contact) {
+        this.name = name;
+        this.contact = contact;
+    }
+
+    // Getters for customer attributes
+    public String getName() { return name; }
+    public String getContact() { return contact; }
+
+    // Method to add a billed order to the customer's history
+    synchronized void addOrder(int number) {
+        if (orders == null) {
+            orders = new int[2]; // most customers only ever place a few orders
+        } else if (orderCount == orders.length) {
+            orders = Arrays.copyOf(orders, orderCount + (orderCount >> 1) + 1);
+        }
+        orders[orderCount++] = number;
+    }
+
+    // Method to get how many orders the customer has placed
+    public synchronized int getOrderCount() { return orderCount; }
+
+    // Method to get the numbers of the customer's latest orders, newest first
+    public synchronized int[] recentOrders(int limit) {
+        int count = Math.min(limit, orderCount);
+        int[] recent = new int[count];
+        for (int i = 0; i < count; i++) recent[i] = orders[orderCount - 1 - i];
+        return recent;
+    }
+}
+
+// Bill interface
+interface Bill {
+    long calculateTotal(); // in sen
+    void generateBill(String filename);
+    void generateBill(String filename, BillFormat format);
+}
+
+// OrderLine class, a view of one line of an order: the total quantity of one perfume
+// The unit price comes from the pricing engine while the order is open and is fixed when the order is committed
+class OrderLine {
+    private final Order order;
+    private final int index;
+
+    // Constructor to create a view of line index of an order
+    OrderLine(Order order, int index) {
+        this.order = order;
+        this.index = index;
+    }
+
+    // Getters for order line attributes
+    public Perfume getPerfume() { return order.linePerfume(index); }
+    public int getQuantity() { return order.lineQuantity(index); }
+    public long getSubtotalSen() { return Money.times(getUnitPriceSen(), getQuantity()); }
+
+    // Method to get the price of one unit in sen, after any discount
+    public long getUnitPriceSen() { return order.lineUnitPrice(index); }
+}
+
+// Order class implementing Bill interface
+// An order only reserves stock while it is open; the lines are counted as sold together when it is completed,
+// and cancelling it (or leaving it idle past the timeout, see OpenOrders) gives all the reserved stock back
+abstract class Order implements Bill {
+    // Order states, an open order holds reserved stock
+    enum State { OPEN, COMMITTED, CANCELLED, EXPIRED }
+
+    private static final int INDEX_FROM = 8; // lines searched one by one before the SKU index is built
+
+    protected Customer customer; //accosiation
+    private Inventory inventory; // the perfumes' inventory, set by the first line
+    private int channel; // pricing channel of the order type
+    // Lines as columns, in the order perfumes were first added, so a big order is a few arrays and not an object per line
+    private int[] lineSkus = new int[4];
+    private int[] lineQuantities = new int[4];
+    private long[] linePrices; // unit prices, fixed when the order is committed
+    private int lineCount;
+    private int[] lineIndex; // open addressing, SKU -> line + 1, once there are INDEX_FROM lines
+    // Stock held for the lines: store id, SKU and quantity for every addPerfume, in one array
+    private int[] reservations = new int[12];
+    private int reservationCount;
+    private State state = State.OPEN; // guarded by this, like the lines and reservations
+    private volatile long lastUsedNanos; // read by OpenOrders to find idle orders
+    private String billId; // set when the order is completed
+    private volatile String owner; // username of the account placing the order, null when it has none
+
+    // Constructor to create new Order object
+    public Order(Customer customer) {
+        this.customer = customer;
+    }
+
+    // Method to add perfume to the order, repeated perfumes are merged into one line
+    // The stock is reserved straight away, so a line that cannot be filled fails here and changes nothing
+    public synchronized void addPerfume(Perfume perfume, int quantity) {
+        if (perfume.getSku() < 0) {
+            throw new IllegalArgumentException(perfume.getName() + " is not in the inventory.");
+        }
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must more than 0.");
+        if (inventory != null && perfume.getOwner() != inventory) {
+            throw new IllegalArgumentException(perfume.getName() + " is from another inventory.");
+        }
+        checkOpen();
+        long start = System.nanoTime();
+        Store store = reserveStock(perfume, quantity);
+        if (inventory == null) {
+            inventory = perfume.getOwner();
+            channel = PricingEngine.channel(getOrderType());
+        }
+        addReservation(store.getId(), perfume.getSku(), quantity);
+        addToLine(perfume.getSku(), quantity);
+        lastUsedNanos = start;
+        if (reservationCount == 1) NewMyPerfumeSystem.openOrders.add(this);
+        NewMyPerfumeSystem.hotPathMetrics.lineAdded(System.nanoTime() - start);
+    }
+
+    // Method to note stock held for the order
+    private void addReservation(int store, int sku, int quantity) {
+        int at = reservationCount * 3;
+        if (at == reservations.length) reservations = Arrays.copyOf(reservations, at * 2);
+        reservations[at] = store;
+        reservations[at + 1] = sku;
+        reservations[at + 2] = quantity;
+        reservationCount++;
+    }
+
+    // Method to add to the line of a SKU, starting a new line the first time the SKU is ordered
+    private void addToLine(int sku, int quantity) {
+        int line = findLine(sku);
+        if (line >= 0) {
+            lineQuantities[line] += quantity;
+            return;
+        }
+        if (lineCount == lineSkus.length) {
+            lineSkus = Arrays.copyOf(lineSkus, lineCount * 2);
+            lineQuantities = Arrays.copyOf(lineQuantities, lineCount * 2);
+        }
+        lineSkus[lineCount] = sku;
+        lineQuantities[lineCount] = quantity;
+        lineCount++;
+        if (lineIndex != null && lineCount * 2 <= lineIndex.length) {
+            indexLine(lineIndex, lineCount - 1);
+        } else if (lineCount >= INDEX_FROM) {
+            int[] index = new int[Integer.highestOneBit(lineCount) * 4]; // at most half full
+            for (int i = 0; i < lineCount; i++) indexLine(index, i);
+            lineIndex = index;
+        }
+    }
+
+    // Method to find the line of a SKU, -1 if there is none
+    private int findLine(int sku) {
+        if (lineIndex == null) {
+            for (int i = 0; i < lineCount; i++) {
+                if (lineSkus[i] == sku) return i;
+            }
+            return -1;
+        }
+        int mask = lineIndex.length - 1;
+        for (int slot = hash(sku) & mask; lineIndex[slot] != 0; slot = (slot + 1) & mask) {
+            if (lineSkus[lineIndex[slot] - 1] == sku) return lineIndex[slot] - 1;
+        }
+        return -1;
+    }
+
+    private void indexLine(int[] index, int line) {
+        int mask = index.length - 1;
+        int slot = hash(lineSkus[line]) & mask;
+        while (index[slot] != 0) slot = (slot + 1) & mask;
+        index[slot] = line + 1;
+    }
+
+    private static int hash(int sku) {
+        int h = sku * 0x9E3779B9; // SKUs are sequential, spread them over the table
+        return h ^ (h >>> 16);
+    }
+
+    // Methods used by OrderLine and the bill renderer to read one line
+    Perfume linePerfume(int line) { return inventory.get(lineSkus[line]); }
+    int lineCount() { return lineCount; }
+    int lineSku(int line) { return lineSkus[line]; }
+    int lineQuantity(int line) { return lineQuantities[line]; }
+    void writeLineName(int line, BillOutput out) { inventory.writeName(lineSkus[line], out); }
+
+    long lineUnitPrice(int line) {
+        long[] locked = linePrices;
+        if (locked != null) return locked[line];
+        return NewMyPerfumeSystem.pricing.unitPrice(linePerfume(line), channel, lineQuantities[line]);
+    }
+
+    // Method to reserve the stock for a line, returns the store it was taken from
+    // Orders sell from their store (the main store unless a subclass says otherwise)
+    protected Store reserveStock(Perfume perfume, int quantity) {
+        Store store = getStore();
+        NewMyPerfumeSystem.stores.reserve(store, perfume, quantity);
+        return store;
+    }
+
+    // Method to get how much of a perfume this order can still take
+    public int availableStock(Perfume perfume) {
+        return perfume.getStockQuantity();
+    }
+
+    // Method to get the store the order is sold from
+    public Store getStore() {
+        return NewMyPerfumeSystem.stores.main();
+    }
+
+    // Method to count every reserved line as sold, all lines are committed together
+    // Nothing can fail halfway: the stock is already taken, so committing only records the sales
+    public synchronized void commit() {
+        if (state == State.COMMITTED) return;
+        checkOpen();
+        StoreNetwork stores = NewMyPerfumeSystem.stores;
+        long[] prices = new long[lineCount]; // so a bill and the recorded sales agree whatever changes afterwards
+        for (int i = 0; i < lineCount; i++) prices[i] = lineUnitPrice(i);
+        for (int r = 0; r < reservationCount * 3; r += 3) {
+            Perfume perfume = inventory.get(reservations[r + 1]);
+            int quantity = reservations[r + 2];
+            long unitPrice = prices[findLine(reservations[r + 1])]; // a line's tier counts all its reservations
+            long amount = stores.record(stores.get(reservations[r]), perfume, quantity, Money.times(unitPrice, quantity));
+            NewMyPerfumeSystem.salesMetrics.recordSale(amount, quantity);
+            NewMyPerfumeSystem.salesAnalytics.recordSale(perfume, quantity, amount, getOrderType(), r == 0);
+        }
+        linePrices = prices;
+        state = State.COMMITTED;
+        if (reservationCount > 0) NewMyPerfumeSystem.openOrders.remove(this);
+    }
+
+    // Method to note the account placing the order, its orders and bills are then visible to that account
+    public void setOwner(String username) { this.owner = username; }
+    public String getOwner() { return owner; }
+
+    // Method to commit the order and record it in the order history and its customer's history, returns the bill ID
+    // Completing an order again returns the same ID without counting it twice
+    public synchronized String complete() {
+        commit();
+        if (billId == null) {
+            OrderHistory history = NewMyPerfumeSystem.orderHistory;
+            int number = history.record(this);
+            customer.addOrder(number);
+            billId = history.billId(number);
+        }
+        return billId;
+    }
+
+    // Method to cancel the order and give back all of its reserved stock
+    public synchronized void cancel() {
+        if (state == State.COMMITTED) throw new IllegalStateException("Order is already billed and cannot be cancelled.");
+        if (state == State.OPEN) release(State.CANCELLED);
+    }
+
+    // Method used by OpenOrders to cancel an order nobody has touched for idleNanos, returns true if it did
+    synchronized boolean expireIfIdle(long now, long idleNanos) {
+        if (state != State.OPEN || now - lastUsedNanos < idleNanos) return false;
+        release(State.EXPIRED);
+        return true;
+    }
+
+    // Method to give the reserved stock back to the stores it came from
+    private void release(State newState) {
+        StoreNetwork stores = NewMyPerfumeSystem.stores;
+        for (int r = 0; r < reservationCount * 3; r += 3) {
+            stores.get(reservations[r]).give(inventory.get(reservations[r + 1]), reservations[r + 2]);
+        }
+        if (reservationCount > 0) NewMyPerfumeSystem.openOrders.remove(this);
+        reservationCount = 0;
+        state = newState;
+    }
+
+    // Method to refuse changes to an order that is no longer open
+    private void checkOpen() {
+        if (state == State.CANCELLED) throw new IllegalStateException("Order was cancelled.");
+        if (state == State.EXPIRED) throw new IllegalStateException("Order expired and its stock was released.");
+        if (state == State.COMMITTED) throw new IllegalStateException("Order is already billed.");
+    }
+
+    // Getters for order state
+    public synchronized State getState() { return state; }
+    long getLastUsedNanos() { return lastUsedNanos; }
+
+    // Method to get the bill ID, null until the order is completed
+    public String getBillId() { return billId; }
+
+    // Method to get the order lines
+    public Collection<OrderLine> getLines() {
+        return new AbstractList<OrderLine>() {
+            public OrderLine get(int index) {
+                if (index < 0 || index >= lineCount) throw new IndexOutOfBoundsException("No line " + index);
+                return new OrderLine(Order.this, index);
+            }
+
+            public int size() { return lineCount; }
+        };
+    }
+
+    // Method to calculate total price of the order in sen
+    public long calculateTotal() {
+        long total = 0;
+        for (int i = 0; i < lineCount; i++) {
+            total += Money.times(lineUnitPrice(i), lineQuantities[i]);
+        }
+        return total;
+    }
+
+    // Method to build the bill text for the order
+    public String renderBill() {
+        return renderBill(BillFormat.TEXT);
+    }
+
+    // Method to build the bill in any format as a string
+    public String renderBill(BillFormat format) {
+        ByteBuffer bill = format.renderer().render(this);
+        String content = StandardCharsets.UTF_8.decode(bill).toString();
+        BillOutput.release(bill);
+        return content;
+    }
+
+    // Method to list the fields printed under the bill title, subclasses add theirs after calling this
+    protected void headerFields(BillFields fields) {
+        if (billId != null) fields.add("billId", "Bill ID", billId);
+        fields.add("contact", "Contact", customer.getContact());
+    }
+
+    // Method to generate bill for the order in the configured format
+    public void generateBill(String filename) {
+        generateBill(filename, NewMyPerfumeSystem.billFormat);
+    }
+
+    // Method to generate bill for the order, the file is written in the background by the bill writer
+    public void generateBill(String filename, BillFormat format) {
+        long start = System.nanoTime();
+        ByteBuffer bill = format.renderer().render(this);
+        String echo = NewMyPerfumeSystem.billWriter.isEchoEnabled()
+                ? StandardCharsets.UTF_8.decode(bill.duplicate()).toString() : null; // read before the writer reuses the buffer
+        NewMyPerfumeSystem.billWriter.submit(filename, bill);
+        NewMyPerfumeSystem.hotPathMetrics.billRender.recordSince(start);
+        if (echo != null) {
+            System.out.println("\n" + echo);
+        }
+    }
+
+    public abstract String getOrderType();
+}
+
+// OnlineOrder and InStoreOrder classes extending Order class
+class OnlineOrder extends Order {
+    private String deliveryAddress;
+    private Store shippedFrom; // store that fulfilled the first line, tried first for the rest
+
+    // Constructor to create new OnlineOrder object
+    public OnlineOrder(Customer customer, String deliveryAddress) {
+        super(customer); // call the parent constructor which is Order
+        this.deliveryAddress = deliveryAddress;
+    }
+
+    // Method to reserve stock from whichever store can fulfil the line
+    @Override
+    protected Store reserveStock(Perfume perfume, int quantity) {
+        Store store = NewMyPerfumeSystem.stores.reserveOnline(perfume, quantity, shippedFrom, deliveryAddress);
+        if (shippedFrom == null) shippedFrom = store;
+        return store;
+    }
+
+    // Method to get the most any one store can ship, a line is never split between stores
+    @Override
+    public int availableStock(Perfume perfume) {
+        int most = 0;
+        for (Store store : NewMyPerfumeSystem.stores.list()) most = Math.max(most, store.stockOf(perfume));
+        return most;
+    }
+
+    @Override
+    protected void headerFields(BillFields fields) {
+        super.headerFields(fields);
+        fields.add("deliveryAddress", "Delivery Address", deliveryAddress);
+    }
+
+    // Getters for OnlineOrder attributes
+    public String getOrderType() { return "Online"; }
+    public String getDeliveryAddress() { return deliveryAddress; }
+    public Store getShippedFrom() { return shippedFrom; }
+
+    @Override
+    public Store getStore() { return shippedFrom; }
+}
+
+// InStoreOrder class extending Order class
+class InStoreOrder extends Order {
+    private Store store;
+
+    // Constructor to create new InStoreOrder object
+    public InStoreOrder(Customer customer, Store store) {
+        super(customer);
+        this.store = store;
+    }
+
+    // Method to get the stock of the store the customer is in, lines are reserved from getStore()
+    @Override
+    public int availableStock(Perfume perfume) {
+        return store.stockOf(perfume);
+    }
+
+    @Override
+    protected void headerFields(BillFields fields) {
+        super.headerFields(fields);
+        fields.add("storeAddress", "Store Address", getStoreAddress());
+    }
+
+    // Getters for InStoreOrder attributes
+    public String getOrderType() { return "InStore"; }
+    public String getStoreAddress() { return store.getAddress(); }
+
+    @Override
+    public Store getStore() { return store; }
+}
+
+// Main class for the MyPerfume System
+public class NewMyPerfumeSystem {
+    static Inventory inventory = new Inventory();
+    static StoreNetwork stores = new StoreNetwork(inventory);
+    static SalesMetrics salesMetrics = new SalesMetrics();
+    static final CustomerRegistry customers = new CustomerRegistry();
+    static final OrderHistory orderHistory = new OrderHistory();
+    static final OpenOrders openOrders = OpenOrders.fromSystemProperties();
+    static final HotPathMetrics hotPathMetrics = new HotPathMetrics();
+    static final SalesAnalytics salesAnalytics = new SalesAnalytics(Integer.getInteger("analytics.top", 10));
+    static BillWriter billWriter = BillWriter.fromSystemProperties();
+    static BillFormat billFormat = BillFormat.fromSystemProperties();
+    static final PricingEngine pricing = new PricingEngine();
+    static Path pricingRules = Paths.get(System.getProperty("pricing.rules", "pricing-rules.txt"));
+    static UserStore users;
+    static final SessionCache sessions = SessionCache.fromSystemProperties();
+    static SalesJournal journal;
+    static PerfumeIndex perfumeIndex;
+    static StockEventBus stockEvents = new StockEventBus(1);
+    static StockAlerts stockAlerts;
+    static RestockPlanner restockPlanner;
+    static volatile OrderService service; // set while running as a service
+    static final int LIST_LIMIT = 50;   // larger inventories are searched instead of listed
+    static final int SEARCH_LIMIT = 20;
+    static final int HISTORY_LIMIT = 20; // past orders shown per customer
+
+    public static void main(String[] args) {
+        Scanner sc = new Scanner(System.in);
+        Runtime.getRuntime().addShutdownHook(new Thread(NewMyPerfumeSystem::shutdown, "shutdown")); // don't lose queued bills or sales on exit
+        if (args.length == 3 && args[0].equals("--import-csv")) {
+            importCatalog(args[1], args[2]);
+            return;
+        }
+        String catalog = optionValue(args, "--catalog");
+        String exportCatalog = optionValue(args, "--export-catalog");
+        String exportCsv = optionValue(args, "--export-csv");
+        String batch = optionValue(args, "--batch");
+        String serve = optionValue(args, "--serve");
+        String storeFile = optionValue(args, "--stores");
+
+        System.out.println("\nWelcome to MyPerfume Ordering and Billing System");
+        boolean columnar = Boolean.getBoolean("inventory.columnar"); // keep perfumes as primitive columns, see PerfumeColumns
+        if (catalog != null) {
+            try {
+                inventory = new Inventory(CatalogFile.open(Paths.get(catalog)), columnar); // perfumes are loaded on first use
+                System.out.println("Catalog loaded: " + inventory.size() + " perfumes.");
+            } catch (IOException e) {
+                System.out.println("Failed to open catalog " + catalog + ": " + e.getMessage());
+                return;
+            }
+        } else {
+            if (columnar) inventory = new Inventory(null, true);
+            inventory.add(new Perfume("Rose Essence", Money.ofRinggit(50), 20));
+            inventory.add(new Perfume("Lavender Bliss", Money.ofRinggit(60), 15));
+        }
+        try {
+            stores = storeFile != null ? StoreNetwork.load(inventory, Paths.get(storeFile)) : new StoreNetwork(inventory);
+            if (stores.size() > 1) System.out.println("Stores loaded: " + stores.size() + " outlets.");
+        } catch (IOException e) {
+            System.out.println("Failed to read stores " + storeFile + ": " + e.getMessage());
+            return;
+        }
+        try {
+            journal = SalesJournal.openFromSystemProperties(inventory, salesMetrics, stores); // bring back sales and stock from the last run
+            for (int sku : journal.soldSkus()) salesAnalytics.restore(inventory.get(sku)); // lifetime totals only, no per-type or time breakdown
+        } catch (IOException e) {
+            System.out.println("Failed to open sales journal, changes will not be saved: " + e.getMessage());
+        } catch (IllegalStateException e) {
+            System.out.println("Sales journal does not match this catalog: " + e.getMessage());
+            return;
+        }
+        perfumeIndex = new PerfumeIndex(inventory); // follows every perfume added from here on
+        inventory.addListener(hotPathMetrics);
+        hotPathMetrics.registerMBean();
+        startStockAlerts();
+        loadPricingRules();
+        inventory.addListener(pricing); // a new price clears that perfume's cached prices
+        if (exportCatalog != null || exportCsv != null) {
+            exportInventory(exportCatalog, exportCsv);
+            shutdown();
+            return;
+        }
+        if (batch != null) {
+            runBatch(batch, args);
+            shutdown();
+            return;
+        }
+        try { // only logins need accounts, so exports and batches run without them
+            users = UserStore.openFromSystemProperties();
+        } catch (IOException e) {
+            System.out.println("Cannot start without user accounts: " + e.getMessage());
+            return;
+        }
+        if (serve != null) {
+            runService(serve, args); // keeps running on the server threads until the process is stopped
+            return;
+        }
+
+        while (true) {
+            System.out.println("\n===== Login Menu =====");
+            System.out.println("1. Customer Login");
+            System.out.println("2. Admin Login");
+            System.out.println("3. Exit");
+            System.out.print("Choose option: ");
+
+            try {
+                int loginChoice = sc.nextInt();
+                sc.nextLine();
+
+                // Handle login choices
+                if (loginChoice == 1) {
+                    SessionCache.Session session = login(sc, UserStore.Role.CUSTOMER);
+                    if (session != null) {
+                        customerMenu(sc, session);
+                    } else {
+                        System.out.println("Invalid customer credentials!");
+                    }
+                } else if (loginChoice == 2) {
+                    SessionCache.Session session = login(sc, UserStore.Role.ADMIN);
+                    if (session != null) {
+                        adminMenu(sc, session);
+                    } else {
+                        System.out.println("Invalid admin credentials!");
+                    }
+                } else if (loginChoice == 3) {
+                    System.out.println("Exiting system...");
+                    shutdown(); // write any bills still queued
+                    break;
+                } else {
+                    System.out.println("Invalid choice.");
+                }
+            } catch (InputMismatchException e) {
+                System.out.println("Invalid input. Please enter a number.");
+                sc.nextLine(); // Clear the invalid input
+            }
+        }
+    }
+
+    // Method to close everything that holds unwritten work, in order: the service first so no request starts
+    // a new order, then the bills and stock events those orders produced, and the sales journal last
+    // Called from the one shutdown hook and on a normal exit, so it may run twice; each close is idempotent
+    static synchronized void shutdown() {
+        OrderService running = service;
+        service = null;
+        if (running != null) running.stop(1); // finish running requests before the bills and journal are closed
+        billWriter.close();
+        stockEvents.close();
+        if (journal != null) journal.close();
+    }
+
+    // Method to read the value after a command line option, or null if the option is not given
+    static String optionValue(String[] args, String option) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(option)) return args[i + 1];
+        }
+        return null;
+    }
+
+    // Method to start low-stock detection with the restock planner and the event log as subscribers
+    // -Dstock.lowThreshold=5 -Dstock.restockFactor=4 -Dstock.eventQueue=1024 -Dstock.eventLog=stock-events.log
+    static void startStockAlerts() {
+        stockEvents = new StockEventBus(Integer.getInteger("stock.eventQueue", 1024));
+        restockPlanner = new RestockPlanner(Integer.getInteger("stock.restockFactor", 4));
+        stockEvents.subscribe("restock-planner", restockPlanner);
+        String log = System.getProperty("stock.eventLog", "stock-events.log");
+        try {
+            stockEvents.subscribe("logger", new StockEventLogger(Paths.get(log)));
+        } catch (IOException e) {
+            System.out.println("Failed to open stock event log " + log + ": " + e.getMessage());
+        }
+        stockAlerts = new StockAlerts(stores, stockEvents, Integer.getInteger("stock.lowThreshold", 5));
+        inventory.addListener(stockAlerts);
+    }
+
+    // Method to load the pricing rules saved by the admin menu, there are none the first time
+    static void loadPricingRules() {
+        if (!Files.exists(pricingRules)) return;
+        try {
+            pricing.setRules(PriceRule.readAll(pricingRules));
+            System.out.println("Pricing rules loaded: " + pricing.getRules().size() + " (" + pricing.activeRules().size() + " in force).");
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Failed to read pricing rules " + pricingRules + ", selling at list prices: " + e.getMessage());
+        }
+    }
+
+    // Method to convert a CSV catalog into the binary catalog format
+    public static void importCatalog(String csv, String catalog) {
+        long start = System.nanoTime();
+        try {
+            int count = CatalogFile.importCsv(Paths.get(csv), Paths.get(catalog));
+            System.out.printf("Imported %d perfumes into %s in %d ms.\n", count, catalog, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            System.out.println("Failed to import catalog: " + e.getMessage());
+        }
+    }
+
+    // Method to export the current inventory as a binary catalog and/or CSV
+    public static void exportInventory(String catalog, String csv) {
+        try {
+            if (catalog != null) {
+                int count = CatalogFile.write(Paths.get(catalog), inventory);
+                System.out.println("Exported " + count + " perfumes to " + catalog);
+            }
+            if (csv != null) {
+                int count = CatalogFile.exportCsv(Paths.get(csv), inventory);
+                System.out.println("Exported " + count + " perfumes to " + csv);
+            }
+        } catch (IOException e) {
+            System.out.println("Failed to export inventory: " + e.getMessage());
+        }
+    }
+
+    // Method to run an order file through the headless batch pipeline
+    // Options: --bills-dir <dir> (default bills), --no-bills, --threads <n> (default: number of cores)
+    public static void runBatch(String file, String[] args) {
+        boolean noBills = Arrays.asList(args).contains("--no-bills");
+        String billDir = optionValue(args, "--bills-dir");
+        Path bills = noBills ? null : Paths.get(billDir != null ? billDir : "bills");
+        billWriter.close();
+        billWriter = BillWriter.fromSystemProperties(false, bills); // bills are not echoed in batch mode, the archive is kept with them
+        String threads = optionValue(args, "--threads");
+        try {
+            BatchOrderProcessor processor = new BatchOrderProcessor(inventory,
+                    bills,
+                    threads != null ? Integer.parseInt(threads) : Runtime.getRuntime().availableProcessors());
+            processor.process(Paths.get(file));
+        } catch (IOException e) {
+            System.out.println("Failed to process batch " + file + ": " + e.getMessage());
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid thread count: " + threads);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Batch interrupted.");
+        }
+    }
+
+    // Method to start the HTTP order service
+    // Options: --bills-dir <dir> (default bills), --no-bills, --backlog <n> (connections waiting to be accepted, default 16384)
+    public static void runService(String port, String[] args) {
+        boolean noBills = Arrays.asList(args).contains("--no-bills");
+        String billDir = optionValue(args, "--bills-dir");
+        Path bills = noBills ? null : Paths.get(billDir != null ? billDir : "bills");
+        billWriter.close();
+        billWriter = BillWriter.fromSystemProperties(false, bills); // bills are not echoed by the service, the archive is kept with them
+        String backlog = optionValue(args, "--backlog");
+        try {
+            service = new OrderService(inventory, salesMetrics,
+                    bills,
+                    Integer.parseInt(port), backlog != null ? Integer.parseInt(backlog) : 16384);
+            service.start();
+            System.out.println("Order service listening on http://localhost:" + service.getPort() + "/ (Ctrl+C to stop)");
+        } catch (IOException e) {
+            System.out.println("Failed to start order service on port " + port + ": " + e.getMessage());
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid port or backlog: " + e.getMessage());
+        }
+    }
+
+    // Method to ask for a username and password, returns a new session or null if they don't match the role
+    static SessionCache.Session login(Scanner sc, UserStore.Role role) {
+        System.out.print("Enter username: ");
+        String username = sc.nextLine();
+        System.out.print("Enter password: ");
+        char[] password = sc.nextLine().toCharArray();
+        UserStore.User user = users.authenticate(username, password); // the slow hash, once per login
+        Arrays.fill(password, '\0');
+        return user != null && user.getRole() == role ? sessions.create(user) : null;
+    }
+
+    // Method to check a menu's session is still valid before each action, ends the menu if it is not
+    static boolean sessionValid(SessionCache.Session session) {
+        if (sessions.get(session.getToken()) != null) return true;
+        System.out.println("Your session has ended, please log in again.");
+        return false;
+    }
+
+    // Method to display customer menu and handle customer actions
+    public static void customerMenu(Scanner sc, SessionCache.Session session) {
+        while (sessionValid(session)) {
+            System.out.println("\n===== Customer Menu =====");
+            System.out.println("1. Make new order");
+            System.out.println("2. View past orders");
+            System.out.println("3. Logout");
+            System.out.print("Enter choice: ");
+            
+            try{
+                int choice = sc.nextInt();
+                sc.nextLine();
+
+                if (choice == 1) {
+                    makeOrder(sc, session);
+                } else if (choice == 2) {
+                    viewPastOrders(sc, session);
+                } else if (choice == 3) {
+                    System.out.println("Logging out...");
+                    sessions.invalidate(session.getToken());
+                    return;
+                } else {
+                    System.out.println("Invalid choice.");
+                }
+            } catch (InputMismatchException e) {
+                System.out.println("Invalid input. Please enter a number.");
+                sc.nextLine(); // Clear the invalid input
+            }
+        }
+    }
+
+    // Method to display admin menu and handle admin actions
+    public static void adminMenu(Scanner sc, SessionCache.Session session) {
+        while (sessionValid(session)) {
+            System.out.println("\n===== Admin Menu =====");
+            System.out.println("1. View total sales");
+            System.out.println("2. View inventory");
+            System.out.println("3. View performance metrics");
+            System.out.println("4. Manage stores");
+            System.out.println("5. Low stock alerts");
+            System.out.println("6. Pricing and promotions");
+            System.out.println("7. Manage users");
+            System.out.println("8. Logout");
+            System.out.print("Enter choice: ");
+            
+            try{
+                int choice = sc.nextInt();
+                sc.nextLine();
+
+                if (choice == 1) {
+                    viewSales();
+                } else if (choice == 2) {
+                    viewInventory(sc);
+                } else if (choice == 3) {
+                    System.out.println();
+                    System.out.print(hotPathMetrics.report());
+                } else if (choice == 4) {
+                    manageStores(sc);
+                } else if (choice == 5) {
+                    viewLowStock(sc);
+                } else if (choice == 6) {
+                    managePricing(sc);
+                } else if (choice == 7) {
+                    manageUsers(sc, session);
+                } else if (choice == 8) {
+                    System.out.println("Logging out...");
+                    sessions.invalidate(session.getToken());
+                    return;
+                } else {
+                    System.out.println("Invalid choice.");
+                }
+            } catch (InputMismatchException e) {
+                System.out.println("Invalid input. Please enter a number.");
+                sc.nextLine(); // Clear the invalid input
+            }
+        }
+    }
+
+    // Method to make order, placed from the session's account so only that account (and admins) can see it later
+    public static void makeOrder(Scanner sc, SessionCache.Session session) {
+        System.out.print("Enter customer name: ");
+        String name = sc.nextLine();
+        System.out.print("Enter customer contact: ");
+        String contact = sc.nextLine();
+        Customer customer = customers.register(name, contact); // returning customers get their existing record
+
+        String type;
+        while (true) {
+            System.out.print("Is this order Online or InStore? (O/I): ");
+            type = sc.nextLine().trim().toUpperCase();
+            if (type.equals("O") || type.equals("I")) {
+                break;
+            } else {
+                System.out.println("Invalid input. Please enter 'O' for Online or 'I' for InStore.");
+            }
+        }
+
+        Order order;
+        if (type.equals("O")) {
+            System.out.print("Enter delivery address: ");
+            String addr = sc.nextLine();
+            order = new OnlineOrder(customer, addr); // Create new OnlineOrder object
+        } 
+        else {
+            order = new InStoreOrder(customer, chooseStore(sc)); // Create new InStoreOrder object for the store the customer is in
+        }
+
+        long checkoutNanos = 0; // time spent placing lines and billing, not waiting for the customer to type
+        while (true) {
+            // Display available perfumes and prompt for order
+            System.out.println("\nAvailable Perfumes:");
+            if (inventory.size() <= LIST_LIMIT) {
+                for (int i = 0; i < inventory.size(); i++) {
+                    Perfume p = inventory.get(i);
+                    printPerfume(p, order.availableStock(p));
+                }
+            } else {
+                System.out.println(inventory.size() + " perfumes available, type a name to search.");
+            }
+            System.out.print("Enter perfume number or name to order (Enter -1 to end order, -2 to cancel it): ");
+            String input = sc.nextLine().trim();
+            if (input.equals("-1")) break;
+            if (input.equals("-2")) {
+                order.cancel(); // gives back the stock reserved so far
+                System.out.println("Order cancelled.");
+                return;
+            }
+            if (input.isEmpty()) {
+                System.out.println("Invalid input.");
+                continue;
+            }
+
+            Perfume p = choosePerfume(input);
+            if (p == null) continue;
+            int qty = 0;
+            while (true) {
+                System.out.print("Enter quantity: ");
+                if (!sc.hasNextInt()) {
+                    System.out.println("Invalid input. Please enter a positive integer.");
+                    sc.nextLine();
+                    continue;
+                }
+                qty = sc.nextInt();
+                if (qty <= 0) {
+                    System.out.println("Quantity must more than 0.");
+                    continue;
+                }
+                if (qty > order.availableStock(p)) {
+                    System.out.println("Not enough stock. Available: " + order.availableStock(p));
+                    continue;
+                }
+                break;
+            }
+            sc.nextLine(); // consume leftover newline
+            long start = System.nanoTime();
+            try {
+                order.addPerfume(p, qty);
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage() + ". Available: " + order.availableStock(p)); // stock was taken by another order meanwhile
+            } catch (IllegalStateException e) {
+                System.out.println(e.getMessage()); // left idle past order.timeoutSeconds
+                return;
+            }
+            checkoutNanos += System.nanoTime() - start;
+        }
+        if (order.getLines().isEmpty()) {
+            System.out.println("No perfume ordered.");
+            return;
+        }
+
+        long start = System.nanoTime();
+        String filename;
+        order.setOwner(session.getUser().getUsername());
+        try {
+            filename = billFormat.fileName(order.complete()); // all lines are sold here; bill IDs are unique, so repeat customers never overwrite a bill
+        } catch (IllegalStateException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        order.generateBill(filename); // Generate bill for the order
+        hotPathMetrics.orderPlaced(checkoutNanos + System.nanoTime() - start);
+        System.out.println("Bill generated: " + filename + (billWriter.isArchiving() ? " (archived, see View Past Orders)" : ""));
+    }
+
+    // Method to show a customer's latest orders, looked up by contact
+    // Customers only see the orders placed from their own account, like GET /orders; admins see every order
+    public static void viewPastOrders(Scanner sc, SessionCache.Session session) {
+        System.out.print("Enter customer contact: ");
+        Customer customer = customers.find(sc.nextLine());
+        ArrayList<OrderHistory.Entry> entries = new ArrayList<>();
+        if (customer != null) {
+            boolean all = session.isAdmin();
+            for (int number : customer.recentOrders(all ? HISTORY_LIMIT : customer.getOrderCount())) {
+                OrderHistory.Entry e = orderHistory.get(number);
+                if (all || mayRead(session, e.getOwner())) entries.add(e);
+                if (entries.size() == HISTORY_LIMIT) break;
+            }
+        }
+        if (entries.isEmpty()) {
+            System.out.println("No orders found for this contact.");
+            return;
+        }
+        int count = session.isAdmin() ? customer.getOrderCount() : entries.size();
+        System.out.println("\nOrders for " + customer.getName() + " (" + count + " in total"
+                + (count > HISTORY_LIMIT ? ", latest " + HISTORY_LIMIT + " shown" : "") + "):");
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
+        for (OrderHistory.Entry e : entries) {
+            String store = e.getStoreId() < 0 ? "-" : stores.get(e.getStoreId()).getName();
+            System.out.printf("%s  %s  %-8s %-24s Items: %-4d Total: RM%s\n", e.getBillId(), format.format(Instant.ofEpochMilli(e.getTimeMillis())),
+                    e.getOrderType(), store, e.getItems(), Money.format(e.getTotalSen()));
+        }
+        BillArchive archive = billWriter.getArchive();
+        if (archive == null) return; // bills are files in the working directory
+        System.out.print("Enter bill ID to view (blank to go back): ");
+        String billId = sc.nextLine().trim();
+        if (billId.isEmpty()) return;
+        if (!session.isAdmin() && !mayRead(session, orderHistory.owner(billId))) {
+            System.out.println("No archived bill " + billId + "."); // someone else's bill looks the same as a missing one
+            return;
+        }
+        try {
+            byte[] bill = readArchivedBill(archive, billId);
+            System.out.println(bill == null ? "No archived bill " + billId + "." : "\n" + new String(bill, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.out.println("Failed to read bill " + billId + ": " + e.getMessage());
+        }
+    }
+
+    // Method to check whether a session's account placed an order, given the username recorded with the order
+    static boolean mayRead(SessionCache.Session session, String owner) {
+        return session.getUser().getUsername().equalsIgnoreCase(owner);
+    }
+
+    // Method to read a bill back from the archive by bill ID, in whichever format it was written
+    static byte[] readArchivedBill(BillArchive archive, String billId) throws IOException {
+        for (BillFormat format : BillFormat.values()) {
+            byte[] bill = archive.read(format.fileName(billId));
+            if (bill != null) return bill;
+        }
+        return null;
+    }
+
+    // Method to ask which store an in-store order is made in, the main store when there are no branches
+    static Store chooseStore(Scanner sc) {
+        if (stores.size() == 1) return stores.main();
+        printStores();
+        while (true) {
+            System.out.print("Choose store: ");
+            Store store = stores.find(sc.nextLine());
+            if (store != null) return store;
+            System.out.println("Invalid store.");
+        }
+    }
+
+    // Method to list the stores as numbered menu lines
+    static void printStores() {
+        for (Store store : stores.list()) {
+            System.out.println((store.getId() + 1) + ". " + store);
+        }
+    }
+
+    // Method to view stock by store, stock a branch and move stock between stores
+    public static void manageStores(Scanner sc) {
+        while (true) {
+            System.out.println("\n=== Stores ===");
+            printStores();
+            System.out.println("\n1. View perfume stock by store");
+            System.out.println("2. Add stock to a store");
+            System.out.println("3. Transfer stock between stores");
+            System.out.println("4. Back");
+            System.out.print("Enter choice: ");
+            String choice = sc.nextLine().trim();
+            if (choice.equals("4")) return;
+            if (!choice.equals("1") && !choice.equals("2") && !choice.equals("3")) {
+                System.out.println("Invalid choice.");
+                continue;
+            }
+
+            System.out.print("Enter perfume number or name: ");
+            Perfume p = choosePerfume(sc.nextLine().trim());
+            if (p == null) continue;
+            try {
+                if (choice.equals("1")) {
+                    for (Store store : stores.list()) {
+                        System.out.printf("%-25s Stock: %d\n", store.getName(), store.stockOf(p));
+                    }
+                } else if (choice.equals("2")) {
+                    System.out.print("Store: ");
+                    Store store = stores.find(sc.nextLine());
+                    if (store == null) {
+                        System.out.println("Invalid store.");
+                        continue;
+                    }
+                    System.out.print("Enter quantity to add: ");
+                    stores.addStock(store, p, Integer.parseInt(sc.nextLine().trim()));
+                    System.out.println("Stock updated. " + store.getName() + " now has " + store.stockOf(p) + ".");
+                } else {
+                    System.out.print("From store: ");
+                    Store from = stores.find(sc.nextLine());
+                    System.out.print("To store: ");
+                    Store to = stores.find(sc.nextLine());
+                    if (from == null || to == null) {
+                        System.out.println("Invalid store.");
+                        continue;
+                    }
+                    System.out.print("Enter quantity to transfer: ");
+                    stores.transfer(p, from, to, Integer.parseInt(sc.nextLine().trim()));
+                    System.out.println("Transferred. " + from.getName() + ": " + from.stockOf(p) + ", " + to.getName() + ": " + to.stockOf(p));
+                }
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid input. Please enter a number.");
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+
+    // Method to show the restock plan and change low-stock thresholds
+    public static void viewLowStock(Scanner sc) {
+        while (true) {
+            System.out.println("\n=== Low Stock Alerts ===");
+            System.out.println("Default threshold: " + stockAlerts.getDefaultThreshold()
+                    + ", events: " + stockEvents.getPublished() + " (" + stockEvents.getDropped() + " dropped)");
+            List<RestockPlanner.Suggestion> plan = restockPlanner.plan();
+            if (plan.isEmpty()) {
+                System.out.println("Nothing to restock.");
+            } else {
+                System.out.printf("%-20s %-20s %-8s %-8s\n", "Store", "Perfume", "Stock", "Reorder");
+                for (RestockPlanner.Suggestion s : plan) {
+                    System.out.printf("%-20s %-20s %-8d %-8d\n", s.getStore().getName(), s.getPerfume().getName(), s.getStock(), s.getQuantity());
+                }
+            }
+            System.out.println("\n1. Set threshold for a perfume");
+            System.out.println("2. Refresh");
+            System.out.println("3. Back");
+            System.out.print("Enter choice: ");
+            String choice = sc.nextLine().trim();
+            if (choice.equals("3")) return;
+            if (choice.equals("2")) continue;
+            if (!choice.equals("1")) {
+                System.out.println("Invalid choice.");
+                continue;
+            }
+            System.out.print("Enter perfume number or name: ");
+            Perfume p = choosePerfume(sc.nextLine().trim());
+            if (p == null) continue;
+            System.out.print("Enter new threshold (current " + stockAlerts.thresholdOf(p) + "): ");
+            try {
+                stockAlerts.setThreshold(p, Integer.parseInt(sc.nextLine().trim()));
+                System.out.println("Threshold updated.");
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid input. Please enter a number.");
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+
+    // Method to list, add and remove pricing rules; changes apply to open orders straight away and are saved
+    public static void managePricing(Scanner sc) {
+        while (true) {
+            System.out.println("\n=== Pricing Rules ===");
+            List<PriceRule> rules = pricing.getRules();
+            List<PriceRule> active = pricing.activeRules();
+            if (rules.isEmpty()) System.out.println("No rules, everything sells at its list price.");
+            for (int i = 0; i < rules.size(); i++) {
+                PriceRule rule = rules.get(i);
+                String status = active.contains(rule) ? "in force"
+                        : rule.getFromMillis() > System.currentTimeMillis() ? "scheduled" : "ended";
+                System.out.printf("%d. [%s] %s\n", i + 1, status, rule.toLine());
+            }
+            System.out.println("\n1. Add or replace a rule");
+            System.out.println("2. Remove a rule");
+            System.out.println("3. Check a perfume's price");
+            System.out.println("4. Back");
+            System.out.print("Enter choice: ");
+            String choice = sc.nextLine().trim();
+            if (choice.equals("4")) return;
+            if (choice.equals("1")) {
+                System.out.println("Format: name; off=10%; type=Online|InStore; skus=1,2; min=3; from=2026-11-01; to=2026-12-01T00:00");
+                System.out.print("Enter rule: ");
+                try {
+                    pricing.addRule(PriceRule.parse(sc.nextLine().trim()));
+                    savePricingRules();
+                } catch (IllegalArgumentException e) {
+                    System.out.println(e.getMessage());
+                }
+            } else if (choice.equals("2")) {
+                System.out.print("Enter rule number: ");
+                try {
+                    int index = Integer.parseInt(sc.nextLine().trim()) - 1;
+                    if (index < 0 || index >= rules.size()) {
+                        System.out.println("Invalid rule number.");
+                    } else if (pricing.removeRule(rules.get(index).getName())) {
+                        savePricingRules();
+                    }
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid input. Please enter a number.");
+                }
+            } else if (choice.equals("3")) {
+                System.out.print("Enter perfume number or name: ");
+                Perfume p = choosePerfume(sc.nextLine().trim());
+                if (p == null) continue;
+                System.out.print("Enter quantity: ");
+                try {
+                    int quantity = Integer.parseInt(sc.nextLine().trim());
+                    System.out.printf("%s x%d - list RM%s, online RM%s, in store RM%s each\n", p.getName(), quantity,
+                            Money.format(p.getPriceSen()),
+                            Money.format(pricing.unitPrice(p, PricingEngine.ONLINE, quantity)),
+                            Money.format(pricing.unitPrice(p, PricingEngine.IN_STORE, quantity)));
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid input. Please enter a number.");
+                }
+            } else {
+                System.out.println("Invalid choice.");
+            }
+        }
+    }
+
+    // Method to list, add and remove user accounts and set their passwords
+    public static void manageUsers(Scanner sc, SessionCache.Session session) {
+        while (sessionValid(session)) {
+            System.out.println("\n=== User Accounts ===");
+            for (UserStore.User user : users.list()) {
+                System.out.printf("%-20s %s\n", user.getUsername(), user.getRole() == UserStore.Role.ADMIN ? "Admin" : "Customer");
+            }
+            System.out.println("\n1. Add a user");
+            System.out.println("2. Set a password");
+            System.out.println("3. Remove a user");
+            System.out.println("4. Back");
+            System.out.print("Enter choice: ");
+            String choice = sc.nextLine().trim();
+            if (choice.equals("4")) return;
+            try {
+                if (choice.equals("1")) {
+                    System.out.print("Enter username: ");
+                    String username = sc.nextLine().trim();
+                    System.out.print("Admin account? (y/n): ");
+                    UserStore.Role role = sc.nextLine().trim().equalsIgnoreCase("y") ? UserStore.Role.ADMIN : UserStore.Role.CUSTOMER;
+                    System.out.print("Enter password: ");
+                    users.add(username, sc.nextLine().toCharArray(), role);
+                    saveUsers();
+                } else if (choice.equals("2")) {
+                    System.out.print("Enter username: ");
+                    String username = sc.nextLine().trim();
+                    System.out.print("Enter new password: ");
+                    users.setPassword(username, sc.nextLine().toCharArray());
+                    if (!username.equalsIgnoreCase(session.getUser().getUsername())) sessions.invalidateUser(username); // log them out
+                    saveUsers();
+                } else if (choice.equals("3")) {
+                    System.out.print("Enter username: ");
+                    String username = sc.nextLine().trim();
+                    if (username.equalsIgnoreCase(session.getUser().getUsername())) {
+                        System.out.println("You cannot remove the account you are logged in with.");
+                    } else if (users.remove(username)) {
+                        sessions.invalidateUser(username);
+                        saveUsers();
+                    } else {
+                        System.out.println("Unknown user " + username + ".");
+                    }
+                } else {
+                    System.out.println("Invalid choice.");
+                }
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+
+    // Method to save the user accounts so the next run starts with them
+    static void saveUsers() {
+        try {
+            users.save();
+            System.out.println("User accounts saved.");
+        } catch (IOException e) {
+            System.out.println("Failed to save user accounts: " + e.getMessage());
+        }
+    }
+
+    // Method to save the pricing rules so the next run starts with them
+    static void savePricingRules() {
+        try {
+            PriceRule.writeAll(pricingRules, pricing.getRules());
+            System.out.println("Pricing rules saved.");
+        } catch (IOException e) {
+            System.out.println("Failed to save pricing rules to " + pricingRules + ": " + e.getMessage());
+        }
+    }
+
+    // Method to print one perfume as a numbered menu line
+    static void printPerfume(Perfume p) {
+        printPerfume(p, p.getStockQuantity());
+    }
+
+    // Method to print one perfume with the stock of a particular store
+    static void printPerfume(Perfume p, int stock) {
+        System.out.printf("%d. %s (RM%s) - Stock: %d\n", p.getSku() + 1, p.getName(), Money.format(p.getPriceSen()), stock);
+        if (stock <= 0) {
+            System.out.println("   * Out of stock *");
+        }
+    }
+
+    // Method to find a perfume from a menu number or a name typed by the user
+    // Returns null (after listing the candidates) when the name matches more than one perfume
+    static Perfume choosePerfume(String input) {
+        try {
+            int num = Integer.parseInt(input);
+            if (num < 1 || num > inventory.size()) {
+                System.out.println("Invalid perfume number.");
+                return null;
+            }
+            return inventory.get(num - 1);
+        } catch (NumberFormatException e) {
+            // not a number, search by name
+        }
+
+        List<Integer> exact = perfumeIndex.findExact(input);
+        if (exact.size() == 1) return inventory.get(exact.get(0));
+        List<Integer> matches = exact.isEmpty() ? perfumeIndex.search(input, SEARCH_LIMIT) : exact;
+        if (matches.isEmpty()) {
+            System.out.println("No perfume matches \"" + input + "\".");
+            return null;
+        }
+        if (matches.size() == 1) return inventory.get(matches.get(0));
+        System.out.println("Matching perfumes:");
+        for (int sku : matches) {
+            printPerfume(inventory.get(sku));
+        }
+        System.out.println("Enter the perfume number to choose one.");
+        return null;
+    }
+
+    // Method to add new perfume
+    public static void addPerfume(Scanner sc) {
+        System.out.print("Enter perfume name: ");
+        String name = sc.nextLine();
+
+        long price = 0;
+        while (true) {
+            System.out.print("Enter perfume price: ");
+            try {
+                String text = sc.next();
+                sc.nextLine();
+                price = Money.parse(text);
+                if (price < 0) {
+                    throw new IllegalArgumentException("Price cannot be negative.");
+                }
+                if (price == 0) {
+                    throw new IllegalArgumentException("Price cannot be zero.");
+                }
+                break;
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid input. Please enter a valid amount (e.g. 59.90).");
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+
+        int stock = 0;
+        while (true) {
+            System.out.print("Enter stock quantity: ");
+            try {
+                stock = sc.nextInt();
+                sc.nextLine();
+                if (stock < 0) {
+                    throw new IllegalArgumentException("Stock cannot be negative.");
+                }
+                break;
+            } catch (InputMismatchException e) {
+                System.out.println("Invalid input. Please enter a valid integer.");
+                sc.nextLine();
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+
+        inventory.add(new Perfume(name, price, stock));
+        System.out.println("Perfume added.");
+    }
+
+    // Method to view total sales and perfumes sold
+    public static void viewSales() {
+        SalesMetrics.Snapshot totals = salesMetrics.snapshot(); // read without blocking checkouts
+        System.out.println("Total sales: RM" + Money.format(totals.getTotalSen()));
+        System.out.println("Total perfumes sold: " + totals.getPerfumesSold());
+
+        System.out.println("\nTop " + salesAnalytics.getTopSize() + " best sellers:");
+        for (SalesAnalytics.SkuTotals t : salesAnalytics.topSellers()) {
+            System.out.printf("%s - Units Sold: %d, Total Sales: RM%s\n", t.getName(), t.getUnits(), Money.format(t.getSalesSen())); // Display sales details for each perfume
+        }
+
+        System.out.println("\nBy order type (since startup):");
+        for (SalesAnalytics.TypeTotals t : salesAnalytics.byOrderType()) {
+            System.out.printf("%-8s - Orders: %d, Units Sold: %d, Total Sales: RM%s\n", t.getOrderType(), t.getOrders(), t.getUnits(), Money.format(t.getSalesSen()));
+        }
+
+        printPeriods("Last 24 hours:", salesAnalytics.lastHours(24), "yyyy-MM-dd HH:00");
+        printPeriods("Last 7 days:", salesAnalytics.lastDays(7), "yyyy-MM-dd");
+    }
+
+    // Method to print the periods of a sales rollup that had any sales
+    private static void printPeriods(String title, List<SalesAnalytics.Period> periods, String pattern) {
+        System.out.println("\n" + title);
+        DateTimeFormatter format = DateTimeFormatter.ofPattern(pattern).withZone(ZoneId.systemDefault());
+        boolean any = false;
+        for (SalesAnalytics.Period p : periods) {
+            if (p.getUnits() == 0) continue;
+            any = true;
+            System.out.printf("%s - Orders: %d, Units Sold: %d, Total Sales: RM%s\n", format.format(Instant.ofEpochMilli(p.getStartMillis())),
+                    p.getOrders(), p.getUnits(), Money.format(p.getSalesSen()));
+        }
+        if (!any) System.out.println("No sales.");
+    }
+
+    // Method to view and manage inventory
+    public static void viewInventory(Scanner sc) {
+        while (true) {
+            System.out.println("\n=== Perfume Inventory ===");
+            System.out.printf("%-4s %-20s %-10s %-15s %-10s\n", "No.", "Name", "Price", "Quantity Sold", "Stock Left");
+            for (int i = 0; i < inventory.size() && i < LIST_LIMIT; i++) {
+                Perfume p = inventory.get(i);
+                System.out.printf("%-4d %-20s RM%-9s %-15d %-10d\n", i + 1, p.getName(), Money.format(p.getPriceSen()), p.getQuantitySold(), p.getStockQuantity()); // Display inventory details
+            }
+            if (inventory.size() > LIST_LIMIT) {
+                System.out.println("... " + (inventory.size() - LIST_LIMIT) + " more, manage a perfume by name to find it.");
+            }
+            // Display inventory management options
+            System.out.println("\nInventory Management Options:");
+            System.out.println("1. Manage existing perfume");
+            System.out.println("2. Add new perfume");
+            System.out.println("3. Back to main menu\n");
+            System.out.print("Choose option: ");
+            
+            int opt;
+            try {
+                opt = sc.nextInt();
+                sc.nextLine();
+            } catch (InputMismatchException e) {
+                System.out.println("Invalid input! Please enter a number.");
+                sc.nextLine(); // Clear buffer
+                continue;
+            }
+
+            if (opt == 1) {
+                System.out.print("Enter perfume number or name: ");
+                Perfume selected = choosePerfume(sc.nextLine().trim()); // Get selected perfume
+                
+                if (selected != null) {
+                    // Display options for managing the selected perfume
+                    System.out.println("1. Add stock");
+                    System.out.println("2. Remove stock");
+                    System.out.println("3. Set new stock quantity");
+                    System.out.println("4. Update price\n");
+                    System.out.print("Choose action: ");
+                    
+                    int action;
+                    try {
+                        action = sc.nextInt();
+                        sc.nextLine();
+                    } catch (InputMismatchException e) {
+                        System.out.println("Invalid input! Please enter a valid number.");
+                        sc.nextLine();
+                        continue;
+                    }
+
+                    switch (action) { // Handle selected action
+                        case 1:
+                            System.out.print("Enter quantity to add: ");
+                            int addQty = sc.nextInt();
+                            sc.nextLine();
+                            try {
+                                selected.addStock(addQty); // Add stock to the selected perfume
+                                System.out.println("Stock updated. New stock: " + selected.getStockQuantity());
+                            } catch (InputMismatchException e) {
+                                System.out.println("Invalid input! Please enter the correct type.");
+                                sc.nextLine(); // clear buffer
+                            } catch (IllegalArgumentException e) {
+                                System.out.println("  " + e.getMessage()); // Handle exceptions for invalid stock addition
+                            }
+                            break;
+                        case 2:
+                            System.out.print("Enter quantity to remove: ");
+                            int removeQty = sc.nextInt();
+                            sc.nextLine();
+                            try {
+                                selected.removeStock(removeQty); // Remove stock from the selected perfume
+                                System.out.println("Stock updated. New stock: " + selected.getStockQuantity());
+                            } catch (InputMismatchException e) {
+                                System.out.println("Invalid input! Please enter the correct type.");
+                                sc.nextLine(); // clear buffer
+                            } catch (IllegalArgumentException e) {
+                                System.out.println("  " + e.getMessage()); // Handle exceptions for invalid stock removal
+                            }
+                            break;
+                        case 3:
+                            System.out.print("Enter new stock quantity: ");
+                            int newQty = sc.nextInt();
+                            sc.nextLine();
+                            try {
+                                selected.setNewStockQuantity(newQty); // Set new stock quantity for the selected perfume
+                                System.out.println("Stock updated. New stock: " + selected.getStockQuantity());
+                            } catch (InputMismatchException e) {
+                                System.out.println("Invalid input! Please enter the correct type.");
+                                sc.nextLine(); // clear buffer
+                            } catch (IllegalArgumentException e) {
+                                System.out.println("  " + e.getMessage()); // Handle exceptions for invalid stock quantity setting
+                            }
+                            break;
+                        case 4:
+                            System.out.print("Enter new price: RM");
+                            String newPrice = sc.nextLine();
+                            try {
+                                selected.setNewPrice(Money.parse(newPrice)); // Update price of the selected perfume
+                                System.out.println("Price updated. New price: RM" + Money.format(selected.getPriceSen()));
+                            } catch (NumberFormatException e) {
+                                System.out.println("Invalid input! Please enter the correct type.");
+                            } catch (IllegalArgumentException e) {
+                                System.out.println("  " + e.getMessage()); // Handle exceptions for invalid price setting
+                            }
+                            break;
+                        default:
+                            System.out.println("Invalid action.");
+                    }
+                }
+            } 
+            else if (opt == 2) {
+                addPerfume(sc); // Call the addPerfume function
+            } 
+            else if (opt == 3) {
+                break; // Back to main menu
+            } 
+            else {
+                System.out.println("Invalid option.");
+            }
+        }
+    }
+}
\ No newline at end of file
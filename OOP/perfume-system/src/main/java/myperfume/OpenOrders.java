@@ -0,0 +1,69 @@
+package myperfume;
+
+// Import required packages
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// OpenOrders class tracking the orders that hold reserved stock, and cancelling the ones left idle too long
+// so an abandoned order (a customer walking away from the menu, a client that never finishes) cannot keep stock forever
+// The sweep runs on one daemon thread started with the first open order; a timeout of 0 turns expiry off
+class OpenOrders {
+    private final long timeoutNanos;
+    private final Set<Order> orders = ConcurrentHashMap.newKeySet();
+    private final LongAdder expired = new LongAdder();
+    private volatile ScheduledExecutorService sweeper; // created once, under the lock
+
+    // Constructor to create the tracker, orders idle for timeoutSeconds are cancelled
+    public OpenOrders(long timeoutSeconds) {
+        if (timeoutSeconds < 0) throw new IllegalArgumentException("Order timeout cannot be negative.");
+        this.timeoutNanos = TimeUnit.SECONDS.toNanos(timeoutSeconds);
+    }
+
+    // Method to create the tracker configured from system properties
+    // -Dorder.timeoutSeconds=900
+    public static OpenOrders fromSystemProperties() {
+        return new OpenOrders(Long.getLong("order.timeoutSeconds", 900L));
+    }
+
+    // Getters for tracker attributes
+    public long getTimeoutSeconds() { return TimeUnit.NANOSECONDS.toSeconds(timeoutNanos); }
+    public int size() { return orders.size(); }
+    public long getExpiredCount() { return expired.sum(); }
+
+    // Method called by an order when it reserves its first stock
+    void add(Order order) {
+        if (timeoutNanos == 0) return;
+        orders.add(order);
+        if (sweeper == null) startSweeper();
+    }
+
+    // Method called by an order when it is committed or cancelled
+    void remove(Order order) {
+        if (timeoutNanos == 0) return;
+        orders.remove(order);
+    }
+
+    // Method to cancel every order idle for longer than the timeout, returns how many were cancelled
+    public int expireIdle() {
+        long now = System.nanoTime();
+        int count = 0;
+        for (Order order : orders) {
+            if (now - order.getLastUsedNanos() >= timeoutNanos && order.expireIfIdle(now, timeoutNanos)) count++;
+        }
+        expired.add(count);
+        return count;
+    }
+
+    // Method to start the sweep, checking ten times per timeout but at least once a minute
+    private synchronized void startSweeper() {
+        if (sweeper != null) return;
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "order-expiry");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(TimeUnit.SECONDS.toNanos(1), Math.min(timeoutNanos / 10, TimeUnit.MINUTES.toNanos(1)));
+        sweeper.scheduleWithFixedDelay(this::expireIdle, period, period, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,169 @@
+package myperfume;
+
+// Import required packages
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// OrderHistory class recording every billed order and handing out bill IDs
+// Orders are numbered from 0 and kept as columns of primitive arrays in chunks of 16384, about 25 bytes an order,
+// so millions of orders cost tens of megabytes and no objects; each Customer keeps the numbers of their own orders
+// Bill IDs are the run ID followed by the order number; the run ID is this process's start time and process ID
+// in base 36, so bills from different runs never share a file name
+class OrderHistory {
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private final String runId;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ConcurrentHashMap<String, Byte> typeIds = new ConcurrentHashMap<>();
+    private final ArrayList<String> typeNames = new ArrayList<>(); // guarded by typeIds
+    private volatile Chunk[] chunks = new Chunk[16];
+
+    // Constructor to create an empty history for this run
+    public OrderHistory() {
+        this(Long.toString(System.currentTimeMillis(), 36) + "-" + Long.toString(ProcessHandle.current().pid(), 36));
+    }
+
+    // Constructor to create an empty history with a given run ID
+    OrderHistory(String runId) {
+        this.runId = runId;
+    }
+
+    // Getters for history attributes
+    public String getRunId() { return runId; }
+    public int size() { return next.get(); }
+
+    // Method to record a billed order, returns its order number
+    public int record(Order order) {
+        int number = next.getAndIncrement();
+        if (number < 0) throw new IllegalStateException("Order history is full.");
+        int items = 0;
+        for (OrderLine line : order.getLines()) items += line.getQuantity();
+        Store store = order.getStore();
+
+        Chunk chunk = chunk(number >>> CHUNK_BITS);
+        int i = number & (CHUNK_SIZE - 1);
+        chunk.timeMillis[i] = System.currentTimeMillis();
+        chunk.totalSen[i] = order.calculateTotal();
+        chunk.items[i] = items;
+        chunk.store[i] = store == null ? -1 : store.getId();
+        chunk.type[i] = typeId(order.getOrderType());
+        chunk.owner[i] = order.getOwner();
+        chunk.written.accumulateAndGet(i >>> 6, 1L << i, (bits, bit) -> bits | bit); // publishes the columns above
+        return number;
+    }
+
+    // Method to get the bill ID of an order number
+    public String billId(int number) {
+        return runId + "-" + (number + 1);
+    }
+
+    // Method to read back one order, the number must come from record (e.g. through Customer.recentOrders)
+    public Entry get(int number) {
+        Chunk chunk = written(number);
+        if (chunk == null) throw new IllegalArgumentException("Unknown order number " + number + ".");
+        int i = number & (CHUNK_SIZE - 1);
+        String type;
+        synchronized (typeIds) {
+            type = typeNames.get(chunk.type[i]);
+        }
+        return new Entry(billId(number), chunk.timeMillis[i], type, chunk.store[i], chunk.items[i], chunk.totalSen[i],
+                chunk.owner[i]);
+    }
+
+    // Method to get the username that placed the order with a bill ID, null if nobody did or the bill is not from this run
+    public String owner(String billId) {
+        if (billId == null || !billId.startsWith(runId + "-")) return null;
+        int number;
+        try {
+            number = Integer.parseInt(billId.substring(runId.length() + 1)) - 1;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        Chunk chunk = written(number);
+        return chunk == null ? null : chunk.owner[number & (CHUNK_SIZE - 1)];
+    }
+
+    // Method to get the chunk holding an order once record has stored all of it, null before that
+    // A number is handed out before its chunk exists, so a guessed bill ID can name an order still being recorded
+    private Chunk written(int number) {
+        if (number < 0) return null;
+        Chunk[] current = chunks;
+        int index = number >>> CHUNK_BITS;
+        Chunk chunk = index < current.length ? current[index] : null;
+        if (chunk == null) return null;
+        int i = number & (CHUNK_SIZE - 1);
+        return (chunk.written.get(i >>> 6) & (1L << i)) != 0 ? chunk : null;
+    }
+
+    // Method to get the chunk for an order number, creating it on first use
+    private Chunk chunk(int index) {
+        Chunk[] current = chunks;
+        if (index < current.length && current[index] != null) return current[index];
+        synchronized (this) {
+            current = chunks;
+            if (index >= current.length) current = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+            if (current[index] == null) current[index] = new Chunk();
+            chunks = current; // republish so readers of the array see the new chunk
+            return current[index];
+        }
+    }
+
+    // Method to map an order type to a small number, there are only a handful of types
+    private byte typeId(String type) {
+        Byte id = typeIds.get(type);
+        if (id != null) return id;
+        synchronized (typeIds) {
+            id = typeIds.get(type);
+            if (id == null) {
+                if (typeNames.size() == Byte.MAX_VALUE) throw new IllegalStateException("Too many order types.");
+                id = (byte) typeNames.size();
+                typeNames.add(type);
+                typeIds.put(type, id);
+            }
+            return id;
+        }
+    }
+
+    // Chunk class holding the columns for CHUNK_SIZE orders
+    private static class Chunk {
+        final long[] timeMillis = new long[CHUNK_SIZE];
+        final long[] totalSen = new long[CHUNK_SIZE];
+        final int[] items = new int[CHUNK_SIZE];
+        final int[] store = new int[CHUNK_SIZE];
+        final byte[] type = new byte[CHUNK_SIZE];
+        final String[] owner = new String[CHUNK_SIZE]; // shares the account's username, no copy per order
+        final AtomicLongArray written = new AtomicLongArray(CHUNK_SIZE / 64); // one bit per order, set once it is stored
+    }
+
+    // Entry class holding one order read back from the history
+    static class Entry {
+        private final String billId;
+        private final long timeMillis;
+        private final String orderType;
+        private final int storeId; // -1 when no line was placed
+        private final int items;
+        private final long totalSen;
+        private final String owner; // username that placed the order, null from batches and when logins are off
+
+        Entry(String billId, long timeMillis, String orderType, int storeId, int items, long totalSen, String owner) {
+            this.billId = billId;
+            this.timeMillis = timeMillis;
+            this.orderType = orderType;
+            this.storeId = storeId;
+            this.items = items;
+            this.totalSen = totalSen;
+            this.owner = owner;
+        }
+
+        // Getters for entry attributes
+        public String getBillId() { return billId; }
+        public long getTimeMillis() { return timeMillis; }
+        public String getOrderType() { return orderType; }
+        public int getStoreId() { return storeId; }
+        public int getItems() { return items; }
+        public long getTotalSen() { return totalSen; }
+        public String getOwner() { return owner; }
+    }
+}
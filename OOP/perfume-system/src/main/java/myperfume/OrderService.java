@@ -0,0 +1,610 @@
+package myperfume;
+
+// Import required packages
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// OrderService class taking orders over HTTP with JSON bodies, sharing the same inventory as the menus
+//   GET  /inventory?q=&offset=&limit=   list or search perfumes
+//   GET  /inventory/{sku}               one perfume with its stock in every store
+//   POST /orders                        {"type":"Online","name":..,"contact":..,"address":..,"items":[{"sku":0,"quantity":2}]}
+//                                       InStore orders give "store" (number or name) instead of "address"
+//                                       all items are placed or none; send an Idempotency-Key header to retry safely
+//   GET  /orders?contact=&limit=        a customer's latest orders, newest first
+//   GET  /bills/{billId}                an archived bill as it was written (text, CSV or JSON)
+//   GET  /sales                         sales totals, per order type and top sellers
+//   GET  /metrics                       hot-path counters and latencies in the Prometheus text format
+//   POST /login                         {"username":..,"password":..} -> {"token":..,"role":..,"expiresIn":seconds}
+//   POST /logout                        ends the session of the Authorization header
+// Orders and bills need an "Authorization: Bearer <token>" header and /sales and /metrics an admin's (-Dservice.auth=false
+// turns this off for local testing); customers only see the orders and bills placed from their own account, admins see all.
+// /inventory is public on purpose: it is the shop's catalog, names, prices and stock as the menus show them to anyone.
+// The password is hashed once at login, each request after that is one lookup in the session cache
+// Connections are accepted by the JDK HTTP server's selector thread, so an idle keep-alive client holds no thread;
+// each request runs on a virtual thread when the runtime has them (Java 21+) and on a bounded pool otherwise
+class OrderService {
+    public static final int DEFAULT_PORT = 8080;
+    private static final int MAX_BODY = 1 << 20;
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 1000;
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String SESSION = "myperfume.session"; // exchange attribute set by authorize
+
+    private final Inventory inventory;
+    private final SalesMetrics metrics;
+    private final Path billDir; // null when no bill files are wanted
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final IdempotencyKeys idempotencyKeys = IdempotencyKeys.fromSystemProperties();
+    private final boolean authRequired = Boolean.parseBoolean(System.getProperty("service.auth", "true"));
+    private final LongAdder ordersPlaced = new LongAdder();
+    private final LongAdder ordersRejected = new LongAdder();
+
+    // Constructor to create an order service bound to a port, backlog is how many connections may wait to be accepted
+    public OrderService(Inventory inventory, SalesMetrics metrics, Path billDir, int port, int backlog) throws IOException {
+        this.inventory = inventory;
+        this.metrics = metrics;
+        this.billDir = billDir;
+        if (billDir != null) Files.createDirectories(billDir);
+        this.server = HttpServer.create(new InetSocketAddress(port), backlog);
+        this.executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/inventory", this::handleInventory);
+        server.createContext("/orders", this::handleOrders);
+        server.createContext("/bills", this::handleBills);
+        server.createContext("/sales", this::handleSales);
+        server.createContext("/metrics", this::handleMetrics);
+        server.createContext("/login", this::handleLogin);
+        server.createContext("/logout", this::handleLogout);
+    }
+
+    // Method to create the executor requests run on, one virtual thread per request when available
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = Integer.getInteger("service.threads", Math.max(16, Runtime.getRuntime().availableProcessors() * 4));
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "order-service-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    // Method to start accepting requests
+    public void start() {
+        server.start();
+    }
+
+    // Method to stop the service, requests still running get up to delaySeconds to finish
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds + 1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Method to get the port the service listens on
+    public int getPort() { return server.getAddress().getPort(); }
+
+    // Getters for the service counters
+    public long getOrdersPlaced() { return ordersPlaced.sum(); }
+    public long getOrdersRejected() { return ordersRejected.sum(); }
+
+    // Method to handle /inventory and /inventory/{sku}
+    private void handleInventory(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendError(exchange, 405, "Use GET for /inventory.");
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            if (path.length() > "/inventory/".length()) {
+                int sku;
+                try {
+                    sku = Integer.parseInt(path.substring("/inventory/".length()));
+                } catch (NumberFormatException e) {
+                    sendError(exchange, 404, "Unknown SKU.");
+                    return;
+                }
+                if (sku < 0 || sku >= inventory.size()) {
+                    sendError(exchange, 404, "Unknown SKU " + sku + ".");
+                    return;
+                }
+                Perfume p = inventory.get(sku);
+                StringBuilder json = appendPerfume(new StringBuilder(), p);
+                json.setLength(json.length() - 1);
+                json.append(",\"stores\":[");
+                for (Store store : NewMyPerfumeSystem.stores.list()) {
+                    if (store.getId() > 0) json.append(',');
+                    json.append("{\"store\":");
+                    Json.appendString(json, store.getName()).append(",\"stock\":").append(store.stockOf(p)).append('}');
+                }
+                send(exchange, 200, json.append("]}").toString());
+                return;
+            }
+
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            int offset = intParam(query, "offset", 0);
+            int limit = Math.min(intParam(query, "limit", DEFAULT_LIMIT), MAX_LIMIT);
+            String search = query.get("q");
+            StringBuilder json = new StringBuilder(256 + limit * 96);
+            json.append("{\"count\":").append(inventory.size()).append(",\"perfumes\":[");
+            if (search != null && !search.isBlank()) {
+                PerfumeIndex index = NewMyPerfumeSystem.perfumeIndex;
+                List<Integer> skus = index != null ? index.search(search, limit) : Collections.emptyList();
+                for (int i = 0; i < skus.size(); i++) {
+                    if (i > 0) json.append(',');
+                    appendPerfume(json, inventory.get(skus.get(i)));
+                }
+            } else {
+                int end = (int) Math.min((long) offset + limit, inventory.size());
+                for (int sku = offset; sku < end; sku++) {
+                    if (sku > offset) json.append(',');
+                    appendPerfume(json, inventory.get(sku));
+                }
+            }
+            json.append("]}");
+            send(exchange, 200, json.toString());
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        }
+    }
+
+    // Method to handle POST /orders, and GET /orders for past orders
+    // A POST with an Idempotency-Key header is placed at most once; retries get the first response back
+    private void handleOrders(HttpExchange exchange) throws IOException {
+        if (!authorize(exchange, false)) return;
+        if (exchange.getRequestMethod().equals("GET")) {
+            handlePastOrders(exchange);
+            return;
+        }
+        if (!exchange.getRequestMethod().equals("POST")) {
+            sendError(exchange, 405, "Use POST to place an order or GET to list past orders.");
+            return;
+        }
+        String key = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+        String body;
+        try {
+            body = readBody(exchange);
+            if (key != null && (key.isBlank() || key.length() > MAX_KEY_LENGTH)) {
+                throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters.");
+            }
+        } catch (IllegalArgumentException e) {
+            ordersRejected.increment();
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+        String owner = sessionUser(exchange);
+        if (key == null) {
+            IdempotencyKeys.Response response = placeOrder(body, owner);
+            send(exchange, response.status, response.body);
+            return;
+        }
+        if (owner != null) key = owner.toLowerCase(Locale.ROOT) + "/" + key; // one account cannot replay another's order
+        IdempotencyKeys.Result result = idempotencyKeys.run(key, body, () -> placeOrder(body, owner));
+        if (result.replayed) exchange.getResponseHeaders().set("Idempotent-Replayed", "true");
+        send(exchange, result.response.status, result.response.body);
+    }
+
+    // Method to place an order from a JSON request for an account (null without login), every item is placed or none is
+    private IdempotencyKeys.Response placeOrder(String body, String owner) {
+        Map<?, ?> request;
+        String type, name, contact, address, storeName;
+        try {
+            Object parsed = Json.parse(body);
+            if (!(parsed instanceof Map)) throw new IllegalArgumentException("Order must be a JSON object.");
+            request = (Map<?, ?>) parsed;
+            type = text(request, "type", "Online");
+            name = text(request, "name", "");
+            contact = text(request, "contact", "");
+            address = text(request, "address", "");
+            storeName = text(request, "store", "");
+        } catch (IllegalArgumentException e) {
+            return reject(400, e.getMessage());
+        }
+
+        boolean online = type.equalsIgnoreCase("Online") || type.equalsIgnoreCase("O");
+        String problem = null;
+        if (!online && !type.equalsIgnoreCase("InStore") && !type.equalsIgnoreCase("I")) {
+            problem = "Order type must be Online or InStore.";
+        } else if (name.isBlank()) {
+            problem = "Customer name cannot be empty.";
+        } else if (online && address.isBlank()) {
+            problem = "Online orders need a delivery address.";
+        }
+        Store store = null;
+        if (problem == null && !online) {
+            store = storeName.isBlank() ? NewMyPerfumeSystem.stores.main() : NewMyPerfumeSystem.stores.find(storeName);
+            if (store == null) problem = "Unknown store " + storeName + ".";
+        }
+
+        // Check every item before placing any of them
+        Object itemList = request.get("items");
+        int[] skus = new int[0];
+        int[] quantities = new int[0];
+        if (problem == null && (!(itemList instanceof List) || ((List<?>) itemList).isEmpty())) {
+            problem = "Order needs at least one item.";
+        } else if (problem == null) {
+            List<?> items = (List<?>) itemList;
+            skus = new int[items.size()];
+            quantities = new int[items.size()];
+            for (int i = 0; i < items.size() && problem == null; i++) {
+                Object item = items.get(i);
+                if (!(item instanceof Map)) {
+                    problem = "Item " + (i + 1) + " must be an object with sku and quantity.";
+                    continue;
+                }
+                Object sku = ((Map<?, ?>) item).get("sku");
+                Object quantity = ((Map<?, ?>) item).get("quantity");
+                if (!(sku instanceof Long) || (Long) sku < 0 || (Long) sku >= inventory.size()) {
+                    problem = "Unknown SKU " + sku + ".";
+                } else if (!(quantity instanceof Long) || (Long) quantity <= 0 || (Long) quantity > Integer.MAX_VALUE) {
+                    problem = "Quantity must more than 0.";
+                } else {
+                    skus[i] = ((Long) sku).intValue();
+                    quantities[i] = ((Long) quantity).intValue();
+                }
+            }
+        }
+        if (problem != null) return reject(400, problem);
+
+        long start = System.nanoTime();
+        Customer customer = NewMyPerfumeSystem.customers.register(name.trim(), contact.trim());
+        Order order = online
+                ? new OnlineOrder(customer, address.trim())
+                : new InStoreOrder(customer, store);
+        order.setOwner(owner);
+        for (int i = 0; i < skus.length; i++) {
+            try {
+                order.addPerfume(inventory.get(skus[i]), quantities[i]);
+            } catch (IllegalArgumentException e) {
+                order.cancel(); // all or nothing, the items already reserved go back
+                ordersRejected.increment();
+                return new IdempotencyKeys.Response(409, "{\"error\":" + Json.quote("Order was not placed, nothing was taken.")
+                        + ",\"rejected\":[{\"sku\":" + skus[i] + ",\"reason\":" + Json.quote(e.getMessage()) + "}]}");
+            }
+        }
+
+        String billId;
+        try {
+            billId = order.complete();
+        } catch (IllegalStateException e) {
+            return reject(409, e.getMessage()); // expired by the sweeper before billing, or the order history is full
+        }
+        String billFile = null;
+        if (billDir != null) {
+            billFile = billDir.resolve(NewMyPerfumeSystem.billFormat.fileName(billId)).toString();
+            try {
+                order.generateBill(billFile);
+                if (NewMyPerfumeSystem.billWriter.isArchiving()) billFile = "/bills/" + billId; // where to fetch it
+            } catch (IllegalStateException e) {
+                billFile = null; // shutting down, the order itself is already placed
+            }
+        }
+        ordersPlaced.increment();
+        NewMyPerfumeSystem.hotPathMetrics.orderPlaced(System.nanoTime() - start);
+
+        StringBuilder json = new StringBuilder(256 + order.getLines().size() * 96);
+        json.append("{\"billId\":").append(Json.quote(billId));
+        json.append(",\"type\":").append(Json.quote(order.getOrderType()));
+        json.append(",\"store\":").append(Json.quote(order.getStore().getName()));
+        json.append(",\"items\":[");
+        boolean first = true;
+        for (OrderLine line : order.getLines()) {
+            if (!first) json.append(',');
+            first = false;
+            Perfume p = line.getPerfume();
+            json.append("{\"sku\":").append(p.getSku()).append(",\"name\":");
+            Json.appendString(json, p.getName());
+            json.append(",\"quantity\":").append(line.getQuantity());
+            json.append(",\"price\":\"");
+            Money.appendTo(json, line.getUnitPriceSen()).append("\",\"subtotal\":\"");
+            Money.appendTo(json, line.getSubtotalSen()).append("\"}");
+        }
+        json.append("],\"total\":\"");
+        Money.appendTo(json, order.calculateTotal()).append("\",\"bill\":");
+        Json.appendString(json, billFile).append('}');
+        return new IdempotencyKeys.Response(201, json.toString());
+    }
+
+    // Method to count a rejected order and build its error response
+    private IdempotencyKeys.Response reject(int status, String message) {
+        ordersRejected.increment();
+        return new IdempotencyKeys.Response(status, "{\"error\":" + Json.quote(message) + "}");
+    }
+
+    // Method to handle GET /orders?contact=, listing a customer's latest orders
+    // Customers only get the orders placed from their own account, as if the others did not exist
+    private void handlePastOrders(HttpExchange exchange) throws IOException {
+        try {
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String contact = query.getOrDefault("contact", "");
+            if (contact.isBlank()) throw new IllegalArgumentException("Parameter contact is required.");
+            int limit = Math.min(intParam(query, "limit", DEFAULT_LIMIT), MAX_LIMIT);
+            Customer customer = NewMyPerfumeSystem.customers.find(contact);
+            boolean all = mayReadAll(exchange);
+            int[] numbers = customer == null ? new int[0] : customer.recentOrders(all ? limit : customer.getOrderCount());
+            ArrayList<OrderHistory.Entry> entries = new ArrayList<>(Math.min(numbers.length, limit));
+            for (int i = 0; i < numbers.length && entries.size() < limit; i++) {
+                OrderHistory.Entry e = NewMyPerfumeSystem.orderHistory.get(numbers[i]);
+                if (all || mayRead(exchange, e.getOwner())) entries.add(e);
+            }
+            if (entries.isEmpty()) {
+                sendError(exchange, 404, "No orders found for this contact.");
+                return;
+            }
+            StringBuilder json = new StringBuilder(128 + entries.size() * 128);
+            json.append("{\"name\":");
+            Json.appendString(json, customer.getName()).append(",\"orderCount\":").append(all ? customer.getOrderCount() : entries.size());
+            json.append(",\"orders\":[");
+            for (int i = 0; i < entries.size(); i++) {
+                OrderHistory.Entry e = entries.get(i);
+                if (i > 0) json.append(',');
+                json.append("{\"billId\":").append(Json.quote(e.getBillId()));
+                json.append(",\"time\":").append(Json.quote(Instant.ofEpochMilli(e.getTimeMillis()).toString()));
+                json.append(",\"type\":").append(Json.quote(e.getOrderType()));
+                json.append(",\"store\":");
+                Json.appendString(json, e.getStoreId() < 0 ? null : NewMyPerfumeSystem.stores.get(e.getStoreId()).getName());
+                json.append(",\"items\":").append(e.getItems()).append(",\"total\":\"");
+                Money.appendTo(json, e.getTotalSen()).append("\"}");
+            }
+            send(exchange, 200, json.append("]}").toString());
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        }
+    }
+
+    // Method to handle GET /sales
+    private void handleSales(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            sendError(exchange, 405, "Use GET for /sales.");
+            return;
+        }
+        if (!authorize(exchange, true)) return;
+        SalesMetrics.Snapshot snapshot = metrics.snapshot();
+        StringBuilder json = new StringBuilder(128);
+        json.append("{\"total\":\"");
+        Money.appendTo(json, snapshot.getTotalSen()).append("\",\"perfumesSold\":").append(snapshot.getPerfumesSold());
+        json.append(",\"ordersPlaced\":").append(ordersPlaced.sum());
+        json.append(",\"ordersRejected\":").append(ordersRejected.sum());
+        json.append(",\"byOrderType\":[");
+        boolean first = true;
+        for (SalesAnalytics.TypeTotals t : NewMyPerfumeSystem.salesAnalytics.byOrderType()) {
+            if (!first) json.append(',');
+            first = false;
+            json.append("{\"type\":");
+            Json.appendString(json, t.getOrderType()).append(",\"orders\":").append(t.getOrders());
+            json.append(",\"units\":").append(t.getUnits()).append(",\"total\":\"");
+            Money.appendTo(json, t.getSalesSen()).append("\"}");
+        }
+        json.append("],\"topSellers\":[");
+        first = true;
+        for (SalesAnalytics.SkuTotals t : NewMyPerfumeSystem.salesAnalytics.topSellers()) {
+            if (!first) json.append(',');
+            first = false;
+            json.append("{\"sku\":").append(t.getSku()).append(",\"name\":");
+            Json.appendString(json, t.getName()).append(",\"units\":").append(t.getUnits()).append(",\"total\":\"");
+            Money.appendTo(json, t.getSalesSen()).append("\"}");
+        }
+        json.append("]}");
+        send(exchange, 200, json.toString());
+    }
+
+    // Method to handle GET /bills/{billId}, reading the bill back from the bill archive
+    private void handleBills(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            sendError(exchange, 405, "Use GET for /bills.");
+            return;
+        }
+        if (!authorize(exchange, false)) return;
+        String billId = exchange.getRequestURI().getPath().substring("/bills".length());
+        if (billId.startsWith("/")) billId = billId.substring(1);
+        BillArchive archive = billDir == null ? null : NewMyPerfumeSystem.billWriter.getArchive();
+        if (archive == null) {
+            sendError(exchange, 404, "Bills are not archived by this service.");
+            return;
+        }
+        if (billId.isEmpty() || billId.indexOf('/') >= 0
+                || !mayReadAll(exchange) && !mayRead(exchange, NewMyPerfumeSystem.orderHistory.owner(billId))) {
+            sendError(exchange, 404, "Unknown bill."); // someone else's bill looks the same as a missing one
+            return;
+        }
+        for (BillFormat format : BillFormat.values()) {
+            byte[] body = archive.read(format.fileName(billId));
+            if (body == null) continue;
+            String type = format == BillFormat.JSON ? "application/json" : format == BillFormat.CSV ? "text/csv" : "text/plain";
+            exchange.getResponseHeaders().set("Content-Type", type + "; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            return;
+        }
+        sendError(exchange, 404, "Unknown bill " + billId + ".");
+    }
+
+    // Method to handle GET /metrics
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        if (!authorize(exchange, true)) return;
+        if (!exchange.getRequestMethod().equals("GET")) {
+            sendError(exchange, 405, "Use GET for /metrics.");
+            return;
+        }
+        byte[] body = NewMyPerfumeSystem.hotPathMetrics.prometheusText().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // Method to handle POST /login, checking the password once and handing out a session token
+    private void handleLogin(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            sendError(exchange, 405, "Use POST for /login.");
+            return;
+        }
+        UserStore users = NewMyPerfumeSystem.users;
+        if (users == null) {
+            sendError(exchange, 503, "User accounts are not loaded.");
+            return;
+        }
+        UserStore.User user;
+        try {
+            Object parsed = Json.parse(readBody(exchange));
+            if (!(parsed instanceof Map)) throw new IllegalArgumentException("Login must be a JSON object.");
+            Map<?, ?> request = (Map<?, ?>) parsed;
+            char[] password = text(request, "password", "").toCharArray();
+            user = users.authenticate(text(request, "username", ""), password);
+            Arrays.fill(password, '\0');
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+        if (user == null) {
+            sendError(exchange, 401, "Invalid username or password.");
+            return;
+        }
+        SessionCache.Session session = NewMyPerfumeSystem.sessions.create(user);
+        send(exchange, 200, "{\"token\":" + Json.quote(session.getToken())
+                + ",\"role\":" + Json.quote(user.getRole().name().toLowerCase())
+                + ",\"expiresIn\":" + NewMyPerfumeSystem.sessions.getTtlSeconds() + "}");
+    }
+
+    // Method to handle POST /logout
+    private void handleLogout(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            sendError(exchange, 405, "Use POST for /logout.");
+            return;
+        }
+        if (!NewMyPerfumeSystem.sessions.invalidate(bearerToken(exchange))) {
+            sendError(exchange, 401, "Not logged in.");
+            return;
+        }
+        send(exchange, 200, "{\"loggedOut\":true}");
+    }
+
+    // Method to check the request's session when the service requires one, sends 401 or 403 and returns false if it fails
+    private boolean authorize(HttpExchange exchange, boolean adminOnly) throws IOException {
+        if (!authRequired) return true;
+        SessionCache.Session session = NewMyPerfumeSystem.sessions.get(bearerToken(exchange));
+        if (session == null) {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+            sendError(exchange, 401, "Log in with POST /login and send the token as Authorization: Bearer <token>.");
+            return false;
+        }
+        if (adminOnly && !session.isAdmin()) {
+            sendError(exchange, 403, "Only admins may do this.");
+            return false;
+        }
+        exchange.setAttribute(SESSION, session);
+        return true;
+    }
+
+    // Method to get the username of the request's session, null when the service runs without logins
+    private static String sessionUser(HttpExchange exchange) {
+        SessionCache.Session session = (SessionCache.Session) exchange.getAttribute(SESSION);
+        return session == null ? null : session.getUser().getUsername();
+    }
+
+    // Method to check whether the request may see every customer's orders and bills: admins, or anyone without logins
+    private boolean mayReadAll(HttpExchange exchange) {
+        SessionCache.Session session = (SessionCache.Session) exchange.getAttribute(SESSION);
+        return !authRequired || session != null && session.isAdmin();
+    }
+
+    // Method to check whether the request's account placed an order, given the username recorded with the order
+    private static boolean mayRead(HttpExchange exchange, String owner) {
+        String username = sessionUser(exchange);
+        return username != null && username.equalsIgnoreCase(owner);
+    }
+
+    // Method to read the token of an "Authorization: Bearer <token>" header, null if there is none
+    private static String bearerToken(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) return null;
+        return header.substring(7).trim();
+    }
+
+    // Method to append one perfume as a JSON object
+    private static StringBuilder appendPerfume(StringBuilder json, Perfume p) {
+        json.append("{\"sku\":").append(p.getSku()).append(",\"name\":");
+        Json.appendString(json, p.getName());
+        json.append(",\"price\":\"");
+        Money.appendTo(json, p.getPriceSen()).append("\",\"stock\":").append(p.getStockQuantity());
+        return json.append(",\"sold\":").append(p.getQuantitySold()).append('}');
+    }
+
+    // Method to read a request body, refusing bodies larger than MAX_BODY
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY + 1);
+            if (body.length > MAX_BODY) throw new IllegalArgumentException("Request body is too large.");
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    // Method to read a text field from a request, using a default when it is missing
+    private static String text(Map<?, ?> request, String field, String defaultValue) {
+        Object value = request.get(field);
+        if (value == null) return defaultValue;
+        if (!(value instanceof String)) throw new IllegalArgumentException("Field " + field + " must be a string.");
+        return (String) value;
+    }
+
+    // Method to split a query string into decoded name/value pairs
+    private static Map<String, String> parseQuery(String rawQuery) {
+        HashMap<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return query;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    // Method to read a non-negative whole number from the query
+    private static int intParam(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        if (value == null || value.isEmpty()) return defaultValue;
+        try {
+            int n = Integer.parseInt(value);
+            if (n < 0) throw new NumberFormatException();
+            return n;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + name + " must be a whole number of 0 or more.");
+        }
+    }
+
+    // Method to send an error as {"error": message}
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, "{\"error\":" + Json.quote(message) + "}");
+    }
+
+    // Method to send a JSON response and close the exchange
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
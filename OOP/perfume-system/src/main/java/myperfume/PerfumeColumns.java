@@ -0,0 +1,123 @@
+package myperfume;
+
+// Import required packages
+import java.lang.invoke.*;
+import java.util.*;
+
+// PerfumeColumns class keeping every perfume's price, stock and sales counters in primitive arrays indexed by SKU,
+// for inventories too large to hold one Perfume object (with its counters and name String) per SKU
+// The arrays come in pages of 4096 SKUs created on first use; catalog perfumes are copied in from the catalog
+// file a page at a time and keep reading their names from it, added perfumes keep theirs in a NameTable.
+// About 28 bytes a SKU plus the name, against roughly 170 for a Perfume object. Counters of neighbouring SKUs share
+// cache lines, so a few very hot SKUs sell faster on the default objects; see PerfumeView for the Perfume API
+class PerfumeColumns {
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final CatalogFile catalog; // may be null
+    private final int catalogCount;
+    private final NameTable names = new NameTable(); // names of perfumes added after the catalog ones
+    private volatile Page[] pages = new Page[0];
+
+    // Constructor to create the columns, seeded from a catalog file when one is given
+    PerfumeColumns(CatalogFile catalog) {
+        this.catalog = catalog;
+        this.catalogCount = catalog == null ? 0 : catalog.getCount();
+    }
+
+    // Method to fill in the row of a perfume added to the inventory, the inventory adds one SKU at a time
+    void add(int sku, String name, long priceSen, int stock, long sold, long salesSen) {
+        if (names.add(name) != sku - catalogCount) throw new IllegalStateException("Perfumes must be added in SKU order.");
+        Page page = page(sku);
+        int i = sku & (PAGE_SIZE - 1);
+        LONGS.setVolatile(page.price, i, priceSen);
+        INTS.setVolatile(page.stock, i, stock);
+        LONGS.getAndAdd(page.sold, i, sold);
+        LONGS.getAndAdd(page.sales, i, salesSen);
+    }
+
+    // Getters for one SKU's columns
+    String name(int sku) { return sku < catalogCount ? catalog.name(sku) : names.get(sku - catalogCount); }
+    void writeName(int sku, BillOutput out) {
+        if (sku < catalogCount) catalog.writeName(sku, out);
+        else names.writeTo(sku - catalogCount, out);
+    }
+    long price(int sku) { return (long) LONGS.getVolatile(page(sku).price, sku & (PAGE_SIZE - 1)); }
+    int stock(int sku) { return (int) INTS.getVolatile(page(sku).stock, sku & (PAGE_SIZE - 1)); }
+    long sold(int sku) { return (long) LONGS.getVolatile(page(sku).sold, sku & (PAGE_SIZE - 1)); }
+    long sales(int sku) { return (long) LONGS.getVolatile(page(sku).sales, sku & (PAGE_SIZE - 1)); }
+
+    // Methods to change one SKU's columns, each an atomic step like the Perfume counters they stand in for
+    void setPrice(int sku, long priceSen) { LONGS.setVolatile(page(sku).price, sku & (PAGE_SIZE - 1), priceSen); }
+
+    boolean compareAndSetStock(int sku, int expected, int stock) {
+        return INTS.compareAndSet(page(sku).stock, sku & (PAGE_SIZE - 1), expected, stock);
+    }
+
+    int addStock(int sku, int quantity) { return (int) INTS.getAndAdd(page(sku).stock, sku & (PAGE_SIZE - 1), quantity) + quantity; }
+    int swapStock(int sku, int stock) { return (int) INTS.getAndSet(page(sku).stock, sku & (PAGE_SIZE - 1), stock); }
+
+    void addSale(int sku, long quantity, long amountSen) {
+        Page page = page(sku);
+        int i = sku & (PAGE_SIZE - 1);
+        LONGS.getAndAdd(page.sold, i, quantity);
+        LONGS.getAndAdd(page.sales, i, amountSen);
+    }
+
+    // Method to find the page for a SKU, creating it (and copying in its catalog rows) on first use
+    private Page page(int sku) {
+        int index = sku >>> PAGE_BITS;
+        Page[] current = pages;
+        if (index < current.length && current[index] != null) return current[index];
+        synchronized (this) {
+            current = pages;
+            if (index >= current.length) current = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+            if (current[index] == null) {
+                Page page = new Page();
+                int first = index << PAGE_BITS;
+                for (int s = first; s < Math.min(first + PAGE_SIZE, catalogCount); s++) {
+                    page.price[s - first] = catalog.priceSen(s);
+                    page.stock[s - first] = catalog.stock(s);
+                }
+                current[index] = page;
+            }
+            pages = current; // republish so readers of the array see the new page
+            return current[index];
+        }
+    }
+
+    // Page class holding the columns for PAGE_SIZE SKUs
+    private static final class Page {
+        final long[] price = new long[PAGE_SIZE];
+        final int[] stock = new int[PAGE_SIZE];
+        final long[] sold = new long[PAGE_SIZE];
+        final long[] sales = new long[PAGE_SIZE];
+    }
+}
+
+// PerfumeView class, a Perfume whose state lives in an inventory's PerfumeColumns
+// A view holds only its SKU and is made on each lookup, so views of one SKU all see the same stock and sales;
+// compare perfumes by SKU, not by identity
+class PerfumeView extends Perfume {
+    private final PerfumeColumns columns;
+
+    // Constructor to create a view of one SKU
+    PerfumeView(Inventory owner, PerfumeColumns columns, int sku) {
+        super(owner, sku);
+        this.columns = columns;
+    }
+
+    @Override public String getName() { return columns.name(getSku()); }
+    @Override public long getPriceSen() { return columns.price(getSku()); }
+    @Override public int getQuantitySold() { return (int) columns.sold(getSku()); }
+    @Override public long getTotalSalesSen() { return columns.sales(getSku()); }
+    @Override public int getStockQuantity() { return columns.stock(getSku()); }
+
+    @Override boolean compareAndSetStock(int expected, int stock) { return columns.compareAndSetStock(getSku(), expected, stock); }
+    @Override int addStockQuantity(int quantity) { return columns.addStock(getSku(), quantity); }
+    @Override int swapStockQuantity(int stock) { return columns.swapStock(getSku(), stock); }
+    @Override void storePrice(long priceSen) { columns.setPrice(getSku(), priceSen); }
+    @Override void countSale(long quantity, long amount) { columns.addSale(getSku(), quantity, amount); }
+}
@@ -0,0 +1,182 @@
+package myperfume;
+
+// Import required packages
+import java.util.*;
+import java.util.concurrent.*;
+
+// PerfumeIndex class for finding perfumes by name without scanning the inventory
+// Exact names use a hash map, prefixes use a sorted skip list and typos use a trigram index
+// New perfumes are indexed as they are added, catalog perfumes on the first search
+class PerfumeIndex implements InventoryListener {
+    private final Inventory inventory;
+    private final int seededCount; // SKUs below this are indexed by build(), later ones by the listener
+    private volatile boolean built = false;
+
+    private final ConcurrentHashMap<String, int[]> exact = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Integer> sorted = new ConcurrentSkipListMap<>(); // "name\0sku" -> SKU
+    private final ConcurrentHashMap<String, Postings> trigrams = new ConcurrentHashMap<>();
+
+    // Constructor to create an index that follows the inventory
+    // A large seeded catalog is indexed on a background thread so startup does not wait for it
+    public PerfumeIndex(Inventory inventory) {
+        this.inventory = inventory;
+        inventory.addListener(this);
+        this.seededCount = inventory.size();
+        if (seededCount > 1000) {
+            Thread builder = new Thread(this::ensureBuilt, "perfume-index");
+            builder.setDaemon(true);
+            builder.start();
+        }
+    }
+
+    // Method called by the inventory for every new perfume
+    public void onPerfumeAdded(Perfume perfume) {
+        if (perfume.getSku() >= seededCount) index(perfume.getSku(), perfume.getName());
+    }
+
+    // Method to find perfumes with exactly this name (ignoring case and extra spaces)
+    public List<Integer> findExact(String name) {
+        ensureBuilt();
+        int[] skus = exact.get(normalize(name));
+        return skus == null ? Collections.emptyList() : toList(skus, Integer.MAX_VALUE);
+    }
+
+    // Method to find perfumes whose name starts with a prefix, in name order
+    public List<Integer> findByPrefix(String prefix, int limit) {
+        ensureBuilt();
+        String key = normalize(prefix);
+        ArrayList<Integer> result = new ArrayList<>();
+        for (Integer sku : sorted.subMap(key, true, key + Character.MAX_VALUE, false).values()) {
+            if (result.size() >= limit) break;
+            result.add(sku);
+        }
+        return result;
+    }
+
+    // Method to find perfumes whose name (or the start of it) is within maxDistance edits of the query
+    // Each edit breaks at most three trigrams, so a match must contain one of the query's
+    // 3 * maxDistance + 2 rarest trigrams, only those postings are read
+    public List<Integer> findFuzzy(String query, int maxDistance, int limit) {
+        ensureBuilt();
+        String key = normalize(query);
+        ArrayList<Postings> postings = new ArrayList<>();
+        for (String gram : trigramsOf(key)) {
+            postings.add(trigrams.getOrDefault(gram, Postings.EMPTY));
+        }
+        postings.sort(Comparator.comparingInt(Postings::size));
+        HashSet<Integer> candidates = new HashSet<>();
+        for (int i = 0; i < postings.size() && i < 3 * maxDistance + 2; i++) {
+            for (int sku : postings.get(i).toArray()) candidates.add(sku);
+        }
+        ArrayList<int[]> matches = new ArrayList<>(); // {sku, distance}
+        for (int sku : candidates) {
+            String name = normalize(inventory.nameOf(sku));
+            int distance = distance(key, name.length() > key.length() ? name.substring(0, key.length()) : name, maxDistance);
+            if (distance <= maxDistance) matches.add(new int[] {sku, distance});
+        }
+        matches.sort((a, b) -> a[1] != b[1] ? Integer.compare(a[1], b[1]) : Integer.compare(a[0], b[0]));
+        ArrayList<Integer> result = new ArrayList<>();
+        for (int i = 0; i < matches.size() && i < limit; i++) result.add(matches.get(i)[0]);
+        return result;
+    }
+
+    // Method to search by exact name, then prefix, then with typo tolerance
+    public List<Integer> search(String query, int limit) {
+        LinkedHashSet<Integer> result = new LinkedHashSet<>(findExact(query));
+        for (Integer sku : findByPrefix(query, limit)) {
+            if (result.size() >= limit) break;
+            result.add(sku);
+        }
+        if (result.isEmpty()) {
+            result.addAll(findFuzzy(query, normalize(query).length() <= 4 ? 1 : 2, limit));
+        }
+        return new ArrayList<>(result);
+    }
+
+    // Method to index the seeded perfumes the first time the index is used
+    private void ensureBuilt() {
+        if (built) return;
+        synchronized (this) {
+            if (built) return;
+            for (int sku = 0; sku < seededCount; sku++) {
+                index(sku, inventory.nameOf(sku));
+            }
+            built = true;
+        }
+    }
+
+    // Method to add one name to all three structures
+    private void index(int sku, String name) {
+        String key = normalize(name);
+        exact.merge(key, new int[] {sku}, PerfumeIndex::append);
+        sorted.put(key + '\0' + sku, sku);
+        for (String gram : trigramsOf(key)) {
+            trigrams.computeIfAbsent(gram, g -> new Postings()).add(sku);
+        }
+    }
+
+    // Method to normalize names so searches ignore case and spacing
+    static String normalize(String name) {
+        return name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // Method to list the distinct trigrams of a name, padded so short names still have some
+    private static Set<String> trigramsOf(String key) {
+        String padded = "  " + key + " ";
+        HashSet<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) grams.add(padded.substring(i, i + 3));
+        return grams;
+    }
+
+    // Method to compute the edit distance, giving up once it is over max
+    private static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) return max + 1;
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previous[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) return max + 1;
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    // Helper methods for the SKU arrays kept per key
+    private static int[] append(int[] skus, int[] more) {
+        int[] result = Arrays.copyOf(skus, skus.length + more.length);
+        System.arraycopy(more, 0, result, skus.length, more.length);
+        return result;
+    }
+
+    private static List<Integer> toList(int[] skus, int limit) {
+        ArrayList<Integer> result = new ArrayList<>();
+        for (int i = 0; i < skus.length && i < limit; i++) result.add(skus[i]);
+        return result;
+    }
+
+    // Postings class holding a growable list of SKUs for one trigram
+    private static final class Postings {
+        static final Postings EMPTY = new Postings();
+
+        private int[] skus = new int[4];
+        private int size = 0;
+
+        synchronized void add(int sku) {
+            if (size == skus.length) skus = Arrays.copyOf(skus, size * 2);
+            skus[size++] = sku;
+        }
+
+        synchronized int size() { return size; }
+
+        synchronized int[] toArray() { return Arrays.copyOf(skus, size); }
+    }
+}
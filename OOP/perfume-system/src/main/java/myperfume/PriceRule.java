@@ -0,0 +1,190 @@
+package myperfume;
+
+// Import required packages
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.*;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+// PriceRule class holding one pricing rule: a percentage off (or, when negative, a surcharge) for some perfumes,
+// order types, quantities and dates
+// Every kind of rule is the same shape, so a multi-buy discount is a rule with a minimum quantity, a promotion is a
+// rule with dates and online pricing is a rule for the Online order type. The minimum counts units of one perfume
+// on one order line, each of the rule's SKUs on its own: "min=3" is three of the same perfume, not any three of
+// the listed ones. Mixed bundles across perfumes are not supported, prices are precomputed per SKU and quantity
+// (see PricingEngine) and never look at the rest of the order. Rules are written one per line:
+//   name; off=10%; type=Online; skus=1,2,3; min=3; from=2026-11-01; to=2026-11-30T23:59
+// Everything after the name is optional; skus are the numbers shown in the menus, dates are local time and
+// "to" is exclusive, a date alone meaning its midnight
+class PriceRule {
+    private final String name;
+    private final int offBasisPoints; // 1000 is 10% off, -500 is 5% more
+    private final String orderType; // null for every order type
+    private final int[] skus; // sorted, null for every perfume
+    private final int minQuantity; // of the perfume in one order, 1 for a plain discount
+    private final long fromMillis;
+    private final long toMillis;
+
+    // Constructor to create new PriceRule object
+    public PriceRule(String name, int offBasisPoints, String orderType, int[] skus, int minQuantity, long fromMillis, long toMillis) {
+        if (name == null || name.isBlank() || name.indexOf(';') >= 0) {
+            throw new IllegalArgumentException("Rule name cannot be empty or contain ';'.");
+        }
+        if (offBasisPoints < -10000 || offBasisPoints > 10000) {
+            throw new IllegalArgumentException("Discount must be between -100% and 100%.");
+        }
+        if (orderType != null && PricingEngine.channel(orderType) < 0) {
+            throw new IllegalArgumentException("Unknown order type " + orderType + ", use Online or InStore.");
+        }
+        if (minQuantity < 1) throw new IllegalArgumentException("Minimum quantity must be at least 1.");
+        if (fromMillis >= toMillis) throw new IllegalArgumentException("Rule must end after it starts.");
+        this.name = name.trim();
+        this.offBasisPoints = offBasisPoints;
+        this.orderType = orderType;
+        if (skus != null) {
+            skus = skus.clone();
+            Arrays.sort(skus);
+            if (skus.length == 0 || skus[0] < 0) throw new IllegalArgumentException("Rule must name valid perfumes.");
+        }
+        this.skus = skus;
+        this.minQuantity = minQuantity;
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+    }
+
+    // Getters for rule attributes
+    public String getName() { return name; }
+    public int getOffBasisPoints() { return offBasisPoints; }
+    public String getOrderType() { return orderType; }
+    public int getMinQuantity() { return minQuantity; }
+    public long getFromMillis() { return fromMillis; }
+    public long getToMillis() { return toMillis; }
+
+    // Method to check whether the rule is in force at a time
+    public boolean activeAt(long nowMillis) {
+        return nowMillis >= fromMillis && nowMillis < toMillis;
+    }
+
+    // Method to check whether the rule covers a perfume sold through a pricing channel
+    boolean covers(int sku, int channel) {
+        if (orderType != null && PricingEngine.channel(orderType) != channel) return false;
+        return skus == null || Arrays.binarySearch(skus, sku) >= 0;
+    }
+
+    // Method to parse a rule written as one line
+    public static PriceRule parse(String line) {
+        String[] parts = line.split(";");
+        String name = parts[0].trim();
+        int off = 0;
+        String type = null;
+        int[] skus = null;
+        int min = 1;
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        for (int i = 1; i < parts.length; i++) {
+            String part = parts[i].trim();
+            if (part.isEmpty()) continue;
+            int eq = part.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected key=value in rule " + name + ": " + part);
+            String key = part.substring(0, eq).trim().toLowerCase();
+            String value = part.substring(eq + 1).trim();
+            try {
+                switch (key) {
+                    case "off": off = parsePercent(value); break;
+                    case "type": type = value.equalsIgnoreCase("instore") ? "InStore" : value.equalsIgnoreCase("online") ? "Online" : value; break;
+                    case "skus": skus = parseSkus(value); break;
+                    case "min": min = Integer.parseInt(value); break;
+                    case "from": from = parseTime(value); break;
+                    case "to": to = parseTime(value); break;
+                    default: throw new IllegalArgumentException("Unknown key " + key + " in rule " + name + ".");
+                }
+            } catch (NumberFormatException | ArithmeticException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Bad value for " + key + " in rule " + name + ": " + value);
+            }
+        }
+        return new PriceRule(name, off, type, skus, min, from, to);
+    }
+
+    // Method to write the rule back as one line, parse reads it again
+    public String toLine() {
+        StringBuilder line = new StringBuilder(name);
+        line.append("; off=").append(formatPercent(offBasisPoints));
+        if (orderType != null) line.append("; type=").append(orderType);
+        if (skus != null) {
+            line.append("; skus=");
+            for (int i = 0; i < skus.length; i++) {
+                if (i > 0) line.append(',');
+                line.append(skus[i] + 1);
+            }
+        }
+        if (minQuantity > 1) line.append("; min=").append(minQuantity);
+        if (fromMillis != Long.MIN_VALUE) line.append("; from=").append(formatTime(fromMillis));
+        if (toMillis != Long.MAX_VALUE) line.append("; to=").append(formatTime(toMillis));
+        return line.toString();
+    }
+
+    @Override
+    public String toString() { return toLine(); }
+
+    // Method to read rules from a file, blank lines and lines starting with # are skipped
+    public static List<PriceRule> readAll(Path file) throws IOException {
+        ArrayList<PriceRule> rules = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            try {
+                rules.add(parse(line));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(file + " line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        return rules;
+    }
+
+    // Method to write rules to a file, replacing it in one step
+    public static void writeAll(Path file, List<PriceRule> rules) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write("# name; off=10%; type=Online|InStore; skus=1,2; min=3; from=2026-11-01; to=2026-12-01T00:00\n");
+            for (PriceRule rule : rules) {
+                writer.write(rule.toLine());
+                writer.write('\n');
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Method to parse "12.5%" (or "12.5") as basis points
+    private static int parsePercent(String value) {
+        if (value.endsWith("%")) value = value.substring(0, value.length() - 1).trim();
+        return new BigDecimal(value).movePointRight(2).intValueExact();
+    }
+
+    private static String formatPercent(int basisPoints) {
+        return BigDecimal.valueOf(basisPoints, 2).stripTrailingZeros().toPlainString() + "%";
+    }
+
+    // Method to parse a local date or date and time
+    private static long parseTime(String value) {
+        LocalDateTime time = value.indexOf('T') < 0 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static String formatTime(long millis) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        return time.toLocalTime().equals(LocalTime.MIDNIGHT) ? time.toLocalDate().toString() : time.toString();
+    }
+
+    // Method to parse menu numbers "1,2,5" into SKUs
+    private static int[] parseSkus(String value) {
+        String[] parts = value.split(",");
+        int[] skus = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) skus[i] = Integer.parseInt(parts[i].trim()) - 1;
+        return skus;
+    }
+}
@@ -0,0 +1,201 @@
+package myperfume;
+
+// Import required packages
+import java.util.*;
+
+// PricingEngine class turning the pricing rules into effective prices, one lookup per order line
+// The rules in force are compiled into a price table holding, per SKU and pricing channel, the unit price for
+// each quantity tier. A table is never changed once other threads can see it (apart from filling in entries,
+// see Table): a new price (setNewPrice) swaps in a copy with that SKU's page cleared, and new rules or the start
+// or end of a promotion swap in a fresh table. So checkout reads one volatile field and one array slot however
+// many rules there are, and only the first lookup of a SKU after a change walks the rules. Each entry remembers the
+// list price it came from and is worked out again if the perfume's price differs, so perfumes of another
+// Inventory (benchmarks, tools) sharing a SKU number never get each other's prices
+class PricingEngine implements InventoryListener {
+    static final int ONLINE = 0;
+    static final int IN_STORE = 1;
+    private static final int CHANNELS = 2;
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private List<PriceRule> rules = List.of(); // guarded by this, like every table swap
+    private volatile Table table = new Table(new PriceRule[0], Long.MAX_VALUE, new Entry[CHANNELS][0][]);
+
+    // Method to get the pricing channel of an order type, -1 if it has none
+    static int channel(String orderType) {
+        if ("Online".equals(orderType)) return ONLINE;
+        if ("InStore".equals(orderType)) return IN_STORE;
+        return -1;
+    }
+
+    // Method to get the unit price in sen of a perfume bought quantity at a time through a channel
+    public long unitPrice(Perfume perfume, int channel, int quantity) {
+        Table t = table;
+        if (t.validUntil != Long.MAX_VALUE && System.currentTimeMillis() >= t.validUntil) t = refresh(t);
+        int sku = perfume.getSku();
+        if (sku < 0 || channel < 0) return perfume.getPriceSen(); // no rule can name it
+        Entry[][] pages = t.pages[channel];
+        Entry[] page = (sku >>> PAGE_BITS) < pages.length ? pages[sku >>> PAGE_BITS] : null;
+        Entry e = page == null ? null : page[sku & (PAGE_SIZE - 1)];
+        long basePriceSen = perfume.getPriceSen();
+        if (e == null || e.basePriceSen != basePriceSen) e = fill(t, page, sku, channel, basePriceSen); // another inventory's SKU, or a price set mid-swap
+        return e.unitPrice(quantity);
+    }
+
+    // Method to get the rules, in the order they were added
+    public synchronized List<PriceRule> getRules() { return rules; }
+
+    // Method to replace all the rules
+    public synchronized void setRules(List<PriceRule> newRules) {
+        rules = List.copyOf(newRules);
+        table = compile(rules, System.currentTimeMillis());
+    }
+
+    // Method to add a rule, a rule with the same name is replaced
+    public synchronized void addRule(PriceRule rule) {
+        ArrayList<PriceRule> next = new ArrayList<>(rules);
+        next.removeIf(r -> r.getName().equalsIgnoreCase(rule.getName()));
+        next.add(rule);
+        setRules(next);
+    }
+
+    // Method to remove a rule by name, returns false if there is none
+    public synchronized boolean removeRule(String name) {
+        ArrayList<PriceRule> next = new ArrayList<>(rules);
+        if (!next.removeIf(r -> r.getName().equalsIgnoreCase(name))) return false;
+        setRules(next);
+        return true;
+    }
+
+    // Method to get the rules in force now
+    public List<PriceRule> activeRules() {
+        Table t = table;
+        if (t.validUntil != Long.MAX_VALUE && System.currentTimeMillis() >= t.validUntil) t = refresh(t);
+        return List.of(t.active);
+    }
+
+    // Method called when a perfume's price is set, swaps in a table with that perfume's entries cleared
+    @Override
+    public synchronized void onPriceSet(Perfume perfume, long oldPriceSen, long newPriceSen) {
+        int sku = perfume.getSku();
+        int index = sku >>> PAGE_BITS;
+        Table t = table;
+        Entry[][][] pages = t.pages.clone();
+        for (int c = 0; c < CHANNELS; c++) {
+            if (index >= pages[c].length || pages[c][index] == null) continue;
+            pages[c] = pages[c].clone();
+            pages[c][index] = pages[c][index].clone();
+            pages[c][index][sku & (PAGE_SIZE - 1)] = null;
+        }
+        // swapped even when no page held the SKU, so a lookup that read the old price cannot install its page
+        table = new Table(t.active, t.validUntil, pages);
+    }
+
+    // Method to compute a missing entry and store it in the table it was looked up in
+    private Entry fill(Table t, Entry[] page, int sku, int channel, long basePriceSen) {
+        Entry e = compute(t.active, sku, channel, basePriceSen);
+        if (page == null) page = installPage(t, channel, sku >>> PAGE_BITS);
+        if (page != null) page[sku & (PAGE_SIZE - 1)] = e;
+        return e;
+    }
+
+    // Method to add an empty page to the current table, returns null if the table was swapped meanwhile
+    private synchronized Entry[] installPage(Table t, int channel, int index) {
+        if (table != t) return null; // the entry is still right for this lookup, the new table computes its own
+        Entry[][][] pages = t.pages.clone();
+        if (index >= pages[channel].length) pages[channel] = Arrays.copyOf(pages[channel], index + 1);
+        else pages[channel] = pages[channel].clone();
+        if (pages[channel][index] == null) pages[channel][index] = new Entry[PAGE_SIZE];
+        table = new Table(t.active, t.validUntil, pages);
+        return pages[channel][index];
+    }
+
+    // Method to swap in a table for the current time once a promotion starts or ends
+    private synchronized Table refresh(Table seen) {
+        if (table == seen) table = compile(rules, System.currentTimeMillis());
+        return table;
+    }
+
+    // Method to build an empty table for the rules in force at a time, valid until the next rule starts or ends
+    private static Table compile(List<PriceRule> rules, long now) {
+        ArrayList<PriceRule> active = new ArrayList<>();
+        long validUntil = Long.MAX_VALUE;
+        for (PriceRule rule : rules) {
+            if (rule.activeAt(now)) {
+                active.add(rule);
+                validUntil = Math.min(validUntil, rule.getToMillis());
+            } else if (rule.getFromMillis() > now) {
+                validUntil = Math.min(validUntil, rule.getFromMillis());
+            }
+        }
+        return new Table(active.toArray(new PriceRule[0]), validUntil, new Entry[CHANNELS][0][]);
+    }
+
+    // Method to work out one SKU's prices from the rules; rules don't stack, the biggest discount reached wins
+    private static Entry compute(PriceRule[] active, int sku, int channel, long basePriceSen) {
+        TreeMap<Integer, Integer> bestFrom = new TreeMap<>(); // minimum quantity -> best discount of rules needing it
+        for (PriceRule rule : active) {
+            if (rule.covers(sku, channel)) bestFrom.merge(rule.getMinQuantity(), rule.getOffBasisPoints(), Math::max);
+        }
+        Integer plain = bestFrom.remove(1);
+        int off = plain == null ? 0 : plain;
+        long unit = discounted(basePriceSen, off);
+        ArrayList<long[]> tiers = new ArrayList<>(); // {minimum quantity, unit price}, only tiers that lower the price
+        for (Map.Entry<Integer, Integer> tier : bestFrom.entrySet()) {
+            if (tier.getValue() <= off) continue;
+            off = tier.getValue();
+            tiers.add(new long[]{tier.getKey(), discounted(basePriceSen, off)});
+        }
+        if (tiers.isEmpty()) return new Entry(basePriceSen, unit, null, null);
+        int[] minQuantity = new int[tiers.size()];
+        long[] unitPrice = new long[tiers.size()];
+        for (int i = 0; i < tiers.size(); i++) {
+            minQuantity[i] = (int) tiers.get(i)[0];
+            unitPrice[i] = tiers.get(i)[1];
+        }
+        return new Entry(basePriceSen, unit, minQuantity, unitPrice);
+    }
+
+    // Method to take basis points off a price in sen, rounding half a sen up
+    static long discounted(long priceSen, int offBasisPoints) {
+        return (Math.multiplyExact(priceSen, 10000L - offBasisPoints) + 5000) / 10000;
+    }
+
+    // Table class holding the rules in force and the entries computed from them so far
+    // Pages only come and go by swapping the table, but a missing entry in a page is filled in place without a
+    // lock: entries are immutable and any thread computes the same one, so a lost or late write costs a recompute
+    private static class Table {
+        final PriceRule[] active;
+        final long validUntil; // when a rule starts or ends and the table must be rebuilt
+        final Entry[][][] pages; // channel -> page -> entry
+
+        Table(PriceRule[] active, long validUntil, Entry[][][] pages) {
+            this.active = active;
+            this.validUntil = validUntil;
+            this.pages = pages;
+        }
+    }
+
+    // Entry class holding one SKU's unit prices for one channel, by quantity
+    private static class Entry {
+        final long basePriceSen; // the list price it was worked out from
+        final long unitPriceSen;
+        final int[] minQuantity; // ascending, null when buying more doesn't lower the price
+        final long[] tierPriceSen;
+
+        Entry(long basePriceSen, long unitPriceSen, int[] minQuantity, long[] tierPriceSen) {
+            this.basePriceSen = basePriceSen;
+            this.unitPriceSen = unitPriceSen;
+            this.minQuantity = minQuantity;
+            this.tierPriceSen = tierPriceSen;
+        }
+
+        long unitPrice(int quantity) {
+            if (minQuantity == null) return unitPriceSen;
+            for (int i = minQuantity.length - 1; i >= 0; i--) {
+                if (quantity >= minQuantity[i]) return tierPriceSen[i];
+            }
+            return unitPriceSen;
+        }
+    }
+}
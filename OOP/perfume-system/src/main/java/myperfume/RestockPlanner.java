@@ -0,0 +1,61 @@
+package myperfume;
+
+// Import required packages
+import java.util.*;
+import java.util.concurrent.*;
+
+// RestockPlanner class keeping a list of perfumes to reorder, built from low-stock events
+// Each entry suggests ordering enough to bring the store back to targetFactor times the threshold
+class RestockPlanner implements StockEventSubscriber {
+    private final int targetFactor;
+    private final ConcurrentHashMap<Long, StockEvent> open = new ConcurrentHashMap<>(); // store << 32 | SKU -> latest alert
+
+    // Constructor to create a planner
+    public RestockPlanner(int targetFactor) {
+        if (targetFactor < 1) throw new IllegalArgumentException("Target factor must be at least 1.");
+        this.targetFactor = targetFactor;
+    }
+
+    // Method called by the event bus
+    public void onEvent(StockEvent event) {
+        long key = ((long) event.getStore().getId() << 32) | (event.getPerfume().getSku() & 0xFFFFFFFFL);
+        if (event.getType() == StockEvent.Type.RESTOCKED) {
+            open.remove(key);
+        } else {
+            open.put(key, event);
+        }
+    }
+
+    // Method to get the perfumes to reorder, emptiest first
+    public List<Suggestion> plan() {
+        ArrayList<Suggestion> plan = new ArrayList<>(open.size());
+        for (StockEvent event : open.values()) {
+            int stock = event.getStore().stockOf(event.getPerfume()); // stock may have moved since the alert
+            int target = Math.max(1, event.getThreshold() * targetFactor);
+            if (stock < target) plan.add(new Suggestion(event.getStore(), event.getPerfume(), stock, target - stock));
+        }
+        plan.sort(Comparator.comparingInt(Suggestion::getStock).thenComparing(s -> s.getPerfume().getName()));
+        return plan;
+    }
+
+    // Suggestion class holding one reorder line
+    static class Suggestion {
+        private final Store store;
+        private final Perfume perfume;
+        private final int stock;
+        private final int quantity;
+
+        Suggestion(Store store, Perfume perfume, int stock, int quantity) {
+            this.store = store;
+            this.perfume = perfume;
+            this.stock = stock;
+            this.quantity = quantity;
+        }
+
+        // Getters for suggestion attributes
+        public Store getStore() { return store; }
+        public Perfume getPerfume() { return perfume; }
+        public int getStock() { return stock; }
+        public int getQuantity() { return quantity; }
+    }
+}
@@ -0,0 +1,296 @@
+package myperfume;
+
+// Import required packages
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+// SalesAnalytics class keeping sales reports up to date on every sale, so reports never scan the catalog
+// It keeps totals per SKU (only SKUs that sold) and per order type, the top sellers in a small heap,
+// and hourly and daily totals in ring buffers; days run from local midnight to midnight in the system time zone,
+// so a day across a daylight saving change is 23 or 25 hours long
+// Checkout only bumps counters; the heap lock is taken only when a SKU outside the top list catches up with it
+class SalesAnalytics {
+    public static final int HOURS_KEPT = 48;
+    public static final int DAYS_KEPT = 35;
+
+    private final int topSize;
+    private final ConcurrentHashMap<Integer, SkuTotals> bySku = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TypeTotals> byType = new ConcurrentHashMap<>();
+    private final TimeRollup hourly;
+    private final TimeRollup daily;
+
+    // Top sellers as a min-heap on units, guarded by topLock
+    // Keys of perfumes in the heap may lag behind their real units; they are refreshed before anything is evicted
+    private final ReentrantLock topLock = new ReentrantLock();
+    private final PriorityQueue<SkuTotals> top;
+    private volatile long topMin = 0; // units needed to enter the heap, 0 while it is not full
+
+    // Constructor to create analytics keeping the given number of top sellers
+    public SalesAnalytics(int topSize) {
+        this(topSize, ZoneId.systemDefault());
+    }
+
+    // Constructor to create analytics whose days start at midnight in the given time zone
+    SalesAnalytics(int topSize, ZoneId zone) {
+        if (topSize <= 0) throw new IllegalArgumentException("Top list size must be positive.");
+        this.topSize = topSize;
+        this.top = new PriorityQueue<>(topSize + 1, Comparator.comparingLong((SkuTotals s) -> s.heapUnits));
+        this.hourly = new TimeRollup(3_600_000L, HOURS_KEPT, null);
+        this.daily = new TimeRollup(86_400_000L, DAYS_KEPT, zone); // days start at local midnight
+    }
+
+    public int getTopSize() { return topSize; }
+
+    // Method to record one order line, newOrder is true for the first line of an order
+    public void recordSale(Perfume perfume, int quantity, long amountSen, String orderType, boolean newOrder) {
+        recordSale(perfume, quantity, amountSen, orderType, newOrder, System.currentTimeMillis());
+    }
+
+    void recordSale(Perfume perfume, int quantity, long amountSen, String orderType, boolean newOrder, long nowMillis) {
+        SkuTotals sku = skuTotals(perfume);
+        long units = sku.units.addAndGet(quantity);
+        sku.sen.add(amountSen);
+
+        TypeTotals type = byType.get(orderType);
+        if (type == null) type = byType.computeIfAbsent(orderType, TypeTotals::new);
+        if (newOrder) type.orders.increment();
+        type.units.add(quantity);
+        type.sen.add(amountSen);
+
+        int orders = newOrder ? 1 : 0;
+        hourly.add(nowMillis, quantity, amountSen, orders);
+        daily.add(nowMillis, quantity, amountSen, orders);
+
+        if (!sku.inTop && units > topMin) offerTop(sku);
+    }
+
+    // Method to bring back the lifetime totals of a perfume recovered from the journal
+    public void restore(Perfume perfume) {
+        SkuTotals sku = skuTotals(perfume);
+        sku.units.addAndGet(perfume.getQuantitySold());
+        sku.sen.add(perfume.getTotalSalesSen());
+        if (!sku.inTop) offerTop(sku);
+    }
+
+    private SkuTotals skuTotals(Perfume perfume) {
+        SkuTotals sku = bySku.get(perfume.getSku());
+        if (sku == null) sku = bySku.computeIfAbsent(perfume.getSku(), k -> new SkuTotals(perfume));
+        return sku;
+    }
+
+    // Method to place a perfume in the top list if it now sells more than the weakest one there
+    private void offerTop(SkuTotals candidate) {
+        topLock.lock();
+        try {
+            if (candidate.inTop) return;
+            if (top.size() < topSize) {
+                candidate.heapUnits = candidate.units.get();
+                candidate.inTop = true;
+                top.add(candidate);
+            } else {
+                while (true) {
+                    SkuTotals weakest = top.peek();
+                    long current = weakest.units.get();
+                    if (current > weakest.heapUnits) { // stale key, fix it and look again
+                        top.poll();
+                        weakest.heapUnits = current;
+                        top.add(weakest);
+                        continue;
+                    }
+                    long units = candidate.units.get();
+                    if (units > weakest.heapUnits) {
+                        top.poll();
+                        weakest.inTop = false;
+                        candidate.heapUnits = units;
+                        candidate.inTop = true;
+                        top.add(candidate);
+                    }
+                    break;
+                }
+            }
+            topMin = top.size() < topSize ? 0 : top.peek().heapUnits;
+        } finally {
+            topLock.unlock();
+        }
+    }
+
+    // Method to get the best sellers, most units first, in O(k log k)
+    public List<SkuTotals> topSellers() {
+        ArrayList<SkuTotals> result;
+        topLock.lock();
+        try {
+            result = new ArrayList<>(top);
+        } finally {
+            topLock.unlock();
+        }
+        result.sort(Comparator.comparingLong(SkuTotals::getUnits).reversed());
+        return result;
+    }
+
+    // Method to get the totals of one perfume, or null if it never sold
+    public SkuTotals forSku(int sku) {
+        return bySku.get(sku);
+    }
+
+    // Method to get the totals for each order type, sorted by name
+    public List<TypeTotals> byOrderType() {
+        ArrayList<TypeTotals> result = new ArrayList<>(byType.values());
+        result.sort(Comparator.comparing(TypeTotals::getOrderType));
+        return result;
+    }
+
+    // Methods to get the most recent hours or days, oldest first
+    public List<Period> lastHours(int count) {
+        return lastHours(count, System.currentTimeMillis());
+    }
+
+    public List<Period> lastDays(int count) {
+        return lastDays(count, System.currentTimeMillis());
+    }
+
+    List<Period> lastHours(int count, long nowMillis) {
+        return hourly.last(nowMillis, Math.min(count, HOURS_KEPT));
+    }
+
+    List<Period> lastDays(int count, long nowMillis) {
+        return daily.last(nowMillis, Math.min(count, DAYS_KEPT));
+    }
+
+    // SkuTotals class holding the lifetime sales of one perfume
+    static class SkuTotals {
+        private final int sku;
+        private final String name;
+        private final AtomicLong units = new AtomicLong();
+        private final LongAdder sen = new LongAdder();
+        private volatile boolean inTop = false;
+        private long heapUnits; // heap key, guarded by topLock
+
+        SkuTotals(Perfume perfume) {
+            this.sku = perfume.getSku();
+            this.name = perfume.getName();
+        }
+
+        // Getters for SKU totals
+        public int getSku() { return sku; }
+        public String getName() { return name; }
+        public long getUnits() { return units.get(); }
+        public long getSalesSen() { return sen.sum(); }
+    }
+
+    // TypeTotals class holding the sales of one order type
+    static class TypeTotals {
+        private final String orderType;
+        private final LongAdder orders = new LongAdder();
+        private final LongAdder units = new LongAdder();
+        private final LongAdder sen = new LongAdder();
+
+        TypeTotals(String orderType) {
+            this.orderType = orderType;
+        }
+
+        // Getters for order type totals
+        public String getOrderType() { return orderType; }
+        public long getOrders() { return orders.sum(); }
+        public long getUnits() { return units.sum(); }
+        public long getSalesSen() { return sen.sum(); }
+    }
+
+    // Period class holding the totals of one hour or day
+    static class Period {
+        private final long startMillis;
+        private final long orders;
+        private final long units;
+        private final long sen;
+
+        Period(long startMillis, long orders, long units, long sen) {
+            this.startMillis = startMillis;
+            this.orders = orders;
+            this.units = units;
+            this.sen = sen;
+        }
+
+        // Getters for period totals
+        public long getStartMillis() { return startMillis; }
+        public long getOrders() { return orders; }
+        public long getUnits() { return units; }
+        public long getSalesSen() { return sen; }
+    }
+
+    // TimeRollup class keeping totals for the last few periods in a ring, one slot per period
+    // A slot is cleared by the first sale of a new period; the period id is written last so readers and writers
+    // that see the new id also see the cleared counters
+    // With a time zone the periods are that zone's calendar days, numbered as epoch days; the zone rules are only
+    // consulted when a sale falls outside the day looked up last, so each change of offset is followed
+    static class TimeRollup {
+        private final long periodMillis;
+        private final int slots;
+        private final ZoneId zone; // null for fixed periods counted from the epoch
+        private volatile long[] lastDay = {Long.MIN_VALUE, 0, 0}; // epoch day, start and end millis
+        private final AtomicLongArray periods;
+        private final AtomicLongArray orders;
+        private final AtomicLongArray units;
+        private final AtomicLongArray sen;
+
+        TimeRollup(long periodMillis, int slots, ZoneId zone) {
+            this.periodMillis = periodMillis;
+            this.slots = slots;
+            this.zone = zone;
+            this.periods = new AtomicLongArray(slots);
+            this.orders = new AtomicLongArray(slots);
+            this.units = new AtomicLongArray(slots);
+            this.sen = new AtomicLongArray(slots);
+            for (int i = 0; i < slots; i++) periods.set(i, -1);
+        }
+
+        private long periodOf(long millis) {
+            if (zone == null) return Math.floorDiv(millis, periodMillis);
+            long[] day = lastDay;
+            if (millis >= day[1] && millis < day[2]) return day[0];
+            long epochDay = LocalDate.ofInstant(Instant.ofEpochMilli(millis), zone).toEpochDay();
+            lastDay = new long[] {epochDay, startOf(epochDay), startOf(epochDay + 1)};
+            return epochDay;
+        }
+
+        // Method to get when a period starts, a day starts at its first local instant (midnight, unless skipped)
+        private long startOf(long period) {
+            if (zone == null) return period * periodMillis;
+            return LocalDate.ofEpochDay(period).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+
+        void add(long nowMillis, long unitCount, long amountSen, long orderCount) {
+            long period = periodOf(nowMillis);
+            int slot = (int) Math.floorMod(period, (long) slots);
+            if (periods.get(slot) != period) {
+                synchronized (this) {
+                    if (periods.get(slot) != period) {
+                        orders.set(slot, 0);
+                        units.set(slot, 0);
+                        sen.set(slot, 0);
+                        periods.set(slot, period);
+                    }
+                }
+            }
+            if (orderCount != 0) orders.addAndGet(slot, orderCount);
+            units.addAndGet(slot, unitCount);
+            sen.addAndGet(slot, amountSen);
+        }
+
+        List<Period> last(long nowMillis, int count) {
+            long current = periodOf(nowMillis);
+            ArrayList<Period> result = new ArrayList<>(count);
+            for (long period = current - count + 1; period <= current; period++) {
+                int slot = (int) Math.floorMod(period, (long) slots);
+                long start = startOf(period);
+                if (periods.get(slot) == period) {
+                    result.add(new Period(start, orders.get(slot), units.get(slot), sen.get(slot)));
+                } else {
+                    result.add(new Period(start, 0, 0, 0));
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,669 @@
+package myperfume;
+
+// Import required packages
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.stream.*;
+import java.util.zip.*;
+
+// SalesJournal class saving every inventory change to an append-only, memory-mapped journal
+// Record layout: [int payload length][int CRC32C of payload][payload], a zero length marks the end
+// Money is stored in sen, stock changes are stored as deltas so replay order of concurrent sales does not matter
+// Writers take no lock and never wait for each other: each reserves its bytes by moving the tail with a CAS and
+// copies its record into the mapping. Only rolling over to the next segment is done under a lock, and it waits for
+// the full segment's records to be written before the next segment file exists, so a record still being copied
+// can only leave a gap in the last segment, where readers stop as they do at a torn record
+class SalesJournal implements InventoryListener, Closeable {
+    static final byte ADD_PERFUME = 1;
+    static final byte SALE = 2;
+    static final byte ADD_STOCK = 3;
+    static final byte REMOVE_STOCK = 4;
+    static final byte SET_STOCK = 5;
+    static final byte SET_PRICE = 6;
+    static final byte STORE_SALE = 7;
+    static final byte STORE_STOCK = 8;
+    static final byte TRANSFER = 9;
+
+    private static final int HEADER = 8;
+    private static final long CLOSED = 1L << 62; // set in the tail once close has started
+    private static final int SNAPSHOT_MAGIC = 0x504A534E;
+    private static final int SNAPSHOT_VERSION = 2; // version 2 adds branch store stock
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String PREVIOUS_SNAPSHOT_FILE = "snapshot.prev.bin";
+
+    private final Path dir;
+    private final int segmentSize;
+
+    // Writer state: positions are segment << 32 | offset
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+    private final AtomicLong tail = new AtomicLong(); // where the next record goes, plus the CLOSED bit
+    private volatile Segment current; // replaced under rollLock
+    private final Object rollLock = new Object();
+    private final LongAdder failedWrites = new LongAdder();
+    private final AtomicLong lateWrites = new AtomicLong();
+
+    // Snapshot state, only touched under snapshotLock
+    private final Object snapshotLock = new Object();
+    private final State shadow;
+    private long shadowPosition;
+    private final ScheduledExecutorService snapshotter;
+
+    // Constructor to create a journal that continues writing at the recovered position
+    private SalesJournal(Path dir, int segmentSize, long snapshotSeconds, State recovered, long end) throws IOException {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.shadow = recovered;
+        this.shadowPosition = end;
+        this.current = openSegment(dir, segmentOf(end), segmentSize, offsetOf(end));
+        this.tail.set(end);
+        this.snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "journal-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        if (snapshotSeconds > 0) {
+            snapshotter.scheduleWithFixedDelay(this::snapshotQuietly, snapshotSeconds, snapshotSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    // Method to recover the inventory and sales totals from dir, then journal every later change
+    // The inventory must already hold the same seed perfumes as on the previous run
+    public static SalesJournal open(Path dir, Inventory inventory, SalesMetrics metrics, StoreNetwork stores,
+                                    int segmentSize, long snapshotSeconds) throws IOException {
+        Files.createDirectories(dir);
+        long started = System.nanoTime();
+        State state = new State();
+        long position = readSnapshot(dir.resolve(SNAPSHOT_FILE), state);
+        if (position < 0) {
+            state = new State();
+            position = readSnapshot(dir.resolve(PREVIOUS_SNAPSHOT_FILE), state);
+        }
+        if (position < 0) {
+            state = new State();
+            position = firstPosition(dir);
+        }
+        Replay replay = scan(dir, position, Long.MAX_VALUE, state);
+        dropSegmentsAfter(dir, segmentOf(replay.end));
+        state.applyTo(inventory, metrics, stores);
+        if (replay.records > 0 || !state.entries.isEmpty()) {
+            System.out.printf("Recovered %d journal records in %d ms.%n",
+                    replay.records, (System.nanoTime() - started) / 1_000_000);
+        }
+
+        SalesJournal journal = new SalesJournal(dir, segmentSize, snapshotSeconds, state, replay.end);
+        inventory.addListener(journal);
+        return journal;
+    }
+
+    // Method to open the journal configured from system properties
+    // -Djournal.dir=perfume-data -Djournal.segmentMB=64 -Djournal.snapshotSeconds=60
+    public static SalesJournal openFromSystemProperties(Inventory inventory, SalesMetrics metrics, StoreNetwork stores) throws IOException {
+        return open(Paths.get(System.getProperty("journal.dir", "perfume-data")), inventory, metrics, stores,
+                Integer.getInteger("journal.segmentMB", 64) * 1024 * 1024,
+                Long.getLong("journal.snapshotSeconds", 60L));
+    }
+
+    // Method to list the SKUs with recovered sales, so reports can be seeded without scanning the catalog
+    // Call it right after open, later it also covers sales folded into snapshots since
+    public int[] soldSkus() {
+        synchronized (snapshotLock) {
+            return shadow.entries.entrySet().stream()
+                    .filter(e -> e.getValue().sold > 0)
+                    .mapToInt(Map.Entry::getKey)
+                    .toArray();
+        }
+    }
+
+    // Getters for the number of changes that could not be journaled, and of those made after the journal was closed
+    public long getFailedWrites() { return failedWrites.sum(); }
+    public long getLateWrites() { return lateWrites.get(); }
+
+    // Methods called by the inventory for each change
+    public void onPerfumeAdded(Perfume perfume) {
+        byte[] name = perfume.getName().getBytes(StandardCharsets.UTF_8);
+        if (name.length > Scratch.CAPACITY - 32) {
+            failedWrites.increment();
+            System.out.println("Failed to journal " + perfume.getName() + ": name too long.");
+            return;
+        }
+        Scratch record = begin(ADD_PERFUME, perfume.getSku());
+        record.buffer.putLong(perfume.getPriceSen());
+        record.buffer.putInt(perfume.getStockQuantity());
+        record.buffer.putShort((short) name.length);
+        record.buffer.put(name);
+        commit(record);
+    }
+
+    public void onSale(Perfume perfume, int quantity, long amountSen) {
+        Scratch record = begin(SALE, perfume.getSku());
+        record.buffer.putInt(quantity);
+        record.buffer.putLong(amountSen);
+        commit(record);
+    }
+
+    public void onStockAdded(Perfume perfume, int quantity) {
+        Scratch record = begin(ADD_STOCK, perfume.getSku());
+        record.buffer.putInt(quantity);
+        commit(record);
+    }
+
+    public void onStockRemoved(Perfume perfume, int quantity) {
+        Scratch record = begin(REMOVE_STOCK, perfume.getSku());
+        record.buffer.putInt(quantity);
+        commit(record);
+    }
+
+    public void onStockSet(Perfume perfume, int oldQuantity, int newQuantity) {
+        Scratch record = begin(SET_STOCK, perfume.getSku());
+        record.buffer.putInt(newQuantity - oldQuantity);
+        commit(record);
+    }
+
+    public void onPriceSet(Perfume perfume, long oldPriceSen, long newPriceSen) {
+        Scratch record = begin(SET_PRICE, perfume.getSku());
+        record.buffer.putLong(newPriceSen);
+        commit(record);
+    }
+
+    public void onStoreSale(Perfume perfume, int store, int quantity, long amountSen) {
+        Scratch record = begin(STORE_SALE, perfume.getSku());
+        record.buffer.putInt(store);
+        record.buffer.putInt(quantity);
+        record.buffer.putLong(amountSen);
+        commit(record);
+    }
+
+    public void onStoreStock(Perfume perfume, int store, int delta) {
+        Scratch record = begin(STORE_STOCK, perfume.getSku());
+        record.buffer.putInt(store);
+        record.buffer.putInt(delta);
+        commit(record);
+    }
+
+    public void onTransfer(Perfume perfume, int fromStore, int toStore, int quantity) {
+        Scratch record = begin(TRANSFER, perfume.getSku());
+        record.buffer.putInt(fromStore);
+        record.buffer.putInt(toStore);
+        record.buffer.putInt(quantity);
+        commit(record);
+    }
+
+    // Method to start a record in this thread's scratch buffer
+    private Scratch begin(byte type, int sku) {
+        Scratch record = scratch.get();
+        record.buffer.clear();
+        record.buffer.put(type);
+        record.buffer.putInt(sku);
+        return record;
+    }
+
+    // Method to copy a scratch record into the mapped segment
+    // The length is written last, so a reader never sees a half written record as complete
+    private void commit(Scratch record) {
+        int length = record.buffer.position();
+        int size = HEADER + length;
+        long start;
+        Segment segment;
+        while (true) {
+            start = tail.get();
+            if ((start & CLOSED) != 0) {
+                lateWrite();
+                return;
+            }
+            segment = current;
+            if (segmentOf(start) != segment.number) { // a roll has moved the tail and is waiting for the full segment
+                synchronized (rollLock) { }
+                continue;
+            }
+            if (offsetOf(start) + size + 4 > segmentSize) {
+                try {
+                    rollSegment(segment);
+                } catch (IOException e) {
+                    failedWrites.increment();
+                    System.out.println("Failed to journal change: " + e.getMessage());
+                    return;
+                }
+                continue;
+            }
+            if (tail.compareAndSet(start, start + size)) break;
+        }
+        int offset = offsetOf(start);
+        try {
+            record.crc.reset();
+            record.crc.update(record.buffer.array(), 0, length);
+            segment.mapped.put(offset + HEADER, record.buffer.array(), 0, length);
+            segment.mapped.putInt(offset + 4, (int) record.crc.getValue());
+            segment.mapped.putInt(offset, length);
+        } finally {
+            segment.written.add(size);
+        }
+    }
+
+    // Method to count a change made after close started, it is not in the journal and is lost on restart
+    private void lateWrite() {
+        if (lateWrites.incrementAndGet() == 1) System.out.println("Journal is closed, later changes are not saved.");
+    }
+
+    // Method to move on to a new segment file when the full one is still the current one
+    // The tail moves first so nothing more is reserved in the full segment, and the next file is only created
+    // once the records already reserved there are written
+    private void rollSegment(Segment full) throws IOException {
+        synchronized (rollLock) {
+            if (current != full) return; // another writer rolled it
+            long start = position(full.number + 1, 0);
+            long end;
+            do {
+                end = tail.get();
+            } while (!tail.compareAndSet(end, start | (end & CLOSED)));
+            full.awaitWritten(offsetOf(end));
+            try {
+                current = openSegment(dir, full.number + 1, segmentSize, 0);
+            } catch (IOException e) {
+                tail.compareAndSet(start, end); // stay on the full segment, the next record tries again
+                tail.compareAndSet(start | CLOSED, end | CLOSED);
+                throw e;
+            }
+            full.channel.close(); // the mapping stays valid until it is collected
+        }
+    }
+
+    // Method to map a segment, clearing anything left after the recovered end at offset
+    private static Segment openSegment(Path dir, int number, int segmentSize, int offset) throws IOException {
+        FileChannel channel = FileChannel.open(segmentFile(dir, number),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < segmentSize) {
+            channel.write(ByteBuffer.wrap(new byte[1]), segmentSize - 1); // extend, the new bytes read as zero
+        }
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        if (offset + 4 <= segmentSize && mapped.getInt(offset) != 0) {
+            for (int i = offset; i < segmentSize; i++) mapped.put(i, (byte) 0); // drop a torn record
+            mapped.force();
+        }
+        return new Segment(number, channel, mapped, offset);
+    }
+
+    // Method to write a snapshot now
+    // The snapshot is folded from the journal itself, so it is consistent without stopping writers
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            long limit = tail.get() & ~CLOSED; // records still being copied stop the scan, the next snapshot continues there
+            int fromSegment = segmentOf(shadowPosition);
+            Replay replay = scan(dir, shadowPosition, limit, shadow);
+            for (int s = fromSegment; s <= segmentOf(replay.end); s++) {
+                Path file = segmentFile(dir, s);
+                if (!Files.exists(file)) continue;
+                try (FileChannel sync = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    sync.force(false); // also flushes pages written through the mapping
+                }
+            }
+            shadowPosition = replay.end;
+
+            Path snapshotFile = dir.resolve(SNAPSHOT_FILE);
+            Path previousFile = dir.resolve(PREVIOUS_SNAPSHOT_FILE);
+            Path tmp = dir.resolve(SNAPSHOT_FILE + ".tmp");
+            writeSnapshot(tmp, shadow, shadowPosition);
+            long keepFrom = shadowPosition;
+            if (Files.exists(snapshotFile)) {
+                long previous = readSnapshot(snapshotFile, new State());
+                if (previous >= 0) keepFrom = previous;
+                Files.move(snapshotFile, previousFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            // Segments before the older of the two snapshots are no longer needed
+            for (int s : listSegments(dir)) {
+                if (s < segmentOf(keepFrom)) Files.deleteIfExists(segmentFile(dir, s));
+            }
+        }
+    }
+
+    // Method used by the timer, a failed snapshot is retried next time
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Failed to write journal snapshot: " + e.getMessage());
+        }
+    }
+
+    // Method to stop taking changes, wait for the records already reserved, write a final snapshot and release the journal
+    // Changes made after this are counted as late writes and reported, they are not saved
+    public void close() {
+        long end;
+        do {
+            end = tail.get();
+            if ((end & CLOSED) != 0) return;
+        } while (!tail.compareAndSet(end, end | CLOSED));
+        snapshotter.shutdownNow();
+        synchronized (rollLock) {
+            end = tail.get() & ~CLOSED; // a roll may have moved it on
+            current.awaitWritten(offsetOf(end));
+        }
+        snapshotQuietly();
+        Segment last = current;
+        try {
+            last.mapped.force();
+            last.channel.close();
+        } catch (IOException e) {
+            System.out.println("Failed to close journal: " + e.getMessage());
+        }
+        if (lateWrites.get() > 0) System.out.println(lateWrites.get() + " changes were made after the journal closed and were not saved.");
+    }
+
+    // Method to read journal records from a position into a state, stopping at limit or at the first bad record
+    private static Replay scan(Path dir, long from, long limit, State into) throws IOException {
+        Replay replay = new Replay();
+        CRC32C crc = new CRC32C();
+        int seg = segmentOf(from);
+        int off = offsetOf(from);
+        replay.end = from;
+        while (position(seg, off) < limit) {
+            Path file = segmentFile(dir, seg);
+            if (!Files.exists(file)) break;
+            MappedByteBuffer buf;
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            }
+            boolean torn = false;
+            while (position(seg, off) < limit && off + HEADER <= buf.limit()) {
+                int length = buf.getInt(off);
+                if (length == 0) break;
+                if (length < 0 || off + HEADER + length > buf.limit()) {
+                    torn = true;
+                    break;
+                }
+                crc.reset();
+                ByteBuffer payload = buf.slice(off + HEADER, length);
+                crc.update(payload);
+                if ((int) crc.getValue() != buf.getInt(off + 4)) {
+                    torn = true;
+                    break;
+                }
+                into.apply(buf.slice(off + HEADER, length));
+                off += HEADER + length;
+                replay.records++;
+                replay.end = position(seg, off);
+            }
+            if (torn || position(seg, off) >= limit || !Files.exists(segmentFile(dir, seg + 1))) break;
+            seg++; // the writer rolled over to the next segment
+            off = 0;
+            replay.end = position(seg, off);
+        }
+        return replay;
+    }
+
+    // Method to write a state to a snapshot file and sync it
+    private static void writeSnapshot(Path file, State state, long position) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileOutputStream fos = new FileOutputStream(file.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fos, crc)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(position);
+            out.writeLong(state.totalSen);
+            out.writeLong(state.totalUnits);
+            out.writeInt(state.entries.size());
+            for (Map.Entry<Integer, Entry> e : state.entries.entrySet()) {
+                Entry entry = e.getValue();
+                out.writeInt(e.getKey());
+                out.writeBoolean(entry.added);
+                if (entry.added) {
+                    out.writeUTF(entry.name);
+                    out.writeLong(entry.basePriceSen);
+                    out.writeInt(entry.baseStock);
+                }
+                out.writeLong(entry.priceSen);
+                out.writeLong(entry.stockDelta);
+                out.writeLong(entry.sold);
+                out.writeLong(entry.salesSen);
+                out.writeInt(entry.storeStock == null ? 0 : entry.storeStock.size());
+                if (entry.storeStock != null) {
+                    for (Map.Entry<Integer, Long> store : entry.storeStock.entrySet()) {
+                        out.writeInt(store.getKey());
+                        out.writeLong(store.getValue());
+                    }
+                }
+            }
+            out.flush();
+            long checksum = crc.getValue();
+            out.writeLong(checksum);
+            out.flush();
+            fos.getFD().sync();
+        }
+    }
+
+    // Method to load a snapshot into a state, returns the journal position it covers or -1 if unusable
+    private static long readSnapshot(Path file, State into) {
+        if (!Files.exists(file)) return -1;
+        CRC32C crc = new CRC32C();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file)), crc))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) return -1;
+            int version = in.readInt();
+            if (version < 1 || version > SNAPSHOT_VERSION) return -1;
+            long position = in.readLong();
+            into.totalSen = in.readLong();
+            into.totalUnits = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int sku = in.readInt();
+                Entry entry = into.entry(sku);
+                entry.added = in.readBoolean();
+                if (entry.added) {
+                    entry.name = in.readUTF();
+                    entry.basePriceSen = in.readLong();
+                    entry.baseStock = in.readInt();
+                }
+                entry.priceSen = in.readLong();
+                entry.stockDelta = in.readLong();
+                entry.sold = in.readLong();
+                entry.salesSen = in.readLong();
+                int stores = version >= 2 ? in.readInt() : 0;
+                for (int s = 0; s < stores; s++) {
+                    int store = in.readInt();
+                    entry.addStock(store, in.readLong());
+                }
+            }
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                System.out.println("Ignoring corrupt journal snapshot " + file.getFileName());
+                return -1;
+            }
+            return position;
+        } catch (IOException e) {
+            System.out.println("Ignoring unreadable journal snapshot " + file.getFileName() + ": " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // Method to find where a journal without snapshots starts
+    private static long firstPosition(Path dir) throws IOException {
+        List<Integer> segments = listSegments(dir);
+        return position(segments.isEmpty() ? 1 : segments.get(0), 0);
+    }
+
+    // Method to delete segments written after the point where recovery stopped
+    private static void dropSegmentsAfter(Path dir, int lastSegment) throws IOException {
+        for (int s : listSegments(dir)) {
+            if (s > lastSegment) {
+                System.out.println("Discarding journal segment after a damaged record: " + segmentFile(dir, s).getFileName());
+                Files.delete(segmentFile(dir, s));
+            }
+        }
+    }
+
+    // Method to list the segment numbers in dir, oldest first
+    private static List<Integer> listSegments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                        .filter(n -> n.startsWith("journal-") && n.endsWith(".log"))
+                        .map(n -> Integer.parseInt(n.substring(8, n.length() - 4)))
+                        .sorted()
+                        .collect(Collectors.toList());
+        }
+    }
+
+    // Helper methods for journal positions
+    private static Path segmentFile(Path dir, int segment) { return dir.resolve(String.format("journal-%08d.log", segment)); }
+    private static long position(int segment, int offset) { return ((long) segment << 32) | (offset & 0xFFFFFFFFL); }
+    private static int segmentOf(long position) { return (int) (position >>> 32); }
+    private static int offsetOf(long position) { return (int) position; }
+
+    // Segment class holding one mapped journal file and how many bytes have been written to it
+    private static class Segment {
+        final int number;
+        final FileChannel channel;
+        final MappedByteBuffer mapped;
+        final int base; // where writing started, after the records recovered from it
+        final LongAdder written = new LongAdder(); // one cell per writing thread, so counting is not contended
+
+        Segment(int number, FileChannel channel, MappedByteBuffer mapped, int base) {
+            this.number = number;
+            this.channel = channel;
+            this.mapped = mapped;
+            this.base = base;
+        }
+
+        // Method to wait until every record reserved before offset is written, no more may be reserved here
+        // The writers left only have a copy to finish, so spin briefly, then give them the CPU
+        void awaitWritten(int offset) {
+            for (int spins = 0; base + written.sum() < offset; spins++) {
+                if (spins < 64) Thread.onSpinWait();
+                else Thread.yield();
+            }
+        }
+    }
+
+    // Scratch class holding one thread's record buffer and checksum, so writers share nothing until they reserve space
+    private static class Scratch {
+        static final int CAPACITY = 1024;
+        final ByteBuffer buffer = ByteBuffer.allocate(CAPACITY);
+        final CRC32C crc = new CRC32C();
+    }
+
+    // Replay class holding how far a scan got
+    private static class Replay {
+        long end;
+        long records;
+    }
+
+    // Entry class holding the journaled changes of one SKU
+    private static class Entry {
+        boolean added;          // perfume was added after startup seeding, so the journal knows its base values
+        String name;
+        long basePriceSen;
+        int baseStock;
+        long priceSen = -1;     // last price set, -1 when unchanged
+        long stockDelta;
+        long sold;
+        long salesSen;
+        TreeMap<Integer, Long> storeStock; // branch store -> stock delta, null until a branch is stocked
+
+        // Method to change the stock of a store, store 0 is the main store whose stock lives on the perfume
+        void addStock(int store, long delta) {
+            if (store == 0) {
+                stockDelta += delta;
+                return;
+            }
+            if (storeStock == null) storeStock = new TreeMap<>();
+            storeStock.merge(store, delta, Long::sum);
+        }
+    }
+
+    // State class folding journal records per SKU, used for both recovery and snapshots
+    private static class State {
+        final TreeMap<Integer, Entry> entries = new TreeMap<>();
+        long totalSen;
+        long totalUnits;
+
+        Entry entry(int sku) {
+            return entries.computeIfAbsent(sku, k -> new Entry());
+        }
+
+        // Method to fold one record into the state
+        void apply(ByteBuffer payload) {
+            byte type = payload.get();
+            Entry entry = entry(payload.getInt());
+            switch (type) {
+                case ADD_PERFUME:
+                    entry.added = true;
+                    entry.basePriceSen = payload.getLong();
+                    entry.baseStock = payload.getInt();
+                    byte[] name = new byte[payload.getShort()];
+                    payload.get(name);
+                    entry.name = new String(name, StandardCharsets.UTF_8);
+                    break;
+                case SALE:
+                    int quantity = payload.getInt();
+                    long sen = payload.getLong();
+                    entry.stockDelta -= quantity;
+                    entry.sold += quantity;
+                    entry.salesSen += sen;
+                    totalUnits += quantity;
+                    totalSen += sen;
+                    break;
+                case ADD_STOCK:
+                case SET_STOCK:
+                    entry.stockDelta += payload.getInt();
+                    break;
+                case REMOVE_STOCK:
+                    entry.stockDelta -= payload.getInt();
+                    break;
+                case SET_PRICE:
+                    entry.priceSen = payload.getLong();
+                    break;
+                case STORE_SALE:
+                    int store = payload.getInt();
+                    quantity = payload.getInt();
+                    sen = payload.getLong();
+                    entry.addStock(store, -quantity);
+                    entry.sold += quantity;
+                    entry.salesSen += sen;
+                    totalUnits += quantity;
+                    totalSen += sen;
+                    break;
+                case STORE_STOCK:
+                    entry.addStock(payload.getInt(), payload.getInt());
+                    break;
+                case TRANSFER:
+                    int from = payload.getInt();
+                    int to = payload.getInt();
+                    quantity = payload.getInt();
+                    entry.addStock(from, -quantity);
+                    entry.addStock(to, quantity);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown journal record type " + type);
+            }
+        }
+
+        // Method to put the recovered state back into the inventory and sales totals
+        void applyTo(Inventory inventory, SalesMetrics metrics, StoreNetwork stores) {
+            for (Map.Entry<Integer, Entry> e : entries.entrySet()) {
+                int sku = e.getKey();
+                Entry entry = e.getValue();
+                if (entry.added) {
+                    if (sku != inventory.size()) {
+                        throw new IllegalStateException("Journal does not match the seeded catalog at SKU " + sku);
+                    }
+                    inventory.add(new Perfume(entry.name, entry.basePriceSen, entry.baseStock));
+                } else if (sku >= inventory.size()) {
+                    throw new IllegalStateException("Journal refers to unknown SKU " + sku);
+                }
+                inventory.get(sku).restore(entry.stockDelta, entry.sold, entry.salesSen, entry.priceSen);
+                if (entry.storeStock != null) {
+                    for (Map.Entry<Integer, Long> store : entry.storeStock.entrySet()) {
+                        stores.restoreStock(store.getKey(), sku, store.getValue());
+                    }
+                }
+            }
+            if (totalSen != 0 || totalUnits != 0) metrics.recordSale(totalSen, totalUnits);
+        }
+    }
+}
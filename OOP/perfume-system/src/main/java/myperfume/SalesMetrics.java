@@ -0,0 +1,84 @@
+package myperfume;
+
+// Import required packages
+import java.util.concurrent.atomic.*;
+
+// SalesMetrics class keeping the global sales totals without locks: writers never wait for each other or for readers
+// Money is counted in sen as a long (see Money) so totals stay exact
+// Each stripe counts the sales started and finished around its two adders; a reader trusts a stripe's money and
+// units only when no sale was in flight while it read them, and otherwise reads that stripe again
+class SalesMetrics {
+    private static final int STRIDE = 16;  // longs per cell (128 bytes) so cells never share a cache line
+    private static final int STARTED = 0;  // sales begun on the stripe
+    private static final int SEN = 1;
+    private static final int UNITS = 2;
+    private static final int FINISHED = 3; // sales whose money and units are both added
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    // Constructor to create metrics striped for the number of cores
+    public SalesMetrics() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    // Constructor to create metrics with a given number of stripes (rounded up to a power of two)
+    public SalesMetrics(int stripes) {
+        int n = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.cells = new AtomicLongArray(n * STRIDE);
+        this.mask = n - 1;
+    }
+
+    // Method to record one sale, four atomic adds and no retry loop
+    public void recordSale(long sen, long units) {
+        int base = stripeFor(Thread.currentThread()) * STRIDE;
+        cells.getAndIncrement(base + STARTED);
+        cells.getAndAdd(base + SEN, sen);
+        cells.getAndAdd(base + UNITS, units);
+        cells.getAndIncrement(base + FINISHED);
+    }
+
+    // Method to read the totals, each sale's money and units are always counted together
+    // A stripe is read again while sales land on it; the writers carry on meanwhile
+    public Snapshot snapshot() {
+        long sen = 0;
+        long units = 0;
+        for (int base = 0; base < cells.length(); base += STRIDE) {
+            for (int attempt = 0; ; attempt++) {
+                long finished = cells.get(base + FINISHED);
+                long cellSen = cells.get(base + SEN);
+                long cellUnits = cells.get(base + UNITS);
+                if (cells.get(base + STARTED) == finished) { // nothing in flight from before the first read to after the last
+                    sen += cellSen;
+                    units += cellUnits;
+                    break;
+                }
+                if (attempt < 64) Thread.onSpinWait();
+                else Thread.yield(); // a writer was descheduled mid-sale, let it finish
+            }
+        }
+        return new Snapshot(sen, units);
+    }
+
+    // Method to pick the stripe for a thread
+    private int stripeFor(Thread thread) {
+        long h = thread.getId() * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & mask;
+    }
+
+    // Snapshot class holding the totals read at one point
+    static class Snapshot {
+        private final long totalSen;
+        private final long perfumesSold;
+
+        // Constructor to create new Snapshot object
+        Snapshot(long totalSen, long perfumesSold) {
+            this.totalSen = totalSen;
+            this.perfumesSold = perfumesSold;
+        }
+
+        // Getters for snapshot attributes
+        public long getTotalSen() { return totalSen; }
+        public long getPerfumesSold() { return perfumesSold; }
+    }
+}
@@ -0,0 +1,128 @@
+package myperfume;
+
+// Import required packages
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// SessionCache class handing out a random token at login and mapping it back to the user on each request,
+// so requests are authorised with one hash map lookup instead of hashing the password again
+// A session lasts ttlSeconds from its last use and at most maxSessions are kept, oldest first out. Expired
+// sessions are dropped when looked up and, oldest first, whenever a new session starts; sessions live in
+// memory and do not survive a restart, users log in again
+class SessionCache {
+    private static final int TOKEN_BYTES = 24;
+
+    private final long ttlMillis;
+    private final int maxSessions;
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Session> byAge = new ConcurrentLinkedQueue<>(); // oldest first, for eviction
+    private final AtomicInteger queued = new AtomicInteger();
+    private final SecureRandom random = new SecureRandom();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // Constructor to create the session cache
+    public SessionCache(long ttlSeconds, int maxSessions) {
+        if (ttlSeconds <= 0 || maxSessions <= 0) throw new IllegalArgumentException("Session lifetime and count must be positive.");
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.maxSessions = maxSessions;
+    }
+
+    // Method to create the session cache configured from system properties
+    // -Dauth.sessionMinutes=30 -Dauth.sessions=100000
+    public static SessionCache fromSystemProperties() {
+        return new SessionCache(TimeUnit.MINUTES.toSeconds(Long.getLong("auth.sessionMinutes", 30L)),
+                Integer.getInteger("auth.sessions", 100_000));
+    }
+
+    // Getters for session cache counters
+    public int size() { return sessions.size(); }
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getTtlSeconds() { return TimeUnit.MILLISECONDS.toSeconds(ttlMillis); }
+
+    // Method to start a session for a user who has just logged in, returns it with its token
+    public Session create(UserStore.User user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        long now = System.currentTimeMillis();
+        Session session = new Session(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes), user, now, now + ttlMillis);
+        sessions.put(session.token, session);
+        byAge.add(session);
+        queued.incrementAndGet();
+        evict(now);
+        return session;
+    }
+
+    // Method to get the session for a token, null if it is unknown or expired; using a session extends it
+    public Session get(String token) {
+        Session session = token == null ? null : sessions.get(token);
+        long now = System.currentTimeMillis();
+        if (session == null || now >= session.expiresMillis) {
+            if (session != null) sessions.remove(token, session);
+            misses.increment();
+            return null;
+        }
+        if (session.expiresMillis - now < ttlMillis - 1000) session.expiresMillis = now + ttlMillis; // at most one write a second
+        hits.increment();
+        return session;
+    }
+
+    // Method to end a session, returns false if it had already ended
+    public boolean invalidate(String token) {
+        Session session = token == null ? null : sessions.remove(token);
+        if (session == null) return false;
+        session.expiresMillis = 0;
+        return true;
+    }
+
+    // Method to end every session of a user, after their password is changed or their account removed
+    public void invalidateUser(String username) {
+        for (Session session : sessions.values()) {
+            if (session.user.getUsername().equalsIgnoreCase(username)) invalidate(session.token);
+        }
+    }
+
+    // Method to drop ended sessions, and the oldest sessions when there are too many
+    // A session still in use when its turn comes goes to the back of the queue again
+    private void evict(long now) {
+        Session oldest;
+        int checked = 0;
+        while ((oldest = byAge.peek()) != null && checked++ < maxSessions
+                && (queued.get() > maxSessions || now >= oldest.queuedMillis + ttlMillis)) {
+            if (!byAge.remove(oldest)) continue;
+            queued.decrementAndGet();
+            if (now >= oldest.expiresMillis || queued.get() >= maxSessions) {
+                sessions.remove(oldest.token, oldest);
+            } else {
+                oldest.queuedMillis = now;
+                byAge.add(oldest);
+                queued.incrementAndGet();
+            }
+        }
+    }
+
+    // Session class holding one logged in user
+    static class Session {
+        private final String token;
+        private final UserStore.User user;
+        private volatile long expiresMillis;
+        private volatile long queuedMillis; // when it last joined the eviction queue
+
+        Session(String token, UserStore.User user, long createdMillis, long expiresMillis) {
+            this.token = token;
+            this.user = user;
+            this.queuedMillis = createdMillis;
+            this.expiresMillis = expiresMillis;
+        }
+
+        // Getters for session attributes
+        public String getToken() { return token; }
+        public UserStore.User getUser() { return user; }
+        public long getExpiresMillis() { return expiresMillis; }
+
+        public boolean isAdmin() { return user.getRole() == UserStore.Role.ADMIN; }
+    }
+}
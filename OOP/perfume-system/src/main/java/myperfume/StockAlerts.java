@@ -0,0 +1,106 @@
+package myperfume;
+
+// Import required packages
+import java.util.*;
+import java.util.concurrent.*;
+
+// StockAlerts class watching stock changes and publishing low-stock events on the event bus
+// Alerts are edge-triggered: a perfume in a store raises LOW_STOCK (or OUT_OF_STOCK) once when it crosses its
+// threshold and stays quiet until stock climbs back above threshold + margin (RESTOCKED), so a busy perfume
+// selling its last units one by one raises one event, not one per sale
+// If the bus is full the alert is un-marked, so the next stock change for that perfume tries again
+class StockAlerts implements InventoryListener {
+    private final StoreNetwork stores;
+    private final StockEventBus bus;
+    private final int defaultThreshold;
+    private final ConcurrentHashMap<Integer, Integer> thresholds = new ConcurrentHashMap<>(); // SKU -> own threshold
+    private final Set<Long> low = ConcurrentHashMap.newKeySet(); // store << 32 | SKU, alerted and not yet restocked
+    private final Set<Long> out = ConcurrentHashMap.newKeySet();
+
+    // Constructor to create alerts with one threshold for every perfume
+    public StockAlerts(StoreNetwork stores, StockEventBus bus, int defaultThreshold) {
+        if (defaultThreshold < 0) throw new IllegalArgumentException("Threshold cannot be negative.");
+        this.stores = stores;
+        this.bus = bus;
+        this.defaultThreshold = defaultThreshold;
+    }
+
+    // Methods to read and change thresholds
+    public int getDefaultThreshold() { return defaultThreshold; }
+
+    public int thresholdOf(Perfume perfume) {
+        if (thresholds.isEmpty()) return defaultThreshold;
+        return thresholds.getOrDefault(perfume.getSku(), defaultThreshold);
+    }
+
+    public void setThreshold(Perfume perfume, int threshold) {
+        if (threshold < 0) throw new IllegalArgumentException("Threshold cannot be negative.");
+        thresholds.put(perfume.getSku(), threshold);
+        for (Store store : stores.list()) check(store, perfume); // alert now if it is already below the new threshold
+    }
+
+    // Method to get how many perfume/store pairs are currently low
+    public int getLowCount() { return low.size(); }
+
+    // Stock needs to climb this far above the threshold before the perfume can alert again
+    private static int margin(int threshold) {
+        return Math.max(1, threshold / 2);
+    }
+
+    // Methods called by the inventory for each stock change
+    public void onSale(Perfume perfume, int quantity, long amountSen) { check(stores.main(), perfume); }
+    public void onStockAdded(Perfume perfume, int quantity) { check(stores.main(), perfume); }
+    public void onStockRemoved(Perfume perfume, int quantity) { check(stores.main(), perfume); }
+    public void onStockSet(Perfume perfume, int oldQuantity, int newQuantity) { check(stores.main(), perfume); }
+    public void onStoreSale(Perfume perfume, int store, int quantity, long amountSen) { check(stores.get(store), perfume); }
+    public void onStoreStock(Perfume perfume, int store, int delta) { check(stores.get(store), perfume); }
+
+    public void onTransfer(Perfume perfume, int fromStore, int toStore, int quantity) {
+        check(stores.get(fromStore), perfume);
+        check(stores.get(toStore), perfume);
+    }
+
+    // Method to compare the stock of a perfume in a store with its threshold and publish any crossing
+    // The stock read first may be stale by the time a flag flips, so it is read again before publishing
+    private void check(Store store, Perfume perfume) {
+        int stock = store.stockOf(perfume);
+        int threshold = thresholdOf(perfume);
+        int rearm = threshold + margin(threshold);
+        if (stock > threshold) {
+            if (low.isEmpty() || stock <= rearm) return; // the usual case, nothing to do
+            Long key = key(store, perfume);
+            if (low.remove(key)) {
+                stock = store.stockOf(perfume);
+                if (stock <= rearm) {
+                    low.add(key); // sold down again meanwhile, still alerted
+                    return;
+                }
+                out.remove(key);
+                if (!bus.publish(new StockEvent(StockEvent.Type.RESTOCKED, store, perfume, stock, threshold))) {
+                    low.add(key); // try again on the next change
+                }
+            }
+            return;
+        }
+
+        Long key = key(store, perfume);
+        if (stock == 0 && out.add(key)) {
+            boolean firstAlert = low.add(key);
+            if (store.stockOf(perfume) != 0
+                    || !bus.publish(new StockEvent(StockEvent.Type.OUT_OF_STOCK, store, perfume, 0, threshold))) {
+                out.remove(key); // restocked meanwhile, or the bus is full and the next change tries again
+                if (firstAlert) low.remove(key);
+            }
+        } else if (low.add(key)) {
+            stock = store.stockOf(perfume);
+            if (stock > threshold
+                    || !bus.publish(new StockEvent(StockEvent.Type.LOW_STOCK, store, perfume, stock, threshold))) {
+                low.remove(key);
+            }
+        }
+    }
+
+    private static Long key(Store store, Perfume perfume) {
+        return ((long) store.getId() << 32) | (perfume.getSku() & 0xFFFFFFFFL);
+    }
+}
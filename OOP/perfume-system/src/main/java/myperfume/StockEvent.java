@@ -0,0 +1,37 @@
+package myperfume;
+
+// StockEvent class describing a perfume crossing its low-stock threshold in one store
+class StockEvent {
+
+    // What happened to the stock
+    enum Type {
+        LOW_STOCK,      // stock fell to the threshold or below
+        OUT_OF_STOCK,   // stock reached zero
+        RESTOCKED       // stock is back above the threshold plus a margin, alerts for it are armed again
+    }
+
+    private final Type type;
+    private final Store store;
+    private final Perfume perfume;
+    private final int stock;
+    private final int threshold;
+    private final long timeMillis;
+
+    // Constructor to create new StockEvent object
+    public StockEvent(Type type, Store store, Perfume perfume, int stock, int threshold) {
+        this.type = type;
+        this.store = store;
+        this.perfume = perfume;
+        this.stock = stock;
+        this.threshold = threshold;
+        this.timeMillis = System.currentTimeMillis();
+    }
+
+    // Getters for event attributes
+    public Type getType() { return type; }
+    public Store getStore() { return store; }
+    public Perfume getPerfume() { return perfume; }
+    public int getStock() { return stock; }
+    public int getThreshold() { return threshold; }
+    public long getTimeMillis() { return timeMillis; }
+}
@@ -0,0 +1,136 @@
+package myperfume;
+
+// Import required packages
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+// StockEventBus class handing stock events to subscribers without ever blocking the publisher
+// Every subscriber has its own bounded queue and thread, so a slow one does not hold up the others
+// When a queue is full, publish reports it instead of waiting; the publisher decides what to do (see StockAlerts)
+class StockEventBus {
+    private static final StockEvent STOP = new StockEvent(StockEvent.Type.RESTOCKED, null, null, 0, 0);
+    private static final int MAX_BATCH = 256;
+
+    private final int capacity;
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final LongAdder published = new LongAdder();
+    // CLOSED bit plus the number of publish calls between their closed check and their offers, so close can wait
+    // for those to land before queueing STOP and no event ever ends up behind it
+    private final AtomicLong state = new AtomicLong();
+    private static final long CLOSED = 1L << 62;
+
+    // Constructor to create a bus, capacity is the queue size of each subscriber
+    public StockEventBus(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Queue capacity must be positive.");
+        this.capacity = capacity;
+    }
+
+    // Method to add a subscriber, it gets every event published from now on
+    public void subscribe(String name, StockEventSubscriber subscriber) {
+        if ((state.get() & CLOSED) != 0) throw new IllegalStateException("Event bus is closed.");
+        Subscription subscription = new Subscription(name, subscriber, capacity);
+        subscriptions.add(subscription);
+        subscription.thread.start();
+    }
+
+    // Method to publish an event, returns false if any subscriber's queue was full and it missed the event
+    // An event published once close has started is refused instead of being queued behind STOP
+    public boolean publish(StockEvent event) {
+        if ((state.incrementAndGet() & CLOSED) != 0) {
+            state.decrementAndGet();
+            return false;
+        }
+        try {
+            published.increment();
+            boolean delivered = true;
+            for (Subscription subscription : subscriptions) {
+                if (!subscription.queue.offer(event)) {
+                    subscription.dropped.increment();
+                    delivered = false;
+                }
+            }
+            return delivered;
+        } finally {
+            state.decrementAndGet();
+        }
+    }
+
+    // Getters for bus counters
+    public long getPublished() { return published.sum(); }
+
+    public long getDropped() {
+        long dropped = 0;
+        for (Subscription subscription : subscriptions) dropped += subscription.dropped.sum();
+        return dropped;
+    }
+
+    // Method to deliver the events still queued and stop the subscriber threads
+    public void close() {
+        long current;
+        do {
+            current = state.get();
+            if ((current & CLOSED) != 0) return;
+        } while (!state.compareAndSet(current, current | CLOSED));
+        while ((state.get() & ~CLOSED) != 0) Thread.yield(); // publishes already past the check, offer never blocks
+        for (Subscription subscription : subscriptions) {
+            try {
+                subscription.queue.put(STOP);
+                subscription.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Subscription class holding one subscriber's queue and thread
+    private static class Subscription {
+        final String name;
+        final StockEventSubscriber subscriber;
+        final BlockingQueue<StockEvent> queue;
+        final LongAdder dropped = new LongAdder();
+        final Thread thread;
+
+        Subscription(String name, StockEventSubscriber subscriber, int capacity) {
+            this.name = name;
+            this.subscriber = subscriber;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.thread = new Thread(this::run, "stock-events-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        // Method run by the subscriber thread, delivers the queued events in batches
+        private void run() {
+            ArrayList<StockEvent> batch = new ArrayList<>(MAX_BATCH);
+            while (true) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    continue; // only close() stops the subscriber
+                }
+                queue.drainTo(batch, MAX_BATCH - 1);
+                boolean stop = false;
+                for (StockEvent event : batch) {
+                    if (event == STOP) {
+                        stop = true;
+                        continue;
+                    }
+                    try {
+                        subscriber.onEvent(event);
+                    } catch (RuntimeException e) {
+                        System.out.println("Stock event subscriber " + name + " failed: " + e.getMessage());
+                    }
+                }
+                batch.clear();
+                try {
+                    subscriber.onBatchEnd();
+                    if (stop) subscriber.close();
+                } catch (RuntimeException e) {
+                    System.out.println("Stock event subscriber " + name + " failed: " + e.getMessage());
+                }
+                if (stop) return;
+            }
+        }
+    }
+}
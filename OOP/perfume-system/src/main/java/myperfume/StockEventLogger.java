@@ -0,0 +1,52 @@
+package myperfume;
+
+// Import required packages
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+
+// StockEventLogger class appending every stock event to a log file, one line each
+// Lines are flushed once per batch, so a burst of events costs one write
+class StockEventLogger implements StockEventSubscriber {
+    private final Path file;
+    private final BufferedWriter out;
+
+    // Constructor to open the log file for appending
+    public StockEventLogger(Path file) throws IOException {
+        this.file = file;
+        this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+    }
+
+    // Method called by the event bus
+    public void onEvent(StockEvent event) {
+        try {
+            out.write(Instant.ofEpochMilli(event.getTimeMillis()).toString());
+            out.write(' ');
+            out.write(event.getType().name());
+            out.write(" store=\"" + event.getStore().getName() + "\" sku=" + event.getPerfume().getSku()
+                    + " perfume=\"" + event.getPerfume().getName() + "\" stock=" + event.getStock()
+                    + " threshold=" + event.getThreshold());
+            out.newLine();
+        } catch (IOException e) {
+            System.out.println("Failed to log stock event to " + file + ": " + e.getMessage());
+        }
+    }
+
+    public void onBatchEnd() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            System.out.println("Failed to log stock event to " + file + ": " + e.getMessage());
+        }
+    }
+
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            System.out.println("Failed to close " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package myperfume;
+
+// StockEventSubscriber interface for components that react to low-stock events
+// Each subscriber runs on its own thread fed by the event bus, never on the checkout thread
+interface StockEventSubscriber {
+    void onEvent(StockEvent event);
+
+    // Called after each batch of events, e.g. to flush a file
+    default void onBatchEnd() {}
+
+    // Called once when the bus closes, after the last event
+    default void close() {}
+}
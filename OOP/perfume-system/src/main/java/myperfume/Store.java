@@ -0,0 +1,91 @@
+package myperfume;
+
+// Import required packages
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+// Store class for one outlet, owning its own stock of every perfume
+// The main store (id 0) keeps its stock on the Perfume objects as before; every other store has its own
+// stock table, so orders in different stores never touch the same counters
+class Store {
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private final int id;
+    private final String name;
+    private final String address;
+    private final boolean main;
+    private volatile AtomicIntegerArray[] pages = new AtomicIntegerArray[0]; // SKU -> stock, pages created on first stock
+
+    // Constructor to create a store
+    Store(int id, String name, String address, boolean main) {
+        this.id = id;
+        this.name = name;
+        this.address = address;
+        this.main = main;
+    }
+
+    // Getters for store attributes
+    public int getId() { return id; }
+    public String getName() { return name; }
+    public String getAddress() { return address; }
+    public boolean isMain() { return main; }
+
+    // Method to get the stock of a perfume in this store
+    public int stockOf(Perfume perfume) {
+        if (main) return perfume.getStockQuantity();
+        AtomicIntegerArray page = page(perfume.getSku(), false);
+        return page == null ? 0 : page.get(perfume.getSku() & (PAGE_SIZE - 1));
+    }
+
+    // Method to take stock if enough is left, the check and the decrement happen as one atomic step
+    boolean tryTake(Perfume perfume, int quantity) {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must more than 0.");
+        if (main) return perfume.tryReserve(quantity);
+        AtomicIntegerArray page = page(perfume.getSku(), false);
+        if (page == null) return false;
+        int slot = perfume.getSku() & (PAGE_SIZE - 1);
+        while (true) {
+            int current = page.get(slot);
+            if (quantity > current) return false;
+            if (page.compareAndSet(slot, current, current - quantity)) return true;
+        }
+    }
+
+    // Method to add stock without reporting it, callers report the change themselves
+    void give(Perfume perfume, int quantity) {
+        if (main) {
+            perfume.releaseStock(quantity);
+            return;
+        }
+        AtomicIntegerArray page = page(perfume.getSku(), true);
+        int slot = perfume.getSku() & (PAGE_SIZE - 1);
+        while (true) {
+            int current = page.get(slot);
+            int next = (int) Math.max(0, Math.min(Integer.MAX_VALUE, (long) current + quantity));
+            if (page.compareAndSet(slot, current, next)) return;
+        }
+    }
+
+    // Method to find the stock page of a SKU, optionally creating it
+    private AtomicIntegerArray page(int sku, boolean create) {
+        int index = sku >>> PAGE_BITS;
+        AtomicIntegerArray[] current = pages;
+        if (index < current.length && current[index] != null) return current[index];
+        if (!create) return null;
+        synchronized (this) {
+            current = pages;
+            if (index >= current.length) {
+                current = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+            }
+            if (current[index] == null) current[index] = new AtomicIntegerArray(PAGE_SIZE);
+            pages = current;
+            return current[index];
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + address + ")";
+    }
+}
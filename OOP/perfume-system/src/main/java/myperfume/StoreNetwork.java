@@ -0,0 +1,133 @@
+package myperfume;
+
+// Import required packages
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// StoreNetwork class holding every outlet and moving stock between them
+// Store 0 is the main store at the university; branch stores are read from a CSV file of name,address lines
+// Store ids are their position, so the journal must be replayed with the same store list
+class StoreNetwork {
+    public static final String MAIN_STORE_NAME = "MyPerfume University";
+    public static final String MAIN_STORE_ADDRESS = "123, Taman University";
+
+    private final Inventory inventory;
+    private final Store[] stores;
+
+    // Constructor to create a network with only the main store
+    public StoreNetwork(Inventory inventory) {
+        this(inventory, Collections.emptyList());
+    }
+
+    // Constructor to create a network with the main store and branches given as {name, address}
+    public StoreNetwork(Inventory inventory, List<String[]> branches) {
+        this.inventory = inventory;
+        this.stores = new Store[branches.size() + 1];
+        stores[0] = new Store(0, MAIN_STORE_NAME, MAIN_STORE_ADDRESS, true);
+        for (int i = 0; i < branches.size(); i++) {
+            stores[i + 1] = new Store(i + 1, branches.get(i)[0], branches.get(i)[1], false);
+        }
+    }
+
+    // Method to read the branch stores from a CSV file, one name,address per line
+    public static StoreNetwork load(Inventory inventory, Path csv) throws IOException {
+        ArrayList<String[]> branches = new ArrayList<>();
+        for (String line : Files.readAllLines(csv, StandardCharsets.UTF_8)) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+            int comma = line.indexOf(',');
+            if (comma <= 0) throw new IOException("Expected name,address but found: " + line);
+            branches.add(new String[] {line.substring(0, comma).trim(), line.substring(comma + 1).trim()});
+        }
+        return new StoreNetwork(inventory, branches);
+    }
+
+    // Getters for the stores
+    public int size() { return stores.length; }
+    public Store main() { return stores[0]; }
+    public Store get(int id) { return stores[id]; }
+    public List<Store> list() { return Collections.unmodifiableList(Arrays.asList(stores)); }
+
+    // Method to find a store by its number (1 is the main store) or name, null if there is none
+    public Store find(String text) {
+        String s = text.trim();
+        try {
+            int number = Integer.parseInt(s);
+            return number >= 1 && number <= stores.length ? stores[number - 1] : null;
+        } catch (NumberFormatException e) {
+            for (Store store : stores) {
+                if (store.getName().equalsIgnoreCase(s)) return store;
+            }
+            return null;
+        }
+    }
+
+    // Method to take stock from one store for an order; count the sale with record once the order is committed
+    public void reserve(Store store, Perfume perfume, int quantity) {
+        if (!store.tryTake(perfume, quantity)) {
+            inventory.fireStockOut(perfume, quantity);
+            throw new IllegalArgumentException("Not enough stock for " + perfume.getName()
+                    + (store.isMain() ? "" : " at " + store.getName()));
+        }
+    }
+
+    // Method to take stock for delivery, returns the store it was taken from; count the sale with record
+    // The preferred store (the one already shipping this order) is tried first, then the stores starting from
+    // one picked by the delivery address, so the same area is served by the same store and load is spread out
+    public Store reserveOnline(Perfume perfume, int quantity, Store preferred, String deliveryAddress) {
+        if (preferred != null && preferred.tryTake(perfume, quantity)) return preferred;
+        int start = Math.floorMod(deliveryAddress == null ? 0 : deliveryAddress.hashCode(), stores.length);
+        for (int i = 0; i < stores.length; i++) {
+            Store store = stores[(start + i) % stores.length];
+            if (store != preferred && store.tryTake(perfume, quantity)) return store;
+        }
+        inventory.fireStockOut(perfume, quantity);
+        throw new IllegalArgumentException("Not enough stock for " + perfume.getName());
+    }
+
+    // Method to count a sale of amountSen whose stock is already taken from a store, returns the amount
+    long record(Store store, Perfume perfume, int quantity, long amountSen) {
+        return store.isMain() ? perfume.recordSale(quantity, amountSen) : perfume.recordStoreSale(store.getId(), quantity, amountSen);
+    }
+
+    // Method to add stock to one store
+    public void addStock(Store store, Perfume perfume, int quantity) {
+        if (quantity < 0) throw new IllegalArgumentException("Cannot add negative stock.");
+        if (store.isMain()) {
+            perfume.addStock(quantity);
+            return;
+        }
+        store.give(perfume, quantity);
+        inventory.fireStoreStock(perfume, store.getId(), quantity);
+    }
+
+    // Method to move stock from one store to another
+    // Stock is taken from the source with one atomic check-and-decrement before it is given to the destination,
+    // so a transfer either moves everything or nothing and can never oversell either store; it is journaled as one record
+    public void transfer(Perfume perfume, Store from, Store to, int quantity) {
+        if (from == to) throw new IllegalArgumentException("Cannot transfer to the same store.");
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must more than 0.");
+        if (!from.tryTake(perfume, quantity)) {
+            throw new IllegalArgumentException("Not enough stock for " + perfume.getName() + " at " + from.getName()
+                    + ". Available: " + from.stockOf(perfume));
+        }
+        to.give(perfume, quantity);
+        inventory.fireTransfer(perfume, from.getId(), to.getId(), quantity);
+    }
+
+    // Method used by the sales journal to put back recovered branch stock without reporting it again
+    void restoreStock(int storeId, int sku, long delta) {
+        if (storeId <= 0 || storeId >= stores.length) {
+            throw new IllegalStateException("Journal refers to unknown store " + storeId);
+        }
+        Perfume perfume = inventory.get(sku);
+        Store store = stores[storeId];
+        if (delta >= 0) {
+            store.give(perfume, (int) Math.min(delta, Integer.MAX_VALUE));
+        } else {
+            int take = (int) Math.min(Math.min(-delta, Integer.MAX_VALUE), store.stockOf(perfume));
+            if (take > 0) store.tryTake(perfume, take);
+        }
+    }
+}
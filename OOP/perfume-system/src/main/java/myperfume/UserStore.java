@@ -0,0 +1,225 @@
+package myperfume;
+
+// Import required packages
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.*;
+import java.security.spec.InvalidKeySpecException;
+import java.util.*;
+import java.util.concurrent.*;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+// UserStore class holding the accounts that can log in, with salted PBKDF2 password hashes
+// Hashing a password takes tens of milliseconds on purpose, so it is done once per login; after that the user
+// holds a session token (see SessionCache). Accounts are kept in a text file, one per line:
+//   username;role;iterations;salt;hash        (salt and hash in Base64)
+// No account comes with the system: when the file does not exist the first admin is created from
+// -Dauth.adminPassword or the PERFUME_ADMIN_PASSWORD environment variable, or else asked for on the console,
+// and the store refuses to open when there is none of these; customers are then added from the admin menu
+class UserStore {
+
+    // What an account may do
+    enum Role { CUSTOMER, ADMIN }
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    static final int MIN_PASSWORD = 4;
+
+    private final Path file; // null to keep the accounts in memory only
+    private final int iterations;
+    private final ConcurrentHashMap<String, User> users = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final byte[] dummySalt = new byte[SALT_BYTES];
+
+    // Constructor to create an empty user store, new passwords are hashed with the given iteration count
+    public UserStore(Path file, int iterations) {
+        if (iterations < 1000) throw new IllegalArgumentException("Password hashing needs at least 1000 iterations.");
+        this.file = file;
+        this.iterations = iterations;
+        random.nextBytes(dummySalt);
+    }
+
+    // Method to open the user store configured from system properties, creating the first admin if needed
+    // -Dauth.users=users.txt -Dauth.iterations=210000
+    // First start only: -Dauth.adminUser=admin -Dauth.adminPassword=... (or PERFUME_ADMIN_USER, PERFUME_ADMIN_PASSWORD)
+    public static UserStore openFromSystemProperties() throws IOException {
+        UserStore store = new UserStore(Paths.get(System.getProperty("auth.users", "users.txt")),
+                Integer.getInteger("auth.iterations", 210_000));
+        if (Files.exists(store.file)) {
+            store.load();
+            return store;
+        }
+        String username = setting("auth.adminUser", "PERFUME_ADMIN_USER");
+        if (username == null) username = "admin";
+        char[] password = firstAdminPassword(username, store.file);
+        try {
+            store.add(username, password, Role.ADMIN);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Cannot create the first admin: " + e.getMessage());
+        } finally {
+            Arrays.fill(password, '\0');
+        }
+        store.save();
+        System.out.println("Created " + store.file + " with admin account " + username + ", add customers from the admin menu.");
+        return store;
+    }
+
+    // Method to get the first admin's password from the settings, or from the console when there is one
+    private static char[] firstAdminPassword(String username, Path file) throws IOException {
+        String configured = setting("auth.adminPassword", "PERFUME_ADMIN_PASSWORD");
+        if (configured != null) return configured.toCharArray();
+        Console console = System.console();
+        if (console == null) {
+            throw new IOException(file + " does not exist; set -Dauth.adminPassword or PERFUME_ADMIN_PASSWORD "
+                    + "to create the first admin account, or start from a console to be asked for it.");
+        }
+        console.printf("No user accounts yet, choose a password for admin account %s.%n", username);
+        char[] password = console.readPassword("Password: ");
+        char[] again = console.readPassword("Repeat password: ");
+        if (password == null || again == null || !Arrays.equals(password, again)) {
+            throw new IOException("The passwords do not match, no admin account was created.");
+        }
+        Arrays.fill(again, '\0');
+        return password;
+    }
+
+    // Method to read a setting from a system property, or else an environment variable, null if neither is set
+    private static String setting(String property, String environment) {
+        String value = System.getProperty(property);
+        if (value == null || value.isEmpty()) value = System.getenv(environment);
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    // Method to check a username and password, returns the user or null if they don't match
+    // An unknown username costs a hash as well, so the time taken doesn't tell which usernames exist
+    public User authenticate(String username, char[] password) {
+        User user = users.get(key(username));
+        if (user == null) {
+            hash(password, dummySalt, iterations);
+            return null;
+        }
+        byte[] hash = hash(password, user.salt, user.iterations);
+        return MessageDigest.isEqual(hash, user.hash) ? user : null;
+    }
+
+    // Method to add an account
+    public User add(String username, char[] password, Role role) {
+        User user = create(username, password, role);
+        if (users.putIfAbsent(key(username), user) != null) throw new IllegalArgumentException("User " + username + " already exists.");
+        return user;
+    }
+
+    // Method to set an account's password, with a new salt
+    public void setPassword(String username, char[] password) {
+        User user = find(username);
+        if (user == null) throw new IllegalArgumentException("Unknown user " + username + ".");
+        users.put(key(username), create(user.username, password, user.role));
+    }
+
+    // Method to remove an account, returns false if there is none; the last admin cannot be removed
+    public synchronized boolean remove(String username) {
+        User user = find(username);
+        if (user == null) return false;
+        if (user.role == Role.ADMIN && users.values().stream().filter(u -> u.role == Role.ADMIN).count() == 1) {
+            throw new IllegalArgumentException("Cannot remove the last admin account.");
+        }
+        return users.remove(key(username), user);
+    }
+
+    // Method to find an account by username, null if there is none
+    public User find(String username) { return users.get(key(username)); }
+
+    // Method to list the accounts by username
+    public List<User> list() {
+        ArrayList<User> list = new ArrayList<>(users.values());
+        list.sort(Comparator.comparing(User::getUsername, String.CASE_INSENSITIVE_ORDER));
+        return list;
+    }
+
+    // Method to write the accounts back to the file, replacing it in one step
+    public synchronized void save() throws IOException {
+        if (file == null) return;
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Base64.Encoder base64 = Base64.getEncoder();
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write("# username;role;iterations;salt;hash (" + ALGORITHM + ")\n");
+            for (User user : list()) {
+                writer.write(user.username + ";" + user.role + ";" + user.iterations + ";"
+                        + base64.encodeToString(user.salt) + ";" + base64.encodeToString(user.hash) + "\n");
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Method to read the accounts from the file
+    private void load() throws IOException {
+        Base64.Decoder base64 = Base64.getDecoder();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] parts = line.split(";");
+            try {
+                if (parts.length != 5) throw new IllegalArgumentException("expected 5 fields");
+                User user = new User(parts[0], Role.valueOf(parts[1]), Integer.parseInt(parts[2]),
+                        base64.decode(parts[3]), base64.decode(parts[4]));
+                users.put(key(user.username), user);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(file + " line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Method to build an account with a fresh salt, the password is hashed here
+    private User create(String username, char[] password, Role role) {
+        if (username == null || username.isBlank() || username.indexOf(';') >= 0 || !username.equals(username.trim())) {
+            throw new IllegalArgumentException("Username cannot be empty, contain ';' or start or end with spaces.");
+        }
+        if (password.length < MIN_PASSWORD) throw new IllegalArgumentException("Password must have at least " + MIN_PASSWORD + " characters.");
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return new User(username, role, iterations, salt, hash(password, salt, iterations));
+    }
+
+    // Method to hash a password with PBKDF2
+    private static byte[] hash(char[] password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available: " + e.getMessage());
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static String key(String username) {
+        return username == null ? "" : username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // User class holding one account, replaced as a whole when its password changes
+    static class User {
+        private final String username;
+        private final Role role;
+        private final int iterations;
+        private final byte[] salt;
+        private final byte[] hash;
+
+        User(String username, Role role, int iterations, byte[] salt, byte[] hash) {
+            if (iterations < 1 || salt.length == 0 || hash.length == 0) throw new IllegalArgumentException("damaged password hash");
+            this.username = username;
+            this.role = role;
+            this.iterations = iterations;
+            this.salt = salt;
+            this.hash = hash;
+        }
+
+        // Getters for user attributes
+        public String getUsername() { return username; }
+        public Role getRole() { return role; }
+    }
+}
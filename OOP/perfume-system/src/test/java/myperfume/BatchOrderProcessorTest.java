@@ -0,0 +1,85 @@
+package myperfume;
+
+// Import required packages
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+// BatchOrderProcessorTest class checking that every order line ends up counted in the summary, placed or rejected,
+// including orders whose bill cannot be written
+class BatchOrderProcessorTest {
+
+    @TempDir
+    Path dir;
+
+    private Inventory savedInventory;
+    private StoreNetwork savedStores;
+    private BillWriter savedBillWriter;
+    private Inventory inventory;
+
+    @BeforeEach
+    void setUp() {
+        savedInventory = NewMyPerfumeSystem.inventory;
+        savedStores = NewMyPerfumeSystem.stores;
+        savedBillWriter = NewMyPerfumeSystem.billWriter;
+        inventory = new Inventory();
+        inventory.add(new Perfume("Rose Oud", Money.ofRinggit(100), 10));
+        inventory.add(new Perfume("Amber Musk", Money.ofRinggit(50), 1));
+        NewMyPerfumeSystem.inventory = inventory;
+        NewMyPerfumeSystem.stores = new StoreNetwork(inventory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        NewMyPerfumeSystem.billWriter.close();
+        NewMyPerfumeSystem.inventory = savedInventory;
+        NewMyPerfumeSystem.stores = savedStores;
+        NewMyPerfumeSystem.billWriter = savedBillWriter;
+    }
+
+    @Test
+    void countsPlacedAndRejectedOrders() throws Exception {
+        NewMyPerfumeSystem.billWriter = new BillWriter(16, 4, BillWriter.FlushPolicy.NONE, false);
+        String summary = process(null,
+                "# type,name,contact,address,items",
+                "I,Aisyah,0111,,0:2",
+                "O,Ben,0112,1 Jalan Ampang,0:1;1:1",
+                "X,Bad Type,0113,,0:1",
+                "I,Chong,0114,,7:1",
+                "I,Devi,0115,,1:1", // the only Amber Musk went to Ben
+                "I,Eng,0116,Nowhere,0:1",
+                "I,Farah,0117,,0:zero");
+        assertTrue(summary.contains("Orders placed:     2 (Online 1, InStore 1)"), summary);
+        assertTrue(summary.contains("Orders rejected:   5"), summary);
+        assertTrue(summary.contains("Items placed:      3 (4 units)"), summary);
+        assertEquals(7, inventory.get(0).getStockQuantity());
+        assertEquals(0, inventory.get(1).getStockQuantity());
+        assertTrue(summary.contains("Revenue:           RM350.00"), summary);
+    }
+
+    @Test
+    void ordersStayCountedWhenBillsCannotBeWritten() throws Exception {
+        BillWriter closed = new BillWriter(16, 4, BillWriter.FlushPolicy.NONE, false);
+        closed.close();
+        NewMyPerfumeSystem.billWriter = closed; // as during shutdown
+        String summary = process(dir.resolve("bills"),
+                "I,Aisyah,0111,,0:2",
+                "I,Ben,0112,,0:1",
+                "I,Chong,0113,,0:1");
+        assertTrue(summary.contains("Orders placed:     3 (Online 0, InStore 3)"), summary);
+        assertTrue(summary.contains("Orders rejected:   0"), summary);
+        assertEquals(6, inventory.get(0).getStockQuantity());
+    }
+
+    // Method to run the batch over some order lines on two threads, returns the summary it wrote
+    private String process(Path billDir, String... lines) throws IOException, InterruptedException {
+        Path orders = dir.resolve("orders.csv");
+        Files.write(orders, String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+        new BatchOrderProcessor(inventory, billDir, 2).process(orders);
+        return new String(Files.readAllBytes(dir.resolve("orders.csv.summary.txt")), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,142 @@
+package myperfume;
+
+// Import required packages
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+// BillArchiveTest class checking that bills read back the same after a restart, whether the last segment was cut
+// short by a crash, its index fell behind, or sealed segments were compacted, and that a reader interrupted
+// mid-read does not stop bills being appended
+class BillArchiveTest {
+    private static final long SEGMENT = 64 * 1024;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBillsBackAfterReopen() throws IOException {
+        try (BillArchive archive = BillArchive.open(dir, SEGMENT)) {
+            for (int i = 0; i < 50; i++) archive.append(name(i), bill(i, 200));
+            archive.append(name(7), bill(1007, 200)); // written again, the newest one wins
+            assertArrayEquals(bytes(bill(3, 200)), archive.read(name(3)));
+        }
+        try (BillArchive archive = BillArchive.open(dir, SEGMENT)) {
+            assertEquals(50, archive.size());
+            for (int i = 0; i < 50; i++) {
+                assertArrayEquals(bytes(bill(i == 7 ? 1007 : i, 200)), archive.read(name(i)), name(i));
+            }
+            assertNull(archive.read("missing"));
+        }
+    }
+
+    @Test
+    void truncatedLastBillIsDropped() throws IOException {
+        try (BillArchive archive = BillArchive.open(dir, SEGMENT)) {
+            for (int i = 0; i < 20; i++) archive.append(name(i), bill(i, 500));
+        }
+        Path segment = dir.resolve("bills-000001.seg");
+        long size = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 100); // the crash came in the middle of the last bill
+        }
+        try (BillArchive archive = BillArchive.open(dir, SEGMENT)) {
+            assertEquals(19, archive.size());
+            assertNull(archive.read(name(19)));
+            for (int i = 0; i < 19; i++) assertArrayEquals(bytes(bill(i, 500)), archive.read(name(i)), name(i));
+            archive.append(name(19), bill(19, 500)); // written again where the cut bill was
+        }
+        try (BillArchive archive = BillArchive.open(dir, SEGMENT)) {
+            assertEquals(20, archive.size());
+            for (int i = 0; i < 20; i++) assertArrayEquals(bytes(bill(i, 500)), archive.read(name(i)), name(i));
+        }
+    }
+
+    @Test
+    void billsMissingFromTheIndexAreFoundBySegmentScan() throws IOException {
+        try (BillArchive archive = BillArchive.open(dir, SEGMENT)) {
+            for (int i = 0; i < 20; i++) archive.append(name(i), bill(i, 300));
+        }
+        Path index = dir.resolve("bills-000001.idx");
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5 * 20 - 7); // the last entries (and part of one) never reached the disk
+        }
+        try (BillArchive archive = BillArchive.open(dir, SEGMENT)) {
+            assertEquals(20, archive.size());
+            for (int i = 0; i < 20; i++) assertArrayEquals(bytes(bill(i, 300)), archive.read(name(i)), name(i));
+        }
+        assertEquals(20 * 20, Files.size(index)); // the scan wrote the missing entries back
+    }
+
+    @Test
+    void compactedSegmentsReadBackAfterReopen() throws Exception {
+        int count = 120; // about four segments of 2 KB bills
+        try (BillArchive archive = BillArchive.open(dir, SEGMENT)) {
+            for (int i = 0; i < count; i++) archive.append(name(i), bill(i, 2000));
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (archive.getCompactedSegments() < archive.getSegmentCount() - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(archive.getCompactedSegments() >= 3, "sealed segments were not compacted");
+            assertTrue(archive.getCompressedBytes() < archive.getRawBytesCompacted());
+            for (int i = 0; i < count; i++) assertArrayEquals(bytes(bill(i, 2000)), archive.read(name(i)), name(i));
+        }
+        assertTrue(Files.exists(dir.resolve("bills-000001.segz")));
+        assertFalse(Files.exists(dir.resolve("bills-000001.seg")));
+        Files.write(dir.resolve("bills-000002.segz.tmp"), new byte[100]); // as left by a compaction cut short
+
+        try (BillArchive archive = BillArchive.open(dir, SEGMENT)) {
+            assertFalse(Files.exists(dir.resolve("bills-000002.segz.tmp")));
+            assertEquals(count, archive.size());
+            for (int i = 0; i < count; i++) assertArrayEquals(bytes(bill(i, 2000)), archive.read(name(i)), name(i));
+        }
+    }
+
+    @Test
+    void interruptedReaderDoesNotStopAppends() throws IOException {
+        try (BillArchive archive = BillArchive.open(dir, SEGMENT)) {
+            archive.append(name(0), bill(0, 200));
+            Thread.currentThread().interrupt(); // closes the channel this read goes through
+            try {
+                archive.read(name(0));
+            } catch (ClosedByInterruptException expected) {
+                // the interrupted reader fails, nothing else should
+            } finally {
+                Thread.interrupted();
+            }
+            archive.append(name(1), bill(1, 200));
+            archive.force();
+            assertArrayEquals(bytes(bill(0, 200)), archive.read(name(0)));
+            assertArrayEquals(bytes(bill(1, 200)), archive.read(name(1)));
+        }
+        try (BillArchive archive = BillArchive.open(dir, SEGMENT)) {
+            assertEquals(2, archive.size());
+            assertArrayEquals(bytes(bill(1, 200)), archive.read(name(1)));
+        }
+    }
+
+    private static String name(int i) {
+        return "bill-" + i + ".txt";
+    }
+
+    // Method to make a bill body of about size bytes, different for every number
+    private static ByteBuffer bill(int number, int size) {
+        StringBuilder text = new StringBuilder("=== Bill " + number + " ===\n");
+        for (int line = 0; text.length() < size; line++) {
+            text.append("Perfume ").append(number % 17).append('-').append(line).append(" x1 @ RM").append(10 + line % 90).append(".00\n");
+        }
+        return ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,89 @@
+package myperfume;
+
+// Import required packages
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.*;
+
+// BillRendererTest class checking the text, CSV and JSON bills, with names that need quoting or escaping and
+// names that are not ASCII, and that bad layouts fail when compiled
+class BillRendererTest {
+    private Inventory savedInventory;
+    private StoreNetwork savedStores;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        savedInventory = NewMyPerfumeSystem.inventory;
+        savedStores = NewMyPerfumeSystem.stores;
+        Inventory inventory = new Inventory();
+        inventory.add(new Perfume("Rose \"Oud\", No. 5", Money.ofRinggit(120), 10));
+        inventory.add(new Perfume("Café Noir", Money.parse("50.50"), 10));
+        NewMyPerfumeSystem.inventory = inventory;
+        NewMyPerfumeSystem.stores = new StoreNetwork(inventory);
+        order = new InStoreOrder(new Customer("Tan, \"Ah\" Kow", "0123"), NewMyPerfumeSystem.stores.main());
+        order.addPerfume(inventory.get(0), 1);
+        order.addPerfume(inventory.get(1), 1);
+        order.addPerfume(inventory.get(0), 1); // merged into the first line
+    }
+
+    @AfterEach
+    void tearDown() {
+        order.cancel();
+        NewMyPerfumeSystem.inventory = savedInventory;
+        NewMyPerfumeSystem.stores = savedStores;
+    }
+
+    @Test
+    void csvQuotesOnlyWhatNeedsIt() {
+        assertEquals(String.join("\n",
+                "Customer,\"Tan, \"\"Ah\"\" Kow\"",
+                "Order Type,InStore",
+                "Contact,0123",
+                "Store Address,\"" + StoreNetwork.MAIN_STORE_ADDRESS + "\"",
+                "",
+                "SKU,Perfume,Quantity,Price,Subtotal",
+                "0,\"Rose \"\"Oud\"\", No. 5\",2,120.00,240.00",
+                "1,Café Noir,1,50.50,50.50",
+                ",,,Total,290.50",
+                ""), order.renderBill(BillFormat.CSV));
+    }
+
+    @Test
+    void jsonParsesBackToTheOrder() {
+        String json = order.renderBill(BillFormat.JSON);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> bill = (Map<String, Object>) Json.parse(json);
+        assertEquals("Tan, \"Ah\" Kow", bill.get("customer"));
+        assertEquals("InStore", bill.get("type"));
+        assertEquals("0123", bill.get("contact"));
+        assertEquals(StoreNetwork.MAIN_STORE_ADDRESS, bill.get("storeAddress"));
+        assertEquals("290.50", bill.get("total"));
+        List<?> lines = (List<?>) bill.get("lines");
+        assertEquals(2, lines.size());
+        assertEquals(Map.of("sku", 0L, "perfume", "Rose \"Oud\", No. 5", "quantity", 2L, "price", "120.00", "subtotal", "240.00"), lines.get(0));
+        assertEquals(Map.of("sku", 1L, "perfume", "Café Noir", "quantity", 1L, "price", "50.50", "subtotal", "50.50"), lines.get(1));
+    }
+
+    @Test
+    void textPadsByCharactersNotBytes() {
+        String text = order.renderBill(BillFormat.TEXT);
+        assertTrue(text.startsWith("=== Bill for Tan, \"Ah\" Kow (InStore Order) ===\nContact: 0123\n"), text);
+        assertTrue(text.contains(String.format("%-20s x%-3s @ RM%s = RM%s\n", "Café Noir", 1, "50.50", "50.50")), text);
+        assertTrue(text.endsWith("\nTotal: RM290.50\n"), text);
+    }
+
+    @Test
+    void badLayoutsFailWhenCompiled() {
+        assertThrows(IllegalArgumentException.class, () -> layout("${customer", "${total}"));
+        assertThrows(IllegalArgumentException.class, () -> layout("${nothing}", "${total}"));
+        assertThrows(IllegalArgumentException.class, () -> layout("${customer:wide}", "${total}"));
+        assertThrows(IllegalArgumentException.class, () -> layout("${total}", "${total}")); // only in the foot
+        assertNotNull(layout("${customer:-30}", "${total:12}"));
+    }
+
+    private static BillRenderer layout(String head, String foot) {
+        return new BillRenderer(BillRenderer.Escape.NONE, head, "", "", "${perfume}", "", foot);
+    }
+}
@@ -0,0 +1,161 @@
+package myperfume;
+
+// Import required packages
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.net.http.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.junit.jupiter.api.*;
+
+// IdempotencyKeysTest class checking that a retried request gets the first response back without running again,
+// and that a key reused for a different request is refused with 422, both on the key store and over HTTP
+class IdempotencyKeysTest {
+    private static final String ORDER = "{\"type\":\"InStore\",\"name\":\"Aisyah\",\"contact\":\"0123\",\"items\":[{\"sku\":0,\"quantity\":2}]}";
+
+    private Inventory savedInventory;
+    private StoreNetwork savedStores;
+
+    @BeforeEach
+    void setUp() {
+        savedInventory = NewMyPerfumeSystem.inventory;
+        savedStores = NewMyPerfumeSystem.stores;
+    }
+
+    @AfterEach
+    void tearDown() {
+        NewMyPerfumeSystem.inventory = savedInventory;
+        NewMyPerfumeSystem.stores = savedStores;
+    }
+
+    @Test
+    void retryReplaysTheFirstResponse() {
+        IdempotencyKeys keys = new IdempotencyKeys(60, 100);
+        AtomicInteger runs = new AtomicInteger();
+        IdempotencyKeys.Result first = keys.run("k1", ORDER, () -> new IdempotencyKeys.Response(201, "{\"run\":" + runs.incrementAndGet() + "}"));
+        IdempotencyKeys.Result retry = keys.run("k1", ORDER, () -> new IdempotencyKeys.Response(201, "{\"run\":" + runs.incrementAndGet() + "}"));
+        assertFalse(first.replayed);
+        assertTrue(retry.replayed);
+        assertEquals(1, runs.get());
+        assertEquals(201, retry.response.status);
+        assertEquals("{\"run\":1}", retry.response.body);
+        assertEquals(1, keys.getReplayedCount());
+    }
+
+    @Test
+    void keyReusedForAnotherRequestIsRefused() {
+        IdempotencyKeys keys = new IdempotencyKeys(60, 100);
+        keys.run("k1", ORDER, () -> new IdempotencyKeys.Response(201, "{}"));
+        IdempotencyKeys.Result other = keys.run("k1", ORDER.replace("\"quantity\":2", "\"quantity\":3"),
+                () -> fail("a different request must not run under a used key"));
+        assertFalse(other.replayed);
+        assertEquals(422, other.response.status);
+        assertTrue(other.response.body.startsWith("{\"error\":"));
+        assertEquals(0, keys.getReplayedCount());
+    }
+
+    @Test
+    void failedFirstAttemptLetsTheRetryRun() {
+        IdempotencyKeys keys = new IdempotencyKeys(60, 100);
+        assertThrows(IllegalStateException.class, () -> keys.run("k1", ORDER, () -> {
+            throw new IllegalStateException("connection lost");
+        }));
+        IdempotencyKeys.Result retry = keys.run("k1", ORDER, () -> new IdempotencyKeys.Response(201, "{}"));
+        assertFalse(retry.replayed);
+        assertEquals(201, retry.response.status);
+    }
+
+    @Test
+    void retryDuringTheFirstAttemptWaitsForItsResponse() throws Exception {
+        IdempotencyKeys keys = new IdempotencyKeys(60, 100);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<IdempotencyKeys.Result> first = pool.submit(() -> keys.run("k1", ORDER, () -> {
+                runs.incrementAndGet();
+                running.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new IdempotencyKeys.Response(201, "{\"bill\":\"b-1\"}");
+            }));
+            running.await();
+            Future<IdempotencyKeys.Result> retry = pool.submit(() -> keys.run("k1", ORDER, () -> {
+                runs.incrementAndGet();
+                return new IdempotencyKeys.Response(201, "{\"bill\":\"b-2\"}");
+            }));
+            Thread.sleep(50);
+            assertFalse(retry.isDone());
+            release.countDown();
+            assertEquals("{\"bill\":\"b-1\"}", retry.get(10, TimeUnit.SECONDS).response.body);
+            assertTrue(retry.get().replayed);
+            assertFalse(first.get(10, TimeUnit.SECONDS).replayed);
+            assertEquals(1, runs.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void oldestKeysAreEvictedPastTheLimit() {
+        IdempotencyKeys keys = new IdempotencyKeys(60, 3);
+        for (int i = 0; i < 5; i++) keys.run("k" + i, ORDER, () -> new IdempotencyKeys.Response(201, "{}"));
+        assertEquals(3, keys.size());
+        assertFalse(keys.run("k0", ORDER, () -> new IdempotencyKeys.Response(201, "{}")).replayed);
+        assertTrue(keys.run("k4", ORDER, () -> new IdempotencyKeys.Response(201, "{}")).replayed);
+    }
+
+    @Test
+    void serviceReplaysRetriedOrdersAndRefusesChangedOnes() throws Exception {
+        Inventory inventory = new Inventory();
+        NewMyPerfumeSystem.inventory = inventory;
+        NewMyPerfumeSystem.stores = new StoreNetwork(inventory);
+        Perfume perfume = new Perfume("Rose Oud", Money.ofRinggit(120), 10);
+        inventory.add(perfume);
+        String auth = System.setProperty("service.auth", "false");
+        OrderService service;
+        try {
+            service = new OrderService(inventory, new SalesMetrics(), null, 0, 16);
+        } finally {
+            if (auth == null) System.clearProperty("service.auth");
+            else System.setProperty("service.auth", auth);
+        }
+        service.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            HttpResponse<String> first = post(client, service, "retry-1", ORDER);
+            HttpResponse<String> retry = post(client, service, "retry-1", ORDER);
+            assertTrue(first.statusCode() / 100 == 2, first.body());
+            assertEquals(first.statusCode(), retry.statusCode());
+            assertEquals(first.body(), retry.body());
+            assertEquals("true", retry.headers().firstValue("Idempotent-Replayed").orElse(null));
+            assertTrue(first.headers().firstValue("Idempotent-Replayed").isEmpty());
+            assertEquals(8, perfume.getStockQuantity()); // placed once
+            assertEquals(1, service.getOrdersPlaced());
+
+            HttpResponse<String> changed = post(client, service, "retry-1", ORDER.replace("\"quantity\":2", "\"quantity\":5"));
+            assertEquals(422, changed.statusCode());
+            assertEquals(8, perfume.getStockQuantity());
+
+            HttpResponse<String> fresh = post(client, service, "retry-2", ORDER);
+            assertTrue(fresh.statusCode() / 100 == 2, fresh.body());
+            assertEquals(6, perfume.getStockQuantity());
+        } finally {
+            service.stop(0);
+        }
+    }
+
+    private static HttpResponse<String> post(HttpClient client, OrderService service, String key, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + service.getPort() + "/orders"))
+                .header("Content-Type", "application/json")
+                .header("Idempotency-Key", key)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
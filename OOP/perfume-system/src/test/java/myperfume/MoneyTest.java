@@ -0,0 +1,60 @@
+package myperfume;
+
+// Import required packages
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+// MoneyTest class checking that amounts are read and printed exactly in sen, and that bad amounts are refused
+class MoneyTest {
+
+    @Test
+    void parseReadsWholeAndFractionalRinggit() {
+        assertEquals(1200, Money.parse("12"));
+        assertEquals(1250, Money.parse("12.5"));
+        assertEquals(1250, Money.parse("12.50"));
+        assertEquals(1205, Money.parse("12.05"));
+        assertEquals(50, Money.parse(".5"));
+        assertEquals(1200, Money.parse("12."));
+        assertEquals(1999, Money.parse(" RM19.99 "));
+        assertEquals(1999, Money.parse("rm19.99"));
+        assertEquals(-250, Money.parse("-2.50"));
+        assertEquals(0, Money.parse("0.00"));
+        assertEquals(10, Money.parse("0.1")); // exact, unlike 0.1 as a double
+    }
+
+    @Test
+    void parseRefusesBadAmounts() {
+        for (String bad : new String[] {"", ".", "12.345", "1,000", "12.-5", "+5", "RM", "abc", "1e3", "--1"}) {
+            assertThrows(NumberFormatException.class, () -> Money.parse(bad), bad);
+        }
+        assertThrows(ArithmeticException.class, () -> Money.parse("92233720368547758.08")); // one sen past the largest amount
+    }
+
+    @Test
+    void formatAlwaysShowsTwoDecimals() {
+        assertEquals("0.00", Money.format(0));
+        assertEquals("0.05", Money.format(5));
+        assertEquals("12.50", Money.format(1250));
+        assertEquals("1000000.01", Money.format(100_000_001));
+        assertEquals("-2.50", Money.format(-250));
+        assertEquals("-0.05", Money.format(-5));
+        assertEquals("92233720368547758.07", Money.format(Long.MAX_VALUE));
+        assertEquals("-92233720368547758.08", Money.format(Long.MIN_VALUE));
+    }
+
+    @Test
+    void formatAndParseRoundTrip() {
+        for (long sen : new long[] {0, 1, 99, 100, 101, 123_456_789, -1, -100, Long.MAX_VALUE}) {
+            assertEquals(sen, Money.parse(Money.format(sen)));
+        }
+        assertEquals("Total: RM12.50", Money.appendTo(new StringBuilder("Total: RM"), 1250).toString());
+    }
+
+    @Test
+    void arithmeticFailsInsteadOfOverflowing() {
+        assertEquals(Money.parse("360.00"), Money.times(Money.ofRinggit(120), 3));
+        assertThrows(ArithmeticException.class, () -> Money.times(Long.MAX_VALUE / 2, 3));
+        assertThrows(ArithmeticException.class, () -> Money.ofRinggit(Long.MAX_VALUE / 10));
+    }
+}
@@ -0,0 +1,122 @@
+package myperfume;
+
+// Import required packages
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.junit.jupiter.api.*;
+
+// OrderHistoryTest class checking bill IDs, owners read back by bill ID while orders are still being recorded,
+// and that the customer registry keeps one record per contact
+class OrderHistoryTest {
+    private static final int CHUNK = 1 << 14;
+
+    private Inventory savedInventory;
+    private StoreNetwork savedStores;
+
+    @BeforeEach
+    void setUp() {
+        savedInventory = NewMyPerfumeSystem.inventory;
+        savedStores = NewMyPerfumeSystem.stores;
+        NewMyPerfumeSystem.inventory = new Inventory();
+        NewMyPerfumeSystem.stores = new StoreNetwork(NewMyPerfumeSystem.inventory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        NewMyPerfumeSystem.inventory = savedInventory;
+        NewMyPerfumeSystem.stores = savedStores;
+    }
+
+    @Test
+    void billIdsNameTheirOrders() {
+        OrderHistory history = new OrderHistory("run1");
+        int first = history.record(order("alice"));
+        int second = history.record(order(null));
+        assertEquals("run1-1", history.billId(first));
+        assertEquals("run1-2", history.billId(second));
+        assertEquals("alice", history.owner("run1-1"));
+        assertEquals("alice", history.get(first).getOwner());
+        assertNull(history.owner("run1-2"));
+        assertEquals("InStore", history.get(second).getOrderType());
+    }
+
+    @Test
+    void unknownBillIdsHaveNoOwner() {
+        OrderHistory history = new OrderHistory("run1");
+        history.record(order("alice"));
+        assertNull(history.owner("run1-2")); // not recorded yet
+        assertNull(history.owner("run1-0"));
+        assertNull(history.owner("run1-" + (CHUNK + 1))); // in a chunk that does not exist
+        assertNull(history.owner("run1-" + (CHUNK * 100 + 1))); // past the end of the chunk table
+        assertNull(history.owner("run1-x"));
+        assertNull(history.owner("run2-1"));
+        assertNull(history.owner(null));
+        assertThrows(IllegalArgumentException.class, () -> history.get(1));
+        assertThrows(IllegalArgumentException.class, () -> history.get(CHUNK * 100));
+    }
+
+    @Test
+    void guessedBillIdsAtChunkBoundariesNeverFail() throws Exception {
+        OrderHistory history = new OrderHistory("run1");
+        Order order = order("alice");
+        int total = CHUNK * 3 + 10;
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger seen = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> writer = pool.submit(() -> {
+                for (int i = 0; i < total; i++) history.record(order);
+                done.set(true);
+            });
+            Future<?> reader = pool.submit(() -> {
+                while (!done.get()) {
+                    int next = history.size();
+                    for (int guess = next - 2; guess <= next + 2; guess++) {
+                        String owner = history.owner("run1-" + (guess + 1)); // the next orders, maybe in a new chunk
+                        if (owner != null) {
+                            assertEquals("alice", owner);
+                            seen.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            writer.get(60, TimeUnit.SECONDS);
+            reader.get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(total, history.size());
+        assertEquals("alice", history.owner("run1-" + total));
+        assertTrue(seen.get() > 0);
+    }
+
+    @Test
+    void returningContactKeepsTheNameOnFile() {
+        CustomerRegistry registry = new CustomerRegistry();
+        Customer first = registry.register("Aisyah", "012-345 6789");
+        Customer again = registry.register("Someone Else", "0123456789");
+        assertSame(first, again);
+        assertEquals("Aisyah", again.getName());
+        assertSame(first, registry.find(" 012 3456789 "));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void walkInsAreNotRegistered() {
+        CustomerRegistry registry = new CustomerRegistry();
+        Customer walkIn = registry.register("Walk-in", " ");
+        assertNotSame(walkIn, registry.register("Walk-in", ""));
+        assertNull(registry.find(""));
+        assertEquals(0, registry.size());
+    }
+
+    // Method to make an empty in-store order placed from an account (null for none)
+    private static Order order(String owner) {
+        Order order = new InStoreOrder(new Customer("Test", "000"), NewMyPerfumeSystem.stores.main());
+        order.setOwner(owner);
+        return order;
+    }
+}
@@ -0,0 +1,116 @@
+package myperfume;
+
+// Import required packages
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+// OrderOwnershipTest class checking that orders made from the customer menu belong to the logged-in account,
+// and that another customer cannot list them or open their bills by typing the same contact or bill ID
+class OrderOwnershipTest {
+
+    @TempDir
+    Path dir;
+
+    private Inventory savedInventory;
+    private StoreNetwork savedStores;
+    private BillWriter savedBillWriter;
+    private SessionCache.Session alice;
+    private SessionCache.Session bob;
+    private SessionCache.Session admin;
+    private String contact; // a family phone both accounts order with, new for each test
+
+    @BeforeEach
+    void setUp() {
+        contact = "011-" + System.nanoTime();
+        savedInventory = NewMyPerfumeSystem.inventory;
+        savedStores = NewMyPerfumeSystem.stores;
+        savedBillWriter = NewMyPerfumeSystem.billWriter;
+        Inventory inventory = new Inventory();
+        inventory.add(new Perfume("Rose Oud", Money.ofRinggit(120), 50));
+        NewMyPerfumeSystem.inventory = inventory;
+        NewMyPerfumeSystem.stores = new StoreNetwork(inventory);
+        NewMyPerfumeSystem.billWriter = new BillWriter(16, 4, BillWriter.FlushPolicy.NONE, false, dir, 64 * 1024);
+
+        UserStore users = new UserStore(dir.resolve("users.txt"), 1000);
+        SessionCache sessions = new SessionCache(60, 10);
+        alice = sessions.create(users.add("alice", "secret1".toCharArray(), UserStore.Role.CUSTOMER));
+        bob = sessions.create(users.add("bob", "secret2".toCharArray(), UserStore.Role.CUSTOMER));
+        admin = sessions.create(users.add("boss", "secret3".toCharArray(), UserStore.Role.ADMIN));
+    }
+
+    @AfterEach
+    void tearDown() {
+        NewMyPerfumeSystem.billWriter.close();
+        NewMyPerfumeSystem.inventory = savedInventory;
+        NewMyPerfumeSystem.stores = savedStores;
+        NewMyPerfumeSystem.billWriter = savedBillWriter;
+    }
+
+    @Test
+    void menuOrdersAreOnlyListedForTheirAccount() {
+        run(in -> NewMyPerfumeSystem.makeOrder(in, alice), "Alice\n" + contact + "\nI\n1\n2\n-1\n");
+        run(in -> NewMyPerfumeSystem.makeOrder(in, bob), "Bob\n" + contact + "\nI\n1\n3\n-1\n");
+        List<OrderHistory.Entry> orders = orders();
+        assertEquals(List.of("alice", "bob"), orders.stream().map(OrderHistory.Entry::getOwner).sorted().toList());
+        String aliceBill = billOf(orders, "alice");
+        String bobBill = billOf(orders, "bob");
+
+        String seenByBob = run(in -> NewMyPerfumeSystem.viewPastOrders(in, bob), contact + "\n\n");
+        assertTrue(seenByBob.contains(bobBill));
+        assertFalse(seenByBob.contains(aliceBill));
+        assertTrue(seenByBob.contains("(1 in total)"));
+
+        String seenByAdmin = run(in -> NewMyPerfumeSystem.viewPastOrders(in, admin), contact + "\n\n");
+        assertTrue(seenByAdmin.contains(aliceBill) && seenByAdmin.contains(bobBill));
+    }
+
+    @Test
+    void anotherAccountsBillCannotBeOpenedById() {
+        run(in -> NewMyPerfumeSystem.makeOrder(in, alice), "Alice\n" + contact + "\nI\n1\n1\n-1\n");
+        run(in -> NewMyPerfumeSystem.makeOrder(in, bob), "Bob\n" + contact + "\nI\n1\n1\n-1\n");
+        String aliceBill = billOf(orders(), "alice");
+
+        String output = run(in -> NewMyPerfumeSystem.viewPastOrders(in, bob), contact + "\n" + aliceBill + "\n");
+        assertTrue(output.contains("No archived bill " + aliceBill + "."));
+        assertFalse(output.contains("=== Bill"));
+    }
+
+    @Test
+    void contactWithoutOwnOrdersShowsNothing() {
+        run(in -> NewMyPerfumeSystem.makeOrder(in, alice), "Alice\n" + contact + "\nI\n1\n1\n-1\n");
+        String output = run(in -> NewMyPerfumeSystem.viewPastOrders(in, bob), contact + "\n");
+        assertTrue(output.contains("No orders found for this contact."));
+        assertFalse(output.contains("Alice"));
+    }
+
+    // Method to find the menu orders of the shared contact made in this test
+    private List<OrderHistory.Entry> orders() {
+        Customer customer = NewMyPerfumeSystem.customers.find(contact);
+        ArrayList<OrderHistory.Entry> entries = new ArrayList<>();
+        for (int number : customer.recentOrders(2)) entries.add(NewMyPerfumeSystem.orderHistory.get(number));
+        return entries;
+    }
+
+    private static String billOf(List<OrderHistory.Entry> orders, String owner) {
+        return orders.stream().filter(e -> owner.equals(e.getOwner())).findFirst().orElseThrow().getBillId();
+    }
+
+    // Method to run a menu action on typed input, returns what it printed
+    private static String run(java.util.function.Consumer<Scanner> action, String input) {
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true, StandardCharsets.UTF_8));
+        try {
+            action.accept(new Scanner(input));
+        } finally {
+            System.setOut(out);
+        }
+        return printed.toString(StandardCharsets.UTF_8);
+    }
+}
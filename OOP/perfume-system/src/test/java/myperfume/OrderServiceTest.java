@@ -0,0 +1,86 @@
+package myperfume;
+
+// Import required packages
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.net.http.*;
+import java.nio.file.Path;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+// OrderServiceTest class checking which endpoints need a session when logins are on: /metrics is for admins,
+// /inventory is the public catalog
+class OrderServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private Inventory savedInventory;
+    private StoreNetwork savedStores;
+    private OrderService service;
+    private HttpClient client;
+    private String customerToken;
+    private String adminToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        savedInventory = NewMyPerfumeSystem.inventory;
+        savedStores = NewMyPerfumeSystem.stores;
+        Inventory inventory = new Inventory();
+        inventory.add(new Perfume("Rose Oud", Money.ofRinggit(120), 10));
+        NewMyPerfumeSystem.inventory = inventory;
+        NewMyPerfumeSystem.stores = new StoreNetwork(inventory);
+
+        UserStore users = new UserStore(dir.resolve("users.txt"), 1000);
+        customerToken = NewMyPerfumeSystem.sessions.create(users.add("carol", "secret1".toCharArray(), UserStore.Role.CUSTOMER)).getToken();
+        adminToken = NewMyPerfumeSystem.sessions.create(users.add("boss", "secret2".toCharArray(), UserStore.Role.ADMIN)).getToken();
+        String auth = System.setProperty("service.auth", "true");
+        try {
+            service = new OrderService(inventory, new SalesMetrics(), null, 0, 16);
+        } finally {
+            if (auth == null) System.clearProperty("service.auth");
+            else System.setProperty("service.auth", auth);
+        }
+        service.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop(0);
+        NewMyPerfumeSystem.sessions.invalidate(customerToken);
+        NewMyPerfumeSystem.sessions.invalidate(adminToken);
+        NewMyPerfumeSystem.inventory = savedInventory;
+        NewMyPerfumeSystem.stores = savedStores;
+    }
+
+    @Test
+    void metricsNeedAnAdminSession() throws Exception {
+        assertEquals(401, get("/metrics", null).statusCode());
+        assertEquals(403, get("/metrics", customerToken).statusCode());
+        HttpResponse<String> metrics = get("/metrics", adminToken);
+        assertEquals(200, metrics.statusCode());
+        assertTrue(metrics.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+    }
+
+    @Test
+    void inventoryIsPublic() throws Exception {
+        HttpResponse<String> catalog = get("/inventory", null);
+        assertEquals(200, catalog.statusCode());
+        assertTrue(catalog.body().contains("Rose Oud"));
+        assertEquals(200, get("/inventory/0", null).statusCode());
+    }
+
+    @Test
+    void ordersNeedASession() throws Exception {
+        assertEquals(401, get("/orders?contact=0123", null).statusCode());
+        assertEquals(403, get("/sales", customerToken).statusCode());
+    }
+
+    private HttpResponse<String> get(String path, String token) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + service.getPort() + path));
+        if (token != null) request.header("Authorization", "Bearer " + token);
+        return client.send(request.GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
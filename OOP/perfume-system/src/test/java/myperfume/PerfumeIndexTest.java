@@ -0,0 +1,70 @@
+package myperfume;
+
+// Import required packages
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.*;
+
+// PerfumeIndexTest class checking exact, prefix and typo-tolerant searches, over catalog perfumes indexed on the
+// first search and perfumes added afterwards
+class PerfumeIndexTest {
+    private Inventory inventory;
+    private PerfumeIndex index;
+
+    @BeforeEach
+    void setUp() {
+        inventory = new Inventory();
+        for (String name : List.of("Rose Oud", "Rose Musk", "Amber Musk", "Vetiver", "Oud Wood", "Rosewood")) {
+            inventory.add(new Perfume(name, Money.ofRinggit(100), 10));
+        }
+        index = new PerfumeIndex(inventory);
+    }
+
+    @Test
+    void exactAndPrefixIgnoreCaseAndSpacing() {
+        assertEquals(List.of(0), index.findExact("  rose   OUD "));
+        assertEquals(List.of(), index.findExact("Rose"));
+        assertEquals(List.of(1, 0, 5), index.findByPrefix("rose", 10)); // in name order
+        assertEquals(List.of(0), index.findByPrefix("ROSE o", 10));
+        assertEquals(List.of(1), index.findByPrefix("rose", 1));
+    }
+
+    @Test
+    void fuzzyFindsNamesWithTypos() {
+        assertEquals(List.of(3), index.findFuzzy("Vetivr", 1, 10)); // one letter missing
+        assertEquals(List.of(3), index.findFuzzy("Vetjver", 1, 10)); // one letter wrong
+        assertEquals(List.of(2), index.findFuzzy("Ambre Musk", 2, 10)); // two letters swapped
+        assertEquals(List.of(), index.findFuzzy("Ambre Musk", 1, 10));
+        assertEquals(List.of(), index.findFuzzy("Patchouli", 2, 10));
+    }
+
+    @Test
+    void fuzzyMatchesTheStartOfLongerNames() {
+        assertEquals(List.of(4), index.findFuzzy("oud wod", 1, 10)); // "Oud Wood" with a letter missing
+        List<Integer> roses = index.findFuzzy("rosr", 1, 10); // the start of every Rose name
+        assertEquals(Set.of(0, 1, 5), new HashSet<>(roses));
+        assertEquals(2, index.findFuzzy("rosr", 1, 2).size());
+    }
+
+    @Test
+    void fuzzyRanksCloserNamesFirst() {
+        inventory.add(new Perfume("Oud Rose", Money.ofRinggit(100), 10)); // SKU 6, indexed as it is added
+        assertEquals(List.of(4, 6), index.findFuzzy("oud wosd", 2, 10)); // one edit from Oud Wood, two from Oud Rose
+    }
+
+    @Test
+    void searchFallsBackToFuzzyOnlyWhenNothingElseMatches() {
+        assertEquals(List.of(0, 1, 5), sorted(index.search("Rose", 10)));
+        assertEquals(List.of(0), index.search("Rose Oud", 1));
+        assertEquals(List.of(3), index.search("Vettiver", 10));
+        inventory.add(new Perfume("Vetiver Extreme", Money.ofRinggit(100), 10));
+        assertEquals(List.of(3, 6), index.search("vetiver", 10));
+    }
+
+    private static List<Integer> sorted(List<Integer> skus) {
+        List<Integer> copy = new ArrayList<>(skus);
+        Collections.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,95 @@
+package myperfume;
+
+// Import required packages
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+
+// PriceRuleTest class checking when a rule is in force: from its start, up to but not at its end, and that the
+// pricing engine picks promotions up and drops them as their dates come and go
+class PriceRuleTest {
+
+    @Test
+    void windowStartsAtFromAndEndsBeforeTo() {
+        PriceRule rule = PriceRule.parse("November sale; off=10%; from=2026-11-01; to=2026-11-30T23:59");
+        long from = millis(LocalDateTime.of(2026, 11, 1, 0, 0));
+        long to = millis(LocalDateTime.of(2026, 11, 30, 23, 59));
+        assertEquals(from, rule.getFromMillis());
+        assertEquals(to, rule.getToMillis());
+        assertFalse(rule.activeAt(from - 1));
+        assertTrue(rule.activeAt(from));
+        assertTrue(rule.activeAt(millis(LocalDateTime.of(2026, 11, 15, 12, 0))));
+        assertTrue(rule.activeAt(to - 1));
+        assertFalse(rule.activeAt(to));
+    }
+
+    @Test
+    void dateAloneMeansItsMidnight() {
+        PriceRule rule = PriceRule.parse("Weekend; off=5%; from=2026-12-05; to=2026-12-07");
+        assertTrue(rule.activeAt(millis(LocalDateTime.of(2026, 12, 6, 23, 59, 59))));
+        assertFalse(rule.activeAt(millis(LocalDateTime.of(2026, 12, 7, 0, 0)))); // "to" is exclusive
+        assertFalse(rule.activeAt(millis(LocalDateTime.of(2026, 12, 4, 23, 59, 59))));
+    }
+
+    @Test
+    void openEndedRulesHaveNoLimit() {
+        PriceRule always = PriceRule.parse("Members; off=3%");
+        assertTrue(always.activeAt(Long.MIN_VALUE));
+        assertTrue(always.activeAt(Long.MAX_VALUE - 1));
+        PriceRule from = PriceRule.parse("Launch; off=8%; from=2026-11-01");
+        assertFalse(from.activeAt(millis(LocalDateTime.of(2026, 10, 31, 23, 0))));
+        assertTrue(from.activeAt(millis(LocalDateTime.of(2030, 1, 1, 0, 0))));
+        PriceRule until = PriceRule.parse("Clearance; off=20%; to=2026-11-01");
+        assertTrue(until.activeAt(millis(LocalDateTime.of(2020, 1, 1, 0, 0))));
+        assertFalse(until.activeAt(millis(LocalDateTime.of(2026, 11, 1, 0, 0))));
+    }
+
+    @Test
+    void windowSurvivesWritingAndParsing() {
+        PriceRule rule = PriceRule.parse("Bundle; off=12.5%; type=Online; skus=3,1; min=2; from=2026-11-01T09:30; to=2026-11-02");
+        PriceRule again = PriceRule.parse(rule.toLine());
+        assertEquals(rule.toLine(), again.toLine());
+        assertEquals(rule.getFromMillis(), again.getFromMillis());
+        assertEquals(rule.getToMillis(), again.getToMillis());
+    }
+
+    @Test
+    void emptyOrBadWindowsAreRefused() {
+        assertThrows(IllegalArgumentException.class, () -> PriceRule.parse("Backwards; off=10%; from=2026-11-02; to=2026-11-01"));
+        assertThrows(IllegalArgumentException.class, () -> PriceRule.parse("Empty; off=10%; from=2026-11-01; to=2026-11-01"));
+        assertThrows(IllegalArgumentException.class, () -> PriceRule.parse("Typo; off=10%; from=2026-13-01"));
+    }
+
+    @Test
+    void engineAppliesAPromotionOnlyWhileItRuns() throws InterruptedException {
+        Inventory inventory = new Inventory();
+        Perfume perfume = new Perfume("Rose Oud", 10_000, 10);
+        inventory.add(perfume);
+        PricingEngine engine = new PricingEngine();
+        long start = System.currentTimeMillis() + 300;
+        engine.setRules(List.of(
+                new PriceRule("Flash sale", 2500, null, null, 1, start, start + 300),
+                new PriceRule("Finished", 5000, null, null, 1, start - 60_000, start - 30_000)));
+
+        assertEquals(10_000, engine.unitPrice(perfume, PricingEngine.IN_STORE, 1));
+        assertTrue(engine.activeRules().isEmpty());
+        sleepUntil(start);
+        assertEquals(7_500, engine.unitPrice(perfume, PricingEngine.IN_STORE, 1));
+        assertEquals(7_500, engine.unitPrice(perfume, PricingEngine.ONLINE, 1));
+        assertEquals(List.of("Flash sale"), engine.activeRules().stream().map(PriceRule::getName).toList());
+        sleepUntil(start + 300);
+        assertEquals(10_000, engine.unitPrice(perfume, PricingEngine.IN_STORE, 1));
+        assertTrue(engine.activeRules().isEmpty());
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static void sleepUntil(long millis) throws InterruptedException {
+        long wait;
+        while ((wait = millis - System.currentTimeMillis()) > 0) Thread.sleep(wait);
+    }
+}
@@ -0,0 +1,143 @@
+package myperfume;
+
+// Import required packages
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+
+// SalesAnalyticsTest class checking the top sellers list, the hourly and daily rollups, and that days follow
+// local midnight across daylight saving changes (23 hours in March, 25 in November in New York)
+class SalesAnalyticsTest {
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+    private static final long HOUR = 3_600_000L;
+
+    private Inventory inventory;
+
+    @BeforeEach
+    void setUp() {
+        inventory = new Inventory();
+        for (String name : List.of("Rose Oud", "Amber Musk", "Vetiver", "Neroli")) {
+            inventory.add(new Perfume(name, Money.ofRinggit(10), 100));
+        }
+    }
+
+    @Test
+    void topSellersKeepTheBestAndLetOthersCatchUp() {
+        SalesAnalytics analytics = new SalesAnalytics(2, NEW_YORK);
+        sell(analytics, 0, 5, 0);
+        sell(analytics, 1, 3, 0);
+        sell(analytics, 2, 4, 0); // pushes out Amber Musk
+        assertEquals(List.of(0, 2), skus(analytics.topSellers()));
+
+        sell(analytics, 1, 2, 0); // Amber Musk reaches 5, more than Vetiver
+        assertEquals(List.of(0, 1), skus(analytics.topSellers()).stream().sorted().toList());
+
+        sell(analytics, 0, 10, 0); // Rose Oud's heap key is now stale
+        sell(analytics, 3, 6, 0); // enough to beat Amber Musk but not Rose Oud
+        assertEquals(List.of(0, 3), skus(analytics.topSellers()));
+        assertEquals(15, analytics.topSellers().get(0).getUnits());
+
+        assertEquals(4, analytics.forSku(2).getUnits());
+        assertEquals(5, analytics.forSku(1).getUnits());
+        assertEquals(Money.ofRinggit(40), analytics.forSku(2).getSalesSen());
+        assertNull(new SalesAnalytics(2).forSku(0));
+    }
+
+    @Test
+    void orderTypesCountOrdersOnlyOnTheirFirstLine() {
+        SalesAnalytics analytics = new SalesAnalytics(3, NEW_YORK);
+        analytics.recordSale(inventory.get(0), 2, 2000, "Online", true, 0);
+        analytics.recordSale(inventory.get(1), 1, 1000, "Online", false, 0);
+        analytics.recordSale(inventory.get(0), 1, 1000, "InStore", true, 0);
+        List<SalesAnalytics.TypeTotals> types = analytics.byOrderType();
+        assertEquals(List.of("InStore", "Online"), types.stream().map(SalesAnalytics.TypeTotals::getOrderType).toList());
+        assertEquals(1, types.get(0).getOrders());
+        assertEquals(1, types.get(1).getOrders()); // two lines, one order
+        assertEquals(3, types.get(1).getUnits());
+        assertEquals(3000, types.get(1).getSalesSen());
+    }
+
+    @Test
+    void hoursRollOverAndOldSlotsAreCleared() {
+        SalesAnalytics analytics = new SalesAnalytics(3, NEW_YORK);
+        long start = 1000 * HOUR;
+        analytics.recordSale(inventory.get(0), 2, 2000, "Online", true, start + 10);
+        analytics.recordSale(inventory.get(0), 1, 1000, "Online", true, start + HOUR + 10);
+        List<SalesAnalytics.Period> hours = analytics.lastHours(3, start + HOUR + 20);
+        assertEquals(List.of(start - HOUR, start, start + HOUR), starts(hours));
+        assertEquals(List.of(0L, 2L, 1L), hours.stream().map(SalesAnalytics.Period::getUnits).toList());
+        assertEquals(1, hours.get(2).getOrders());
+
+        // the same ring slot one lap later starts from zero instead of adding to the old hour
+        long lap = start + SalesAnalytics.HOURS_KEPT * HOUR;
+        analytics.recordSale(inventory.get(0), 4, 4000, "Online", true, lap + 5);
+        List<SalesAnalytics.Period> now = analytics.lastHours(1, lap + 6);
+        assertEquals(4, now.get(0).getUnits());
+        assertEquals(4000, now.get(0).getSalesSen());
+        List<SalesAnalytics.Period> window = analytics.lastHours(SalesAnalytics.HOURS_KEPT, lap + 6);
+        assertEquals(start + HOUR, window.get(0).getStartMillis()); // the oldest hour still kept
+        assertEquals(1, window.get(0).getUnits());
+        assertEquals(SalesAnalytics.HOURS_KEPT, analytics.lastHours(1000, lap).size());
+    }
+
+    @Test
+    void springForwardDayIs23Hours() {
+        SalesAnalytics analytics = new SalesAnalytics(3, NEW_YORK);
+        analytics.recordSale(inventory.get(0), 1, 1000, "Online", true, at(2026, 3, 8, 1, 30)); // before the change
+        analytics.recordSale(inventory.get(0), 2, 2000, "Online", true, at(2026, 3, 8, 23, 30));
+        analytics.recordSale(inventory.get(0), 4, 4000, "Online", true, at(2026, 3, 9, 0, 30));
+        List<SalesAnalytics.Period> days = analytics.lastDays(3, at(2026, 3, 9, 12, 0));
+        assertEquals(List.of(at(2026, 3, 7, 0, 0), at(2026, 3, 8, 0, 0), at(2026, 3, 9, 0, 0)), starts(days));
+        assertEquals(24 * HOUR, days.get(1).getStartMillis() - days.get(0).getStartMillis());
+        assertEquals(23 * HOUR, days.get(2).getStartMillis() - days.get(1).getStartMillis());
+        assertEquals(List.of(0L, 3L, 4L), days.stream().map(SalesAnalytics.Period::getUnits).toList());
+        assertEquals(2, days.get(1).getOrders());
+    }
+
+    @Test
+    void fallBackDayIs25Hours() {
+        SalesAnalytics analytics = new SalesAnalytics(3, NEW_YORK);
+        long dayStart = at(2026, 11, 1, 0, 0);
+        analytics.recordSale(inventory.get(0), 1, 1000, "Online", true, dayStart + 24 * HOUR + 30 * 60_000L); // 23:30 local
+        analytics.recordSale(inventory.get(0), 2, 2000, "Online", true, dayStart + 25 * HOUR); // midnight, the next day
+        List<SalesAnalytics.Period> days = analytics.lastDays(2, at(2026, 11, 2, 9, 0));
+        assertEquals(List.of(dayStart, at(2026, 11, 2, 0, 0)), starts(days));
+        assertEquals(25 * HOUR, days.get(1).getStartMillis() - days.get(0).getStartMillis());
+        assertEquals(1, days.get(0).getUnits());
+        assertEquals(2, days.get(1).getUnits());
+    }
+
+    @Test
+    void lastDaysStartAtLocalMidnightAcrossBothChanges() {
+        SalesAnalytics analytics = new SalesAnalytics(3, NEW_YORK);
+        List<SalesAnalytics.Period> days = analytics.lastDays(SalesAnalytics.DAYS_KEPT, at(2026, 11, 5, 8, 0));
+        assertEquals(SalesAnalytics.DAYS_KEPT, days.size());
+        LocalDate date = LocalDate.of(2026, 11, 5).minusDays(SalesAnalytics.DAYS_KEPT - 1);
+        for (SalesAnalytics.Period day : days) {
+            assertEquals(date.atStartOfDay(NEW_YORK).toInstant().toEpochMilli(), day.getStartMillis(), date.toString());
+            date = date.plusDays(1);
+        }
+        assertEquals(List.of(at(2026, 3, 7, 0, 0), at(2026, 3, 8, 0, 0), at(2026, 3, 9, 0, 0)),
+                starts(analytics.lastDays(3, at(2026, 3, 9, 0, 0)))); // midnight itself belongs to the new day
+        assertEquals(at(2026, 3, 8, 0, 0), analytics.lastDays(1, at(2026, 3, 9, 0, 0) - 1).get(0).getStartMillis());
+    }
+
+    private void sell(SalesAnalytics analytics, int sku, int quantity, long nowMillis) {
+        analytics.recordSale(inventory.get(sku), quantity, Money.times(Money.ofRinggit(10), quantity), "InStore", true, nowMillis);
+    }
+
+    private static List<Integer> skus(List<SalesAnalytics.SkuTotals> totals) {
+        return totals.stream().map(SalesAnalytics.SkuTotals::getSku).toList();
+    }
+
+    private static List<Long> starts(List<SalesAnalytics.Period> periods) {
+        return periods.stream().map(SalesAnalytics.Period::getStartMillis).toList();
+    }
+
+    // Method to get the instant of a New York wall clock time
+    private static long at(int year, int month, int day, int hour, int minute) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, NEW_YORK).toInstant().toEpochMilli();
+    }
+}
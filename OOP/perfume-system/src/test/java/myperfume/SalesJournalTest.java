@@ -0,0 +1,217 @@
+package myperfume;
+
+// Import required packages
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+// SalesJournalTest class checking what a restart recovers from the journal: every record up to the first torn or
+// damaged one, and the snapshots with the segments written after them
+class SalesJournalTest {
+    private static final int LARGE_SEGMENT = 1024 * 1024; // every record of a test stays in the first segment
+    private static final int SMALL_SEGMENT = 256; // about ten sale records a segment
+
+    @TempDir
+    Path temp;
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() {
+        dir = temp.resolve("journal");
+    }
+
+    @Test
+    void recoversEveryChangeAfterClose() throws IOException {
+        Inventory inventory = seededInventory();
+        SalesJournal journal = open(dir, inventory, LARGE_SEGMENT);
+        sell(inventory.get(0), 10);
+        inventory.get(1).addStock(5);
+        inventory.add(new Perfume("Vetiver", Money.ofRinggit(50), 7));
+        inventory.get(2).addSales(2);
+        journal.close();
+
+        SalesMetrics metrics = new SalesMetrics();
+        Inventory recovered = recover(dir, metrics);
+        assertEquals(3, recovered.size());
+        assertEquals(90, recovered.get(0).getStockQuantity());
+        assertEquals(10, recovered.get(0).getQuantitySold());
+        assertEquals(25, recovered.get(1).getStockQuantity());
+        assertEquals("Vetiver", recovered.get(2).getName());
+        assertEquals(5, recovered.get(2).getStockQuantity());
+        assertEquals(10 * 1000 + 2 * 5000, metrics.snapshot().getTotalSen());
+    }
+
+    @Test
+    void tornTailIsDroppedAndOverwritten() throws IOException {
+        Inventory inventory = seededInventory();
+        SalesJournal journal = open(dir, inventory, LARGE_SEGMENT);
+        sell(inventory.get(0), 10);
+        journal.close();
+        deleteSnapshots(dir);
+        Path segment = segment(dir, 1);
+        List<Integer> records = recordOffsets(segment);
+        assertEquals(10, records.size());
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(records.get(9) + 13); // the crash came in the middle of the last record
+        }
+
+        Inventory recovered = seededInventory();
+        journal = open(dir, recovered, LARGE_SEGMENT);
+        assertEquals(9, recovered.get(0).getQuantitySold());
+        assertEquals(91, recovered.get(0).getStockQuantity());
+        sell(recovered.get(0), 1); // written where the torn record was
+        journal.close();
+        deleteSnapshots(dir);
+
+        assertEquals(10, recordOffsets(segment).size());
+        Inventory again = recover(dir, new SalesMetrics());
+        assertEquals(10, again.get(0).getQuantitySold());
+        assertEquals(90, again.get(0).getStockQuantity());
+    }
+
+    @Test
+    void replayStopsAtChecksumMismatch() throws IOException {
+        Inventory inventory = seededInventory();
+        SalesJournal journal = open(dir, inventory, LARGE_SEGMENT);
+        sell(inventory.get(0), 10);
+        journal.close();
+        deleteSnapshots(dir);
+        Path segment = segment(dir, 1);
+        int damaged = recordOffsets(segment).get(4);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, damaged + 12);
+            b.put(0, (byte) (b.get(0) ^ 0x40)).rewind();
+            channel.write(b, damaged + 12);
+        }
+
+        SalesMetrics metrics = new SalesMetrics();
+        Inventory recovered = recover(dir, metrics);
+        assertEquals(4, recovered.get(0).getQuantitySold()); // nothing after the damaged record is trusted
+        assertEquals(96, recovered.get(0).getStockQuantity());
+        assertEquals(4 * 1000, metrics.snapshot().getTotalSen());
+    }
+
+    @Test
+    void snapshotsDropOldSegmentsAndRecoverWithLaterRecords() throws IOException {
+        Inventory inventory = seededInventory();
+        SalesJournal journal = open(dir, inventory, SMALL_SEGMENT);
+        sell(inventory.get(0), 30);
+        journal.snapshot();
+        sell(inventory.get(0), 30);
+        journal.snapshot();
+        sell(inventory.get(1), 15);
+        assertEquals(0, journal.getFailedWrites());
+        Path firstSegment = segment(dir, 1);
+        assertFalse(Files.exists(firstSegment)); // covered by both snapshots
+        Path unclosed = copy(dir, temp.resolve("crashed")); // as left by a crash after the second snapshot
+        journal.close();
+
+        Inventory recovered = recover(dir, new SalesMetrics());
+        assertEquals(60, recovered.get(0).getQuantitySold());
+        assertEquals(40, recovered.get(0).getStockQuantity());
+        assertEquals(15, recovered.get(1).getQuantitySold());
+        assertEquals(5, recovered.get(1).getStockQuantity());
+
+        Inventory afterCrash = recover(unclosed, new SalesMetrics());
+        assertEquals(60, afterCrash.get(0).getQuantitySold());
+        assertEquals(15, afterCrash.get(1).getQuantitySold());
+    }
+
+    @Test
+    void damagedSnapshotFallsBackToThePreviousOne() throws IOException {
+        Inventory inventory = seededInventory();
+        SalesJournal journal = open(dir, inventory, SMALL_SEGMENT);
+        sell(inventory.get(0), 20);
+        journal.snapshot();
+        sell(inventory.get(0), 20);
+        journal.snapshot();
+        sell(inventory.get(1), 12);
+        journal.close(); // writes a third snapshot, the second becomes the previous one
+        Path snapshot = dir.resolve("snapshot.bin");
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 0x01;
+        Files.write(snapshot, bytes);
+
+        Inventory recovered = recover(dir, new SalesMetrics());
+        assertEquals(40, recovered.get(0).getQuantitySold());
+        assertEquals(60, recovered.get(0).getStockQuantity());
+        assertEquals(12, recovered.get(1).getQuantitySold());
+        assertEquals(8, recovered.get(1).getStockQuantity());
+    }
+
+    @Test
+    void changesAfterCloseAreCountedNotWritten() throws IOException {
+        Inventory inventory = seededInventory();
+        SalesJournal journal = open(dir, inventory, LARGE_SEGMENT);
+        sell(inventory.get(0), 3);
+        journal.close();
+        sell(inventory.get(0), 2);
+        assertEquals(2, journal.getLateWrites());
+
+        Inventory recovered = recover(dir, new SalesMetrics());
+        assertEquals(3, recovered.get(0).getQuantitySold());
+    }
+
+    // Method to build the catalog every run starts from, the journal only holds the changes made to it
+    private static Inventory seededInventory() {
+        Inventory inventory = new Inventory();
+        inventory.add(new Perfume("Rose Oud", Money.ofRinggit(10), 100));
+        inventory.add(new Perfume("Amber Musk", Money.ofRinggit(20), 20));
+        return inventory;
+    }
+
+    private static SalesJournal open(Path dir, Inventory inventory, int segmentSize) throws IOException {
+        return SalesJournal.open(dir, inventory, new SalesMetrics(), new StoreNetwork(inventory), segmentSize, 0);
+    }
+
+    // Method to restart on a journal directory and return the recovered inventory
+    private static Inventory recover(Path dir, SalesMetrics metrics) throws IOException {
+        Inventory inventory = seededInventory();
+        SalesJournal.open(dir, inventory, metrics, new StoreNetwork(inventory), LARGE_SEGMENT, 0).close();
+        return inventory;
+    }
+
+    private static void sell(Perfume perfume, int times) {
+        for (int i = 0; i < times; i++) perfume.addSales(1);
+    }
+
+    private static Path segment(Path dir, int number) {
+        return dir.resolve(String.format("journal-%08d.log", number));
+    }
+
+    private static void deleteSnapshots(Path dir) throws IOException {
+        Files.deleteIfExists(dir.resolve("snapshot.bin"));
+        Files.deleteIfExists(dir.resolve("snapshot.prev.bin"));
+    }
+
+    // Method to list where each complete record of a segment starts
+    private static List<Integer> recordOffsets(Path segment) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(segment));
+        ArrayList<Integer> offsets = new ArrayList<>();
+        int off = 0;
+        while (off + 8 <= buf.limit()) {
+            int length = buf.getInt(off);
+            if (length <= 0 || off + 8 + length > buf.limit()) break;
+            offsets.add(off);
+            off += 8 + length;
+        }
+        return offsets;
+    }
+
+    private static Path copy(Path from, Path to) throws IOException {
+        Files.createDirectories(to);
+        try (Stream<Path> files = Files.list(from)) {
+            for (Path file : files.collect(Collectors.toList())) Files.copy(file, to.resolve(file.getFileName()));
+        }
+        return to;
+    }
+}
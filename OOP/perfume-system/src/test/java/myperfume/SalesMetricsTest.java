@@ -0,0 +1,58 @@
+package myperfume;
+
+// Import required packages
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.*;
+
+// SalesMetricsTest class checking that concurrent sales are all counted and that a snapshot taken meanwhile never
+// holds the money of a sale without its units
+class SalesMetricsTest {
+    private static final int THREADS = 4;
+    private static final int SALES = 100_000;
+
+    @Test
+    void countsEverySaleFromEveryThread() throws Exception {
+        SalesMetrics metrics = new SalesMetrics(2); // fewer stripes than threads, so writers share them
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                writers.add(pool.submit(() -> {
+                    for (int i = 0; i < SALES; i++) metrics.recordSale(1250, 1);
+                }));
+            }
+            for (Future<?> writer : writers) writer.get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        SalesMetrics.Snapshot totals = metrics.snapshot();
+        assertEquals((long) THREADS * SALES, totals.getPerfumesSold());
+        assertEquals(1250L * THREADS * SALES, totals.getTotalSen());
+    }
+
+    @Test
+    void snapshotsKeepMoneyAndUnitsTogether() throws Exception {
+        SalesMetrics metrics = new SalesMetrics(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                writers.add(pool.submit(() -> {
+                    for (int i = 0; i < SALES; i++) metrics.recordSale(700L * (1 + i % 3), 1 + i % 3); // RM7 a unit
+                }));
+            }
+            int snapshots = 0;
+            while (!writers.stream().allMatch(Future::isDone) || snapshots == 0) {
+                SalesMetrics.Snapshot s = metrics.snapshot();
+                assertEquals(s.getPerfumesSold() * 700, s.getTotalSen());
+                snapshots++;
+            }
+            for (Future<?> writer : writers) writer.get();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package myperfume;
+
+// Import required packages
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.*;
+
+// SessionCacheTest class checking that sessions end after their lifetime, when ended by hand, and oldest first
+// once there are more than the cache keeps
+class SessionCacheTest {
+    private UserStore users;
+    private UserStore.User alice;
+
+    @BeforeEach
+    void setUp() {
+        users = new UserStore(null, 1000);
+        alice = users.add("alice", "secret1".toCharArray(), UserStore.Role.CUSTOMER);
+    }
+
+    @Test
+    void tokensMapBackToTheirUser() {
+        SessionCache sessions = new SessionCache(60, 10);
+        SessionCache.Session first = sessions.create(alice);
+        SessionCache.Session second = sessions.create(alice);
+        assertNotEquals(first.getToken(), second.getToken());
+        assertSame(first, sessions.get(first.getToken()));
+        assertSame(alice, sessions.get(second.getToken()).getUser());
+        assertFalse(first.isAdmin());
+        assertNull(sessions.get("no-such-token"));
+        assertNull(sessions.get(null));
+        assertEquals(2, sessions.getHitCount());
+        assertEquals(2, sessions.getMissCount());
+    }
+
+    @Test
+    void sessionsExpireAfterTheirLifetime() throws Exception {
+        SessionCache sessions = new SessionCache(1, 10);
+        SessionCache.Session session = sessions.create(alice);
+        assertNotNull(sessions.get(session.getToken()));
+        Thread.sleep(1100);
+        assertNull(sessions.get(session.getToken()));
+        assertEquals(0, sessions.size()); // dropped when looked up
+    }
+
+    @Test
+    void expiredSessionsAreDroppedWhenOthersStart() throws Exception {
+        SessionCache sessions = new SessionCache(1, 10);
+        sessions.create(alice);
+        sessions.create(alice);
+        Thread.sleep(1100);
+        SessionCache.Session fresh = sessions.create(alice);
+        assertEquals(1, sessions.size());
+        assertSame(fresh, sessions.get(fresh.getToken()));
+    }
+
+    @Test
+    void oldestSessionsAreEvictedPastTheLimit() {
+        SessionCache sessions = new SessionCache(60, 3);
+        List<SessionCache.Session> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) created.add(sessions.create(alice));
+        assertEquals(3, sessions.size());
+        assertNull(sessions.get(created.get(0).getToken()));
+        assertNull(sessions.get(created.get(1).getToken()));
+        for (int i = 2; i < 5; i++) assertNotNull(sessions.get(created.get(i).getToken()));
+    }
+
+    @Test
+    void invalidatedSessionsEnd() {
+        SessionCache sessions = new SessionCache(60, 10);
+        UserStore.User bob = users.add("bob", "secret2".toCharArray(), UserStore.Role.ADMIN);
+        SessionCache.Session one = sessions.create(alice);
+        SessionCache.Session two = sessions.create(alice);
+        SessionCache.Session admin = sessions.create(bob);
+        assertTrue(admin.isAdmin());
+
+        assertTrue(sessions.invalidate(one.getToken()));
+        assertFalse(sessions.invalidate(one.getToken()));
+        assertNull(sessions.get(one.getToken()));
+        assertEquals(0, one.getExpiresMillis());
+
+        sessions.invalidateUser("ALICE");
+        assertNull(sessions.get(two.getToken()));
+        assertSame(admin, sessions.get(admin.getToken()));
+    }
+
+    @Test
+    void settingsMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new SessionCache(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new SessionCache(60, 0));
+    }
+}
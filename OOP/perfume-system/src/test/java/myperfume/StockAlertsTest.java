@@ -0,0 +1,100 @@
+package myperfume;
+
+// Import required packages
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.*;
+
+// StockAlertsTest class checking that alerts are edge-triggered: one event when stock crosses the threshold or
+// reaches zero, none while it stays low, and one RESTOCKED once it climbs past the threshold plus the margin
+class StockAlertsTest {
+    private Inventory inventory;
+    private StoreNetwork stores;
+    private StockEventBus bus;
+    private StockAlerts alerts;
+    private final List<StockEvent> events = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        inventory = new Inventory();
+        stores = new StoreNetwork(inventory, List.<String[]>of(new String[] {"Mid Valley", "Lingkaran Syed Putra"}));
+        bus = new StockEventBus(64);
+        bus.subscribe("test", events::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bus.close();
+    }
+
+    @Test
+    void sellingDownAlertsOnceAtTheThresholdAndOnceAtZero() throws Exception {
+        Perfume perfume = watched(10, 5);
+        for (int i = 0; i < 10; i++) perfume.addSales(1);
+        assertEquals(List.of("LOW_STOCK 5", "OUT_OF_STOCK 0"), delivered());
+        assertThrows(IllegalArgumentException.class, () -> perfume.addSales(1)); // a failed sale does not alert again
+        assertEquals(2, delivered().size());
+    }
+
+    @Test
+    void restockedOnlyPastTheMarginAndThenAlertsAgain() throws Exception {
+        Perfume perfume = watched(6, 4); // margin 2, so alerts re-arm above 6
+        perfume.addSales(3);
+        perfume.addStock(3); // back to 6, still within the margin
+        perfume.addSales(1);
+        assertEquals(List.of("LOW_STOCK 3"), delivered());
+
+        perfume.addStock(2); // 7
+        perfume.addSales(4); // 3
+        assertEquals(List.of("LOW_STOCK 3", "RESTOCKED 7", "LOW_STOCK 3"), delivered());
+    }
+
+    @Test
+    void storesAlertSeparately() throws Exception {
+        Perfume perfume = watched(10, 2);
+        Store branch = stores.get(1);
+        stores.transfer(perfume, stores.main(), branch, 3);
+        stores.reserve(branch, perfume, 1);
+        stores.record(branch, perfume, 1, perfume.getPriceSen());
+        assertEquals(List.of("LOW_STOCK 2 Mid Valley"), delivered(true));
+        assertEquals(1, alerts.getLowCount());
+    }
+
+    @Test
+    void newThresholdAlertsStraightAway() throws Exception {
+        Perfume perfume = watched(10, 2);
+        alerts.setThreshold(perfume, 10);
+        assertEquals(10, alerts.thresholdOf(perfume));
+        // the branch has never had any, so it is out of stock there
+        assertEquals(List.of("LOW_STOCK 10 " + StoreNetwork.MAIN_STORE_NAME, "OUT_OF_STOCK 0 Mid Valley"), delivered(true));
+        assertEquals(2, alerts.getLowCount());
+        assertThrows(IllegalArgumentException.class, () -> alerts.setThreshold(perfume, -1));
+    }
+
+    // Method to add a perfume to the inventory with alerts at the given threshold
+    private Perfume watched(int stock, int threshold) {
+        alerts = new StockAlerts(stores, bus, threshold);
+        inventory.addListener(alerts);
+        Perfume perfume = new Perfume("Rose Oud", Money.ofRinggit(120), stock);
+        inventory.add(perfume);
+        return perfume;
+    }
+
+    // Method to wait until the subscriber has every published event, returns them as "TYPE stock"
+    private List<String> delivered() throws InterruptedException {
+        return delivered(false);
+    }
+
+    private List<String> delivered(boolean withStore) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (events.size() < bus.getPublished() && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        List<String> result = new ArrayList<>();
+        synchronized (events) {
+            for (StockEvent event : events) {
+                result.add(event.getType() + " " + event.getStock() + (withStore ? " " + event.getStore().getName() : ""));
+            }
+        }
+        return result;
+    }
+}
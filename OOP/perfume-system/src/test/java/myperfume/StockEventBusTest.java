@@ -0,0 +1,55 @@
+package myperfume;
+
+// Import required packages
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.junit.jupiter.api.*;
+
+// StockEventBusTest class checking that every event accepted by publish is delivered before close returns,
+// even when close runs while publishers are still busy, and that later events are refused
+class StockEventBusTest {
+    private static final int THREADS = 4;
+    private static final StockEvent EVENT = new StockEvent(StockEvent.Type.LOW_STOCK, null, null, 1, 5);
+
+    @Test
+    void acceptedEventsAreDeliveredBeforeCloseReturns() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            StockEventBus bus = new StockEventBus(1 << 16);
+            AtomicInteger delivered = new AtomicInteger();
+            AtomicBoolean closed = new AtomicBoolean();
+            bus.subscribe("count", event -> delivered.incrementAndGet());
+            bus.subscribe("after-close", new StockEventSubscriber() {
+                public void onEvent(StockEvent event) {}
+                public void close() { closed.set(true); }
+            });
+            AtomicInteger accepted = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+            try {
+                CountDownLatch started = new CountDownLatch(THREADS);
+                List<Future<?>> publishers = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    publishers.add(pool.submit(() -> {
+                        started.countDown();
+                        for (int i = 0; i < 10_000; i++) {
+                            if (bus.publish(EVENT)) accepted.incrementAndGet();
+                        }
+                    }));
+                }
+                started.await();
+                bus.close();
+                int atClose = delivered.get();
+                assertTrue(closed.get());
+                for (Future<?> publisher : publishers) publisher.get(60, TimeUnit.SECONDS);
+                assertEquals(accepted.get(), atClose, "an accepted event was queued behind STOP");
+                assertEquals(accepted.get(), delivered.get());
+            } finally {
+                pool.shutdownNow();
+            }
+            assertFalse(bus.publish(EVENT));
+            assertThrows(IllegalStateException.class, () -> bus.subscribe("late", event -> {}));
+        }
+    }
+}
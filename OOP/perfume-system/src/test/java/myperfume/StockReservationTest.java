@@ -0,0 +1,177 @@
+package myperfume;
+
+// Import required packages
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.junit.jupiter.api.*;
+
+// StockReservationTest class checking that stock taken by concurrent orders never goes below zero, and that
+// cancelled or idle orders give their stock back
+class StockReservationTest {
+    private static final int THREADS = 8;
+
+    private Inventory savedInventory;
+    private StoreNetwork savedStores;
+    private Inventory inventory;
+    private Perfume perfume;
+
+    @BeforeEach
+    void setUp() {
+        savedInventory = NewMyPerfumeSystem.inventory;
+        savedStores = NewMyPerfumeSystem.stores;
+        inventory = new Inventory();
+        NewMyPerfumeSystem.inventory = inventory;
+        NewMyPerfumeSystem.stores = new StoreNetwork(inventory);
+        perfume = new Perfume("Rose Oud", Money.ofRinggit(120), 1000);
+        inventory.add(perfume);
+    }
+
+    @AfterEach
+    void tearDown() {
+        NewMyPerfumeSystem.inventory = savedInventory;
+        NewMyPerfumeSystem.stores = savedStores;
+    }
+
+    @Test
+    void concurrentReservesNeverOversell() throws Exception {
+        AtomicInteger taken = new AtomicInteger();
+        runTogether(() -> {
+            while (perfume.tryReserve(1)) taken.incrementAndGet();
+            return null;
+        });
+        assertEquals(1000, taken.get());
+        assertEquals(0, perfume.getStockQuantity());
+        assertFalse(perfume.tryReserve(1));
+    }
+
+    @Test
+    void concurrentReservesOfDifferentSizesNeverOversell() throws Exception {
+        AtomicInteger taken = new AtomicInteger();
+        runTogether(() -> {
+            int quantity = 1 + ThreadLocalRandom.current().nextInt(7);
+            int misses = 0;
+            while (misses < 100) {
+                if (perfume.tryReserve(quantity)) taken.addAndGet(quantity);
+                else misses++;
+            }
+            return null;
+        });
+        assertEquals(1000, taken.get() + perfume.getStockQuantity());
+        assertTrue(perfume.getStockQuantity() >= 0 && perfume.getStockQuantity() < 7);
+    }
+
+    @Test
+    void concurrentOrdersNeverOversell() throws Exception {
+        AtomicInteger ordered = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        runTogether(() -> {
+            while (true) {
+                Order order = new InStoreOrder(new Customer("Test", "000"), NewMyPerfumeSystem.stores.main());
+                try {
+                    order.addPerfume(perfume, 3);
+                } catch (IllegalArgumentException e) {
+                    refused.incrementAndGet();
+                    return null;
+                }
+                order.commit();
+                ordered.addAndGet(3);
+            }
+        });
+        assertEquals(999, ordered.get());
+        assertEquals(1, perfume.getStockQuantity());
+        assertEquals(THREADS, refused.get());
+        assertEquals(999, perfume.getQuantitySold());
+    }
+
+    @Test
+    void reserveRefusesZeroAndNegativeQuantities() {
+        assertThrows(IllegalArgumentException.class, () -> perfume.tryReserve(0));
+        assertThrows(IllegalArgumentException.class, () -> perfume.tryReserve(-5));
+        assertEquals(1000, perfume.getStockQuantity());
+    }
+
+    @Test
+    void cancelGivesStockBack() {
+        Perfume other = new Perfume("Amber Musk", Money.ofRinggit(80), 10);
+        inventory.add(other);
+        Order order = new InStoreOrder(new Customer("Test", "000"), NewMyPerfumeSystem.stores.main());
+        order.addPerfume(perfume, 40);
+        order.addPerfume(other, 10);
+        order.addPerfume(perfume, 2);
+        assertEquals(958, perfume.getStockQuantity());
+        assertEquals(0, other.getStockQuantity());
+
+        order.cancel();
+        assertEquals(Order.State.CANCELLED, order.getState());
+        assertEquals(1000, perfume.getStockQuantity());
+        assertEquals(10, other.getStockQuantity());
+        assertEquals(0, perfume.getQuantitySold());
+        order.cancel(); // a second cancel gives nothing back twice
+        assertEquals(1000, perfume.getStockQuantity());
+        assertThrows(IllegalStateException.class, () -> order.addPerfume(perfume, 1));
+    }
+
+    @Test
+    void billedOrderCannotBeCancelled() {
+        Order order = new InStoreOrder(new Customer("Test", "000"), NewMyPerfumeSystem.stores.main());
+        order.addPerfume(perfume, 5);
+        order.commit();
+        assertThrows(IllegalStateException.class, order::cancel);
+        assertEquals(995, perfume.getStockQuantity());
+    }
+
+    @Test
+    void idleOrderExpiresAndGivesStockBack() {
+        long idle = TimeUnit.MINUTES.toNanos(15);
+        int open = NewMyPerfumeSystem.openOrders.size();
+        Order order = new InStoreOrder(new Customer("Test", "000"), NewMyPerfumeSystem.stores.main());
+        order.addPerfume(perfume, 25);
+        long lastUsed = order.getLastUsedNanos();
+        assertEquals(975, perfume.getStockQuantity());
+        assertEquals(open + 1, NewMyPerfumeSystem.openOrders.size());
+
+        assertFalse(order.expireIfIdle(lastUsed + idle - 1, idle));
+        assertEquals(Order.State.OPEN, order.getState());
+        assertEquals(975, perfume.getStockQuantity());
+
+        assertTrue(order.expireIfIdle(lastUsed + idle, idle));
+        assertEquals(Order.State.EXPIRED, order.getState());
+        assertEquals(1000, perfume.getStockQuantity());
+        assertEquals(open, NewMyPerfumeSystem.openOrders.size());
+        assertFalse(order.expireIfIdle(lastUsed + 2 * idle, idle));
+        assertThrows(IllegalStateException.class, order::commit);
+        assertEquals(1000, perfume.getStockQuantity());
+    }
+
+    @Test
+    void committedOrderDoesNotExpire() {
+        long idle = TimeUnit.MINUTES.toNanos(15);
+        Order order = new InStoreOrder(new Customer("Test", "000"), NewMyPerfumeSystem.stores.main());
+        order.addPerfume(perfume, 4);
+        order.commit();
+        assertFalse(order.expireIfIdle(order.getLastUsedNanos() + idle, idle));
+        assertEquals(996, perfume.getStockQuantity());
+    }
+
+    // Method to run a task on every thread at once and wait for all of them
+    private static void runTogether(Callable<Void> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Void> result : results) result.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package myperfume;
+
+// Import required packages
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.junit.jupiter.api.*;
+
+// StoreNetworkTest class checking that stock transfers between stores move everything or nothing, are reported once,
+// and that concurrent transfers out of one store never take more than it holds
+class StoreNetworkTest {
+    private static final int THREADS = 4;
+
+    private Inventory inventory;
+    private StoreNetwork stores;
+    private Perfume perfume;
+    private final List<int[]> transfers = Collections.synchronizedList(new ArrayList<>()); // {from, to, quantity}
+
+    @BeforeEach
+    void setUp() {
+        inventory = new Inventory();
+        perfume = new Perfume("Rose Oud", Money.ofRinggit(120), 100);
+        inventory.add(perfume);
+        stores = new StoreNetwork(inventory, List.of(new String[] {"Mid Valley", "Lingkaran Syed Putra"},
+                new String[] {"Pavilion", "Jalan Bukit Bintang"}));
+        inventory.addListener(new InventoryListener() {
+            public void onTransfer(Perfume p, int fromStore, int toStore, int quantity) {
+                transfers.add(new int[] {fromStore, toStore, quantity});
+            }
+        });
+    }
+
+    @Test
+    void transferMovesStockBetweenStores() {
+        Store main = stores.main();
+        Store branch = stores.find("mid valley");
+        stores.transfer(perfume, main, branch, 30);
+        assertEquals(70, main.stockOf(perfume));
+        assertEquals(30, branch.stockOf(perfume));
+        stores.transfer(perfume, branch, stores.get(2), 10);
+        assertEquals(20, branch.stockOf(perfume));
+        assertEquals(10, stores.get(2).stockOf(perfume));
+        assertEquals(100, total());
+        assertEquals(2, transfers.size());
+        assertArrayEquals(new int[] {0, 1, 30}, transfers.get(0));
+        assertArrayEquals(new int[] {1, 2, 10}, transfers.get(1));
+    }
+
+    @Test
+    void transferWithoutEnoughStockMovesNothing() {
+        Store branch = stores.get(1);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> stores.transfer(perfume, branch, stores.main(), 1)); // the branch has none yet
+        assertTrue(e.getMessage().contains("Available: 0"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> stores.transfer(perfume, stores.main(), branch, 101));
+        assertThrows(IllegalArgumentException.class, () -> stores.transfer(perfume, branch, branch, 1));
+        assertThrows(IllegalArgumentException.class, () -> stores.transfer(perfume, stores.main(), branch, 0));
+        assertEquals(100, stores.main().stockOf(perfume));
+        assertEquals(0, branch.stockOf(perfume));
+        assertTrue(transfers.isEmpty());
+    }
+
+    @Test
+    void concurrentTransfersNeverOverdrawTheSource() throws Exception {
+        Store main = stores.main();
+        AtomicInteger moved = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Store to = stores.get(1 + t % 2);
+                workers.add(pool.submit(() -> {
+                    while (true) {
+                        try {
+                            stores.transfer(perfume, main, to, 3);
+                            moved.addAndGet(3);
+                        } catch (IllegalArgumentException e) {
+                            return; // the main store is down to its last unit
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) worker.get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(99, moved.get());
+        assertEquals(1, main.stockOf(perfume));
+        assertEquals(100, total());
+        assertEquals(33, transfers.size());
+    }
+
+    @Test
+    void branchStockAndSalesStayInTheirStore() {
+        Store branch = stores.get(2);
+        stores.addStock(branch, perfume, 5);
+        stores.reserve(branch, perfume, 4);
+        assertEquals(1, branch.stockOf(perfume));
+        assertEquals(100, stores.main().stockOf(perfume));
+        assertThrows(IllegalArgumentException.class, () -> stores.reserve(branch, perfume, 2));
+        assertNull(stores.find("4"));
+        assertSame(stores.main(), stores.find("1"));
+    }
+
+    // Method to add up the stock of the perfume across every store
+    private int total() {
+        int total = 0;
+        for (Store store : stores.list()) total += store.stockOf(perfume);
+        return total;
+    }
+}
@@ -0,0 +1,103 @@
+package myperfume;
+
+// Import required packages
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+// UserStoreTest class checking password hashing and that accounts saved to the file load back and still log in
+class UserStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void passwordsAreCheckedAgainstTheirHash() {
+        UserStore users = new UserStore(null, 1000);
+        UserStore.User alice = users.add("Alice", "secret1".toCharArray(), UserStore.Role.CUSTOMER);
+        assertSame(alice, users.authenticate("alice", "secret1".toCharArray())); // usernames ignore case
+        assertNull(users.authenticate("alice", "secret2".toCharArray()));
+        assertNull(users.authenticate("nobody", "secret1".toCharArray()));
+        assertNull(users.authenticate(null, "secret1".toCharArray()));
+
+        users.setPassword("alice", "changed".toCharArray());
+        assertNull(users.authenticate("alice", "secret1".toCharArray()));
+        assertEquals("Alice", users.authenticate("alice", "changed".toCharArray()).getUsername());
+    }
+
+    @Test
+    void samePasswordGetsADifferentSalt() throws IOException {
+        UserStore users = new UserStore(dir.resolve("users.txt"), 1000);
+        users.add("alice", "secret1".toCharArray(), UserStore.Role.CUSTOMER);
+        users.add("bob", "secret1".toCharArray(), UserStore.Role.CUSTOMER);
+        users.save();
+        List<String[]> lines = accounts(dir.resolve("users.txt"));
+        assertEquals(2, lines.size());
+        assertNotEquals(lines.get(0)[3], lines.get(1)[3]);
+        assertNotEquals(lines.get(0)[4], lines.get(1)[4]);
+        for (String[] line : lines) {
+            assertEquals("1000", line[2]);
+            assertEquals(32, Base64.getDecoder().decode(line[4]).length); // 256 bit hash
+            assertFalse(String.join(";", line).contains("secret1"));
+        }
+    }
+
+    @Test
+    void badAccountsAreRefused() {
+        UserStore users = new UserStore(null, 1000);
+        users.add("admin", "secret1".toCharArray(), UserStore.Role.ADMIN);
+        assertThrows(IllegalArgumentException.class, () -> users.add("ADMIN", "secret2".toCharArray(), UserStore.Role.CUSTOMER));
+        assertThrows(IllegalArgumentException.class, () -> users.add("a;b", "secret2".toCharArray(), UserStore.Role.CUSTOMER));
+        assertThrows(IllegalArgumentException.class, () -> users.add(" carol", "secret2".toCharArray(), UserStore.Role.CUSTOMER));
+        assertThrows(IllegalArgumentException.class, () -> users.add("carol", "abc".toCharArray(), UserStore.Role.CUSTOMER));
+        assertThrows(IllegalArgumentException.class, () -> users.remove("admin")); // the last admin
+        assertThrows(IllegalArgumentException.class, () -> new UserStore(null, 999));
+    }
+
+    @Test
+    void savedAccountsLoadBackAndLogIn() throws IOException {
+        Path file = dir.resolve("users.txt");
+        UserStore users = new UserStore(file, 1000);
+        users.add("boss", "secret1".toCharArray(), UserStore.Role.ADMIN);
+        users.add("carol", "secret2".toCharArray(), UserStore.Role.CUSTOMER);
+        users.save();
+
+        UserStore loaded = open(file);
+        assertEquals(List.of("boss", "carol"), loaded.list().stream().map(UserStore.User::getUsername).toList());
+        assertEquals(UserStore.Role.ADMIN, loaded.authenticate("boss", "secret1".toCharArray()).getRole());
+        assertEquals(UserStore.Role.CUSTOMER, loaded.authenticate("carol", "secret2".toCharArray()).getRole());
+        assertNull(loaded.authenticate("carol", "secret1".toCharArray()));
+    }
+
+    @Test
+    void damagedFilesAreReportedWithTheLine() throws IOException {
+        Path file = dir.resolve("users.txt");
+        Files.write(file, "# accounts\ncarol;CUSTOMER;1000;AAAA\n".getBytes(StandardCharsets.UTF_8));
+        IOException e = assertThrows(IOException.class, () -> open(file));
+        assertTrue(e.getMessage().contains("line 2"), e.getMessage());
+    }
+
+    // Method to open the store the way the system does at startup
+    private static UserStore open(Path file) throws IOException {
+        String saved = System.setProperty("auth.users", file.toString());
+        try {
+            return UserStore.openFromSystemProperties();
+        } finally {
+            if (saved == null) System.clearProperty("auth.users");
+            else System.setProperty("auth.users", saved);
+        }
+    }
+
+    private static List<String[]> accounts(Path file) throws IOException {
+        List<String[]> accounts = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (!line.startsWith("#")) accounts.add(line.split(";"));
+        }
+        return accounts;
+    }
+}